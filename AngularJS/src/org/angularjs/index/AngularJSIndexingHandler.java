@@ -30,10 +30,13 @@ import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.FileViewProvider;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiWhiteSpace;
 import com.intellij.psi.impl.source.tree.CompositeElement;
 import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubIndexKey;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.testFramework.LightVirtualFile;
 import com.intellij.util.*;
@@ -57,14 +60,24 @@ import static org.angularjs.index.AngularJSDirectivesSupport.getDirectiveIndexKe
  * @author Dennis.Ushakov
  */
 public final class AngularJSIndexingHandler extends FrameworkIndexingHandler {
-  private static final Map<String, StubIndexKey<String, JSImplicitElementProvider>> INDEXERS =
-    new HashMap<>();
-  private static final Map<String, Function<String, String>> NAME_CONVERTERS = new HashMap<>();
-  private static final Map<String, Function<PsiElement, String>> DATA_CALCULATORS = new HashMap<>();
+  /**
+   * Everything known about a method name, so that a call is dispatched with a single lookup.
+   *
+   * @param index               index for the elements declared by the method, {@code null} if the name is only used for name conversion
+   * @param nameConverter       converts the declared name to the name of an additional symbol
+   * @param dataCalculator      computes the user data of the declared element
+   * @param polyNameConverter   gives all the names the element is declared with
+   * @param argumentListChecker tells whether the call declares anything at all
+   */
+  private record IndexedMethod(@Nullable StubIndexKey<String, JSImplicitElementProvider> index,
+                               @Nullable Function<String, String> nameConverter,
+                               @Nullable Function<PsiElement, String> dataCalculator,
+                               @Nullable Function<String, List<String>> polyNameConverter,
+                               @Nullable Processor<JSArgumentList> argumentListChecker) {}
+
+  private static final Map<String, IndexedMethod> METHODS;
   private final Map<String, PairProcessor<JSProperty, JSElementIndexingData>> CUSTOM_PROPERTY_PROCESSORS = new HashMap<>();
   private final Map<String, PairProcessor<JSProperty, JSElementIndexingData>> CUSTOM_INDIRECT_PROPERTY_PROCESSORS = new HashMap<>();
-  private static final Map<String, Function<String, List<String>>> POLY_NAME_CONVERTERS = new HashMap<>();
-  private static final Map<String, Processor<JSArgumentList>> ARGUMENT_LIST_CHECKERS = new HashMap<>();
 
   public static final Set<String> INTERESTING_METHODS = new HashSet<>();
   public static final Set<String> INJECTABLE_METHODS = new HashSet<>();
@@ -85,8 +98,25 @@ public final class AngularJSIndexingHandler extends FrameworkIndexingHandler {
   public static final String DEFAULT_RESTRICTIONS = "D";
   public static final String WHEN = "when";
   private static final String RESTRICT_PROP = "restrict";
+  private static final String OTHERWISE = "otherwise";
+  private static final String NGDOC = "ngdoc";
 
   private static final String[] ALL_INTERESTING_METHODS;
+  /**
+   * Identifiers that only AngularJS code uses: the {@code angular} global, the providers of the routing and interpolation configs,
+   * the properties indexed on their own and the ngdoc tag. Generic method names like {@code value}, {@code run} or {@code filter}
+   * are not here, they are in nearly every bundle.
+   */
+  private static final Set<String> FILE_MARKER_WORDS = Set.of(
+    "angular", "$stateProvider", "$urlRouterProvider", "$routeProvider", "$interpolateProvider", START_SYMBOL, END_SYMBOL,
+    BIND_TO_CONTROLLER, TEMPLATE_URL, NGDOC);
+  /**
+   * Methods of an AngularJS module which mark a file only when called as {@code .name(}, e.g. {@code app.directive('myDir', ...)}
+   * in a file that gets the module from elsewhere.
+   */
+  private static final Set<String> FILE_MARKER_METHODS = Set.of(DIRECTIVE, COMPONENT, CONTROLLER, "service", "factory", "provider", "constant");
+  private static final int MIN_MARKER_WORD_LENGTH;
+  private static final int MAX_MARKER_WORD_LENGTH;
   private static final BidirectionalMap<String, StubIndexKey<String, JSImplicitElementProvider>> INDEXES;
   public static final String AS_CONNECTOR_WITH_SPACES = " as ";
 
@@ -104,25 +134,34 @@ public final class AngularJSIndexingHandler extends FrameworkIndexingHandler {
     INJECTABLE_METHODS.addAll(INTERESTING_METHODS);
     Collections.addAll(INJECTABLE_METHODS, CONTROLLER, DIRECTIVE, COMPONENT, MODULE, "config", "run");
 
-    INDEXERS.put(DIRECTIVE, AngularDirectivesIndex.KEY);
-    NAME_CONVERTERS.put(DIRECTIVE, DirectiveUtil::getAttributeName);
-    DATA_CALCULATORS.put(DIRECTIVE, element -> calculateRestrictions(element, DEFAULT_RESTRICTIONS));
-
-    INDEXERS.put(COMPONENT, AngularDirectivesIndex.KEY);
-    DATA_CALCULATORS.put(COMPONENT, element -> calculateRestrictions(element, "E"));
-
-    INDEXERS.put(CONTROLLER, AngularControllerIndex.KEY);
-    INDEXERS.put(MODULE, AngularModuleIndex.KEY);
-    INDEXERS.put(FILTER, AngularFilterIndex.KEY);
-    INDEXERS.put(STATE, AngularUiRouterStatesIndex.KEY);
+    final Function<String, String> attributeNameConverter = DirectiveUtil::getAttributeName;
+    METHODS = Map.of(
+      DIRECTIVE, new IndexedMethod(AngularDirectivesIndex.KEY, attributeNameConverter,
+                                   element -> calculateRestrictions(element, DEFAULT_RESTRICTIONS), null, null),
+      COMPONENT, new IndexedMethod(AngularDirectivesIndex.KEY, null, element -> calculateRestrictions(element, "E"), null, null),
+      CONTROLLER, new IndexedMethod(AngularControllerIndex.KEY, null, null, null, null),
+      // do NOT split module names by dot
+      MODULE, new IndexedMethod(AngularModuleIndex.KEY, null, null, Collections::singletonList, list -> list.getArguments().length > 1),
+      FILTER, new IndexedMethod(AngularFilterIndex.KEY, null, null, null, null),
+      STATE, new IndexedMethod(AngularUiRouterStatesIndex.KEY, null, null, AngularJSIndexingHandler::getNestedStateNames, null),
+      BINDINGS, new IndexedMethod(null, attributeNameConverter, null, null, null),
+      SCOPE, new IndexedMethod(null, attributeNameConverter, null, null, null),
+      BIND_TO_CONTROLLER, new IndexedMethod(null, attributeNameConverter, null, null, null));
 
     final Set<String> allInterestingMethods = new HashSet<>(INTERESTING_METHODS);
     allInterestingMethods.addAll(INJECTABLE_METHODS);
-    allInterestingMethods.addAll(INDEXERS.keySet());
+    METHODS.forEach((name, method) -> {
+      if (method.index() != null) allInterestingMethods.add(name);
+    });
     allInterestingMethods.add(START_SYMBOL);
     allInterestingMethods.add(END_SYMBOL);
     ALL_INTERESTING_METHODS = ArrayUtilRt.toStringArray(allInterestingMethods);
 
+    final Set<String> markers = new HashSet<>(FILE_MARKER_WORDS);
+    markers.addAll(FILE_MARKER_METHODS);
+    MIN_MARKER_WORD_LENGTH = markers.stream().mapToInt(String::length).min().orElse(0);
+    MAX_MARKER_WORD_LENGTH = markers.stream().mapToInt(String::length).max().orElse(0);
+
     INDEXES = new BidirectionalMap<>();
     INDEXES.put("aci", AngularControllerIndex.KEY);
     INDEXES.put(ANGULAR_DIRECTIVES_DOC_INDEX_USER_STRING, AngularDirectivesDocIndex.KEY);
@@ -135,27 +174,70 @@ public final class AngularJSIndexingHandler extends FrameworkIndexingHandler {
     INDEXES.put("arsgi", AngularUiRouterGenericStatesIndex.KEY);
     INDEXES.put("agmi", AngularGenericModulesIndex.KEY);
     INDEXES.put("ajtui", AngularTemplateUrlIndex.KEY);
+  }
+
+  // example of nested states https://scotch.io/tutorials/angular-routing-using-ui-router
+  private static @NotNull List<String> getNestedStateNames(@NotNull String dom) {
+    final String[] parts = dom.split("\\.");
+    final List<String> result = new ArrayList<>();
+    result.add(dom);
+    String tail = "";
+    for (int i = parts.length - 1; i > 0; i--) {
+      final String part = "." + parts[i] + tail;
+      result.add(part);
+      tail = part;
+    }
+    return result;
+  }
 
-    NAME_CONVERTERS.put(BINDINGS, NAME_CONVERTERS.get(DIRECTIVE));
-    NAME_CONVERTERS.put(SCOPE, NAME_CONVERTERS.get(DIRECTIVE));
-    NAME_CONVERTERS.put(BIND_TO_CONTROLLER, NAME_CONVERTERS.get(DIRECTIVE));
-
-    // example of nested states https://scotch.io/tutorials/angular-routing-using-ui-router
-    POLY_NAME_CONVERTERS.put(STATE, (NotNullFunction<String, List<String>>)dom -> {
-      final String[] parts = dom.split("\\.");
-      final List<String> result = new ArrayList<>();
-      result.add(dom);
-      String tail = "";
-      for (int i = parts.length - 1; i > 0; i--) {
-        final String part = "." + parts[i] + tail;
-        result.add(part);
-        tail = part;
+  private static @Nullable StubIndexKey<String, JSImplicitElementProvider> getIndex(@Nullable String command) {
+    final IndexedMethod method = command != null ? METHODS.get(command) : null;
+    return method != null ? method.index() : null;
+  }
+
+  /**
+   * Cheap check that lets the handler skip files that can't declare anything, like big vendor bundles with no AngularJS in them.
+   * Computed once per file from its text.
+   */
+  private static boolean mayContainAngularJSCode(@NotNull PsiElement element) {
+    final PsiFile file = element.getContainingFile();
+    if (file == null) return true;
+    return CachedValuesManager.getCachedValue(file, () -> CachedValueProvider.Result.create(
+      containsFileMarkerWord(file.getViewProvider().getContents()), file));
+  }
+
+  static boolean containsFileMarkerWord(@NotNull CharSequence text) {
+    final int length = text.length();
+    int i = 0;
+    while (i < length) {
+      if (!Character.isJavaIdentifierStart(text.charAt(i))) {
+        i++;
+        continue;
       }
-      return result;
-    });
-    // do NOT split module names by dot
-    POLY_NAME_CONVERTERS.put(MODULE, Collections::singletonList);
-    ARGUMENT_LIST_CHECKERS.put(MODULE, list -> list.getArguments().length > 1);
+      final int start = i++;
+      while (i < length && Character.isJavaIdentifierPart(text.charAt(i))) i++;
+      final int wordLength = i - start;
+      if (wordLength < MIN_MARKER_WORD_LENGTH || wordLength > MAX_MARKER_WORD_LENGTH) continue;
+
+      final String word = text.subSequence(start, i).toString();
+      if (FILE_MARKER_WORDS.contains(word) ||
+          FILE_MARKER_METHODS.contains(word) && charBefore(text, start) == '.' && charAfter(text, i) == '(') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static char charBefore(@NotNull CharSequence text, int offset) {
+    int i = offset - 1;
+    while (i >= 0 && Character.isWhitespace(text.charAt(i))) i--;
+    return i >= 0 ? text.charAt(i) : 0;
+  }
+
+  private static char charAfter(@NotNull CharSequence text, int offset) {
+    int i = offset;
+    while (i < text.length() && Character.isWhitespace(text.charAt(i))) i++;
+    return i < text.length() ? text.charAt(i) : 0;
   }
 
   static final String RESTRICT = "@restrict";
@@ -171,8 +253,8 @@ public final class AngularJSIndexingHandler extends FrameworkIndexingHandler {
 
     final PairProcessor<JSProperty, JSElementIndexingData> processor = createRouterParametersProcessor();
     CUSTOM_PROPERTY_PROCESSORS.put(WHEN, processor);
-    CUSTOM_PROPERTY_PROCESSORS.put("otherwise", processor);
-    CUSTOM_PROPERTY_PROCESSORS.put("state", processor);
+    CUSTOM_PROPERTY_PROCESSORS.put(OTHERWISE, processor);
+    CUSTOM_PROPERTY_PROCESSORS.put(STATE, processor);
   }
 
   public static boolean isInjectable(PsiElement context) {
@@ -212,12 +294,13 @@ public final class AngularJSIndexingHandler extends FrameworkIndexingHandler {
         JSExpression qualifier = ((JSReferenceExpression)methodExpression).getQualifier();
         if (qualifier == null) return;
 
-        final StubIndexKey<String, JSImplicitElementProvider> index = INDEXERS.get(command);
+        final IndexedMethod method = METHODS.get(command);
+        final StubIndexKey<String, JSImplicitElementProvider> index = method != null ? method.index() : null;
         if (index != null) {
           if (argument.isQuotedLiteral()) {
-            final Processor<JSArgumentList> argumentListProcessor = ARGUMENT_LIST_CHECKERS.get(command);
+            final Processor<JSArgumentList> argumentListProcessor = method.argumentListChecker();
             if (argumentListProcessor != null && !argumentListProcessor.process(callExpression.getArgumentList())) return;
-            final Function<PsiElement, String> calculator = DATA_CALCULATORS.get(command);
+            final Function<PsiElement, String> calculator = method.dataCalculator();
             final String data = calculator != null ? calculator.fun(argument) : null;
             final String argumentText = unquote(argument);
             if (data != null && data.startsWith("D;")) {
@@ -262,7 +345,7 @@ public final class AngularJSIndexingHandler extends FrameworkIndexingHandler {
   @Override
   public void processCallExpression(JSCallExpression callExpression, @NotNull JSElementIndexingData outData) {
     final JSReferenceExpression reference = ObjectUtils.tryCast(callExpression.getMethodExpression(), JSReferenceExpression.class);
-    if (reference == null) return;
+    if (reference == null || !mayContainAngularJSCode(callExpression)) return;
     if (JSSymbolUtil.isAccurateReferenceExpressionName(reference, "$stateProvider", STATE)) {
       final JSExpression[] arguments = callExpression.getArguments();
       if (arguments.length == 1 && arguments[0] instanceof JSReferenceExpression) {
@@ -296,7 +379,7 @@ public final class AngularJSIndexingHandler extends FrameworkIndexingHandler {
   @Override
   public @Nullable JSElementIndexingData processAnyProperty(@NotNull JSProperty property, @Nullable JSElementIndexingData outData) {
     final String name = property.getName();
-    if (name == null) return outData;
+    if (name == null || !mayContainAngularJSCode(property)) return outData;
     JSElementIndexingData localOutData;
     if (TEMPLATE_URL.equals(name) && processTemplateUrlProperty(
       property, localOutData = (outData == null ? new JSElementIndexingDataImpl() : outData))) {
@@ -329,7 +412,7 @@ public final class AngularJSIndexingHandler extends FrameworkIndexingHandler {
     if (wrappingCall.level() > 1 || !immediate) return outData;
 
     final PsiElement parent = property.getParent();
-    final StubIndexKey<String, JSImplicitElementProvider> index = INDEXERS.get(command);
+    final StubIndexKey<String, JSImplicitElementProvider> index = getIndex(command);
     if (index == null) return outData;
     if (callExpression.getArguments()[0] != parent) return outData;
 
@@ -397,10 +480,11 @@ public final class AngularJSIndexingHandler extends FrameworkIndexingHandler {
 
   @Override
   public JSElementIndexingData processJSDocComment(final @NotNull JSDocComment comment, @Nullable JSElementIndexingData outData) {
+    if (!mayContainAngularJSCode(comment)) return outData;
     JSDocTag ngdocTag = null;
     JSDocTag nameTag = null;
     for (JSDocTag tag : comment.getTags()) {
-      if ("ngdoc".equals(tag.getName())) {
+      if (NGDOC.equals(tag.getName())) {
         ngdocTag = tag;
       }
       else if ("name".equals(tag.getName())) nameTag = tag;
@@ -529,7 +613,8 @@ public final class AngularJSIndexingHandler extends FrameworkIndexingHandler {
       outData.addImplicitElement(implicitElement);
     };
 
-    final Function<String, List<String>> variants = POLY_NAME_CONVERTERS.get(command);
+    final IndexedMethod method = command != null ? METHODS.get(command) : null;
+    final Function<String, List<String>> variants = method != null ? method.polyNameConverter() : null;
 
     if (variants != null) {
       final List<String> strings = variants.fun(defaultName);
@@ -541,7 +626,7 @@ public final class AngularJSIndexingHandler extends FrameworkIndexingHandler {
       adder.consume(new JSImplicitElementImpl.Builder(JSQualifiedNameImpl.fromQualifiedName(defaultName), elementProvider));
     }
 
-    final Function<String, String> converter = command != null ? NAME_CONVERTERS.get(command) : null;
+    final Function<String, String> converter = method != null ? method.nameConverter() : null;
     final String name = converter != null ? converter.fun(defaultName) : defaultName;
     if (!StringUtil.equals(defaultName, name)) {
       JSImplicitElementImpl.Builder symbolElementBuilder = new JSImplicitElementImpl.Builder(name, elementProvider)
@@ -720,7 +805,7 @@ public final class AngularJSIndexingHandler extends FrameworkIndexingHandler {
           }
         }
         else if ("name".equals(property.getName())) {
-          addImplicitElements(value, STATE, INDEXERS.get(STATE), unquotedValue, null, outData);
+          addImplicitElements(value, STATE, getIndex(STATE), unquotedValue, null, outData);
           return true;
         }
         return true;
@@ -730,7 +815,7 @@ public final class AngularJSIndexingHandler extends FrameworkIndexingHandler {
                                          JSElementIndexingData outData,
                                          JSLiteralExpression value,
                                          String unquotedValue) {
-        final StubIndexKey<String, JSImplicitElementProvider> index = INDEXERS.get(CONTROLLER);
+        final StubIndexKey<String, JSImplicitElementProvider> index = getIndex(CONTROLLER);
         assert index != null;
         final JSObjectLiteralExpression object = ObjectUtils.tryCast(property.getParent(), JSObjectLiteralExpression.class);
         if (object == null) return false;
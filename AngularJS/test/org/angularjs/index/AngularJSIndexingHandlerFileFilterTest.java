@@ -0,0 +1,28 @@
+package org.angularjs.index;
+
+import junit.framework.TestCase;
+
+import static org.angularjs.index.AngularJSIndexingHandler.containsFileMarkerWord;
+
+public class AngularJSIndexingHandlerFileFilterTest extends TestCase {
+
+  public void testFilesWithAngularJSCode() {
+    assertTrue(containsFileMarkerWord("angular.module('app', [])"));
+    assertTrue(containsFileMarkerWord("app.directive('myDir', function() {})"));
+    assertTrue(containsFileMarkerWord("app\n  .service('a', A)\n  .component ('myComp', {bindings: {a: '<'}})"));
+    assertTrue(containsFileMarkerWord("$routeProvider.when('/', {controller: 'MainCtrl'})"));
+    assertTrue(containsFileMarkerWord("export default {templateUrl: 'a.html', bindings: {a: '<'}}"));
+    assertTrue(containsFileMarkerWord("/**\n * @ngdoc directive\n * @name ngClick\n */"));
+  }
+
+  public void testFilesWithoutAngularJSCode() {
+    assertFalse(containsFileMarkerWord(""));
+    assertFalse(containsFileMarkerWord("!function(e,t){var n=e.document;t(n.body)}(window,function(e){return e.a+e.b})"));
+    // words that only contain the method names are not interesting
+    assertFalse(containsFileMarkerWord("var modules = $service; runner.filtered(controllers)"));
+    assertFalse(containsFileMarkerWord("a.$state(b)"));
+    // generic method and property names are in nearly every bundle
+    assertFalse(containsFileMarkerWord("items.filter(isValid).map(value => config.run(value)); when(ready, {scope: s, bindings: b})"));
+    assertFalse(containsFileMarkerWord("var directive = {controller: null}; register(component, factory)"));
+  }
+}
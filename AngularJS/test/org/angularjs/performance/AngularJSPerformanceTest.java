@@ -1,8 +1,27 @@
 package org.angularjs.performance;
 
+import com.intellij.lang.javascript.index.FrameworkIndexingHandler;
+import com.intellij.lang.javascript.psi.JSCallExpression;
+import com.intellij.lang.javascript.psi.JSProperty;
+import com.intellij.lang.javascript.psi.jsdoc.JSDocComment;
+import com.intellij.lang.javascript.psi.stubs.impl.JSElementIndexingDataImpl;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.stubs.StubTreeBuilder;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.ExtensionTestUtil;
 import com.intellij.testFramework.PlatformTestUtil;
 import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.FileContentImpl;
 import org.angularjs.AngularTestUtil;
+import org.angularjs.index.AngularJSIndexingHandler;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author Konstantin.Ulitin
@@ -19,4 +38,95 @@ public class AngularJSPerformanceTest extends BasePlatformTestCase {
     PlatformTestUtil.startPerformanceTest(getTestName(false), 100_000, () -> myFixture.checkHighlighting()).attempts(1).usesAllCPUCores().assertTiming();
   }
 
+  public void testIndexingHandlerOnBundles() {
+    // the handler is asked about every call, property and doc comment of every file: measure what it adds to indexing of vendor bundles,
+    // both AngularJS ones and ones of the same size without AngularJS code, which the handler should skip
+    final List<PsiElement> elements = new ArrayList<>();
+    for (String bundle : new String[]{"angular.1.2.28.js", "angular.1.3.15.js", "angular.1.4.0.js"}) {
+      final PsiFile file = PsiManager.getInstance(getProject())
+        .findFile(myFixture.copyFileToProject("../../resharper/data/" + bundle, bundle));
+      assertNotNull(bundle, file);
+      elements.addAll(PsiTreeUtil.collectElementsOfType(file, JSCallExpression.class, JSProperty.class, JSDocComment.class));
+
+      final PsiFile vendorFile = myFixture.addFileToProject("vendor." + bundle, generateVendorBundle(file.getTextLength()));
+      elements.addAll(PsiTreeUtil.collectElementsOfType(vendorFile, JSCallExpression.class, JSProperty.class, JSDocComment.class));
+    }
+    final AngularJSIndexingHandler handler = new AngularJSIndexingHandler();
+
+    PlatformTestUtil.startPerformanceTest(getTestName(false), 3_000, () -> {
+      for (PsiElement element : elements) {
+        if (element instanceof JSCallExpression call) {
+          if (handler.shouldCreateStubForCallExpression(call.getNode())) {
+            handler.processCallExpression(call, new JSElementIndexingDataImpl());
+          }
+        }
+        else if (element instanceof JSProperty property) {
+          handler.processAnyProperty(property, null);
+        }
+        else {
+          handler.processJSDocComment((JSDocComment)element, null);
+        }
+      }
+    }).assertTiming();
+  }
+
+  public void testIndexingWithAndWithoutHandler() throws Exception {
+    // stub building of the bundles is what the handler slows down in real indexing: compare it with the handler registered and without it
+    final List<PsiFile> files = new ArrayList<>();
+    for (String bundle : new String[]{"angular.1.2.28.js", "angular.1.3.15.js", "angular.1.4.0.js"}) {
+      final PsiFile file = PsiManager.getInstance(getProject())
+        .findFile(myFixture.copyFileToProject("../../resharper/data/" + bundle, bundle));
+      assertNotNull(bundle, file);
+      files.add(file);
+      files.add(myFixture.addFileToProject("vendor." + bundle, generateVendorBundle(file.getTextLength())));
+    }
+
+    final long withHandler = measureStubBuilding(files);
+    final long withoutHandler;
+    final Disposable disposable = Disposer.newDisposable();
+    try {
+      ExtensionTestUtil.maskExtensions(FrameworkIndexingHandler.EP_NAME,
+                                       ContainerUtil.filter(FrameworkIndexingHandler.EP_NAME.getExtensionList(),
+                                                            ep -> !(ep.getHandler() instanceof AngularJSIndexingHandler)),
+                                       disposable);
+      withoutHandler = measureStubBuilding(files);
+    }
+    finally {
+      Disposer.dispose(disposable);
+    }
+
+    assertTrue("stub building took " + withHandler + " ms with AngularJSIndexingHandler and " + withoutHandler + " ms without it",
+               withHandler <= withoutHandler * 3 / 2 + 50);
+  }
+
+  /**
+   * @return the best of several runs, in milliseconds
+   */
+  private long measureStubBuilding(List<PsiFile> files) throws Exception {
+    long best = Long.MAX_VALUE;
+    for (int attempt = 0; attempt < 5; attempt++) {
+      final long start = System.nanoTime();
+      for (PsiFile file : files) {
+        assertNotNull(StubTreeBuilder.buildStubTree(FileContentImpl.createByFile(file.getVirtualFile(), getProject())));
+      }
+      best = Math.min(best, (System.nanoTime() - start) / 1_000_000);
+    }
+    return best;
+  }
+
+  private static String generateVendorBundle(int length) {
+    final StringBuilder text = new StringBuilder(length + 256);
+    for (int i = 0; text.length() < length; i++) {
+      text.append("/**\n")
+        .append(" * Adds two numbers.\n")
+        .append(" * @param {number} a\n")
+        .append(" * @param {number} b\n")
+        .append(" */\n")
+        .append("function add").append(i).append("(a, b) {\n")
+        .append("  return helper.sum({left: a, right: b, name: 'add").append(i).append("'});\n")
+        .append("}\n")
+        .append("lib.register('add").append(i).append("', add").append(i).append(");\n");
+    }
+    return text.toString();
+  }
 }
@@ -8,7 +8,9 @@ import com.intellij.openapi.components.Storage;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Comparing;
 import com.intellij.openapi.util.JDOMUtil;
+import com.intellij.openapi.util.ModificationTracker;
 import com.intellij.openapi.util.NlsSafe;
+import com.intellij.openapi.util.SimpleModificationTracker;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.xmlb.annotations.Property;
 import com.intellij.util.xmlb.annotations.Tag;
@@ -22,6 +24,7 @@ import org.jetbrains.annotations.Nullable;
 @State(name = "CfmlProjectConfiguration", storages = @Storage("cfml.xml"))
 public class CfmlProjectConfiguration implements PersistentStateComponent<CfmlProjectConfiguration.State> {
   private State myState = new State();
+  private final SimpleModificationTracker myModificationTracker = new SimpleModificationTracker();
 
   public static CfmlProjectConfiguration getInstance(Project project) {
     return project.getService(CfmlProjectConfiguration.class);
@@ -37,6 +40,15 @@ public class CfmlProjectConfiguration implements PersistentStateComponent<CfmlPr
   public void loadState(@NotNull State state) {
     myState = state;
     state.migrateIfNeeded();
+    myModificationTracker.incModificationCount();
+  }
+
+  /**
+   * Changes on every {@link #loadState}, e.g. when mappings or the language level are changed.
+   */
+  @NotNull
+  public ModificationTracker getModificationTracker() {
+    return myModificationTracker;
   }
 
   /*
@@ -0,0 +1,91 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.intellij.coldFusion.model.psi;
+
+import com.intellij.coldFusion.UI.config.CfmlProjectConfiguration;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiNamedElement;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Functions and properties of a component together with the ones inherited from its super components, cached per component.
+ * A member of a component hides the members with the same name in its super components, unless the super members have priority
+ * (as for {@code super.member} references).
+ */
+final class CfmlComponentMembers {
+  private final CfmlFunction[] myFunctions;
+  private final CfmlFunction[] myFunctionsSuperPriority;
+  private final CfmlProperty[] myProperties;
+  private final CfmlProperty[] myPropertiesSuperPriority;
+
+  private CfmlComponentMembers(@NotNull List<CfmlComponent> hierarchy) {
+    myFunctions = gather(hierarchy, CfmlComponent::getFunctions, false, CfmlFunction.EMPTY_ARRAY);
+    myFunctionsSuperPriority = gather(hierarchy, CfmlComponent::getFunctions, true, CfmlFunction.EMPTY_ARRAY);
+    myProperties = gather(hierarchy, CfmlComponent::getProperties, false, CfmlProperty.EMPTY_ARRAY);
+    myPropertiesSuperPriority = gather(hierarchy, CfmlComponent::getProperties, true, CfmlProperty.EMPTY_ARRAY);
+  }
+
+  @NotNull
+  static CfmlComponentMembers getInstance(@NotNull CfmlComponent component) {
+    return CachedValuesManager.getCachedValue(component, () -> {
+      List<CfmlComponent> hierarchy = getHierarchy(component);
+      List<Object> dependencies = new ArrayList<>();
+      for (CfmlComponent each : hierarchy) {
+        PsiFile file = each.getContainingFile();
+        if (file != null) {
+          dependencies.add(file);
+        }
+      }
+      // super components may be resolved differently after files are added or moved, or after mappings are changed
+      dependencies.add(VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS);
+      dependencies.add(ProjectRootManager.getInstance(component.getProject()));
+      dependencies.add(CfmlProjectConfiguration.getInstance(component.getProject()).getModificationTracker());
+      return CachedValueProvider.Result.create(new CfmlComponentMembers(hierarchy), dependencies.toArray());
+    });
+  }
+
+  CfmlFunction @NotNull [] getFunctions(boolean isSuperPriority) {
+    return (isSuperPriority ? myFunctionsSuperPriority : myFunctions).clone();
+  }
+
+  CfmlProperty @NotNull [] getProperties(boolean isSuperPriority) {
+    return (isSuperPriority ? myPropertiesSuperPriority : myProperties).clone();
+  }
+
+  /**
+   * @return the component followed by its super components, each component once
+   */
+  @NotNull
+  private static List<CfmlComponent> getHierarchy(@NotNull CfmlComponent component) {
+    Set<CfmlComponent> hierarchy = new LinkedHashSet<>();
+    CfmlComponent current = component;
+    while (current != null && hierarchy.add(current)) {
+      current = current.getSuper();
+    }
+    return new ArrayList<>(hierarchy);
+  }
+
+  private static <Result extends PsiNamedElement> Result @NotNull [] gather(@NotNull List<CfmlComponent> hierarchy,
+                                                                             @NotNull Function<? super CfmlComponent, Result[]> gatherer,
+                                                                             boolean isSuperPriority,
+                                                                             Result @NotNull [] emptyArray) {
+    Map<String, Result> byName = new LinkedHashMap<>();
+    for (CfmlComponent component : isSuperPriority ? hierarchy.subList(1, hierarchy.size()) : hierarchy) {
+      for (Result candidate : gatherer.apply(component)) {
+        byName.putIfAbsent(candidate.getName(), candidate);
+      }
+    }
+    if (isSuperPriority) {
+      for (Result candidate : gatherer.apply(hierarchy.get(0))) {
+        byName.putIfAbsent(candidate.getName(), candidate);
+      }
+    }
+    return byName.values().toArray(emptyArray);
+  }
+}
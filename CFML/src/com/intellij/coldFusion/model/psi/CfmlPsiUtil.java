@@ -20,7 +20,6 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
-import java.util.function.Function;
 
 /**
  * Created by Lera Nikolaenko
@@ -295,37 +294,12 @@ public final class CfmlPsiUtil {
     return null;
   }
 
-  private static <Result extends PsiNamedElement> Result[] componentHierarchyGatherer(CfmlComponent component,
-                                                                                      Function<? super CfmlComponent, Result[]> gatherer,
-                                                                                      Result[] EMPTY_ARRAY, boolean isSuperPriority) {
-    CfmlComponent currentComponent = isSuperPriority ? component.getSuper() : component;
-    Set<String> names = new HashSet<>();
-    List<Result> result = new LinkedList<>();
-    while (currentComponent != null) {
-      for (Result candidate : gatherer.apply(currentComponent)) {
-        if (names.add(candidate.getName())) {
-          result.add(candidate);
-        }
-      }
-      currentComponent = currentComponent.getSuper();
-    }
-    if (isSuperPriority) {
-      currentComponent = component;
-      for (Result candidate : gatherer.apply(currentComponent)) {
-        if (names.add(candidate.getName())) {
-          result.add(candidate);
-        }
-      }
-    }
-    return result.toArray(EMPTY_ARRAY);
-  }
-
   public static CfmlFunction @NotNull [] getFunctionsWithSupers(CfmlComponent component, boolean isSuperPriority) {
-    return componentHierarchyGatherer(component, component1 -> component1.getFunctions(), CfmlFunction.EMPTY_ARRAY, isSuperPriority);
+    return CfmlComponentMembers.getInstance(component).getFunctions(isSuperPriority);
   }
 
   public static CfmlProperty @NotNull [] getPropertiesWithSupers(CfmlComponent component, boolean isSuperPriority) {
-    return componentHierarchyGatherer(component, component1 -> component1.getProperties(), CfmlProperty.EMPTY_ARRAY, isSuperPriority);
+    return CfmlComponentMembers.getInstance(component).getProperties(isSuperPriority);
   }
 
   public static boolean processGlobalVariablesForComponent(CfmlComponent component,
@@ -0,0 +1,75 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.intellij.coldFusion;
+
+import com.intellij.coldFusion.model.files.CfmlFile;
+import com.intellij.coldFusion.model.psi.CfmlComponent;
+import com.intellij.coldFusion.model.psi.CfmlFunction;
+import com.intellij.coldFusion.model.psi.CfmlProperty;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+/**
+ * Members of a component at the bottom of a deep inheritance chain, with hundreds of members per component.
+ */
+public class CfmlComponentMembersPerformanceTest extends BasePlatformTestCase {
+  private static final int LEVELS = 10;
+  private static final int MEMBERS_PER_LEVEL = 200;
+
+  public void testDeepInheritanceChain() {
+    CfmlComponent component = addComponentChain();
+    int memberCount = LEVELS * MEMBERS_PER_LEVEL + 1;
+
+    PlatformTestUtil.startPerformanceTest("Members of a component with " + LEVELS + " super components", 2000, () -> {
+      for (int i = 0; i < 1000; i++) {
+        assertEquals(memberCount, component.getFunctionsWithSupers(false).length);
+        assertEquals(memberCount, component.getFunctionsWithSupers(true).length);
+        assertEquals(LEVELS * MEMBERS_PER_LEVEL, component.getPropertiesWithSupers(false).length);
+      }
+    }).assertTiming();
+
+    // "init" is declared at every level, the one of the component itself hides the others unless super members have priority
+    assertSame(component, findFunction(component.getFunctionsWithSupers(false), "init").getParent());
+    assertNotSame(component, findFunction(component.getFunctionsWithSupers(true), "init").getParent());
+    assertSame(component, findProperty(component.getPropertiesWithSupers(false), "property" + (LEVELS - 1) + "_0").getParent());
+  }
+
+  private CfmlComponent addComponentChain() {
+    PsiFile file = null;
+    for (int level = 0; level < LEVELS; level++) {
+      StringBuilder text = new StringBuilder();
+      text.append("<cfcomponent name=\"Level").append(level).append("\"");
+      if (level > 0) {
+        text.append(" extends=\"components.Level").append(level - 1).append("\"");
+      }
+      text.append(">\n");
+      text.append("  <cffunction name=\"init\">\n  </cffunction>\n");
+      for (int i = 0; i < MEMBERS_PER_LEVEL; i++) {
+        text.append("  <cfproperty name=\"property").append(level).append("_").append(i).append("\">\n");
+        text.append("  <cffunction name=\"function").append(level).append("_").append(i).append("\">\n  </cffunction>\n");
+      }
+      text.append("</cfcomponent>");
+      file = myFixture.addFileToProject("components/Level" + level + ".cfc", text.toString());
+    }
+
+    CfmlComponent component = ((CfmlFile)file).getComponentDefinition();
+    assertNotNull(component);
+    return component;
+  }
+
+  private static CfmlFunction findFunction(CfmlFunction[] functions, String name) {
+    for (CfmlFunction function : functions) {
+      if (name.equals(function.getName())) return function;
+    }
+    fail("Function " + name + " not found");
+    return null;
+  }
+
+  private static CfmlProperty findProperty(CfmlProperty[] properties, String name) {
+    for (CfmlProperty property : properties) {
+      if (name.equals(property.getName())) return property;
+    }
+    fail("Property " + name + " not found");
+    return null;
+  }
+}
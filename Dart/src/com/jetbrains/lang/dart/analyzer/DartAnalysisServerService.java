@@ -70,6 +70,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -147,6 +148,7 @@ public final class DartAnalysisServerService implements Disposable {
   @NotNull private final Queue<SearchResultsSet> mySearchResultSets = new LinkedList<>();
 
   @NotNull private final DartServerData myServerData;
+  @NotNull private final DartTypeHierarchyCache myTypeHierarchyCache;
 
   private volatile boolean myAnalysisInProgress;
   private volatile boolean myPubListInProgress;
@@ -217,6 +219,7 @@ public final class DartAnalysisServerService implements Disposable {
       }
 
       final String filePathSI = FileUtil.toSystemIndependentName(filePathSD);
+      myTypeHierarchyCache.fileAnalyzed(filePathSI);
 
       final int oldHash;
       synchronized (myFilePathsWithErrors) {
@@ -351,7 +354,13 @@ public final class DartAnalysisServerService implements Disposable {
     public void serverStatus(@Nullable final AnalysisStatus analysisStatus, @Nullable final PubStatus pubStatus) {
       final boolean wasBusy = myAnalysisInProgress || myPubListInProgress;
 
-      if (analysisStatus != null) myAnalysisInProgress = analysisStatus.isAnalyzing();
+      if (analysisStatus != null) {
+        if (analysisStatus.isAnalyzing() && !myAnalysisInProgress) {
+          // any file may get a new subtype
+          myTypeHierarchyCache.clear();
+        }
+        myAnalysisInProgress = analysisStatus.isAnalyzing();
+      }
       if (pubStatus != null) myPubListInProgress = pubStatus.isListingPackageDirs();
 
       if (!wasBusy && (myAnalysisInProgress || myPubListInProgress)) {
@@ -547,6 +556,7 @@ public final class DartAnalysisServerService implements Disposable {
     myProject = project;
     myRootsHandler = new DartServerRootsHandler(project);
     myServerData = new DartServerData(this);
+    myTypeHierarchyCache = new DartTypeHierarchyCache(this::search_getTypeHierarchyAsync);
     myUpdateFilesAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, this);
     myShowServerProgressAlarm = new Alarm(this);
     myServerErrorHandler = new DartAnalysisServerErrorHandler(project);
@@ -784,12 +794,12 @@ public final class DartAnalysisServerService implements Disposable {
   }
 
   @Nullable
-  public AvailableSuggestionSet getAvailableSuggestionSet(int id) {
+  public DartServerData.DartAvailableSuggestionSet getAvailableSuggestionSet(int id) {
     return myServerData.getAvailableSuggestionSet(id);
   }
 
   @Nullable
-  public Map<String, Map<String, Set<String>>> getExistingImports(@Nullable String filePathSD) {
+  public DartServerData.DartExistingImports getExistingImports(@Nullable String filePathSD) {
     return myServerData.getExistingImports(filePathSD);
   }
 
@@ -1412,37 +1422,71 @@ public final class DartAnalysisServerService implements Disposable {
     }
   }
 
+  /**
+   * Results are cached until the server reports new analysis results for any file of the hierarchy or starts a new analysis.
+   */
   @NotNull
   public List<TypeHierarchyItem> search_getTypeHierarchy(@NotNull final VirtualFile file, final int _offset, final boolean superOnly) {
-    final List<TypeHierarchyItem> results = new ArrayList<>();
     final AnalysisServer server = myServer;
     if (server == null) {
-      return results;
+      return new ArrayList<>();
     }
 
     final String filePath = FileUtil.toSystemDependentName(file.getPath());
-    final CountDownLatch latch = new CountDownLatch(1);
     final int offset = getOriginalOffset(file, _offset);
+    final CompletableFuture<List<TypeHierarchyItem>> future = myTypeHierarchyCache.getTypeHierarchy(filePath, offset, superOnly);
+    if (future == null) {
+      return new ArrayList<>();
+    }
+
+    if (!future.isDone()) {
+      final CountDownLatch latch = new CountDownLatch(1);
+      future.whenComplete((items, throwable) -> latch.countDown());
+
+      awaitForLatchCheckingCanceled(server, latch, GET_TYPE_HIERARCHY_TIMEOUT);
+
+      if (latch.getCount() > 0) {
+        myTypeHierarchyCache.requestTimedOut(filePath, offset, superOnly, future);
+        logTookTooLongMessage("search_getTypeHierarchy", GET_TYPE_HIERARCHY_TIMEOUT, filePath);
+        return new ArrayList<>();
+      }
+    }
+    return new ArrayList<>(future.join());
+  }
+
+  /**
+   * Requests the type hierarchy without waiting for the response, so that a following {@link #search_getTypeHierarchy} call
+   * with the same arguments is answered from the cache.
+   */
+  public void search_prefetchTypeHierarchy(@NotNull final VirtualFile file, final int _offset, final boolean superOnly) {
+    if (myServer == null) return;
+
+    final String filePath = FileUtil.toSystemDependentName(file.getPath());
+    myTypeHierarchyCache.getTypeHierarchy(filePath, getOriginalOffset(file, _offset), superOnly);
+  }
+
+  private boolean search_getTypeHierarchyAsync(@NotNull final String filePath,
+                                               final int offset,
+                                               final boolean superOnly,
+                                               @NotNull final Consumer<? super List<TypeHierarchyItem>> consumer) {
+    final AnalysisServer server = myServer;
+    if (server == null) {
+      return false;
+    }
+
     server.search_getTypeHierarchy(filePath, offset, superOnly, new GetTypeHierarchyConsumer() {
       @Override
       public void computedHierarchy(List<TypeHierarchyItem> hierarchyItems) {
-        results.addAll(hierarchyItems);
-        latch.countDown();
+        consumer.consume(hierarchyItems);
       }
 
       @Override
       public void onError(RequestError error) {
         logError("search_getTypeHierarchy()", filePath, error);
-        latch.countDown();
+        consumer.consume(null);
       }
     });
-
-    awaitForLatchCheckingCanceled(server, latch, GET_TYPE_HIERARCHY_TIMEOUT);
-
-    if (latch.getCount() > 0) {
-      logTookTooLongMessage("search_getTypeHierarchy", GET_TYPE_HIERARCHY_TIMEOUT, filePath);
-    }
-    return results;
+    return true;
   }
 
   @Nullable
@@ -1641,17 +1685,47 @@ public final class DartAnalysisServerService implements Disposable {
       return null;
     }
 
-    final String filePath = FileUtil.toSystemDependentName(file.getPath());
     final Ref<FormatResult> resultRef = new Ref<>();
-
     final CountDownLatch latch = new CountDownLatch(1);
+    if (!edit_formatAsync(file, _selectionOffset, _selectionLength, lineLength, result -> {
+      resultRef.set(result);
+      latch.countDown();
+    })) {
+      return null;
+    }
+
+    awaitForLatchCheckingCanceled(server, latch, EDIT_FORMAT_TIMEOUT);
+
+    if (latch.getCount() > 0) {
+      logTookTooLongMessage("edit_format", EDIT_FORMAT_TIMEOUT, FileUtil.toSystemDependentName(file.getPath()));
+    }
+
+    return resultRef.get();
+  }
+
+  /**
+   * Sends the {@code edit.format} request without waiting for the response. {@code consumer} is notified once, on the thread that
+   * reads server responses, either with the result or with {@code null} if the server failed to format the file.
+   *
+   * @return {@code false} if the server is not running, {@code consumer} is not notified in this case
+   */
+  public boolean edit_formatAsync(@NotNull final VirtualFile file,
+                                  final int _selectionOffset,
+                                  final int _selectionLength,
+                                  final int lineLength,
+                                  @NotNull final Consumer<? super FormatResult> consumer) {
+    final AnalysisServer server = myServer;
+    if (server == null) {
+      return false;
+    }
+
+    final String filePath = FileUtil.toSystemDependentName(file.getPath());
     final int selectionOffset = getOriginalOffset(file, _selectionOffset);
     final int selectionLength = getOriginalOffset(file, _selectionOffset + _selectionLength) - selectionOffset;
     server.edit_format(filePath, selectionOffset, selectionLength, lineLength, new FormatConsumer() {
       @Override
       public void computedFormat(final List<SourceEdit> edits, final int selectionOffset, final int selectionLength) {
-        resultRef.set(new FormatResult(edits, selectionOffset, selectionLength));
-        latch.countDown();
+        consumer.consume(new FormatResult(edits, selectionOffset, selectionLength));
       }
 
       @Override
@@ -1663,17 +1737,10 @@ public final class DartAnalysisServerService implements Disposable {
           logError("edit_format()", filePath, error);
         }
 
-        latch.countDown();
+        consumer.consume(null);
       }
     });
-
-    awaitForLatchCheckingCanceled(server, latch, EDIT_FORMAT_TIMEOUT);
-
-    if (latch.getCount() > 0) {
-      logTookTooLongMessage("edit_format", EDIT_FORMAT_TIMEOUT, filePath);
-    }
-
-    return resultRef.get();
+    return true;
   }
 
   @Nullable
@@ -2274,6 +2341,7 @@ public final class DartAnalysisServerService implements Disposable {
       myVisibleFiles.clear();
       myChangedDocuments.clear();
       myServerData.clearData();
+      myTypeHierarchyCache.clear();
       myRootsHandler.onServerStopped();
 
       if (myProject.isOpen() && !myProject.isDisposed()) {
@@ -37,8 +37,8 @@ public final class DartServerData {
   private final Map<String, List<DartRegion>> myImplementedClassData = Collections.synchronizedMap(new HashMap<>());
   private final Map<String, List<DartRegion>> myImplementedMemberData = Collections.synchronizedMap(new HashMap<>());
   private final Map<String, Outline> myOutlineData = Collections.synchronizedMap(new HashMap<>());
-  private final Map<Integer, AvailableSuggestionSet> myAvailableSuggestionSetMap = Collections.synchronizedMap(new HashMap<>());
-  private final Map<String, Map<String, Map<String, Set<String>>>> myExistingImports = Collections.synchronizedMap(new HashMap<>());
+  private final Map<Integer, DartAvailableSuggestionSet> myAvailableSuggestionSetMap = Collections.synchronizedMap(new HashMap<>());
+  private final Map<String, DartExistingImports> myExistingImports = Collections.synchronizedMap(new HashMap<>());
 
   private final Set<String> myFilePathsWithUnsentChanges = Sets.newConcurrentHashSet();
 
@@ -134,7 +134,7 @@ public final class DartServerData {
       myAvailableSuggestionSetMap.remove(id);
     }
     for (AvailableSuggestionSet suggestionSet : changed) {
-      myAvailableSuggestionSetMap.put(suggestionSet.getId(), suggestionSet);
+      myAvailableSuggestionSetMap.put(suggestionSet.getId(), new DartAvailableSuggestionSet(suggestionSet));
     }
   }
 
@@ -144,7 +144,7 @@ public final class DartServerData {
       return;
     }
 
-    myExistingImports.put(filePathSD, existingImports);
+    myExistingImports.put(filePathSD, new DartExistingImports(existingImports));
   }
 
   @NotNull
@@ -283,7 +283,7 @@ public final class DartServerData {
   }
 
   @Nullable
-  AvailableSuggestionSet getAvailableSuggestionSet(int id) {
+  DartAvailableSuggestionSet getAvailableSuggestionSet(int id) {
     return myAvailableSuggestionSetMap.get(id);
   }
 
@@ -299,7 +299,7 @@ public final class DartServerData {
   }
 
   @Nullable
-  Map<String, Map<String, Set<String>>> getExistingImports(@Nullable String filePathSD) {
+  DartExistingImports getExistingImports(@Nullable String filePathSD) {
     if (filePathSD == null) return null;
     return myExistingImports.get(filePathSD);
   }
@@ -661,4 +661,75 @@ public final class DartServerData {
       return myInterfaceMembers;
     }
   }
+
+  /**
+   * An available suggestion set received from the server, with its suggestions grouped by element kind,
+   * so that completion can take only the kinds included in the current context.
+   */
+  public static final class DartAvailableSuggestionSet {
+    @NotNull private final AvailableSuggestionSet mySuggestionSet;
+    @NotNull private final Map<String, List<AvailableSuggestion>> myItemsByKind = new HashMap<>();
+
+    public DartAvailableSuggestionSet(@NotNull AvailableSuggestionSet suggestionSet) {
+      mySuggestionSet = suggestionSet;
+      for (AvailableSuggestion suggestion : suggestionSet.getItems()) {
+        myItemsByKind.computeIfAbsent(suggestion.getElement().getKind(), kind -> new ArrayList<>()).add(suggestion);
+      }
+    }
+
+    public int getId() {
+      return mySuggestionSet.getId();
+    }
+
+    public String getUri() {
+      return mySuggestionSet.getUri();
+    }
+
+    @NotNull
+    public List<AvailableSuggestion> getItems(@NotNull String elementKind) {
+      return myItemsByKind.getOrDefault(elementKind, Collections.emptyList());
+    }
+  }
+
+  /**
+   * Libraries imported by a file, as reported by the server: URIs of the imported libraries mapped to the names they export,
+   * grouped by declaring library URI. Completion needs the reverse mapping, which is built on the first request and then
+   * shared by all completion sessions until the server sends new imports for the file.
+   */
+  public static final class DartExistingImports {
+    @NotNull private final Map<String, Map<String, Set<String>>> myExistingImports;
+    // declaring library URI -> exported name -> URIs of the imported libraries that export it
+    private volatile Map<String, Map<String, List<String>>> myExportingLibraries;
+
+    public DartExistingImports(@NotNull Map<String, Map<String, Set<String>>> existingImports) {
+      myExistingImports = existingImports;
+    }
+
+    /**
+     * @return {@code true} if the element is already available via an imported library, but {@code libraryUri} is not that library
+     */
+    public boolean isImportedFromOtherLibrary(@NotNull AvailableSuggestion suggestion, @NotNull String libraryUri) {
+      Map<String, List<String>> exportedNames = getExportingLibraries().get(suggestion.getDeclaringLibraryUri());
+      List<String> exportingLibraries = exportedNames != null ? exportedNames.get(suggestion.getLabel()) : null;
+      return exportingLibraries != null && !exportingLibraries.contains(libraryUri);
+    }
+
+    @NotNull
+    private Map<String, Map<String, List<String>>> getExportingLibraries() {
+      Map<String, Map<String, List<String>>> result = myExportingLibraries;
+      if (result == null) {
+        result = new HashMap<>();
+        for (Map.Entry<String, Map<String, Set<String>>> importedLibrary : myExistingImports.entrySet()) {
+          for (Map.Entry<String, Set<String>> declaringLibrary : importedLibrary.getValue().entrySet()) {
+            Map<String, List<String>> exportedNames = result.computeIfAbsent(declaringLibrary.getKey(), uri -> new HashMap<>());
+            for (String name : declaringLibrary.getValue()) {
+              exportedNames.computeIfAbsent(name, n -> new SmartList<>()).add(importedLibrary.getKey());
+            }
+          }
+        }
+        myExportingLibraries = result;
+      }
+      return result;
+    }
+  }
 }
@@ -0,0 +1,154 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.analyzer;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.Consumer;
+import org.dartlang.analysis.server.protocol.Element;
+import org.dartlang.analysis.server.protocol.Location;
+import org.dartlang.analysis.server.protocol.TypeHierarchyItem;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Results of {@code search.getTypeHierarchy} requests, keyed by the file, the original offset and the {@code superOnly} flag.
+ * <p>
+ * Concurrent requests for the same key share one server round trip. A result is dropped when the server reports new errors for any
+ * file of the hierarchy, a request in flight when it reports them for the file of the request. All results are dropped when the server
+ * starts a new analysis, so that new subtypes in other files are not missed. A request that fails or that the caller gave up waiting for
+ * is dropped too, so that the next call sends it again instead of waiting for a response that may never come.
+ */
+final class DartTypeHierarchyCache {
+
+  /**
+   * Sends a {@code search.getTypeHierarchy} request, see {@link DartAnalysisServerService#search_getTypeHierarchy}.
+   * {@code consumer} is notified once, either with the result or with {@code null} if the request failed.
+   *
+   * @return {@code false} if the server is not running, {@code consumer} is not notified in this case
+   */
+  @FunctionalInterface
+  interface TypeHierarchyRequestSender {
+    boolean send(@NotNull String filePathSD, int offset, boolean superOnly, @NotNull Consumer<? super List<TypeHierarchyItem>> consumer);
+  }
+
+  private record Key(@NotNull String filePathSI, int offset, boolean superOnly) {
+  }
+
+  private static final class Entry {
+    private final CompletableFuture<List<TypeHierarchyItem>> myFuture = new CompletableFuture<>();
+    // system-independent paths of all files mentioned in the hierarchy, set when the response comes
+    private volatile Set<String> myFilePaths;
+
+    private boolean dependsOn(@NotNull Key key, @NotNull String filePathSI) {
+      final Set<String> filePaths = myFilePaths;
+      // the files of a hierarchy in flight are not known yet, but the offset in its own file may already be stale
+      return filePaths == null ? key.filePathSI.equals(filePathSI) : filePaths.contains(filePathSI);
+    }
+  }
+
+  @NotNull private final TypeHierarchyRequestSender mySender;
+  private final ConcurrentMap<Key, Entry> myEntries = new ConcurrentHashMap<>();
+
+  DartTypeHierarchyCache(@NotNull final TypeHierarchyRequestSender sender) {
+    mySender = sender;
+  }
+
+  /**
+   * @return a future that completes with the hierarchy, or with an empty list if the request failed;
+   * {@code null} if the server is not running
+   */
+  @Nullable
+  CompletableFuture<List<TypeHierarchyItem>> getTypeHierarchy(@NotNull final String filePathSD, final int offset, final boolean superOnly) {
+    final Key key = new Key(FileUtil.toSystemIndependentName(filePathSD), offset, superOnly);
+    final Entry existing = myEntries.get(key);
+    if (existing != null) {
+      return existing.myFuture;
+    }
+
+    final Entry entry = new Entry();
+    final Entry concurrent = myEntries.putIfAbsent(key, entry);
+    if (concurrent != null) {
+      return concurrent.myFuture;
+    }
+
+    final boolean sent;
+    try {
+      sent = mySender.send(filePathSD, offset, superOnly, items -> {
+        if (items == null) {
+          drop(key, entry);
+        }
+        else {
+          entry.myFilePaths = collectFilePaths(key.filePathSI, items);
+          entry.myFuture.complete(List.copyOf(items));
+        }
+      });
+    }
+    catch (RuntimeException e) {
+      drop(key, entry);
+      throw e;
+    }
+
+    if (!sent) {
+      drop(key, entry);
+      return null;
+    }
+
+    return entry.myFuture;
+  }
+
+  /**
+   * Called when the caller stopped waiting for {@code future} returned by {@link #getTypeHierarchy}. If the request is still in flight,
+   * it is dropped from the cache, and {@code future} completes with an empty list so that other callers waiting for it return as well.
+   */
+  void requestTimedOut(@NotNull final String filePathSD,
+                       final int offset,
+                       final boolean superOnly,
+                       @NotNull final CompletableFuture<List<TypeHierarchyItem>> future) {
+    if (future.isDone()) return;
+
+    final Key key = new Key(FileUtil.toSystemIndependentName(filePathSD), offset, superOnly);
+    myEntries.computeIfPresent(key, (k, entry) -> entry.myFuture == future ? null : entry);
+    future.complete(Collections.emptyList());
+  }
+
+  private void drop(@NotNull final Key key, @NotNull final Entry entry) {
+    myEntries.remove(key, entry);
+    entry.myFuture.complete(Collections.emptyList());
+  }
+
+  /**
+   * Called when the server reports new analysis results for the file.
+   */
+  void fileAnalyzed(@NotNull final String filePathSD) {
+    if (myEntries.isEmpty()) return;
+
+    final String filePathSI = FileUtil.toSystemIndependentName(filePathSD);
+    myEntries.entrySet().removeIf(entry -> entry.getValue().dependsOn(entry.getKey(), filePathSI));
+  }
+
+  void clear() {
+    myEntries.clear();
+  }
+
+  @NotNull
+  private static Set<String> collectFilePaths(@NotNull final String filePathSI, @NotNull final List<TypeHierarchyItem> items) {
+    final Set<String> result = new HashSet<>();
+    result.add(filePathSI);
+    for (TypeHierarchyItem item : items) {
+      addFilePath(result, item.getClassElement());
+      addFilePath(result, item.getMemberElement());
+    }
+    return result;
+  }
+
+  private static void addFilePath(@NotNull final Set<String> filePaths, @Nullable final Element element) {
+    final Location location = element == null ? null : element.getLocation();
+    if (location != null && location.getFile() != null) {
+      filePaths.add(FileUtil.toSystemIndependentName(location.getFile()));
+    }
+  }
+}
@@ -1,9 +1,16 @@
 // Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package com.jetbrains.lang.dart.ide.actions;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.intellij.CommonBundle;
 import com.intellij.application.options.CodeStyle;
+import com.intellij.diff.comparison.ComparisonManager;
+import com.intellij.diff.comparison.ComparisonPolicy;
+import com.intellij.diff.comparison.DiffTooBigException;
+import com.intellij.diff.fragments.LineFragment;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.application.ex.ApplicationManagerEx;
 import com.intellij.openapi.command.CommandProcessor;
 import com.intellij.openapi.command.WriteCommandAction;
@@ -14,10 +21,13 @@ import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.fileEditor.FileEditor;
 import com.intellij.openapi.fileEditor.FileEditorManager;
 import com.intellij.openapi.fileEditor.TextEditor;
+import com.intellij.openapi.progress.DumbProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
@@ -25,6 +35,7 @@ import com.intellij.openapi.vfs.ReadonlyStatusHandler;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiFile;
+import com.intellij.util.Consumer;
 import com.jetbrains.lang.dart.DartBundle;
 import com.jetbrains.lang.dart.DartLanguage;
 import com.jetbrains.lang.dart.analyzer.DartAnalysisServerService;
@@ -32,15 +43,21 @@ import org.dartlang.analysis.server.protocol.SourceEdit;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static com.intellij.openapi.util.text.StringUtil.isWhiteSpace;
 
 public class DartStyleAction extends AbstractDartFileProcessingAction {
   private static final Logger LOG = Logger.getInstance(DartStyleAction.class.getName());
 
+  private static final int MAX_CONCURRENT_FORMAT_REQUESTS = 8;
+  private static final int FILES_PER_WRITE_ACTION = 20;
+  private static final long CHECK_CANCELED_PERIOD_MS = 20;
+  private static final long FORMAT_RESPONSE_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(10);
+
   @NotNull
   @Override
   protected String getActionTextForEditor() {
@@ -171,52 +188,173 @@ public class DartStyleAction extends AbstractDartFileProcessingAction {
 
   // keep public to be accessible in 3rd party plugins
   public static void runDartfmt(@NotNull final Project project, @NotNull final List<? extends VirtualFile> dartFiles) {
-    final Map<VirtualFile, String> fileToNewContentMap = new HashMap<>();
+    final DartAnalysisServerService das = DartAnalysisServerService.getInstance(project);
+    das.updateFilesContent();
+    runDartfmt(project, dartFiles, (file, lineLength, consumer) -> das.edit_formatAsync(file, 0, 0, lineLength, consumer));
+  }
+
+  /**
+   * Sends an {@code edit.format} request for a file, see {@link DartAnalysisServerService#edit_formatAsync}.
+   */
+  @FunctionalInterface
+  interface FormatRequestSender {
+    boolean send(@NotNull VirtualFile file, int lineLength, @NotNull Consumer<? super DartAnalysisServerService.FormatResult> consumer);
+  }
+
+  /**
+   * Keeps up to {@link #MAX_CONCURRENT_FORMAT_REQUESTS} requests in flight, diffs each result with the document by lines
+   * and then replaces only the changed lines, in chunks of {@link #FILES_PER_WRITE_ACTION} files per write action.
+   */
+  @VisibleForTesting
+  static void runDartfmt(@NotNull final Project project,
+                         @NotNull final List<? extends VirtualFile> dartFiles,
+                         @NotNull final FormatRequestSender sender) {
     final int lineLength = getRightMargin(project);
+    final List<FormattedFile> formattedFiles = Collections.synchronizedList(new ArrayList<>());
 
-    final Runnable runnable = () -> {
-      double fraction = 0.0;
-      for (final VirtualFile virtualFile : dartFiles) {
-        fraction += 1.0;
-        final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
-        if (indicator != null) {
-          indicator.checkCanceled();
-          indicator.setText2(FileUtil.toSystemDependentName(virtualFile.getPath()));
-          if (dartFiles.size() > 1) {
-            indicator.setIndeterminate(false);
-            indicator.setFraction(fraction / dartFiles.size());
-          }
+    final boolean ok = ApplicationManagerEx.getApplicationEx().runProcessWithProgressSynchronously(
+      () -> requestFormatting(dartFiles, lineLength, sender, formattedFiles),
+      DartBundle.message("action.Dart.DartStyle.progress.title"), true, project);
+
+    if (ok && !formattedFiles.isEmpty()) {
+      ApplicationManagerEx.getApplicationEx().runProcessWithProgressSynchronously(
+        () -> applyFormatting(project, formattedFiles),
+        DartBundle.message("action.Dart.DartStyle.progress.title"), true, project);
+    }
+  }
+
+  private static void requestFormatting(@NotNull final List<? extends VirtualFile> dartFiles,
+                                        final int lineLength,
+                                        @NotNull final FormatRequestSender sender,
+                                        @NotNull final List<? super FormattedFile> formattedFiles) {
+    final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+    if (indicator != null && dartFiles.size() > 1) {
+      indicator.setIndeterminate(false);
+    }
+
+    final BlockingQueue<Pair<VirtualFile, DartAnalysisServerService.FormatResult>> responses = new LinkedBlockingQueue<>();
+    final Iterator<? extends VirtualFile> filesIterator = dartFiles.iterator();
+    int sent = 0;
+    int received = 0;
+    long lastResponseTime = System.currentTimeMillis();
+
+    while (true) {
+      ProgressManager.checkCanceled();
+
+      while (sent - received < MAX_CONCURRENT_FORMAT_REQUESTS && filesIterator.hasNext()) {
+        final VirtualFile file = filesIterator.next();
+        if (sender.send(file, lineLength, result -> responses.add(Pair.create(file, result)))) {
+          sent++;
         }
+      }
+      if (received == sent) break;
+
+      final Pair<VirtualFile, DartAnalysisServerService.FormatResult> response;
+      try {
+        response = responses.poll(CHECK_CANCELED_PERIOD_MS, TimeUnit.MILLISECONDS);
+      }
+      catch (InterruptedException e) {
+        throw new ProcessCanceledException(e);
+      }
 
-        final DartAnalysisServerService.FormatResult formatResult =
-          DartAnalysisServerService.getInstance(project).edit_format(virtualFile, 0, 0, lineLength);
-        if (formatResult != null && formatResult.getEdits() != null && formatResult.getEdits().size() == 1) {
-          final String replacement = StringUtil.convertLineSeparators(formatResult.getEdits().get(0).getReplacement());
-          fileToNewContentMap.put(virtualFile, replacement);
+      if (response == null) {
+        if (System.currentTimeMillis() - lastResponseTime > FORMAT_RESPONSE_TIMEOUT_MS) {
+          LOG.warn("No edit_format response for " + FORMAT_RESPONSE_TIMEOUT_MS + " ms, " + (sent - received) + " requests left");
+          break;
         }
+        continue;
       }
-    };
 
-    DartAnalysisServerService.getInstance(project).updateFilesContent();
+      received++;
+      lastResponseTime = System.currentTimeMillis();
+      if (indicator != null) {
+        indicator.setText2(FileUtil.toSystemDependentName(response.first.getPath()));
+        indicator.setFraction((double)received / dartFiles.size());
+      }
+
+      final FormattedFile formattedFile = FormattedFile.create(response.first, response.second);
+      if (formattedFile != null) {
+        formattedFiles.add(formattedFile);
+      }
+    }
+  }
+
+  private static void applyFormatting(@NotNull final Project project, @NotNull final List<FormattedFile> formattedFiles) {
+    final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+    if (indicator != null) {
+      indicator.setIndeterminate(false);
+    }
+
+    // all chunks are merged into a single undoable command
+    final Object commandGroupId = new Object();
+    for (int i = 0; i < formattedFiles.size(); i += FILES_PER_WRITE_ACTION) {
+      ProgressManager.checkCanceled();
+      if (indicator != null) {
+        indicator.setFraction((double)i / formattedFiles.size());
+      }
+
+      final List<FormattedFile> chunk = formattedFiles.subList(i, Math.min(i + FILES_PER_WRITE_ACTION, formattedFiles.size()));
+      ApplicationManager.getApplication().invokeAndWait(
+        () -> CommandProcessor.getInstance().executeCommand(
+          project,
+          () -> ApplicationManager.getApplication().runWriteAction(() -> chunk.forEach(FormattedFile::apply)),
+          DartBundle.message("action.Dart.DartStyle.text"), commandGroupId),
+        ModalityState.defaultModalityState());
+    }
+  }
 
-    final boolean ok = ApplicationManagerEx.getApplicationEx()
-      .runProcessWithProgressSynchronously(runnable, DartBundle.message("action.Dart.DartStyle.progress.title"), true, project);
+  /**
+   * Changed lines of a file, computed against the document text the file was formatted from.
+   */
+  private static final class FormattedFile {
+    private final @NotNull Document myDocument;
+    private final long myModificationStamp;
+    private final @NotNull List<Pair<TextRange, String>> myReplacements;
+
+    private FormattedFile(@NotNull Document document, long modificationStamp, @NotNull List<Pair<TextRange, String>> replacements) {
+      myDocument = document;
+      myModificationStamp = modificationStamp;
+      myReplacements = replacements;
+    }
 
-    if (ok) {
-      final Runnable onSuccessRunnable = () -> {
-        for (Map.Entry<VirtualFile, String> entry : fileToNewContentMap.entrySet()) {
-          final VirtualFile file = entry.getKey();
-          final Document document = FileDocumentManager.getInstance().getDocument(file);
-          final String newContent = entry.getValue();
+    @Nullable
+    static FormattedFile create(@NotNull VirtualFile file, @Nullable DartAnalysisServerService.FormatResult formatResult) {
+      if (formatResult == null || formatResult.getEdits() == null || formatResult.getEdits().size() != 1) return null;
 
-          if (document != null && newContent != null) {
-            document.setText(newContent);
-          }
+      final Document document = ReadAction.compute(() -> FileDocumentManager.getInstance().getDocument(file));
+      if (document == null) return null;
+
+      final long modificationStamp = document.getModificationStamp();
+      final CharSequence text = document.getImmutableCharSequence();
+      final String newText = StringUtil.convertLineSeparators(formatResult.getEdits().get(0).getReplacement());
+      if (StringUtil.equals(text, newText)) return null;
+
+      final List<Pair<TextRange, String>> replacements = new ArrayList<>();
+      try {
+        final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+        for (LineFragment fragment : ComparisonManager.getInstance().compareLines(text, newText, ComparisonPolicy.DEFAULT,
+                                                                                  indicator != null ? indicator
+                                                                                                    : DumbProgressIndicator.INSTANCE)) {
+          replacements.add(Pair.create(new TextRange(fragment.getStartOffset1(), fragment.getEndOffset1()),
+                                       newText.substring(fragment.getStartOffset2(), fragment.getEndOffset2())));
         }
-      };
+      }
+      catch (DiffTooBigException e) {
+        replacements.clear();
+        replacements.add(Pair.create(TextRange.allOf(text.toString()), newText));
+      }
+
+      return new FormattedFile(document, modificationStamp, replacements);
+    }
+
+    void apply() {
+      // the document has been edited after formatting
+      if (myDocument.getModificationStamp() != myModificationStamp) return;
 
-      ApplicationManager.getApplication().runWriteAction(() -> CommandProcessor.getInstance()
-        .executeCommand(project, onSuccessRunnable, DartBundle.message("action.Dart.DartStyle.text"), null));
+      for (int i = myReplacements.size() - 1; i >= 0; i--) {
+        final Pair<TextRange, String> replacement = myReplacements.get(i);
+        myDocument.replaceString(replacement.first.getStartOffset(), replacement.first.getEndOffset(), replacement.second);
+      }
     }
   }
 
@@ -35,9 +35,11 @@ import com.intellij.ui.IconManager;
 import com.intellij.ui.LayeredIcon;
 import com.intellij.util.PlatformIcons;
 import com.intellij.util.ProcessingContext;
+import com.intellij.util.Processor;
 import com.jetbrains.lang.dart.DartBundle;
 import com.jetbrains.lang.dart.DartLanguage;
 import com.jetbrains.lang.dart.analyzer.DartAnalysisServerService;
+import com.jetbrains.lang.dart.analyzer.DartServerData;
 import com.jetbrains.lang.dart.assists.AssistUtils;
 import com.jetbrains.lang.dart.assists.DartSourceEditException;
 import com.jetbrains.lang.dart.ide.codeInsight.DartCodeInsightSettings;
@@ -136,49 +138,45 @@ public final class DartServerCompletionContributor extends CompletionContributor
                    return;
                  }
 
-                 final AvailableSuggestionSet suggestionSet = das.getAvailableSuggestionSet(includedSet.getId());
+                 final DartServerData.DartAvailableSuggestionSet suggestionSet = das.getAvailableSuggestionSet(includedSet.getId());
                  if (suggestionSet == null) {
                    return;
                  }
 
-                 Map<String, Map<String, Set<String>>> existingImports = das.getExistingImports(libraryFilePathSD);
-                 for (AvailableSuggestion suggestion : suggestionSet.getItems()) {
-                   final String kind = suggestion.getElement().getKind();
-                   if (!includedKinds.contains(kind)) {
-                     continue;
-                   }
-
-                   Set<String> importedLibraries = new HashSet<>();
-                   if (existingImports != null) {
-                     for (Map.Entry<String, Map<String, Set<String>>> entry : existingImports.entrySet()) {
-                       String importedLibraryUri = entry.getKey();
-                       Map<String, Set<String>> importedLibrary = entry.getValue();
-                       Set<String> names = importedLibrary.get(suggestion.getDeclaringLibraryUri());
-                       if (names != null && names.contains(suggestion.getLabel())) {
-                         importedLibraries.add(importedLibraryUri);
-                       }
-                     }
-                   }
-
-                   if (!importedLibraries.isEmpty() && !importedLibraries.contains(suggestionSet.getUri())) {
-                     // If some library exports this label but the current suggestion set does not, we should filter.
-                     continue;
-                   }
-
+                 final String displayUri = includedSet.getDisplayUri() != null ? includedSet.getDisplayUri() : suggestionSet.getUri();
+                 processAvailableSuggestions(suggestionSet, includedKinds, das.getExistingImports(libraryFilePathSD), suggestion -> {
                    CompletionSuggestion completionSuggestion =
                      createCompletionSuggestionFromAvailableSuggestion(suggestion, includedSet.getRelevance(), includedRelevanceTags);
-                   String displayUri = includedSet.getDisplayUri() != null ? includedSet.getDisplayUri() : suggestionSet.getUri();
                    SuggestionDetailsInsertHandlerBase insertHandler =
                      new SuggestionDetailsInsertHandler(project, targetFile, completionSuggestion, startOffsetInHostFile,
                                                         suggestionSet.getId());
 
                    resultSet.addElement(createLookupElementAskingExtensions(project, completionSuggestion, displayUri, insertHandler));
-                 }
+                   return true;
+                 });
                });
              }
            });
   }
 
+  /**
+   * Processes suggestions of the included kinds from the suggestion set, skipping the ones that are already available
+   * via an imported library other than this suggestion set.
+   */
+  static void processAvailableSuggestions(@NotNull DartServerData.DartAvailableSuggestionSet suggestionSet,
+                                          @NotNull Set<String> includedKinds,
+                                          @Nullable DartServerData.DartExistingImports existingImports,
+                                          @NotNull Processor<? super AvailableSuggestion> processor) {
+    for (String kind : includedKinds) {
+      for (AvailableSuggestion suggestion : suggestionSet.getItems(kind)) {
+        if (existingImports != null && existingImports.isImportedFromOtherLibrary(suggestion, suggestionSet.getUri())) {
+          continue;
+        }
+        if (!processor.process(suggestion)) return;
+      }
+    }
+  }
+
   private static void handleCompletion2(@NotNull Project project,
                                         @NotNull CompletionResultSet resultSet,
                                         @NotNull VirtualFile file,
@@ -45,6 +45,10 @@ public class DartProblem {
     myAnalysisError = error;
   }
 
+  @NotNull AnalysisError getAnalysisError() {
+    return myAnalysisError;
+  }
+
   public @NotNull @NlsSafe String getErrorMessage() {
     return myAnalysisError.getMessage();
   }
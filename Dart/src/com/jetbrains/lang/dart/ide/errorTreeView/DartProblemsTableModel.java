@@ -5,6 +5,7 @@ import com.intellij.icons.AllIcons;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -63,9 +64,14 @@ class DartProblemsTableModel extends ListTableModel<DartProblem> {
   private final @NotNull Project myProject;
   private final @NotNull DartProblemsPresentationHelper myPresentationHelper;
 
+  // If problems of more files change in one batch then the whole table is rebuilt instead of updating rows of each file separately
+  private static final int BULK_UPDATE_FILES_THRESHOLD = 200;
+
   // Kind of hack to keep a reference to the live collection used in a super class, but it allows improving performance greatly.
-  // Having it in hand we can do bulk rows removal with a single fireTableRowsDeleted() call afterwards
+  // Having it in hand we can update rows of a file in place and fire a single event per file.
+  // Problems of each file are stored continuously in myItems, in the same order as files in myFilePathToProblems.
   private final List<DartProblem> myItems = new ArrayList<>();
+  private final Map<String, List<DartProblem>> myFilePathToProblems = new LinkedHashMap<>();
 
   private RowSorter.SortKey mySortKey = new RowSorter.SortKey(1, SortOrder.ASCENDING);
 
@@ -146,23 +152,9 @@ class DartProblemsTableModel extends ListTableModel<DartProblem> {
     return false;
   }
 
-  private void removeRows(int firstRow, int lastRow) {
-    assert lastRow >= firstRow;
-
-    for (int i = lastRow; i >= firstRow; i--) {
-      DartProblem removed = myItems.remove(i);
-
-      if (AnalysisErrorSeverity.ERROR.equals(removed.getSeverity())) myErrorCount--;
-      if (AnalysisErrorSeverity.WARNING.equals(removed.getSeverity())) myWarningCount--;
-      if (AnalysisErrorSeverity.INFO.equals(removed.getSeverity())) myHintCount--;
-      updateProblemsCountAfterFilter(removed, -1);
-    }
-
-    fireTableRowsDeleted(firstRow, lastRow);
-  }
-
   void removeAll() {
     int rowCount = getRowCount();
+    myFilePathToProblems.clear();
     if (rowCount > 0) {
       myItems.clear();
       fireTableRowsDeleted(0, rowCount - 1);
@@ -177,120 +169,175 @@ class DartProblemsTableModel extends ListTableModel<DartProblem> {
   }
 
   /**
+   * Creates problems for the errors reported by the analysis server. This is the expensive part of the table update
+   * (file lookups, presentable location calculation), so it is expected to be called in a background thread within a read action.
+   * The result is passed to {@link #setProblemsAndReturnReplacementForSelection(Map, DartProblem)} in the EDT.
+   */
+  static @NotNull Map<String, List<DartProblem>> createProblems(@NotNull Project project,
+                                                                @NotNull DartProblemsPresentationHelper presentationHelper,
+                                                                @NotNull Map<String, List<? extends AnalysisError>> filePathToErrors) {
+    DartProblemsViewSettings.ScopedAnalysisMode scopedAnalysisMode = presentationHelper.getScopedAnalysisMode();
+
+    Map<String, List<DartProblem>> result = new LinkedHashMap<>();
+    for (Map.Entry<String, List<? extends AnalysisError>> entry : filePathToErrors.entrySet()) {
+      String filePath = entry.getKey();
+      VirtualFile vFile = LocalFileSystem.getInstance().findFileByPath(filePath);
+      boolean fileOk = vFile != null && (scopedAnalysisMode != DartProblemsViewSettings.ScopedAnalysisMode.All ||
+                                         ProjectFileIndex.getInstance(project).isInContent(vFile));
+      List<? extends AnalysisError> errors = fileOk ? entry.getValue() : AnalysisError.EMPTY_LIST;
+
+      List<DartProblem> problems = new ArrayList<>(errors.size());
+      for (AnalysisError analysisError : errors) {
+        DartProblem problem = new DartProblem(project, analysisError);
+        // initialize lazily calculated fields now, so that sorting and filtering in the EDT do not need to look for files
+        problem.getPresentableLocationWithoutLineNumber();
+        problems.add(problem);
+      }
+      result.put(FileUtil.toSystemIndependentName(filePath), problems);
+    }
+    return result;
+  }
+
+  /**
+   * Replaces problems of the files that are keys in the {@code filePathToProblems} map. Problems of each file are kept together in the
+   * table model, so only the rows of the files whose problems have actually changed are updated, inserted or deleted.
+   * <p>
    * If {@code selectedProblem} was removed and similar one added again then this method returns the added one,
    * so that the caller could update selected row in the table
    */
   @Nullable
-  DartProblem setProblemsAndReturnReplacementForSelection(@NotNull Map<String, List<? extends AnalysisError>> filePathToErrors,
+  DartProblem setProblemsAndReturnReplacementForSelection(@NotNull Map<String, List<DartProblem>> filePathToProblems,
                                                           @Nullable DartProblem selectedProblem) {
-    boolean selectedProblemRemoved = removeRowsForFilesInSet(filePathToErrors.keySet(), selectedProblem);
-    return addErrorsAndReturnReplacementForSelection(filePathToErrors, selectedProblemRemoved ? selectedProblem : null);
-  }
-
-  private boolean removeRowsForFilesInSet(@NotNull Set<String> filePaths, @Nullable DartProblem selectedProblem) {
-    // Looks for regions in table items that should be removed and removes them.
-    // For performance reasons we try to call removeRows() as rare as possible, that means with regions as big as possible.
-    // Logic is based on the fact that all errors for each particular file are stored continuously in the myItems model
-
-    boolean selectedProblemRemoved = false;
-
-    int matchedFilesCount = 0;
+    Map<String, List<DartProblem>> changedFiles = new HashMap<>();
+    for (Map.Entry<String, List<DartProblem>> entry : filePathToProblems.entrySet()) {
+      List<DartProblem> oldProblems = myFilePathToProblems.getOrDefault(entry.getKey(), Collections.emptyList());
+      if (!sameErrors(oldProblems, entry.getValue())) {
+        changedFiles.put(entry.getKey(), entry.getValue());
+      }
+    }
 
-    for (int i = getRowCount() - 1; i >= 0; i--) {
-      final DartProblem problem = getItem(i);
-      if (filePaths.contains(problem.getSystemIndependentPath())) {
-        matchedFilesCount++;
-        final int lastRowToDelete = i;
+    if (changedFiles.isEmpty()) return null;
 
-        if (problem == selectedProblem) {
-          selectedProblemRemoved = true;
-        }
+    DartProblem newSelectedProblem = null;
+    if (selectedProblem != null) {
+      List<DartProblem> newProblemsForSelectedFile = changedFiles.get(selectedProblem.getSystemIndependentPath());
+      if (newProblemsForSelectedFile != null) {
+        newSelectedProblem = findReplacement(selectedProblem, newProblemsForSelectedFile);
+      }
+    }
 
-        DartProblem lastProblemForCurrentFile = problem;
+    if (changedFiles.size() > BULK_UPDATE_FILES_THRESHOLD) {
+      replaceAllRows(changedFiles);
+    }
+    else {
+      replaceRowsOfChangedFiles(changedFiles);
+    }
 
-        int j = i - 1;
-        while (j >= 0) {
-          final DartProblem previousProblem = getItem(j);
+    return newSelectedProblem;
+  }
 
-          if (previousProblem.getSystemIndependentPath().equals(lastProblemForCurrentFile.getSystemIndependentPath())) {
-            // previousProblem should be removed from the table as well
-            j--;
+  /**
+   * Updates problems of each file in place: one rows-updated event for the overlapping part of the old and new problem lists
+   * plus one rows-inserted or rows-deleted event for the rest. Each event lets the row sorter process only the affected rows.
+   */
+  private void replaceRowsOfChangedFiles(@NotNull Map<String, List<DartProblem>> changedFiles) {
+    int offset = 0;
+    Iterator<Map.Entry<String, List<DartProblem>>> iterator = myFilePathToProblems.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, List<DartProblem>> entry = iterator.next();
+      List<DartProblem> oldProblems = entry.getValue();
+      List<DartProblem> newProblems = changedFiles.remove(entry.getKey());
+      if (newProblems == null) {
+        offset += oldProblems.size();
+        continue;
+      }
 
-            if (previousProblem == selectedProblem) {
-              selectedProblemRemoved = true;
-            }
+      updateProblemsCount(oldProblems, -1);
+      updateProblemsCount(newProblems, +1);
 
-            continue;
-          }
+      int oldSize = oldProblems.size();
+      int newSize = newProblems.size();
+      int commonSize = Math.min(oldSize, newSize);
 
-          if (filePaths.contains(previousProblem.getSystemIndependentPath())) {
-            matchedFilesCount++;
-            // continue iterating the table because we met a range of problems for another file that also should be removed
-            lastProblemForCurrentFile = previousProblem;
-            j--;
+      for (int i = 0; i < commonSize; i++) {
+        myItems.set(offset + i, newProblems.get(i));
+      }
+      if (commonSize > 0) {
+        fireTableRowsUpdated(offset, offset + commonSize - 1);
+      }
 
-            if (previousProblem == selectedProblem) {
-              selectedProblemRemoved = true;
-            }
+      if (newSize > oldSize) {
+        myItems.addAll(offset + oldSize, newProblems.subList(oldSize, newSize));
+        fireTableRowsInserted(offset + oldSize, offset + newSize - 1);
+      }
+      else if (oldSize > newSize) {
+        myItems.subList(offset + newSize, offset + oldSize).clear();
+        fireTableRowsDeleted(offset + newSize, offset + oldSize - 1);
+      }
 
-            continue;
-          }
+      if (newProblems.isEmpty()) {
+        iterator.remove();
+      }
+      else {
+        entry.setValue(newProblems);
+      }
+      offset += newSize;
+    }
 
-          break;
-        }
+    // remaining files had no problems before
+    for (Map.Entry<String, List<DartProblem>> entry : changedFiles.entrySet()) {
+      List<DartProblem> newProblems = entry.getValue();
+      if (newProblems.isEmpty()) continue;
 
-        final int firstRowToDelete = j + 1;
-        removeRows(firstRowToDelete, lastRowToDelete);
+      myFilePathToProblems.put(entry.getKey(), newProblems);
+      updateProblemsCount(newProblems, +1);
 
-        if (matchedFilesCount == filePaths.size()) {
-          break;
-        }
+      int firstRow = myItems.size();
+      myItems.addAll(newProblems);
+      fireTableRowsInserted(firstRow, myItems.size() - 1);
+    }
+  }
 
-        //noinspection AssignmentToForLoopParameter
-        i = j + 1; // rewind according to the amount of removed rows
+  /**
+   * When problems of too many files change at once it is cheaper to rebuild the whole list and let the row sorter sort it once.
+   */
+  private void replaceAllRows(@NotNull Map<String, List<DartProblem>> changedFiles) {
+    for (Map.Entry<String, List<DartProblem>> entry : changedFiles.entrySet()) {
+      List<DartProblem> newProblems = entry.getValue();
+      List<DartProblem> oldProblems = newProblems.isEmpty() ? myFilePathToProblems.remove(entry.getKey())
+                                                            : myFilePathToProblems.put(entry.getKey(), newProblems);
+      if (oldProblems != null) {
+        updateProblemsCount(oldProblems, -1);
       }
+      updateProblemsCount(newProblems, +1);
     }
 
-    return selectedProblemRemoved;
+    myItems.clear();
+    for (List<DartProblem> problems : myFilePathToProblems.values()) {
+      myItems.addAll(problems);
+    }
+    fireTableDataChanged();
   }
 
-  private @Nullable DartProblem addErrorsAndReturnReplacementForSelection(@NotNull Map<String, List<? extends AnalysisError>> filePathToErrors,
-                                                                          @Nullable DartProblem oldSelectedProblem) {
-    DartProblem newSelectedProblem = null;
-    DartProblemsViewSettings.ScopedAnalysisMode scopedAnalysisMode = myPresentationHelper.getScopedAnalysisMode();
-
-    List<DartProblem> problemsToAdd = new ArrayList<>();
-    for (Map.Entry<String, List<? extends AnalysisError>> entry : filePathToErrors.entrySet()) {
-      String filePath = entry.getKey();
-      VirtualFile vFile = LocalFileSystem.getInstance().findFileByPath(filePath);
-      boolean fileOk = vFile != null && (scopedAnalysisMode != DartProblemsViewSettings.ScopedAnalysisMode.All ||
-                                         ProjectFileIndex.getInstance(myProject).isInContent(vFile));
-      List<? extends AnalysisError> errors = fileOk ? entry.getValue() : AnalysisError.EMPTY_LIST;
-
-      for (AnalysisError analysisError : errors) {
-        DartProblem problem = new DartProblem(myProject, analysisError);
-        problemsToAdd.add(problem);
-
-        if (oldSelectedProblem != null &&
-            lookSimilar(problem, oldSelectedProblem) &&
-            (newSelectedProblem == null ||
-             // check if current problem is closer to oldSelectedProblem
-             (Math.abs(oldSelectedProblem.getLineNumber() - newSelectedProblem.getLineNumber()) >=
-              Math.abs(oldSelectedProblem.getLineNumber() - problem.getLineNumber())))) {
-          newSelectedProblem = problem;
-        }
-
-        if (AnalysisErrorSeverity.ERROR.equals(problem.getSeverity())) myErrorCount++;
-        if (AnalysisErrorSeverity.WARNING.equals(problem.getSeverity())) myWarningCount++;
-        if (AnalysisErrorSeverity.INFO.equals(problem.getSeverity())) myHintCount++;
-        updateProblemsCountAfterFilter(problem, +1);
-      }
+  private static boolean sameErrors(@NotNull List<DartProblem> problems1, @NotNull List<DartProblem> problems2) {
+    if (problems1.size() != problems2.size()) return false;
+    for (int i = 0; i < problems1.size(); i++) {
+      if (!problems1.get(i).getAnalysisError().equals(problems2.get(i).getAnalysisError())) return false;
     }
+    return true;
+  }
 
-    if (!problemsToAdd.isEmpty()) {
-      addRows(problemsToAdd);
+  private static @Nullable DartProblem findReplacement(@NotNull DartProblem oldSelectedProblem, @NotNull List<DartProblem> newProblems) {
+    DartProblem newSelectedProblem = null;
+    for (DartProblem problem : newProblems) {
+      if (lookSimilar(problem, oldSelectedProblem) &&
+          (newSelectedProblem == null ||
+           // check if current problem is closer to oldSelectedProblem
+           (Math.abs(oldSelectedProblem.getLineNumber() - newSelectedProblem.getLineNumber()) >=
+            Math.abs(oldSelectedProblem.getLineNumber() - problem.getLineNumber())))) {
+        newSelectedProblem = problem;
+      }
     }
-
     return newSelectedProblem;
   }
 
@@ -300,6 +347,15 @@ class DartProblemsTableModel extends ListTableModel<DartProblem> {
            problem1.getSystemIndependentPath().equals(problem2.getSystemIndependentPath());
   }
 
+  private void updateProblemsCount(@NotNull List<DartProblem> problems, int delta) {
+    for (DartProblem problem : problems) {
+      if (AnalysisErrorSeverity.ERROR.equals(problem.getSeverity())) myErrorCount += delta;
+      if (AnalysisErrorSeverity.WARNING.equals(problem.getSeverity())) myWarningCount += delta;
+      if (AnalysisErrorSeverity.INFO.equals(problem.getSeverity())) myHintCount += delta;
+      updateProblemsCountAfterFilter(problem, delta);
+    }
+  }
+
   private void updateProblemsCountAfterFilter(@NotNull DartProblem problem, int delta) {
     if (myPresentationHelper.shouldShowProblem(problem)) {
       if (AnalysisErrorSeverity.ERROR.equals(problem.getSeverity())) myErrorCountAfterFilter += delta;
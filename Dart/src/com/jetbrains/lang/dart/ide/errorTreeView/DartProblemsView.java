@@ -8,6 +8,7 @@ import com.intellij.notification.*;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.components.PersistentStateComponent;
 import com.intellij.openapi.components.State;
 import com.intellij.openapi.components.Storage;
@@ -53,7 +54,7 @@ public final class DartProblemsView implements PersistentStateComponent<DartProb
   private final Project myProject;
   private final DartProblemsPresentationHelper myPresentationHelper;
 
-  private final Object myLock = new Object(); // use this lock to access myScheduledFilePathToErrors and myAlarm
+  private final Object myLock = new Object(); // use this lock to access myScheduledFilePathToErrors, myClearCount and myAlarm
   private final Map<String, List<? extends AnalysisError>> myScheduledFilePathToErrors = new HashMap<>();
   private final Alarm myAlarm;
 
@@ -65,35 +66,52 @@ public final class DartProblemsView implements PersistentStateComponent<DartProb
   private Notification myNotification;
   private boolean myDisabledForSession;
 
+  // incremented by clearAll() so that problems computed in background before clearing are not shown afterwards
+  private int myClearCount;
+
+  // runs in a pooled thread: DartProblem objects for the scheduled errors are created here, and only merged into the table in the EDT
   private final Runnable myUpdateRunnable = new Runnable() {
     @Override
     public void run() {
-      if (ProjectViewPane.ID.equals(ProjectView.getInstance(myProject).getCurrentViewId())) {
-        final int hash = DartAnalysisServerService.getInstance(myProject).getFilePathsWithErrorsHash();
-        if (myFilesWithErrorsHash != hash) {
-          // refresh red squiggles managed by com.jetbrains.lang.dart.projectView.DartNodeDecorator
-          myFilesWithErrorsHash = hash;
-          ProjectView.getInstance(myProject).refresh();
-        }
-      }
-
       final Map<String, List<? extends AnalysisError>> filePathToErrors;
+      final int clearCount;
       synchronized (myLock) {
         filePathToErrors = new HashMap<>(myScheduledFilePathToErrors);
         myScheduledFilePathToErrors.clear();
+        clearCount = myClearCount;
       }
 
-      DartProblemsViewPanel panel = getProblemsViewPanel();
-      if (panel != null) {
-        panel.setErrors(filePathToErrors);
-      }
+      if (myProject.isDisposed()) return;
+
+      final Map<String, List<DartProblem>> filePathToProblems =
+        ReadAction.compute(() -> DartProblemsTableModel.createProblems(myProject, myPresentationHelper, filePathToErrors));
+
+      ApplicationManager.getApplication().invokeLater(() -> {
+        synchronized (myLock) {
+          if (clearCount != myClearCount) return;
+        }
+
+        if (ProjectViewPane.ID.equals(ProjectView.getInstance(myProject).getCurrentViewId())) {
+          final int hash = DartAnalysisServerService.getInstance(myProject).getFilePathsWithErrorsHash();
+          if (myFilesWithErrorsHash != hash) {
+            // refresh red squiggles managed by com.jetbrains.lang.dart.projectView.DartNodeDecorator
+            myFilesWithErrorsHash = hash;
+            ProjectView.getInstance(myProject).refresh();
+          }
+        }
+
+        DartProblemsViewPanel panel = getProblemsViewPanel();
+        if (panel != null) {
+          panel.setProblems(filePathToProblems);
+        }
+      }, ModalityState.NON_MODAL, myProject.getDisposed());
     }
   };
 
   public DartProblemsView(@NotNull Project project) {
     myProject = project;
     myPresentationHelper = new DartProblemsPresentationHelper(project);
-    myAlarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, this);
+    myAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, this);
 
     project.getMessageBus().connect().subscribe(
       DartAnalysisServerMessages.DART_ANALYSIS_TOPIC, new DartAnalysisServerMessages.DartAnalysisNotifier() {
@@ -290,7 +308,7 @@ public final class DartProblemsView implements PersistentStateComponent<DartProb
   public void updateErrorsForFile(@NotNull final String filePath, @NotNull List<? extends AnalysisError> errors) {
     synchronized (myLock) {
       if (myScheduledFilePathToErrors.isEmpty()) {
-        myAlarm.addRequest(myUpdateRunnable, TABLE_REFRESH_PERIOD, ModalityState.NON_MODAL);
+        myAlarm.addRequest(myUpdateRunnable, TABLE_REFRESH_PERIOD);
       }
 
       myScheduledFilePathToErrors.put(filePath, errors);
@@ -305,6 +323,7 @@ public final class DartProblemsView implements PersistentStateComponent<DartProb
     synchronized (myLock) {
       myAlarm.cancelAllRequests();
       myScheduledFilePathToErrors.clear();
+      myClearCount++;
     }
 
     DartProblemsViewPanel panel = getProblemsViewPanel();
@@ -92,7 +92,11 @@ public class DartProblemsViewPanel extends SimpleToolWindowPanel implements Data
     });
 
     //noinspection unchecked
-    ((DefaultRowSorter<DartProblemsTableModel, Integer>)table.getRowSorter()).setRowFilter(myPresentationHelper.getRowFilter());
+    DefaultRowSorter<DartProblemsTableModel, Integer> rowSorter = (DefaultRowSorter<DartProblemsTableModel, Integer>)table.getRowSorter();
+    rowSorter.setRowFilter(myPresentationHelper.getRowFilter());
+    // Model updates are fine-grained (see DartProblemsTableModel.setProblemsAndReturnReplacementForSelection()),
+    // so the sorter can insert updated rows into the already sorted view instead of sorting the whole table again
+    rowSorter.setSortsOnUpdates(true);
 
     table.getRowSorter().addRowSorterListener(e -> {
       List<? extends RowSorter.SortKey> sortKeys = myTable.getRowSorter().getSortKeys();
@@ -397,11 +401,11 @@ public class DartProblemsViewPanel extends SimpleToolWindowPanel implements Data
     return null;
   }
 
-  public void setErrors(@NotNull Map<String, List<? extends AnalysisError>> filePathToErrors) {
+  void setProblems(@NotNull Map<String, List<DartProblem>> filePathToProblems) {
     DartProblemsTableModel model = (DartProblemsTableModel)myTable.getModel();
     DartProblem oldSelectedProblem = myTable.getSelectedObject();
 
-    DartProblem updatedSelectedProblem = model.setProblemsAndReturnReplacementForSelection(filePathToErrors, oldSelectedProblem);
+    DartProblem updatedSelectedProblem = model.setProblemsAndReturnReplacementForSelection(filePathToProblems, oldSelectedProblem);
 
     if (updatedSelectedProblem != null) {
       myTable.setSelection(Collections.singletonList(updatedSelectedProblem));
@@ -63,6 +63,18 @@ public final class DartHierarchyUtil {
       .search_getTypeHierarchy(file, name.getTextRange().getStartOffset(), false);
   }
 
+  /**
+   * Sends the request of {@link #getTypeHierarchyItems} without waiting for the response, so that the hierarchy is ready sooner.
+   */
+  public static void prefetchTypeHierarchyItems(@NotNull DartClass dartClass) {
+    final VirtualFile file = dartClass.getContainingFile().getVirtualFile();
+    final DartComponentName name = dartClass.getComponentName();
+    if (file == null || name == null) return;
+
+    DartAnalysisServerService.getInstance(dartClass.getProject())
+      .search_prefetchTypeHierarchy(file, name.getTextRange().getStartOffset(), false);
+  }
+
   public static boolean isExecutable(@NotNull PsiElement component) {
     if (component instanceof DartComponentName) return false;
     final DartComponentType componentType = DartComponentType.typeOf(component);
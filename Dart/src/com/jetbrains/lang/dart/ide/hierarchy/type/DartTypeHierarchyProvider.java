@@ -11,6 +11,7 @@ import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.lang.dart.ide.hierarchy.DartHierarchyUtil;
 import com.jetbrains.lang.dart.psi.DartClass;
 import com.jetbrains.lang.dart.psi.DartReference;
 import org.jetbrains.annotations.NotNull;
@@ -36,6 +37,8 @@ public class DartTypeHierarchyProvider implements HierarchyProvider {
   @NotNull
   @Override
   public HierarchyBrowser createHierarchyBrowser(@NotNull PsiElement target) {
+    // the hierarchy is requested while the browser is being built
+    DartHierarchyUtil.prefetchTypeHierarchyItems((DartClass)target);
     return new DartTypeHierarchyBrowser(target.getProject(), (DartClass)target);
   }
 
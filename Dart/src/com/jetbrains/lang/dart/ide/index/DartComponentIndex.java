@@ -1,6 +1,7 @@
 // Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package com.jetbrains.lang.dart.ide.index;
 
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.util.indexing.*;
@@ -11,6 +12,7 @@ import com.jetbrains.lang.dart.DartFileType;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collection;
+import java.util.Set;
 
 public class DartComponentIndex extends FileBasedIndexExtension<String, DartComponentInfo> {
   private static final ID<String, DartComponentInfo> DART_COMPONENT_INDEX = ID.create("DartComponentIndex");
@@ -58,4 +60,9 @@ public class DartComponentIndex extends FileBasedIndexExtension<String, DartComp
   public static Collection<VirtualFile> getAllFiles(@NotNull final String componentName, @NotNull final GlobalSearchScope scope) {
     return FileBasedIndex.getInstance().getContainingFiles(DART_COMPONENT_INDEX, componentName, scope);
   }
+
+  @NotNull
+  public static Set<String> getComponentNames(@NotNull final Project project, @NotNull final VirtualFile file) {
+    return FileBasedIndex.getInstance().getFileData(DART_COMPONENT_INDEX, file, project).keySet();
+  }
 }
@@ -4,7 +4,6 @@ package com.jetbrains.lang.dart.ide.index;
 import com.intellij.openapi.util.Key;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.indexing.FileContent;
 import com.jetbrains.lang.dart.DartComponentType;
 import com.jetbrains.lang.dart.psi.*;
@@ -23,6 +22,10 @@ public final class DartIndexUtil {
 
   private static final Key<DartFileIndexData> ourDartCachesData = Key.create("dart.caches.index.data");
 
+  /**
+   * Data for all Dart file-based indices is collected in one pass over the file and shared by them:
+   * the result is stored in the {@code content} user data, so that indexers called for the same file reuse it.
+   */
   public static DartFileIndexData indexFile(FileContent content) {
     DartFileIndexData indexData = content.getUserData(ourDartCachesData);
     if (indexData != null) return indexData;
@@ -31,6 +34,7 @@ public final class DartIndexUtil {
       indexData = content.getUserData(ourDartCachesData);
       if (indexData != null) return indexData;
       indexData = indexFileRoots(content.getPsiFile());
+      content.putUserData(ourDartCachesData, indexData);
     }
 
     return indexData;
@@ -38,57 +42,67 @@ public final class DartIndexUtil {
 
   private static DartFileIndexData indexFileRoots(PsiFile psiFile) {
     DartFileIndexData result = new DartFileIndexData();
+    if (!(psiFile instanceof DartFile)) return result;
 
-    final DartLibraryStatement libraryStatement = PsiTreeUtil.getChildOfType(psiFile, DartLibraryStatement.class);
-    DartLibraryNameElement nameElement = libraryStatement != null ? libraryStatement.getLibraryNameElement() : null;
-    if (nameElement != null) {
-      result.setLibraryName(nameElement.getName());
+    PsiElement[] children = psiFile.getChildren();
+
+    // library name is needed for component infos, so find it before the main pass
+    for (PsiElement child : children) {
+      if (child instanceof DartLibraryStatement) {
+        DartLibraryNameElement nameElement = ((DartLibraryStatement)child).getLibraryNameElement();
+        if (nameElement != null) {
+          result.setLibraryName(nameElement.getName());
+        }
+        break;
+      }
     }
 
-    result.setIsPart(PsiTreeUtil.getChildOfType(psiFile, DartPartOfStatement.class) != null);
+    for (PsiElement child : children) {
+      if (child instanceof DartImportOrExportStatement) {
+        processImportOrExportStatement(result, (DartImportOrExportStatement)child);
+      }
+      else if (child instanceof DartPartStatement) {
+        result.addPartUri(((DartPartStatement)child).getUriString());
+      }
+      else if (child instanceof DartPartOfStatement) {
+        result.setIsPart(true);
+      }
+    }
 
-    if (psiFile instanceof DartFile) {
-      PsiElement[] children = psiFile.getChildren();
+    for (DartComponentName componentName : DartControlFlowUtil.getSimpleDeclarations(children, null, false)) {
+      if (componentName != null) {
+        processComponentName(result, componentName);
+      }
+    }
 
-      for (DartComponentName componentName : DartControlFlowUtil.getSimpleDeclarations(children, null, false)) {
-        final String name = componentName.getName();
-        if (name == null) {
-          continue;
-        }
+    return result;
+  }
 
-        result.addSymbol(name);
+  private static void processComponentName(final @NotNull DartFileIndexData result, final @NotNull DartComponentName componentName) {
+    final String name = componentName.getName();
+    if (name == null) return;
 
-        PsiElement parent = componentName.getParent();
-        final DartComponentType type = DartComponentType.typeOf(parent);
-        if (type != null) {
-          result.addComponentInfo(name, new DartComponentInfo(type, result.getLibraryName()));
-        }
-        if (parent instanceof DartClass) {
-          result.addClassName(name);
-
-          if (((DartClass)parent).isEnum()) {
-            for (DartEnumConstantDeclaration enumConstantDeclaration : ((DartClass)parent).getEnumConstantDeclarationList()) {
-              result.addSymbol(enumConstantDeclaration.getName());
-            }
-          }
-          else {
-            for (DartComponent subComponent : DartResolveUtil.getNamedSubComponents((DartClass)parent)) {
-              result.addSymbol(subComponent.getName());
-            }
-          }
-        }
-      }
+    result.addSymbol(name);
 
-      for (PsiElement child : children) {
-        if (child instanceof DartImportOrExportStatement) {
-          processImportOrExportStatement(result, (DartImportOrExportStatement)child);
+    PsiElement parent = componentName.getParent();
+    final DartComponentType type = DartComponentType.typeOf(parent);
+    if (type != null) {
+      result.addComponentInfo(name, new DartComponentInfo(type, result.getLibraryName()));
+    }
+    if (parent instanceof DartClass) {
+      result.addClassName(name);
+
+      if (((DartClass)parent).isEnum()) {
+        for (DartEnumConstantDeclaration enumConstantDeclaration : ((DartClass)parent).getEnumConstantDeclarationList()) {
+          result.addSymbol(enumConstantDeclaration.getName());
         }
-        if (child instanceof DartPartStatement) {
-          result.addPartUri(((DartPartStatement)child).getUriString());
+      }
+      else {
+        for (DartComponent subComponent : DartResolveUtil.getNamedSubComponents((DartClass)parent)) {
+          result.addSymbol(subComponent.getName());
         }
       }
     }
-    return result;
   }
 
   private static void processImportOrExportStatement(final @NotNull DartFileIndexData result,
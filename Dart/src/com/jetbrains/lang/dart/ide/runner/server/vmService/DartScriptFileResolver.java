@@ -0,0 +1,77 @@
+// Copyright 2000-2021 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.runner.server.vmService;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Maps script URIs of a debug session to local files and remembers the files found.
+ * <p/>
+ * Mapping is done in two steps: {@code uriMapper} may ask the Analysis Server for a local path and is called without the read lock,
+ * then {@code fileFinder} looks up the file for the URI and the path found (if any) in a read action.
+ * URIs that are not mapped to a file are not remembered, a later call maps them again as the file may have appeared since.
+ */
+class DartScriptFileResolver {
+  private final @NotNull Function<String, String> myUriMapper;
+  private final @NotNull BiFunction<String, String, VirtualFile> myFileFinder;
+  private final Map<String, VirtualFile> myUriToLocalFileMap = new ConcurrentHashMap<>();
+
+  DartScriptFileResolver(@NotNull Function<String, String> uriMapper, @NotNull BiFunction<String, String, VirtualFile> fileFinder) {
+    myUriMapper = uriMapper;
+    myFileFinder = fileFinder;
+  }
+
+  /**
+   * Maps all given URIs that are not known yet, looking up their files in one read action.
+   */
+  void resolve(@NotNull Collection<String> uris) {
+    final Map<String, String> mappedPaths = new LinkedHashMap<>();
+    for (String uri : uris) {
+      if (!mappedPaths.containsKey(uri) && getCachedFile(uri) == null) {
+        mappedPaths.put(uri, myUriMapper.apply(uri));
+      }
+    }
+
+    if (mappedPaths.isEmpty()) return;
+
+    ReadAction.run(() -> {
+      for (Map.Entry<String, String> entry : mappedPaths.entrySet()) {
+        final VirtualFile file = myFileFinder.apply(entry.getKey(), entry.getValue());
+        if (file != null) {
+          myUriToLocalFileMap.put(entry.getKey(), file);
+        }
+      }
+    });
+  }
+
+  @Nullable VirtualFile getFile(@NotNull String uri) {
+    final VirtualFile cached = getCachedFile(uri);
+    if (cached != null) return cached;
+
+    final String mappedPath = myUriMapper.apply(uri);
+    final VirtualFile file = ReadAction.compute(() -> myFileFinder.apply(uri, mappedPath));
+    if (file != null) {
+      myUriToLocalFileMap.put(uri, file);
+    }
+    return file;
+  }
+
+  void clear() {
+    myUriToLocalFileMap.clear();
+  }
+
+  /**
+   * @return {@code null} if {@code uri} hasn't been resolved to a file yet or the file it was resolved to is not valid any more
+   */
+  private @Nullable VirtualFile getCachedFile(@NotNull String uri) {
+    final VirtualFile cached = myUriToLocalFileMap.get(uri);
+    return cached != null && cached.isValid() ? cached : null;
+  }
+}
@@ -29,6 +29,7 @@ import com.intellij.psi.search.GlobalSearchScopesCore;
 import com.intellij.testFramework.LightVirtualFile;
 import com.intellij.util.PathUtil;
 import com.intellij.util.TimeoutUtil;
+import com.intellij.util.containers.ContainerUtil;
 import com.intellij.xdebugger.*;
 import com.intellij.xdebugger.breakpoints.XBreakpointHandler;
 import com.intellij.xdebugger.evaluation.XDebuggerEditorsProvider;
@@ -84,6 +85,8 @@ public class DartVmServiceDebugProcess extends XDebugProcess {
   private String myLatestCurrentIsolateId;
 
   private final Map<String, LightVirtualFile> myScriptIdToContentMap = new HashMap<>();
+  // Mapping script URI to a local file may need a round trip to the Analysis Server, so it is done once per debug session
+  private final DartScriptFileResolver myScriptFileResolver = new DartScriptFileResolver(this::mapUriToLocalPath, this::findLocalFile);
   private final Map<String, Int2ObjectMap<Pair<Integer, Integer>>> myScriptIdToLinesAndColumnsMap = new HashMap<>();
 
   private final @Nullable String myDASExecutionContextId;
@@ -423,6 +426,10 @@ public class DartVmServiceDebugProcess extends XDebugProcess {
         break; // we did the best guess we could
       }
     }
+
+    if (myRemoteProjectRootUri != null) {
+      myScriptFileResolver.clear(); // remote URIs may now be mapped to local files
+    }
   }
 
   @Override
@@ -599,6 +606,7 @@ public class DartVmServiceDebugProcess extends XDebugProcess {
         final VirtualFile workspaceVFile = DartBazelFileUtil.getBazelWorkspace(file);
         if (workspaceVFile != null) {
           myBazelWorkspacePath = workspaceVFile.getPath();
+          myScriptFileResolver.clear(); // package URIs may now be mapped to local files
         }
       }
       if (myBazelWorkspacePath != null) {
@@ -613,43 +621,52 @@ public class DartVmServiceDebugProcess extends XDebugProcess {
     return result;
   }
 
-  public @Nullable XSourcePosition getSourcePosition(@NotNull String isolateId, @NotNull ScriptRef scriptRef, int tokenPos) {
-    VirtualFile file = ReadAction.compute(() -> {
-      String uri = scriptRef.getUri();
-
-      if (myDASExecutionContextId != null && !isDartPatchUri(uri)) {
-        final String path =
-          DartAnalysisServerService.getInstance(getSession().getProject()).execution_mapUri(myDASExecutionContextId, null, uri);
-        if (path != null) {
-          return LocalFileSystem.getInstance().findFileByPath(path);
-        }
-      }
+  /**
+   * Finds local files for all given scripts and remembers them, so that following
+   * {@link #getSourcePosition(String, ScriptRef, int)} calls for these scripts don't need to map URIs again.
+   */
+  public void resolveScriptFiles(@NotNull Collection<? extends ScriptRef> scriptRefs) {
+    myScriptFileResolver.resolve(ContainerUtil.map(scriptRefs, ScriptRef::getUri));
+  }
 
-      final VirtualFile pubspec = myDartUrlResolver.getPubspecYamlFile();
-      if (myRemoteProjectRootUri != null && uri.startsWith(myRemoteProjectRootUri) && pubspec != null) {
-        final String localRootUri = StringUtil.trimEnd(myDartUrlResolver.getDartUrlForFile(pubspec.getParent()), '/');
-        LOG.assertTrue(localRootUri.startsWith(DartUrlResolver.FILE_PREFIX), localRootUri);
+  private @Nullable String mapUriToLocalPath(@NotNull String uri) {
+    if (myDASExecutionContextId == null || isDartPatchUri(uri)) return null;
+    return DartAnalysisServerService.getInstance(getSession().getProject()).execution_mapUri(myDASExecutionContextId, null, uri);
+  }
 
-        uri = localRootUri + uri.substring(myRemoteProjectRootUri.length());
-      }
+  private @Nullable VirtualFile findLocalFile(@NotNull String uri, @Nullable String mappedPath) {
+    if (mappedPath != null) {
+      return LocalFileSystem.getInstance().findFileByPath(mappedPath);
+    }
 
-      if (uri.startsWith(ORG_DARTLANG_APP_PREFIX) && myCurrentWorkingDirectory != null) {
-        final String relativeFromCWD = uri.substring(ORG_DARTLANG_APP_PREFIX.length());
-        return LocalFileSystem.getInstance().findFileByPath(myCurrentWorkingDirectory.getPath() + relativeFromCWD);
-      }
+    final VirtualFile pubspec = myDartUrlResolver.getPubspecYamlFile();
+    if (myRemoteProjectRootUri != null && uri.startsWith(myRemoteProjectRootUri) && pubspec != null) {
+      final String localRootUri = StringUtil.trimEnd(myDartUrlResolver.getDartUrlForFile(pubspec.getParent()), '/');
+      LOG.assertTrue(localRootUri.startsWith(DartUrlResolver.FILE_PREFIX), localRootUri);
 
-      if (Registry.is("dart.projects.without.pubspec", false) &&
-          myBazelWorkspacePath != null &&
-          uri.startsWith(DartUrlResolver.PACKAGE_PREFIX)) {
-        final int slashIndex = uri.indexOf('/');
-        if (slashIndex != -1) {
-          final String packageName = uri.substring(DartUrlResolver.PACKAGE_PREFIX.length(), slashIndex).replace('.', '/');
-          return LocalFileSystem.getInstance()
-            .findFileByPath(myBazelWorkspacePath + "/" + packageName + "/lib" + uri.substring(slashIndex));
-        }
+      uri = localRootUri + uri.substring(myRemoteProjectRootUri.length());
+    }
+
+    if (uri.startsWith(ORG_DARTLANG_APP_PREFIX) && myCurrentWorkingDirectory != null) {
+      final String relativeFromCWD = uri.substring(ORG_DARTLANG_APP_PREFIX.length());
+      return LocalFileSystem.getInstance().findFileByPath(myCurrentWorkingDirectory.getPath() + relativeFromCWD);
+    }
+
+    if (Registry.is("dart.projects.without.pubspec", false) &&
+        myBazelWorkspacePath != null &&
+        uri.startsWith(DartUrlResolver.PACKAGE_PREFIX)) {
+      final int slashIndex = uri.indexOf('/');
+      if (slashIndex != -1) {
+        final String packageName = uri.substring(DartUrlResolver.PACKAGE_PREFIX.length(), slashIndex).replace('.', '/');
+        return LocalFileSystem.getInstance()
+          .findFileByPath(myBazelWorkspacePath + "/" + packageName + "/lib" + uri.substring(slashIndex));
       }
-      return myDartUrlResolver.findFileByDartUrl(uri);
-    });
+    }
+    return myDartUrlResolver.findFileByDartUrl(uri);
+  }
+
+  public @Nullable XSourcePosition getSourcePosition(@NotNull String isolateId, @NotNull ScriptRef scriptRef, int tokenPos) {
+    VirtualFile file = myScriptFileResolver.getFile(scriptRef.getUri());
 
     if (file == null) {
       file = myScriptIdToContentMap.get(scriptRef.getId());
@@ -37,6 +37,7 @@ public class VmServiceWrapper implements Disposable {
 
   public static final Logger LOG = Logger.getInstance(VmServiceWrapper.class.getName());
   private static final long RESPONSE_WAIT_TIMEOUT = 3000; // millis
+  private static final int STACK_FRAMES_CHUNK_SIZE = 20;
 
   private final DartVmServiceDebugProcess myDebugProcess;
   private final VmService myVmService;
@@ -410,25 +411,50 @@ public class VmServiceWrapper implements Disposable {
           final List<Frame> vmFrames = Lists.newArrayList(elementList);
           final List<XStackFrame> xStackFrames = new ArrayList<>(vmFrames.size());
 
-          for (final Frame vmFrame : vmFrames) {
-            if (vmFrame.getKind() == FrameKind.AsyncSuspensionMarker) {
-              // Render an asynchronous gap.
-              final XStackFrame markerFrame = new DartAsyncMarkerFrame();
-              xStackFrames.add(markerFrame);
+          // Frames are passed to the container in chunks, so that the top of a long stack is shown without waiting
+          // until source positions of all frames are calculated. Scripts of each chunk are mapped to local files in one go.
+          int firstFrameToAdd = Math.min(firstFrameIndex, vmFrames.size());
+          for (int chunkStart = 0; chunkStart < vmFrames.size(); chunkStart += STACK_FRAMES_CHUNK_SIZE) {
+            if (container.isObsolete()) return;
+
+            final List<Frame> chunk = vmFrames.subList(chunkStart, Math.min(chunkStart + STACK_FRAMES_CHUNK_SIZE, vmFrames.size()));
+            final List<ScriptRef> scripts = new ArrayList<>(chunk.size());
+            for (Frame vmFrame : chunk) {
+              if (vmFrame.getKind() != FrameKind.AsyncSuspensionMarker && vmFrame.getLocation() != null) {
+                scripts.add(vmFrame.getLocation().getScript());
+              }
             }
-            else {
-              final DartVmServiceStackFrame stackFrame =
-                new DartVmServiceStackFrame(myDebugProcess, isolateId, vmFrame, vmFrames, exceptionToAddToFrame);
-              stackFrame.setIsDroppableFrame(vmFrame.getKind() == FrameKind.Regular);
-              xStackFrames.add(stackFrame);
-
-              if (!stackFrame.isInDartSdkPatchFile()) {
-                // The exception (if any) is added to the frame where debugger stops and to the upper frames.
-                exceptionToAddToFrame = null;
+            myDebugProcess.resolveScriptFiles(scripts);
+
+            for (final Frame vmFrame : chunk) {
+              if (vmFrame.getKind() == FrameKind.AsyncSuspensionMarker) {
+                // Render an asynchronous gap.
+                final XStackFrame markerFrame = new DartAsyncMarkerFrame();
+                xStackFrames.add(markerFrame);
+              }
+              else {
+                final DartVmServiceStackFrame stackFrame =
+                  new DartVmServiceStackFrame(myDebugProcess, isolateId, vmFrame, vmFrames, exceptionToAddToFrame);
+                stackFrame.setIsDroppableFrame(vmFrame.getKind() == FrameKind.Regular);
+                xStackFrames.add(stackFrame);
+
+                if (!stackFrame.isInDartSdkPatchFile()) {
+                  // The exception (if any) is added to the frame where debugger stops and to the upper frames.
+                  exceptionToAddToFrame = null;
+                }
               }
             }
+
+            final boolean last = xStackFrames.size() == vmFrames.size();
+            if (firstFrameToAdd < xStackFrames.size() || last) {
+              container.addStackFrames(new ArrayList<>(xStackFrames.subList(firstFrameToAdd, xStackFrames.size())), last);
+              firstFrameToAdd = xStackFrames.size();
+            }
+          }
+
+          if (vmFrames.isEmpty()) {
+            container.addStackFrames(Collections.emptyList(), true);
           }
-          container.addStackFrames(firstFrameIndex == 0 ? xStackFrames : xStackFrames.subList(firstFrameIndex, xStackFrames.size()), true);
         });
       }
 
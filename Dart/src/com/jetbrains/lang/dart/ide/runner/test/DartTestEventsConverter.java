@@ -1,7 +1,10 @@
 // Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package com.jetbrains.lang.dart.ide.runner.test;
 
-import com.google.gson.*;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
 import com.intellij.execution.testframework.TestConsoleProperties;
 import com.intellij.execution.testframework.sm.ServiceMessageBuilder;
 import com.intellij.execution.testframework.sm.runner.OutputToGeneralTestEventsConverter;
@@ -13,16 +16,18 @@ import com.intellij.util.PathUtil;
 import com.jetbrains.lang.dart.ide.runner.util.DartTestLocationProvider;
 import com.jetbrains.lang.dart.util.DartUrlResolver;
 import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import jetbrains.buildServer.messages.serviceMessages.ServiceMessageVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
+import java.io.StringReader;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -60,7 +65,6 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
   private static final String JSON_GROUP_IDS = "groupIDs";
   private static final String JSON_RESULT = "result";
   private static final String JSON_MILLIS = "time";
-  private static final String JSON_COUNT = "count";
   private static final String JSON_TEST_COUNT = "testCount";
   private static final String JSON_MESSAGE = "message";
   private static final String JSON_ERROR_MESSAGE = "error";
@@ -91,9 +95,9 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
   private Key myCurrentOutputType;
   private ServiceMessageVisitor myCurrentVisitor;
   private final Int2LongOpenHashMap myTestIdToTimestamp;
-  private final Map<Integer, Test> myTestData;
-  private final Map<Integer, Group> myGroupData;
-  private final Map<Integer, Suite> mySuiteData;
+  private final Int2ObjectMap<Test> myTestData;
+  private final Int2ObjectMap<Group> myGroupData;
+  private final Int2ObjectMap<Suite> mySuiteData;
 
   public DartTestEventsConverter(@NotNull final String testFrameworkName,
                                  @NotNull final TestConsoleProperties consoleProperties,
@@ -101,28 +105,26 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
     super(testFrameworkName, consoleProperties);
     myUrlResolver = urlResolver;
     myTestIdToTimestamp = new Int2LongOpenHashMap();
-    myTestData = new HashMap<>();
-    myGroupData = new HashMap<>();
-    mySuiteData = new HashMap<>();
+    myTestData = new Int2ObjectOpenHashMap<>();
+    myGroupData = new Int2ObjectOpenHashMap<>();
+    mySuiteData = new Int2ObjectOpenHashMap<>();
   }
 
   @Override
   protected boolean processServiceMessages(final String text, final Key outputType, final ServiceMessageVisitor visitor)
     throws ParseException {
-    LOG.debug("<<< " + text.trim());
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("<<< " + text.trim());
+    }
     myCurrentOutputType = outputType;
     myCurrentVisitor = visitor;
     // service message parser expects line like "##teamcity[ .... ]" without whitespaces in the end.
     return processEventText(text);
   }
 
-  private boolean processEventText(final String text) throws JsonSyntaxException, ParseException {
-    JsonParser jp = new JsonParser();
-    JsonElement elem;
-    try {
-      elem = jp.parse(text);
-    }
-    catch (JsonSyntaxException ex) {
+  private boolean processEventText(final String text) throws ParseException {
+    final Event event = startsWithJsonObject(text) ? readEvent(text) : null;
+    if (event == null) {
       if (text.contains("\"json\" is not an allowed value for option \"reporter\"")) {
         final ServiceMessageBuilder testStarted = ServiceMessageBuilder.testStarted("Failed to start");
         final ServiceMessageBuilder testFailed = ServiceMessageBuilder.testFailed("Failed to start");
@@ -133,17 +135,31 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
 
       return doProcessServiceMessages(text);
     }
-    if (elem == null || !elem.isJsonObject()) return false;
-    return process(elem.getAsJsonObject());
+    return process(event);
+  }
+
+  /**
+   * Each event of the JSON reporter is a JSON object on its own line. Lines printed by tests or by the tool itself
+   * almost never start with '{', so they are passed on without trying to parse them.
+   */
+  private static boolean startsWithJsonObject(@NotNull final String text) {
+    for (int i = 0; i < text.length(); i++) {
+      final char c = text.charAt(i);
+      if (c == '{') return true;
+      if (!Character.isWhitespace(c)) return false;
+    }
+    return false;
   }
 
   private boolean doProcessServiceMessages(@NotNull final String text) throws ParseException {
-    LOG.debug(">>> " + text);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(">>> " + text);
+    }
     return super.processServiceMessages(text, myCurrentOutputType, myCurrentVisitor);
   }
 
-  private boolean process(JsonObject obj) throws JsonSyntaxException, ParseException {
-    String type = obj.get(JSON_TYPE).getAsString();
+  private boolean process(@NotNull final Event obj) throws ParseException {
+    String type = obj.type;
     if (TYPE_TEST_START.equals(type)) {
       return handleTestStart(obj);
     }
@@ -176,10 +192,8 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
     }
   }
 
-  private boolean handleTestStart(JsonObject obj) throws ParseException {
-    final JsonObject testObj = obj.getAsJsonObject(DEF_TEST);
-
-    // Not reached if testObj == null.
+  private boolean handleTestStart(Event obj) throws ParseException {
+    // Not reached if obj.test == null.
     final Test test = getTest(obj);
     myTestIdToTimestamp.put(test.getId(), getTimestamp(obj));
 
@@ -207,7 +221,7 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
     addLocationHint(testStarted, test);
     boolean result = finishMessage(testStarted, test.getId(), test.getValidParentId());
 
-    final Metadata metadata = Metadata.from(testObj.getAsJsonObject(DEF_METADATA));
+    final Metadata metadata = test.getMetadata();
     if (metadata.skip) {
       final ServiceMessageBuilder message = ServiceMessageBuilder.testIgnored(test.getBaseName());
       if (metadata.skipReason != null) message.addAttribute("message", metadata.skipReason);
@@ -229,7 +243,7 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
            group != null && group.getDoneTestsCount() > 0 && test.getBaseName().equals(TEAR_DOWN_ALL_VIRTUAL_TEST_NAME);
   }
 
-  private boolean handleTestDone(JsonObject obj) throws ParseException {
+  private boolean handleTestDone(Event obj) throws ParseException {
     final Test test = getTest(obj);
 
     if (!test.myTestStartReported) return true;
@@ -257,8 +271,8 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
     return true;
   }
 
-  private boolean handleGroup(JsonObject obj) throws ParseException {
-    Group group = getGroup(obj.getAsJsonObject(DEF_GROUP));
+  private boolean handleGroup(Event obj) throws ParseException {
+    Group group = getGroup(obj.group);
 
     // From spec: The implicit group at the root of each test suite has null name and parentID attributes.
     if (group.getParent() == null && group.getTestCount() > 0) {
@@ -276,15 +290,15 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
     return finishMessage(groupMsg, group.getId(), group.getValidParentId());
   }
 
-  private boolean handleSuite(JsonObject obj) throws ParseException {
-    Suite suite = getSuite(obj.getAsJsonObject(DEF_SUITE));
+  private boolean handleSuite(Event obj) throws ParseException {
+    Suite suite = getSuite(obj.suite);
     if (!suite.hasPath()) {
       mySuiteData.remove(suite.getId());
     }
     return true;
   }
 
-  private boolean handleError(JsonObject obj) throws ParseException {
+  private boolean handleError(Event obj) throws ParseException {
     final Test test = getTest(obj);
     final String message = getErrorMessage(obj);
     boolean result = true;
@@ -342,15 +356,11 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
     return message.endsWith("\n") ? message : message + "\n";
   }
 
-  private static boolean handleAllSuites(JsonObject obj) {
-    JsonElement elem = obj.get(JSON_COUNT);
-    if (elem != null) {
-      elem.isJsonPrimitive();
-    }
+  private static boolean handleAllSuites(Event obj) {
     return true;
   }
 
-  private boolean handlePrint(JsonObject obj) throws ParseException {
+  private boolean handlePrint(Event obj) throws ParseException {
     final Test test = getTest(obj);
     boolean result = true;
 
@@ -370,7 +380,7 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
     return result & finishMessage(message, test.getId(), test.getValidParentId());
   }
 
-  private boolean handleStart(JsonObject obj) throws ParseException {
+  private boolean handleStart(Event obj) throws ParseException {
     myTestIdToTimestamp.clear();
     myTestData.clear();
     myGroupData.clear();
@@ -379,7 +389,7 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
     return doProcessServiceMessages(ServiceMessageBuilder.testsStarted().toString());
   }
 
-  private boolean handleDone(JsonObject obj) {
+  private boolean handleDone(Event obj) {
     // The test runner has reached the end of the tests.
     processAllTestsDone();
     return true;
@@ -450,101 +460,255 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
     messageBuilder.addAttribute("locationHint", location);
   }
 
-  private static long getTimestamp(JsonObject obj) throws ParseException {
-    return getLong(obj, JSON_MILLIS);
+  private static long getTimestamp(Event obj) throws ParseException {
+    if (!obj.hasTime) throw new ParseException("Value is not type long: " + JSON_MILLIS, 0);
+    return obj.time;
   }
 
-  private static long getLong(JsonObject obj, String name) throws ParseException {
-    JsonElement val = obj == null ? null : obj.get(name);
-    if (val == null || !val.isJsonPrimitive()) throw new ParseException("Value is not type long: " + val, 0);
-    return val.getAsLong();
+  @NotNull
+  private Test getTest(@NotNull Event obj) throws ParseException {
+    if (obj.hasTestId) {
+      return myTestData.get(obj.testId);
+    }
+    final ItemData testObj = obj.test;
+    if (testObj == null || !testObj.hasId) throw new ParseException("No testId in json object", 0);
+
+    final Test test = Test.from(testObj, myGroupData, mySuiteData);
+    myTestData.put(testObj.id, test);
+    return test;
   }
 
-  private static boolean getBoolean(JsonObject obj, String name) throws ParseException {
-    JsonElement val = obj == null ? null : obj.get(name);
-    if (val == null || !val.isJsonPrimitive()) throw new ParseException("Value is not type boolean: " + val, 0);
-    return val.getAsBoolean();
+  @NotNull
+  private Group getGroup(@Nullable ItemData obj) throws ParseException {
+    if (obj == null) throw new ParseException("Unexpected null json object", 0);
+    if (!obj.hasId) throw new ParseException("No testId in json object", 0);
+
+    final Group group = Group.from(obj, myGroupData, mySuiteData);
+    myGroupData.put(obj.id, group);
+    return group;
   }
 
   @NotNull
-  private Test getTest(JsonObject obj) throws ParseException {
-    return getItem(obj, myTestData);
+  private Suite getSuite(@Nullable ItemData obj) throws ParseException {
+    if (obj == null) throw new ParseException("Unexpected null json object", 0);
+    if (!obj.hasId) throw new ParseException("No testId in json object", 0);
+
+    final Suite suite = Suite.from(obj);
+    mySuiteData.put(obj.id, suite);
+    return suite;
   }
 
   @NotNull
-  private Group getGroup(JsonObject obj) throws ParseException {
-    return getItem(obj, myGroupData);
+  private static String getErrorMessage(Event obj) {
+    return obj.error != null ? obj.error : "<no error message>";
   }
 
   @NotNull
-  private Suite getSuite(JsonObject obj) throws ParseException {
-    return getItem(obj, mySuiteData);
+  private static String getMessage(Event obj) {
+    return obj.message != null ? obj.message : "<no message>";
   }
 
   @NotNull
-  private <T extends Item> T getItem(JsonObject obj, Map<Integer, T> items) throws ParseException {
-    if (obj == null) throw new ParseException("Unexpected null json object", 0);
-    T item;
-    JsonElement id = obj.get(JSON_ID);
-    if (id != null) {
-      if (items == myTestData) {
-        @SuppressWarnings("unchecked") T type = (T)Test.from(obj, myGroupData, mySuiteData);
-        item = type;
-      }
-      else if (items == myGroupData) {
-        @SuppressWarnings("unchecked") T group = (T)Group.from(obj, myGroupData, mySuiteData);
-        item = group;
-      }
-      else {
-        @SuppressWarnings("unchecked") T suite = (T)Suite.from(obj);
-        item = suite;
+  private static String getStackTrace(Event obj) {
+    return obj.stackTrace != null ? obj.stackTrace : "<no stack trace>";
+  }
+
+  @NotNull
+  private static String getResult(Event obj) {
+    return obj.result != null ? obj.result : "<no result>";
+  }
+
+  /**
+   * Reads the fields of the event that the converter needs, skipping all other ones, without building a JSON tree.
+   *
+   * @return {@code null} if the text is not a single JSON object
+   */
+  @Nullable
+  private static Event readEvent(@NotNull final String text) {
+    try {
+      final JsonReader reader = new JsonReader(new StringReader(text));
+      reader.setLenient(true);
+
+      final Event event = new Event();
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case JSON_TYPE -> event.type = readString(reader);
+          case JSON_MILLIS -> {
+            if (reader.peek() == JsonToken.NUMBER || reader.peek() == JsonToken.STRING) {
+              event.time = reader.nextLong();
+              event.hasTime = true;
+            }
+            else {
+              reader.skipValue();
+            }
+          }
+          case JSON_TEST_ID -> {
+            event.testId = readInt(reader);
+            event.hasTestId = event.testId >= 0;
+          }
+          case JSON_RESULT -> event.result = readString(reader);
+          case JSON_MESSAGE -> event.message = readString(reader);
+          case JSON_ERROR_MESSAGE -> event.error = readString(reader);
+          case JSON_STACK_TRACE -> event.stackTrace = readString(reader);
+          case DEF_TEST -> event.test = readItem(reader);
+          case DEF_GROUP -> event.group = readItem(reader);
+          case DEF_SUITE -> event.suite = readItem(reader);
+          default -> reader.skipValue();
+        }
       }
-      items.put(id.getAsInt(), item);
+      reader.endObject();
+
+      if (reader.peek() != JsonToken.END_DOCUMENT) throw new MalformedJsonException("Unexpected text after the event");
+      return event;
     }
-    else {
-      JsonElement testId = obj.get(JSON_TEST_ID);
-      if (testId != null) {
-        int baseId = testId.getAsInt();
-        item = items.get(baseId);
-      }
-      else {
-        JsonElement testObj = obj.get(DEF_TEST);
-        if (testObj != null) {
-          return getItem(testObj.getAsJsonObject(), items);
-        }
-        else {
-          throw new ParseException("No testId in json object", 0);
+    catch (IOException | IllegalStateException | NumberFormatException e) {
+      return null;
+    }
+  }
+
+  @Nullable
+  private static ItemData readItem(@NotNull final JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+      reader.skipValue();
+      return null;
+    }
+
+    final ItemData item = new ItemData();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case JSON_ID -> {
+          item.id = readInt(reader);
+          item.hasId = item.id >= 0;
         }
+        case JSON_NAME -> item.name = readString(reader);
+        case JSON_PARENT_ID -> item.parentId = readInt(reader);
+        case JSON_SUITE_ID -> item.suiteId = readInt(reader);
+        case JSON_GROUP_IDS -> item.groupIds = readIntArray(reader);
+        case JSON_TEST_COUNT -> item.testCount = readInt(reader);
+        case JSON_LINE -> item.line = readInt(reader);
+        case JSON_COLUMN -> item.column = readInt(reader);
+        case JSON_URL -> item.url = readString(reader);
+        case JSON_PATH -> item.path = readString(reader);
+        case JSON_PLATFORM -> item.platform = readString(reader);
+        case DEF_METADATA -> readMetadata(reader, item);
+        default -> reader.skipValue();
       }
     }
+    reader.endObject();
     return item;
   }
 
-  @NotNull
-  private static String getErrorMessage(JsonObject obj) {
-    return nonNullJsonValue(obj, JSON_ERROR_MESSAGE, "<no error message>");
+  private static void readMetadata(@NotNull final JsonReader reader, @NotNull final ItemData item) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+      reader.skipValue();
+      return;
+    }
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "skip" -> {
+          if (reader.peek() == JsonToken.BOOLEAN) {
+            item.skip = reader.nextBoolean();
+          }
+          else {
+            reader.skipValue();
+          }
+        }
+        case "skipReason" -> item.skipReason = readString(reader);
+        default -> reader.skipValue();
+      }
+    }
+    reader.endObject();
   }
 
-  @NotNull
-  private static String getMessage(JsonObject obj) {
-    return nonNullJsonValue(obj, JSON_MESSAGE, "<no message>");
+  /**
+   * @return -1 if the value is not a number
+   */
+  private static int readInt(@NotNull final JsonReader reader) throws IOException {
+    if (reader.peek() == JsonToken.NUMBER) {
+      return reader.nextInt();
+    }
+    reader.skipValue();
+    return -1;
   }
 
-  @NotNull
-  private static String getStackTrace(JsonObject obj) {
-    return nonNullJsonValue(obj, JSON_STACK_TRACE, "<no stack trace>");
+  private static int @Nullable [] readIntArray(@NotNull final JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+      reader.skipValue();
+      return null;
+    }
+
+    int[] result = new int[4];
+    int size = 0;
+    reader.beginArray();
+    while (reader.hasNext()) {
+      if (size == result.length) {
+        result = Arrays.copyOf(result, size * 2);
+      }
+      result[size++] = reader.nextInt();
+    }
+    reader.endArray();
+    return Arrays.copyOf(result, size);
   }
 
-  @NotNull
-  private static String getResult(JsonObject obj) {
-    return nonNullJsonValue(obj, JSON_RESULT, "<no result>");
+  /**
+   * @return the value of a string, number or boolean, {@code null} otherwise
+   */
+  @Nullable
+  private static String readString(@NotNull final JsonReader reader) throws IOException {
+    switch (reader.peek()) {
+      case STRING, NUMBER -> {
+        return reader.nextString();
+      }
+      case BOOLEAN -> {
+        return String.valueOf(reader.nextBoolean());
+      }
+      default -> {
+        reader.skipValue();
+        return null;
+      }
+    }
   }
 
-  @NotNull
-  private static String nonNullJsonValue(JsonObject obj, @NotNull String id, @NotNull String def) {
-    JsonElement val = obj == null ? null : obj.get(id);
-    if (val == null || !val.isJsonPrimitive()) return def;
-    return val.getAsString();
+  /**
+   * Fields of an event that the converter needs, see {@link #readEvent}.
+   */
+  private static final class Event {
+    private String type;
+    private long time;
+    private boolean hasTime;
+    private int testId = -1;
+    private boolean hasTestId;
+    private String result;
+    private String message;
+    private String error;
+    private String stackTrace;
+    private ItemData test;
+    private ItemData group;
+    private ItemData suite;
+  }
+
+  /**
+   * Fields of a test, group or suite object of an event. Ints are -1 if the field is missing or null.
+   */
+  private static final class ItemData {
+    private int id = -1;
+    private boolean hasId;
+    private String name;
+    private int parentId = -1;
+    private int suiteId = -1;
+    private int[] groupIds;
+    private int testCount = -1;
+    private int line = -1;
+    private int column = -1;
+    private String url;
+    private String path;
+    private String platform;
+    private boolean skip;
+    private String skipReason;
   }
 
   private static class Item {
@@ -558,30 +722,12 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
     private final int myColumn;
     private final String myUrl;
 
-    static int extractInt(JsonObject obj, String memberName) {
-      JsonElement elem = obj.get(memberName);
-      if (elem == null || !elem.isJsonPrimitive()) return -1;
-      return elem.getAsInt();
-    }
-
-    static String extractString(JsonObject obj, String memberName, String defaultResult) {
-      JsonElement elem = obj.get(memberName);
-      if (elem == null || elem.isJsonNull()) return defaultResult;
-      return elem.getAsString();
-    }
-
-    static Metadata extractMetadata(JsonObject obj) {
-      return Metadata.from(obj.get(DEF_METADATA));
+    static Metadata extractMetadata(ItemData obj) {
+      return new Metadata(obj.skip, obj.skipReason);
     }
 
-    static Suite lookupSuite(JsonObject obj, Map<Integer, Suite> suites) {
-      JsonElement suiteObj = obj.get(JSON_SUITE_ID);
-      Suite suite = null;
-      if (suiteObj != null && suiteObj.isJsonPrimitive()) {
-        int parentId = suiteObj.getAsInt();
-        suite = suites.get(parentId);
-      }
-      return suite;
+    static Suite lookupSuite(ItemData obj, Int2ObjectMap<Suite> suites) {
+      return obj.suiteId >= 0 ? suites.get(obj.suiteId) : null;
     }
 
     Item(int id, String name, Group parent, Suite suite, Metadata metadata, int line, int column, String url) {
@@ -707,17 +853,17 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
     private boolean myTestStartReported = false;
     private boolean myTestErrorReported = false;
 
-    static Test from(JsonObject obj, Map<Integer, Group> groups, Map<Integer, Suite> suites) {
-      int[] groupIds = GSON.fromJson(obj.get(JSON_GROUP_IDS), (Type)int[].class);
+    static Test from(ItemData obj, Int2ObjectMap<Group> groups, Int2ObjectMap<Suite> suites) {
+      int[] groupIds = obj.groupIds;
       Group parent = null;
       if (groupIds != null && groupIds.length > 0) {
         parent = groups.get(groupIds[groupIds.length - 1]);
       }
       Suite suite = lookupSuite(obj, suites);
-      final int line = extractInt(obj, JSON_LINE);
-      final int column = extractInt(obj, JSON_COLUMN);
-      return new Test(extractInt(obj, JSON_ID), extractString(obj, JSON_NAME, NO_NAME), parent, suite, extractMetadata(obj),
-                      line < 0 ? -1 : line - 1, column < 0 ? -1 : column - 1, extractString(obj, JSON_URL, null));
+      final int line = obj.line;
+      final int column = obj.column;
+      return new Test(obj.id, obj.name != null ? obj.name : NO_NAME, parent, suite, extractMetadata(obj),
+                      line < 0 ? -1 : line - 1, column < 0 ? -1 : column - 1, obj.url);
     }
 
     Test(int id, String name, Group parent, Suite suite, Metadata metadata, int line, int column, String url) {
@@ -735,19 +881,13 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
     private final int myTestCount;
     private int myDoneTestsCount = 0;
 
-    static Group from(JsonObject obj, Map<Integer, Group> groups, Map<Integer, Suite> suites) {
-      JsonElement parentObj = obj.get(JSON_PARENT_ID);
-      Group parent = null;
-      if (parentObj != null && parentObj.isJsonPrimitive()) {
-        int parentId = parentObj.getAsInt();
-        parent = groups.get(parentId);
-      }
+    static Group from(ItemData obj, Int2ObjectMap<Group> groups, Int2ObjectMap<Suite> suites) {
+      Group parent = obj.parentId >= 0 ? groups.get(obj.parentId) : null;
       Suite suite = lookupSuite(obj, suites);
-      final int line = extractInt(obj, JSON_LINE);
-      final int column = extractInt(obj, JSON_COLUMN);
-      return new Group(extractInt(obj, JSON_ID), extractString(obj, JSON_NAME, NO_NAME), parent, suite, extractMetadata(obj),
-                       extractInt(obj, JSON_TEST_COUNT), line < 0 ? -1 : line - 1, column < 0 ? -1 : column - 1,
-                       extractString(obj, JSON_URL, null));
+      final int line = obj.line;
+      final int column = obj.column;
+      return new Group(obj.id, obj.name != null ? obj.name : NO_NAME, parent, suite, extractMetadata(obj),
+                       obj.testCount, line < 0 ? -1 : line - 1, column < 0 ? -1 : column - 1, obj.url);
     }
 
     Group(int id, String name, Group parent, Suite suite, Metadata metadata, int count, int line, int column, String url) {
@@ -773,11 +913,11 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
   }
 
   private static class Suite extends Item {
-    static Metadata NoMetadata = new Metadata();
+    static Metadata NoMetadata = new Metadata(false, null);
     static String NONE = "<none>";
 
-    static Suite from(JsonObject obj) {
-      return new Suite(extractInt(obj, JSON_ID), extractString(obj, JSON_PATH, NONE), extractString(obj, JSON_PLATFORM, NONE));
+    static Suite from(ItemData obj) {
+      return new Suite(obj.id, obj.path != null ? obj.path : NONE, obj.platform != null ? obj.platform : NONE);
     }
 
     private final String myPlatform;
@@ -801,12 +941,12 @@ public final class DartTestEventsConverter extends OutputToGeneralTestEventsConv
   }
 
   private static class Metadata {
-    @SuppressWarnings("unused") private boolean skip; // assigned by GSON via reflection
-    @SuppressWarnings("unused") private String skipReason; // assigned by GSON via reflection
+    private final boolean skip;
+    private final String skipReason;
 
-    static Metadata from(JsonElement elem) {
-      if (elem == null) return new Metadata();
-      return GSON.fromJson(elem, (Type)Metadata.class);
+    Metadata(boolean skip, String skipReason) {
+      this.skip = skip;
+      this.skipReason = skipReason;
     }
   }
 }
@@ -0,0 +1,222 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.util;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.util.SmartList;
+import com.intellij.util.containers.ContainerUtil;
+import com.jetbrains.lang.dart.ide.index.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+import static com.jetbrains.lang.dart.ide.index.DartImportOrExportInfo.Kind;
+import static com.jetbrains.lang.dart.util.DartUrlResolver.DART_CORE_URI;
+
+/**
+ * Top-level names visible in a Dart file, mapped to the files that declare them.
+ * <p>
+ * The namespace is built from {@link DartComponentIndex}, {@link DartPartUriIndex} and {@link DartImportAndExportIndex} without loading
+ * any PSI, applying show/hide combinators and privacy the same way as {@link DartResolveUtil#processTopLevelDeclarations}.
+ * It is cached on the file and depends on all files it was built from.
+ */
+final class DartLibraryNamespace {
+  /**
+   * A file declaring a name, with the import and export directives {@link DartResolveUtil} follows to get to it from the root file:
+   * each imported or exported file paired with the directive, outermost first.
+   */
+  record DeclaringFile(@NotNull VirtualFile file, @NotNull List<Pair<VirtualFile, DartImportOrExportInfo>> importPath) {
+  }
+
+  private final Map<String, List<DeclaringFile>> myDeclaringFiles;
+  private final Set<VirtualFile> myImportedFiles;
+
+  private DartLibraryNamespace(@NotNull Map<String, List<DeclaringFile>> declaringFiles, @NotNull Set<VirtualFile> importedFiles) {
+    myDeclaringFiles = declaringFiles;
+    myImportedFiles = importedFiles;
+  }
+
+  /**
+   * @return files that declare the top-level element with the name, in the order {@link DartResolveUtil} would process them
+   */
+  @NotNull
+  List<DeclaringFile> getDeclaringFiles(@NotNull String name) {
+    return myDeclaringFiles.getOrDefault(name, Collections.emptyList());
+  }
+
+  /**
+   * @return {@code true} if the file was reached through an import or export directive
+   */
+  boolean isImported(@NotNull VirtualFile file) {
+    return myImportedFiles.contains(file);
+  }
+
+  /**
+   * @param isContextLibrary if {@code true}, the namespace includes names imported by the file, otherwise names exported by it
+   */
+  @NotNull
+  static DartLibraryNamespace getNamespace(@NotNull PsiFile file, boolean isContextLibrary) {
+    if (isContextLibrary) {
+      return CachedValuesManager.getCachedValue(file, () -> new Builder(file, true).build());
+    }
+    return CachedValuesManager.getCachedValue(file, () -> new Builder(file, false).build());
+  }
+
+  /**
+   * Show/hide combinators of all import and export directives on the way to a file, merged into one.
+   *
+   * @param show names that pass all show combinators, or null if there are no show combinators
+   * @param hide names hidden by any hide combinator
+   */
+  private record Filter(@Nullable Set<String> show, @NotNull Set<String> hide) {
+    static final Filter ALL = new Filter(null, Collections.emptySet());
+
+    boolean accepts(@NotNull String name) {
+      return show != null ? show.contains(name) : !hide.contains(name);
+    }
+
+    boolean isEmpty() {
+      return show != null && show.isEmpty();
+    }
+
+    @NotNull
+    Filter and(@NotNull DartShowHideInfo info) {
+      if (info.getShowComponents().isEmpty() && info.getHideComponents().isEmpty()) return this;
+
+      Set<String> newShow = show;
+      if (!info.getShowComponents().isEmpty()) {
+        newShow = new HashSet<>(info.getShowComponents());
+        if (show != null) newShow.retainAll(show);
+      }
+      Set<String> newHide = hide;
+      if (!info.getHideComponents().isEmpty()) {
+        newHide = new HashSet<>(hide);
+        newHide.addAll(info.getHideComponents());
+      }
+      if (newShow != null) {
+        if (newShow == show) newShow = new HashSet<>(show);
+        newShow.removeAll(newHide);
+        newHide = Collections.emptySet();
+      }
+      return new Filter(newShow, newHide);
+    }
+  }
+
+  private static final class Builder {
+    private final @NotNull Project myProject;
+    private final @NotNull PsiFile myFile;
+    private final boolean myIsContextLibrary;
+    private final Map<String, List<DeclaringFile>> myDeclaringFiles = new HashMap<>();
+    private final Set<VirtualFile> myImportedFiles = new HashSet<>();
+    private final Set<Pair<VirtualFile, Filter>> myVisited = new HashSet<>();
+    private final Set<VirtualFile> myFilesOnPath = new HashSet<>();
+    private final Set<Object> myDependencies = new LinkedHashSet<>();
+
+    private Builder(@NotNull PsiFile file, boolean isContextLibrary) {
+      myProject = file.getProject();
+      myFile = file;
+      myIsContextLibrary = isContextLibrary;
+    }
+
+    @NotNull
+    CachedValueProvider.Result<DartLibraryNamespace> build() {
+      myDependencies.add(myFile);
+      myDependencies.add(ProjectRootManager.getInstance(myProject));
+      myDependencies.add(VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS);
+
+      VirtualFile virtualFile = myFile.getVirtualFile();
+      if (virtualFile != null) {
+        addFile(virtualFile, Filter.ALL, true, Collections.emptyList());
+      }
+      return CachedValueProvider.Result.create(new DartLibraryNamespace(myDeclaringFiles, myImportedFiles), myDependencies.toArray());
+    }
+
+    private void addFile(@NotNull VirtualFile file,
+                         @NotNull Filter filter,
+                         boolean isRoot,
+                         @NotNull List<Pair<VirtualFile, DartImportOrExportInfo>> importPath) {
+      if (myFilesOnPath.contains(file) || !myVisited.add(Pair.create(file, filter))) return;
+      myFilesOnPath.add(file);
+      if (!isRoot) {
+        myImportedFiles.add(file);
+      }
+
+      addDeclarations(file, filter, isRoot, importPath, new HashSet<>());
+
+      boolean followImports = isRoot && myIsContextLibrary;
+      boolean coreImportedExplicitly = false;
+      for (DartImportOrExportInfo info : DartImportAndExportIndex.getImportAndExportInfos(myProject, file)) {
+        if (followImports != (info.getKind() == Kind.Import)) continue;
+        if (info.getKind() == Kind.Import && DART_CORE_URI.equals(info.getUri())) {
+          coreImportedExplicitly = true;
+        }
+        // if statement has prefix all components are prefix.Name
+        if (info.getImportPrefix() != null) continue;
+
+        VirtualFile importedFile = DartResolveUtil.getImportedFile(myProject, file, info.getUri());
+        Filter importFilter = filter.and(info);
+        if (importedFile != null && !importFilter.isEmpty()) {
+          addFile(importedFile, importFilter, false, append(importPath, importedFile, info));
+        }
+      }
+
+      if (followImports && !coreImportedExplicitly) {
+        VirtualFile dartCoreLib = DartLibraryIndex.getSdkLibByUri(myProject, DART_CORE_URI);
+        if (dartCoreLib != null) {
+          DartImportOrExportInfo implicitImportInfo =
+            new DartImportOrExportInfo(Kind.Import, DART_CORE_URI, null, Collections.emptySet(), Collections.emptySet());
+          addFile(dartCoreLib, filter, false, append(importPath, dartCoreLib, implicitImportInfo));
+        }
+      }
+
+      myFilesOnPath.remove(file);
+    }
+
+    private void addDeclarations(@NotNull VirtualFile file,
+                                 @NotNull Filter filter,
+                                 boolean isRoot,
+                                 @NotNull List<Pair<VirtualFile, DartImportOrExportInfo>> importPath,
+                                 @NotNull Set<VirtualFile> processedParts) {
+      if (!processedParts.add(file)) return;
+
+      PsiFile psiFile = PsiManager.getInstance(myProject).findFile(file);
+      myDependencies.add(psiFile != null ? psiFile : file);
+
+      for (String name : DartComponentIndex.getComponentNames(myProject, file)) {
+        if (!isRoot && StringUtil.startsWithChar(name, '_')) continue;
+        if (!filter.accepts(name)) continue;
+
+        List<DeclaringFile> declaringFiles = myDeclaringFiles.computeIfAbsent(name, n -> new SmartList<>());
+        if (!ContainerUtil.exists(declaringFiles, declaringFile -> declaringFile.file().equals(file))) {
+          declaringFiles.add(new DeclaringFile(file, importPath));
+        }
+      }
+
+      for (String partUrl : DartPartUriIndex.getPartUris(myProject, file)) {
+        VirtualFile partFile = DartResolveUtil.getImportedFile(myProject, file, partUrl);
+        if (partFile != null) {
+          addDeclarations(partFile, filter, isRoot, importPath, processedParts);
+        }
+      }
+    }
+
+    @NotNull
+    private static List<Pair<VirtualFile, DartImportOrExportInfo>> append(@NotNull List<Pair<VirtualFile, DartImportOrExportInfo>> path,
+                                                                          @NotNull VirtualFile importedFile,
+                                                                          @NotNull DartImportOrExportInfo info) {
+      List<Pair<VirtualFile, DartImportOrExportInfo>> result = new ArrayList<>(path.size() + 1);
+      result.addAll(path);
+      result.add(Pair.create(importedFile, info));
+      return Collections.unmodifiableList(result);
+    }
+  }
+}
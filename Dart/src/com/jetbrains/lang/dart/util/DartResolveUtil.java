@@ -172,25 +172,59 @@ public final class DartResolveUtil {
     }
   }
 
+  /**
+   * If {@code componentNameHint} is specified, only the files declaring the element with this name are processed. They are found in
+   * the {@link DartLibraryNamespace} of {@code rootVirtualFile}, which is computed once and cached until any file it is built from changes.
+   * The processor is notified about the import and export directives on the way to each of these files as in a full walk.
+   */
   public static boolean processTopLevelDeclarations(final @NotNull PsiElement context,
                                                     final @NotNull DartPsiScopeProcessor processor,
                                                     final @Nullable VirtualFile rootVirtualFile,
                                                     final @Nullable String componentNameHint) {
-    final Set<VirtualFile> filesOfInterest =
-      componentNameHint == null ? null : (Set<VirtualFile>)DartComponentIndex.getAllFiles(componentNameHint, context.getResolveScope());
+    if (componentNameHint == null) {
+      return processTopLevelDeclarationsImpl(context, processor, rootVirtualFile, new HashSet<>());
+    }
 
-    if (filesOfInterest != null && filesOfInterest.isEmpty()) return true;
+    final PsiFile rootFile = rootVirtualFile == null ? null : context.getManager().findFile(rootVirtualFile);
+    if (rootFile == null) return true;
 
-    final boolean privateOnly = componentNameHint != null && componentNameHint.startsWith("_");
-    return processTopLevelDeclarationsImpl(context, processor, rootVirtualFile, filesOfInterest, new HashSet<>(), privateOnly);
+    final List<VirtualFile> libraryFiles = findLibrary(context.getContainingFile());
+    final boolean isContextLibrary = libraryFiles.contains(rootVirtualFile);
+    final DartLibraryNamespace namespace = DartLibraryNamespace.getNamespace(rootFile, isContextLibrary);
+    // the walk follows imports rather than exports of any file of the context library, which the cached namespace doesn't know about
+    if (ContainerUtil.exists(libraryFiles, namespace::isImported)) {
+      return processTopLevelDeclarationsImpl(context, processor, rootVirtualFile, new HashSet<>());
+    }
+
+    for (DartLibraryNamespace.DeclaringFile declaringFile : namespace.getDeclaringFiles(componentNameHint)) {
+      final PsiFile psiFile = context.getManager().findFile(declaringFile.file());
+      if (psiFile instanceof DartFile) {
+        if (!processDeclarationsOnImportPath(psiFile, processor, declaringFile.importPath())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static boolean processDeclarationsOnImportPath(final @NotNull PsiFile psiFile,
+                                                         final @NotNull DartPsiScopeProcessor processor,
+                                                         final @NotNull List<Pair<VirtualFile, DartImportOrExportInfo>> importPath) {
+    for (Pair<VirtualFile, DartImportOrExportInfo> importedFile : importPath) {
+      processor.importedFileProcessingStarted(importedFile.first, importedFile.second);
+    }
+    final boolean continueProcessing =
+      DartPsiCompositeElementImpl.processDeclarationsImpl(psiFile, processor, ResolveState.initial(), null);
+    for (int i = importPath.size() - 1; i >= 0; i--) {
+      processor.importedFileProcessingFinished(importPath.get(i).first);
+    }
+    return continueProcessing;
   }
 
   private static boolean processTopLevelDeclarationsImpl(final @NotNull PsiElement context,
                                                          final @NotNull DartPsiScopeProcessor processor,
                                                          final @Nullable VirtualFile virtualFile,
-                                                         final @Nullable Set<? extends VirtualFile> filesOfInterest,
-                                                         final @NotNull Set<? super VirtualFile> alreadyProcessed,
-                                                         final boolean privateOnly) {
+                                                         final @NotNull Set<? super VirtualFile> alreadyProcessed) {
     if (virtualFile == null) return true;
 
     if (alreadyProcessed.contains(virtualFile)) {
@@ -200,34 +234,27 @@ public final class DartResolveUtil {
 
     alreadyProcessed.add(virtualFile);
 
-    boolean contains = filesOfInterest == null || filesOfInterest.contains(virtualFile);
-    if (contains) {
-      final PsiFile psiFile = context.getManager().findFile(virtualFile);
-      if (psiFile instanceof DartFile) {
-        if (!DartPsiCompositeElementImpl.processDeclarationsImpl(psiFile, processor, ResolveState.initial(), null)) {
-          return false;
-        }
+    final PsiFile psiFile = context.getManager().findFile(virtualFile);
+    if (psiFile instanceof DartFile) {
+      if (!DartPsiCompositeElementImpl.processDeclarationsImpl(psiFile, processor, ResolveState.initial(), null)) {
+        return false;
       }
     }
 
     for (String partUrl : DartPartUriIndex.getPartUris(context.getProject(), virtualFile)) {
       final VirtualFile partFile = getImportedFile(context.getProject(), virtualFile, partUrl);
-      if (partFile == null || alreadyProcessed.contains(partFile) || (filesOfInterest != null && !filesOfInterest.contains(partFile))) {
+      if (partFile == null || alreadyProcessed.contains(partFile)) {
         continue;
       }
 
       final PsiFile partPsiFile = context.getManager().findFile(partFile);
       if (partPsiFile != null) {
-        if (!processTopLevelDeclarationsImpl(partPsiFile, processor, partFile, filesOfInterest, alreadyProcessed, privateOnly)) {
+        if (!processTopLevelDeclarationsImpl(partPsiFile, processor, partFile, alreadyProcessed)) {
           return false;
         }
       }
     }
 
-    if (privateOnly) {
-      return true;
-    }
-
     final List<VirtualFile> libraryFiles = findLibrary(context.getContainingFile());
     final boolean processingLibraryWhereContextElementLocated = libraryFiles.contains(virtualFile);
 
@@ -248,7 +275,7 @@ public final class DartResolveUtil {
       if (importedFile != null) {
         processor.importedFileProcessingStarted(importedFile, importOrExportInfo);
         final boolean continueProcessing =
-          processTopLevelDeclarationsImpl(context, processor, importedFile, filesOfInterest, alreadyProcessed, false);
+          processTopLevelDeclarationsImpl(context, processor, importedFile, alreadyProcessed);
         processor.importedFileProcessingFinished(importedFile);
         if (!continueProcessing) {
           return false;
@@ -263,7 +290,7 @@ public final class DartResolveUtil {
           new DartImportOrExportInfo(Kind.Import, DART_CORE_URI, null, Collections.emptySet(), Collections.emptySet());
         processor.importedFileProcessingStarted(dartCoreLib, implicitImportInfo);
         final boolean continueProcessing =
-          processTopLevelDeclarationsImpl(context, processor, dartCoreLib, filesOfInterest, alreadyProcessed, false);
+          processTopLevelDeclarationsImpl(context, processor, dartCoreLib, alreadyProcessed);
         processor.importedFileProcessingFinished(dartCoreLib);
 
         if (!continueProcessing) {
@@ -0,0 +1,174 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.analyzer;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.intellij.testFramework.UsefulTestCase;
+import com.intellij.util.Consumer;
+import org.dartlang.analysis.server.protocol.ElementKind;
+import org.dartlang.analysis.server.protocol.TypeHierarchyItem;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class DartTypeHierarchyCacheTest extends UsefulTestCase {
+  private static final String BASE_FILE = "/project/lib/base.dart";
+  private static final String SUB_FILE = "/project/lib/sub.dart";
+  private static final String OTHER_FILE = "/project/lib/other.dart";
+
+  private final List<Consumer<? super List<TypeHierarchyItem>>> myPendingRequests = new ArrayList<>();
+  private boolean myServerRunning = true;
+  private DartTypeHierarchyCache myCache;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myCache = new DartTypeHierarchyCache((filePath, offset, superOnly, consumer) -> {
+      if (!myServerRunning) return false;
+      myPendingRequests.add(consumer);
+      return true;
+    });
+  }
+
+  public void testRepeatedRequestsShareOneRoundTrip() {
+    CompletableFuture<List<TypeHierarchyItem>> first = myCache.getTypeHierarchy(BASE_FILE, 6, false);
+    CompletableFuture<List<TypeHierarchyItem>> second = myCache.getTypeHierarchy(BASE_FILE, 6, false);
+    assertNotNull(first);
+    assertSame(first, second);
+    assertEquals(1, myPendingRequests.size());
+    assertFalse(first.isDone());
+
+    respond(0);
+    assertEquals(2, first.join().size());
+
+    assertEquals(2, myCache.getTypeHierarchy(BASE_FILE, 6, false).join().size());
+    assertEquals(1, myPendingRequests.size());
+  }
+
+  public void testKeyIncludesOffsetAndSuperOnly() {
+    myCache.getTypeHierarchy(BASE_FILE, 6, false);
+    myCache.getTypeHierarchy(BASE_FILE, 6, true);
+    myCache.getTypeHierarchy(BASE_FILE, 30, false);
+    myCache.getTypeHierarchy(SUB_FILE, 6, false);
+    assertEquals(4, myPendingRequests.size());
+  }
+
+  public void testInvalidatedByAnalysisOfFileInHierarchy() {
+    myCache.getTypeHierarchy(BASE_FILE, 6, false);
+    respond(0);
+
+    myCache.fileAnalyzed(OTHER_FILE);
+    myCache.getTypeHierarchy(BASE_FILE, 6, false);
+    assertEquals(1, myPendingRequests.size());
+
+    myCache.fileAnalyzed(SUB_FILE);
+    myCache.getTypeHierarchy(BASE_FILE, 6, false);
+    assertEquals(2, myPendingRequests.size());
+  }
+
+  public void testRequestInFlightInvalidatedByAnalysisOfItsFile() {
+    CompletableFuture<List<TypeHierarchyItem>> inFlight = myCache.getTypeHierarchy(BASE_FILE, 6, false);
+    myCache.fileAnalyzed(OTHER_FILE);
+    assertSame(inFlight, myCache.getTypeHierarchy(BASE_FILE, 6, false));
+    assertEquals(1, myPendingRequests.size());
+
+    myCache.fileAnalyzed(BASE_FILE);
+    assertNotSame(inFlight, myCache.getTypeHierarchy(BASE_FILE, 6, false));
+    assertEquals(2, myPendingRequests.size());
+  }
+
+  public void testClear() {
+    myCache.getTypeHierarchy(BASE_FILE, 6, false);
+    respond(0);
+    myCache.clear();
+    myCache.getTypeHierarchy(BASE_FILE, 6, false);
+    assertEquals(2, myPendingRequests.size());
+  }
+
+  public void testFailedRequestIsNotCached() {
+    CompletableFuture<List<TypeHierarchyItem>> failed = myCache.getTypeHierarchy(BASE_FILE, 6, false);
+    assertNotNull(failed);
+    myPendingRequests.get(0).consume(null);
+    assertEmpty(failed.join());
+
+    myCache.getTypeHierarchy(BASE_FILE, 6, false);
+    assertEquals(2, myPendingRequests.size());
+  }
+
+  public void testTimedOutRequestIsSentAgain() {
+    CompletableFuture<List<TypeHierarchyItem>> timedOut = myCache.getTypeHierarchy(BASE_FILE, 6, false);
+    assertNotNull(timedOut);
+    myCache.requestTimedOut(BASE_FILE, 6, false, timedOut);
+    assertEmpty(timedOut.join());
+
+    CompletableFuture<List<TypeHierarchyItem>> next = myCache.getTypeHierarchy(BASE_FILE, 6, false);
+    assertNotSame(timedOut, next);
+    assertEquals(2, myPendingRequests.size());
+
+    // a late response to the dropped request doesn't affect the new one
+    respond(0);
+    assertFalse(next.isDone());
+    respond(1);
+    assertEquals(2, next.join().size());
+  }
+
+  public void testTimeoutOfStaleFutureKeepsNewRequest() {
+    CompletableFuture<List<TypeHierarchyItem>> stale = myCache.getTypeHierarchy(BASE_FILE, 6, false);
+    assertNotNull(stale);
+    myCache.fileAnalyzed(BASE_FILE);
+    CompletableFuture<List<TypeHierarchyItem>> fresh = myCache.getTypeHierarchy(BASE_FILE, 6, false);
+
+    myCache.requestTimedOut(BASE_FILE, 6, false, stale);
+    assertEmpty(stale.join());
+    assertSame(fresh, myCache.getTypeHierarchy(BASE_FILE, 6, false));
+    assertEquals(2, myPendingRequests.size());
+  }
+
+  public void testServerNotRunning() {
+    myServerRunning = false;
+    assertNull(myCache.getTypeHierarchy(BASE_FILE, 6, false));
+
+    myServerRunning = true;
+    assertNotNull(myCache.getTypeHierarchy(BASE_FILE, 6, false));
+    assertEquals(1, myPendingRequests.size());
+  }
+
+  private void respond(int requestIndex) {
+    List<TypeHierarchyItem> items = new ArrayList<>();
+    items.add(createItem("Base", BASE_FILE, 1));
+    items.add(createItem("Sub", SUB_FILE));
+    myPendingRequests.get(requestIndex).consume(items);
+  }
+
+  @NotNull
+  private static TypeHierarchyItem createItem(@NotNull String className, @NotNull String file, int... subclasses) {
+    JsonObject location = new JsonObject();
+    location.addProperty("file", file);
+    location.addProperty("offset", 6);
+    location.addProperty("length", className.length());
+    location.addProperty("startLine", 1);
+    location.addProperty("startColumn", 7);
+    location.addProperty("endLine", 1);
+    location.addProperty("endColumn", 7 + className.length());
+
+    JsonObject classElement = new JsonObject();
+    classElement.addProperty("kind", ElementKind.CLASS);
+    classElement.addProperty("name", className);
+    classElement.addProperty("flags", 0);
+    classElement.add("location", location);
+
+    JsonArray subclassesJson = new JsonArray();
+    for (int subclass : subclasses) {
+      subclassesJson.add(subclass);
+    }
+
+    JsonObject item = new JsonObject();
+    item.add("classElement", classElement);
+    item.add("interfaces", new JsonArray());
+    item.add("mixins", new JsonArray());
+    item.add("subclasses", subclassesJson);
+    return TypeHierarchyItem.fromJson(item);
+  }
+}
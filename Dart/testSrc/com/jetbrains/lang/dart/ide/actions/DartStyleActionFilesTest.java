@@ -0,0 +1,107 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.actions;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.EditorFactory;
+import com.intellij.openapi.editor.RangeMarker;
+import com.intellij.openapi.editor.event.DocumentEvent;
+import com.intellij.openapi.editor.event.DocumentListener;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.jetbrains.lang.dart.analyzer.DartAnalysisServerService;
+import org.dartlang.analysis.server.protocol.SourceEdit;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DartStyleActionFilesTest extends BasePlatformTestCase {
+  private static final int FILE_COUNT = 50;
+  private static final int LINE_COUNT = 100;
+
+  /**
+   * Replies to {@code edit.format} requests from a background thread after a delay, like the analysis server does,
+   * and records how many requests were in flight at the same time.
+   */
+  private static final class StubFormatServer implements DartStyleAction.FormatRequestSender {
+    private final ScheduledExecutorService myExecutor = AppExecutorUtil.createBoundedScheduledExecutorService("Stub format server", 4);
+    private final AtomicInteger myInFlight = new AtomicInteger();
+    private final AtomicInteger myMaxInFlight = new AtomicInteger();
+    private final AtomicInteger myRequests = new AtomicInteger();
+
+    @Override
+    public boolean send(@NotNull VirtualFile file,
+                        int lineLength,
+                        @NotNull com.intellij.util.Consumer<? super DartAnalysisServerService.FormatResult> consumer) {
+      myRequests.incrementAndGet();
+      int inFlight = myInFlight.incrementAndGet();
+      myMaxInFlight.accumulateAndGet(inFlight, Math::max);
+
+      String text = FileDocumentManager.getInstance().getDocument(file).getText();
+      myExecutor.schedule(() -> {
+        myInFlight.decrementAndGet();
+        consumer.consume(new DartAnalysisServerService.FormatResult(
+          Collections.singletonList(new SourceEdit(0, text.length(), format(text), null)), 0, 0));
+      }, 10, TimeUnit.MILLISECONDS);
+      return true;
+    }
+  }
+
+  public void testConcurrentRequestsAndMinimalChanges() {
+    List<VirtualFile> files = new ArrayList<>();
+    List<RangeMarker> markers = new ArrayList<>();
+    for (int i = 0; i < FILE_COUNT; i++) {
+      VirtualFile file = myFixture.addFileToProject("lib/file" + i + ".dart", createText()).getVirtualFile();
+      files.add(file);
+      Document document = FileDocumentManager.getInstance().getDocument(file);
+      int lineStart = document.getLineStartOffset(LINE_COUNT - 1);
+      markers.add(document.createRangeMarker(lineStart, lineStart + 4));
+    }
+
+    List<DocumentEvent> events = Collections.synchronizedList(new ArrayList<>());
+    EditorFactory.getInstance().getEventMulticaster().addDocumentListener(new DocumentListener() {
+      @Override
+      public void documentChanged(@NotNull DocumentEvent event) {
+        events.add(event);
+      }
+    }, getTestRootDisposable());
+
+    StubFormatServer server = new StubFormatServer();
+    DartStyleAction.runDartfmt(getProject(), files, server);
+
+    assertEquals(FILE_COUNT, server.myRequests.get());
+    assertTrue("max in flight: " + server.myMaxInFlight.get(), server.myMaxInFlight.get() > 1);
+    assertTrue("max in flight: " + server.myMaxInFlight.get(), server.myMaxInFlight.get() <= 8);
+
+    // one event per changed line, each replacing just that line
+    assertEquals(FILE_COUNT * LINE_COUNT / 10, events.size());
+    for (DocumentEvent event : events) {
+      assertTrue(event.getOldFragment().toString(), event.getOldLength() < 30);
+    }
+
+    for (int i = 0; i < FILE_COUNT; i++) {
+      Document document = FileDocumentManager.getInstance().getDocument(files.get(i));
+      assertEquals(format(createText()), document.getText());
+      assertTrue(markers.get(i).isValid());
+      assertEquals("int ", markers.get(i).getTextRange().substring(document.getText()));
+    }
+  }
+
+  private static @NotNull String createText() {
+    StringBuilder text = new StringBuilder();
+    for (int line = 0; line < LINE_COUNT; line++) {
+      text.append(line % 10 == 5 ? "int   x" : "int x").append(line).append(" = ").append(line).append(";\n");
+    }
+    return text.toString();
+  }
+
+  private static @NotNull String format(@NotNull String text) {
+    return text.replace("int   x", "int x");
+  }
+}
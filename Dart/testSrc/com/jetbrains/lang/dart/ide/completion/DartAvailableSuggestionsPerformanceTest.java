@@ -0,0 +1,124 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.completion;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.UsefulTestCase;
+import com.jetbrains.lang.dart.analyzer.DartServerData;
+import org.dartlang.analysis.server.protocol.AvailableSuggestion;
+import org.dartlang.analysis.server.protocol.AvailableSuggestionSet;
+import org.dartlang.analysis.server.protocol.ElementKind;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Replays an {@code completion.availableSuggestions} payload of the size seen in Flutter projects with a few dozen packages
+ * through the filtering done by {@link DartServerCompletionContributor} for every completion request.
+ */
+public class DartAvailableSuggestionsPerformanceTest extends UsefulTestCase {
+  private static final int LIBRARY_COUNT = 300;
+  private static final int SUGGESTIONS_PER_LIBRARY = 200;
+  private static final int IMPORTED_LIBRARY_COUNT = 40;
+  private static final int KEYSTROKES = 20;
+  private static final Set<String> INCLUDED_KINDS = Set.of(ElementKind.CLASS, ElementKind.FUNCTION, ElementKind.TOP_LEVEL_VARIABLE);
+  private static final String[] KINDS = {ElementKind.CLASS, ElementKind.FUNCTION, ElementKind.TOP_LEVEL_VARIABLE, ElementKind.ENUM,
+    ElementKind.CONSTRUCTOR, ElementKind.ENUM_CONSTANT};
+
+  public void testAlreadyImportedSuggestionsAreFiltered() {
+    DartServerData.DartAvailableSuggestionSet set = new DartServerData.DartAvailableSuggestionSet(
+      AvailableSuggestionSet.fromJson(createSuggestionSet(1, "package:a/a.dart", "package:a/src/a.dart", 3)));
+    DartServerData.DartExistingImports imports = new DartServerData.DartExistingImports(
+      Map.of("package:b/b.dart", Map.of("package:a/src/a.dart", Set.of("name0")),
+             "package:a/a.dart", Map.of("package:a/src/a.dart", Set.of("name1"))));
+
+    List<String> labels = new ArrayList<>();
+    DartServerCompletionContributor.processAvailableSuggestions(set, Set.of(ElementKind.CLASS, ElementKind.FUNCTION, ElementKind.TOP_LEVEL_VARIABLE),
+                                                                imports, suggestion -> labels.add(suggestion.getLabel()));
+    Collections.sort(labels);
+    assertEquals(List.of("name1", "name2"), labels);
+  }
+
+  public void testAvailableSuggestions() {
+    List<DartServerData.DartAvailableSuggestionSet> sets = new ArrayList<>();
+    for (AvailableSuggestionSet set : AvailableSuggestionSet.fromJsonArray(createPayload())) {
+      sets.add(new DartServerData.DartAvailableSuggestionSet(set));
+    }
+    DartServerData.DartExistingImports imports = new DartServerData.DartExistingImports(createExistingImports());
+
+    int[] count = new int[1];
+    PlatformTestUtil.startPerformanceTest("First available suggestion on " + KEYSTROKES + " keystrokes", 50, () -> {
+      for (int i = 0; i < KEYSTROKES; i++) {
+        DartServerCompletionContributor.processAvailableSuggestions(sets.get(i), INCLUDED_KINDS, imports, suggestion -> false);
+      }
+    }).assertTiming();
+
+    PlatformTestUtil.startPerformanceTest("All available suggestions on " + KEYSTROKES + " keystrokes", 1_000, () -> {
+      count[0] = 0;
+      for (int i = 0; i < KEYSTROKES; i++) {
+        for (DartServerData.DartAvailableSuggestionSet set : sets) {
+          DartServerCompletionContributor.processAvailableSuggestions(set, INCLUDED_KINDS, imports, suggestion -> {
+            count[0]++;
+            return true;
+          });
+        }
+      }
+    }).assertTiming();
+    assertTrue(count[0] > 0);
+    assertTrue(count[0] < KEYSTROKES * LIBRARY_COUNT * SUGGESTIONS_PER_LIBRARY / 2);
+  }
+
+  private static @NotNull JsonArray createPayload() {
+    JsonArray changedLibraries = new JsonArray();
+    for (int i = 0; i < LIBRARY_COUNT; i++) {
+      changedLibraries.add(createSuggestionSet(i, "package:p" + i + "/p" + i + ".dart", getDeclaringUri(i), SUGGESTIONS_PER_LIBRARY));
+    }
+    return changedLibraries;
+  }
+
+  private static @NotNull JsonObject createSuggestionSet(int id, @NotNull String uri, @NotNull String declaringUri, int size) {
+    JsonArray items = new JsonArray();
+    for (int i = 0; i < size; i++) {
+      JsonObject element = new JsonObject();
+      element.addProperty("kind", KINDS[i % KINDS.length]);
+      element.addProperty("name", "name" + i);
+      element.addProperty("flags", 0);
+
+      JsonObject item = new JsonObject();
+      item.addProperty("label", "name" + i);
+      item.addProperty("declaringLibraryUri", declaringUri);
+      item.add("element", element);
+      items.add(item);
+    }
+
+    JsonObject set = new JsonObject();
+    set.addProperty("id", id);
+    set.addProperty("uri", uri);
+    set.add("items", items);
+    return set;
+  }
+
+  /**
+   * Imported libraries re-export half of the names of each declaring library.
+   */
+  private static @NotNull Map<String, Map<String, Set<String>>> createExistingImports() {
+    Map<String, Map<String, Set<String>>> result = new HashMap<>();
+    for (int i = 0; i < IMPORTED_LIBRARY_COUNT; i++) {
+      Map<String, Set<String>> exported = new HashMap<>();
+      for (int j = i; j < LIBRARY_COUNT; j += IMPORTED_LIBRARY_COUNT) {
+        Set<String> names = new HashSet<>();
+        for (int k = 0; k < SUGGESTIONS_PER_LIBRARY / 2; k++) {
+          names.add("name" + k);
+        }
+        exported.put(getDeclaringUri(j), names);
+      }
+      result.put("package:imported" + i + "/imported" + i + ".dart", exported);
+    }
+    return result;
+  }
+
+  private static @NotNull String getDeclaringUri(int library) {
+    return "package:p" + library + "/src/p" + library + ".dart";
+  }
+}
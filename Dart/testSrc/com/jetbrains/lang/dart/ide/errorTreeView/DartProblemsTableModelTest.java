@@ -0,0 +1,126 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.errorTreeView;
+
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.dartlang.analysis.server.protocol.AnalysisError;
+import org.dartlang.analysis.server.protocol.AnalysisErrorSeverity;
+import org.dartlang.analysis.server.protocol.AnalysisErrorType;
+import org.dartlang.analysis.server.protocol.Location;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.event.TableModelEvent;
+import java.util.*;
+
+public class DartProblemsTableModelTest extends BasePlatformTestCase {
+  private DartProblemsTableModel myModel;
+  private final List<TableModelEvent> myEvents = new ArrayList<>();
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myModel = new DartProblemsTableModel(getProject(), new DartProblemsPresentationHelper(getProject()));
+    myModel.addTableModelListener(myEvents::add);
+  }
+
+  public void testRowsOfEachFileAreUpdatedInPlace() {
+    Map<String, List<DartProblem>> batch = new LinkedHashMap<>();
+    batch.put("/src/a.dart", createProblems("/src/a.dart", 3, AnalysisErrorSeverity.ERROR));
+    batch.put("/src/b.dart", createProblems("/src/b.dart", 2, AnalysisErrorSeverity.WARNING));
+    batch.put("/src/c.dart", createProblems("/src/c.dart", 4, AnalysisErrorSeverity.INFO));
+    myModel.setProblemsAndReturnReplacementForSelection(batch, null);
+    assertEquals(9, myModel.getRowCount());
+    assertTrue(myModel.hasErrors());
+
+    myEvents.clear();
+    myModel.setProblemsAndReturnReplacementForSelection(Map.of("/src/a.dart", createProblems("/src/a.dart", 1, AnalysisErrorSeverity.WARNING),
+                                                               "/src/c.dart", createProblems("/src/c.dart", 4, AnalysisErrorSeverity.INFO)),
+                                                        null);
+    assertEquals(7, myModel.getRowCount());
+    assertFalse(myModel.hasErrors());
+    assertTrue(myModel.hasWarnings());
+    // c.dart has not changed, a.dart: one updated row and two deleted rows
+    assertEquals(2, myEvents.size());
+    assertEvent(myEvents.get(0), TableModelEvent.UPDATE, 0, 0);
+    assertEvent(myEvents.get(1), TableModelEvent.DELETE, 1, 2);
+    assertFileOrder("/src/a.dart", "/src/b.dart", "/src/c.dart");
+
+    myEvents.clear();
+    myModel.setProblemsAndReturnReplacementForSelection(Map.of("/src/b.dart", Collections.emptyList(),
+                                                               "/src/d.dart", createProblems("/src/d.dart", 2, AnalysisErrorSeverity.ERROR)),
+                                                        null);
+    assertEquals(7, myModel.getRowCount());
+    assertTrue(myModel.hasErrors());
+    assertFileOrder("/src/a.dart", "/src/c.dart", "/src/d.dart");
+  }
+
+  public void testReplacementForSelection() {
+    myModel.setProblemsAndReturnReplacementForSelection(Map.of("/src/a.dart", createProblems("/src/a.dart", 5, AnalysisErrorSeverity.ERROR)),
+                                                        null);
+    DartProblem selected = myModel.getItem(3);
+
+    List<DartProblem> newProblems = createProblems("/src/a.dart", 6, AnalysisErrorSeverity.ERROR);
+    DartProblem replacement =
+      myModel.setProblemsAndReturnReplacementForSelection(Map.of("/src/a.dart", newProblems, "/src/b.dart", Collections.emptyList()),
+                                                          selected);
+    assertSame(newProblems.get(3), replacement);
+  }
+
+  public void testErrorFlood() {
+    int filesCount = 1500;
+    int problemsPerFile = 100;
+
+    Map<String, List<DartProblem>> initial = new LinkedHashMap<>();
+    for (int i = 0; i < filesCount; i++) {
+      String path = "/src/file" + i + ".dart";
+      initial.put(path, createProblems(path, problemsPerFile, AnalysisErrorSeverity.INFO));
+    }
+
+    List<Map<String, List<DartProblem>>> batches = new ArrayList<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 200; i++) {
+      Map<String, List<DartProblem>> batch = new LinkedHashMap<>();
+      for (int j = 0; j < 20; j++) {
+        String path = "/src/file" + random.nextInt(filesCount) + ".dart";
+        batch.put(path, createProblems(path, problemsPerFile - 10 + random.nextInt(20), AnalysisErrorSeverity.INFO));
+      }
+      batches.add(batch);
+    }
+
+    PlatformTestUtil.startPerformanceTest("Dart problems view update with " + filesCount * problemsPerFile + " problems", 3_000, () -> {
+      myModel.removeAll();
+      myModel.setProblemsAndReturnReplacementForSelection(initial, null);
+      for (Map<String, List<DartProblem>> batch : batches) {
+        myModel.setProblemsAndReturnReplacementForSelection(batch, null);
+      }
+    }).assertTiming();
+  }
+
+  private void assertFileOrder(String @NotNull ... expectedPaths) {
+    List<String> paths = new ArrayList<>();
+    for (int i = 0; i < myModel.getRowCount(); i++) {
+      String path = myModel.getItem(i).getSystemIndependentPath();
+      if (paths.isEmpty() || !paths.get(paths.size() - 1).equals(path)) {
+        paths.add(path);
+      }
+    }
+    assertEquals(Arrays.asList(expectedPaths), paths);
+  }
+
+  private static void assertEvent(@NotNull TableModelEvent event, int type, int firstRow, int lastRow) {
+    assertEquals(type, event.getType());
+    assertEquals(firstRow, event.getFirstRow());
+    assertEquals(lastRow, event.getLastRow());
+  }
+
+  private @NotNull List<DartProblem> createProblems(@NotNull String path, int count, @NotNull String severity) {
+    List<DartProblem> problems = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Location location = new Location(path, i * 10, 5, i + 1, 1, i + 1, 6);
+      AnalysisError error =
+        new AnalysisError(severity, AnalysisErrorType.LINT, location, "Problem " + i, null, "lint_" + i, null, null, false);
+      problems.add(new DartProblem(getProject(), error));
+    }
+    return problems;
+  }
+}
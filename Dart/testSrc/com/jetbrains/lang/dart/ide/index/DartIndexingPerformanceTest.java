@@ -0,0 +1,66 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.index;
+
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.FileContentImpl;
+import com.jetbrains.lang.dart.DartFileType;
+import com.jetbrains.lang.dart.util.DartTestUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DartIndexingPerformanceTest extends BasePlatformTestCase {
+  private static final int ROUNDS = 50;
+
+  public void testIndexDataIsSharedByAllIndices() throws IOException {
+    for (VirtualFile file : getCorpus()) {
+      FileContent content = FileContentImpl.createByFile(file, getProject());
+      DartFileIndexData indexData = DartIndexUtil.indexFile(content);
+      mapByAllIndices(content);
+      assertSame(indexData, DartIndexUtil.indexFile(content));
+    }
+  }
+
+  public void testIndexingThroughput() {
+    List<VirtualFile> corpus = getCorpus();
+    PlatformTestUtil.startPerformanceTest("Indexing " + corpus.size() + " Dart files " + ROUNDS + " times", 10_000, () -> {
+      for (int i = 0; i < ROUNDS; i++) {
+        for (VirtualFile file : corpus) {
+          mapByAllIndices(FileContentImpl.createByFile(file, getProject()));
+        }
+      }
+    }).assertTiming();
+  }
+
+  private static void mapByAllIndices(@NotNull FileContent content) {
+    new DartComponentIndex().getIndexer().map(content);
+    new DartClassIndex().getIndexer().map(content);
+    new DartSymbolIndex().getIndexer().map(content);
+    new DartLibraryIndex().getIndexer().map(content);
+    new DartImportAndExportIndex().getIndexer().map(content);
+    new DartPartUriIndex().getIndexer().map(content);
+  }
+
+  private static @NotNull List<VirtualFile> getCorpus() {
+    List<VirtualFile> result = new ArrayList<>();
+    for (String path : new String[]{DartTestUtils.SDK_HOME_PATH, DartTestUtils.BASE_TEST_DATA_PATH + "/packages"}) {
+      VirtualFile root = LocalFileSystem.getInstance().refreshAndFindFileByPath(path);
+      assertNotNull(path, root);
+      VfsUtilCore.iterateChildrenRecursively(root, null, file -> {
+        if (!file.isDirectory() && DartFileType.DEFAULT_EXTENSION.equals(file.getExtension())) {
+          result.add(file);
+        }
+        return true;
+      });
+    }
+    assertFalse(result.isEmpty());
+    return result;
+  }
+}
@@ -0,0 +1,67 @@
+// Copyright 2000-2021 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.runner.server.vmService;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class DartScriptFileResolverTest extends BasePlatformTestCase {
+  private final Map<String, Integer> myMappedUris = new ConcurrentHashMap<>();
+  private final List<String> myErrors = Collections.synchronizedList(new ArrayList<>());
+  private DartScriptFileResolver myResolver;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myResolver = new DartScriptFileResolver(uri -> {
+      if (ApplicationManager.getApplication().isReadAccessAllowed()) myErrors.add("mapped under read lock: " + uri);
+      myMappedUris.merge(uri, 1, Integer::sum);
+      return uri.startsWith("package:") ? "/src/lib/" + uri.substring(uri.indexOf('/') + 1) : null;
+    }, (uri, mappedPath) -> {
+      if (!ApplicationManager.getApplication().isReadAccessAllowed()) myErrors.add("found without read lock: " + uri);
+      return mappedPath != null ? myFixture.findFileInTempDir(mappedPath.substring(1)) : null;
+    });
+    myFixture.addFileToProject("src/lib/a.dart", "");
+    myFixture.addFileToProject("src/lib/b.dart", "");
+  }
+
+  public void testBatchMapsEachUriOnceOutsideReadAction() throws Exception {
+    List<String> uris = Arrays.asList("package:foo/a.dart", "package:foo/b.dart", "package:foo/a.dart", "dart:core/core.dart");
+    ApplicationManager.getApplication().executeOnPooledThread(() -> myResolver.resolve(uris)).get();
+
+    assertEmpty(myErrors);
+    assertEquals(Map.of("package:foo/a.dart", 1, "package:foo/b.dart", 1, "dart:core/core.dart", 1), myMappedUris);
+
+    VirtualFile a = ApplicationManager.getApplication().executeOnPooledThread(() -> myResolver.getFile("package:foo/a.dart")).get();
+    assertEquals(myFixture.findFileInTempDir("src/lib/a.dart"), a);
+    ApplicationManager.getApplication().executeOnPooledThread(() -> myResolver.resolve(uris)).get();
+    assertEquals(Map.of("package:foo/a.dart", 1, "package:foo/b.dart", 1, "dart:core/core.dart", 2), myMappedUris);
+  }
+
+  public void testUnresolvedUriIsMappedAgain() throws Exception {
+    List<String> uris = Collections.singletonList("package:foo/c.dart");
+    ApplicationManager.getApplication().executeOnPooledThread(() -> myResolver.resolve(uris)).get();
+    assertNull(ApplicationManager.getApplication().executeOnPooledThread(() -> myResolver.getFile("package:foo/c.dart")).get());
+
+    myFixture.addFileToProject("src/lib/c.dart", "");
+    VirtualFile c = ApplicationManager.getApplication().executeOnPooledThread(() -> myResolver.getFile("package:foo/c.dart")).get();
+
+    assertEmpty(myErrors);
+    assertEquals(myFixture.findFileInTempDir("src/lib/c.dart"), c);
+    assertEquals(Integer.valueOf(3), myMappedUris.get("package:foo/c.dart"));
+  }
+
+  public void testUrisAreMappedAgainAfterClear() throws Exception {
+    List<String> uris = Collections.singletonList("package:foo/a.dart");
+    ApplicationManager.getApplication().executeOnPooledThread(() -> myResolver.resolve(uris)).get();
+    myResolver.clear();
+    VirtualFile a = ApplicationManager.getApplication().executeOnPooledThread(() -> myResolver.getFile("package:foo/a.dart")).get();
+
+    assertEmpty(myErrors);
+    assertEquals(myFixture.findFileInTempDir("src/lib/a.dart"), a);
+    assertEquals(Integer.valueOf(2), myMappedUris.get("package:foo/a.dart"));
+  }
+}
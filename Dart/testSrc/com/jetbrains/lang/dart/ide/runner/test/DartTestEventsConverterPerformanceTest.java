@@ -0,0 +1,184 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.runner.test;
+
+import com.intellij.execution.testframework.sm.runner.*;
+import com.intellij.execution.testframework.sm.runner.events.*;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.Key;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.jetbrains.lang.dart.util.DartUrlResolver;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feeds a log of about 100k lines of {@code dart test --reporter json} output, a third of which are lines printed by tests,
+ * through {@link DartTestEventsConverter}.
+ */
+public class DartTestEventsConverterPerformanceTest extends BaseSMTRunnerTestCase {
+  private static final int SUITE_COUNT = 20;
+  private static final int GROUPS_PER_SUITE = 25;
+  private static final int TESTS_PER_GROUP = 50;
+
+  private CountingEventsProcessor myEventsProcessor;
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      if (myEventsProcessor != null) {
+        Disposer.dispose(myEventsProcessor);
+      }
+    }
+    catch (Throwable e) {
+      addSuppressedException(e);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testLargeLogWithPrints() {
+    List<String> log = createLog();
+    int testCount = SUITE_COUNT * GROUPS_PER_SUITE * TESTS_PER_GROUP;
+
+    PlatformTestUtil.startPerformanceTest("Converting " + log.size() + " lines of dart test output", 3000, () -> {
+      myEventsProcessor = new CountingEventsProcessor(getProject());
+      DartTestEventsConverter converter = new DartTestEventsConverter(DartTestRunningState.DART_FRAMEWORK_NAME, createConsoleProperties(),
+                                                                      DartUrlResolver.getInstance(getProject(), getSourceRoot()));
+      converter.setProcessor(myEventsProcessor);
+
+      Key stdout = new Key("stdout");
+      for (String line : log) {
+        converter.process(line, stdout);
+      }
+
+      assertEquals(testCount, myEventsProcessor.myStarted);
+      assertEquals(testCount, myEventsProcessor.myFinished);
+      // file-level groups are reported as suites too
+      assertEquals(SUITE_COUNT * (GROUPS_PER_SUITE + 1) * 2, myEventsProcessor.mySuites);
+
+      Disposer.dispose(myEventsProcessor);
+      myEventsProcessor = null;
+    }).assertTiming();
+  }
+
+  @NotNull
+  private static List<String> createLog() {
+    List<String> log = new ArrayList<>();
+    log.add("{\"protocolVersion\":\"0.1.0\",\"runnerVersion\":\"1.16.5\",\"pid\":4242,\"type\":\"start\",\"time\":0}\n");
+
+    int id = 0;
+    int time = 0;
+    for (int s = 0; s < SUITE_COUNT; s++) {
+      int suiteId = id++;
+      String path = "/project/test/suite" + s + "_test.dart";
+      log.add("{\"suite\":{\"id\":" + suiteId + ",\"platform\":\"vm\",\"path\":\"" + path + "\"},\"type\":\"suite\",\"time\":" +
+              time++ + "}\n");
+
+      int rootGroupId = id++;
+      log.add("{\"group\":{\"id\":" + rootGroupId + ",\"suiteID\":" + suiteId + ",\"parentID\":null,\"name\":null,\"metadata\":" +
+              "{\"skip\":false,\"skipReason\":null},\"testCount\":" + GROUPS_PER_SUITE * TESTS_PER_GROUP +
+              ",\"line\":null,\"column\":null,\"url\":null},\"type\":\"group\",\"time\":" + time++ + "}\n");
+
+      for (int g = 0; g < GROUPS_PER_SUITE; g++) {
+        int groupId = id++;
+        String groupName = "group " + g;
+        log.add("{\"group\":{\"id\":" + groupId + ",\"suiteID\":" + suiteId + ",\"parentID\":" + rootGroupId + ",\"name\":\"" + groupName +
+                "\",\"metadata\":{\"skip\":false,\"skipReason\":null},\"testCount\":" + TESTS_PER_GROUP + ",\"line\":" + (g + 10) +
+                ",\"column\":3,\"url\":\"file://" + path + "\"},\"type\":\"group\",\"time\":" + time++ + "}\n");
+
+        for (int t = 0; t < TESTS_PER_GROUP; t++) {
+          int testId = id++;
+          log.add("{\"test\":{\"id\":" + testId + ",\"name\":\"" + groupName + " test " + t + "\",\"suiteID\":" + suiteId +
+                  ",\"groupIDs\":[" + rootGroupId + "," + groupId + "],\"metadata\":{\"skip\":false,\"skipReason\":null},\"line\":" +
+                  (t + 20) + ",\"column\":5,\"url\":\"file://" + path + "\"},\"type\":\"testStart\",\"time\":" + time++ + "}\n");
+          log.add("computing value " + t + " for " + groupName + "\n");
+          log.add("{\"testID\":" + testId + ",\"messageType\":\"print\",\"message\":\"value " + t +
+                  " is ok\",\"type\":\"print\",\"time\":" + time++ + "}\n");
+          log.add("{\"testID\":" + testId + ",\"result\":\"success\",\"skipped\":false,\"hidden\":false,\"type\":\"testDone\",\"time\":" +
+                  time++ + "}\n");
+        }
+      }
+    }
+
+    log.add("{\"success\":true,\"type\":\"done\",\"time\":" + time + "}\n");
+    return log;
+  }
+
+  private static final class CountingEventsProcessor extends GeneralTestEventsProcessor {
+    private int myStarted;
+    private int myFinished;
+    private int mySuites;
+
+    private CountingEventsProcessor(@NotNull Project project) {
+      super(project, DartTestRunningState.DART_FRAMEWORK_NAME, new SMTestProxy.SMRootTestProxy());
+    }
+
+    @Override
+    public void onStartTesting() {
+    }
+
+    @Override
+    public void onTestsCountInSuite(int count) {
+    }
+
+    @Override
+    public void onTestStarted(@NotNull TestStartedEvent testStartedEvent) {
+      myStarted++;
+    }
+
+    @Override
+    public void onTestFinished(@NotNull TestFinishedEvent testFinishedEvent) {
+      myFinished++;
+    }
+
+    @Override
+    public void onTestFailure(@NotNull TestFailedEvent testFailedEvent) {
+    }
+
+    @Override
+    public void onTestIgnored(@NotNull TestIgnoredEvent testIgnoredEvent) {
+    }
+
+    @Override
+    public void onTestOutput(@NotNull TestOutputEvent testOutputEvent) {
+    }
+
+    @Override
+    public void onSuiteStarted(@NotNull TestSuiteStartedEvent suiteStartedEvent) {
+      mySuites++;
+    }
+
+    @Override
+    public void onSuiteFinished(@NotNull TestSuiteFinishedEvent suiteFinishedEvent) {
+      mySuites++;
+    }
+
+    @Override
+    public void onUncapturedOutput(@NotNull String text, Key outputType) {
+    }
+
+    @Override
+    public void onError(@NotNull String localizedMessage, @Nullable String stackTrace, boolean isCritical) {
+    }
+
+    @Override
+    public void onFinishTesting() {
+    }
+
+    @Override
+    public void onTestsReporterAttached() {
+    }
+
+    @Override
+    public void setLocator(@NotNull SMTestLocator locator) {
+    }
+
+    @Override
+    public void setPrinterProvider(@NotNull TestProxyPrinterProvider printerProvider) {
+    }
+  }
+}
@@ -0,0 +1,167 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.resolve;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.jetbrains.lang.dart.DartCodeInsightFixtureTestCase;
+import com.jetbrains.lang.dart.ide.index.DartShowHideInfo;
+import com.jetbrains.lang.dart.psi.DartComponentName;
+import com.jetbrains.lang.dart.psi.DartReferenceExpression;
+import com.jetbrains.lang.dart.psi.DartType;
+import com.jetbrains.lang.dart.util.DartResolveUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class DartTopLevelResolvePerformanceTest extends DartCodeInsightFixtureTestCase {
+  private static final int LIBRARY_COUNT = 200;
+  private static final int CLASSES_PER_LIBRARY = 20;
+  private static final int LINE_COUNT = 5000;
+
+  public void testResolveAllTypesInLargeFile() {
+    createPackageGraph();
+    PsiFile file = myFixture.addFileToProject("main.dart", createMainFile());
+    Collection<DartType> types = PsiTreeUtil.findChildrenOfType(file, DartType.class);
+    assertEquals(LINE_COUNT, types.size());
+
+    PlatformTestUtil.startPerformanceTest("Resolving " + LINE_COUNT + " top-level type references", 3_000, () -> {
+      for (DartType type : types) {
+        String name = getName(type);
+        DartComponentName target = resolve(type, name);
+        if (name.startsWith("Hidden")) {
+          assertNull(name, target);
+        }
+        else {
+          assertNotNull(name, target);
+          assertEquals(name, target.getName());
+        }
+      }
+    }).assertTiming();
+  }
+
+  public void testShowHideAndPrivateNames() {
+    myFixture.addFileToProject("a.dart", "library a; export 'b.dart' show B; part 'a_part.dart'; class A {} class _A {}");
+    myFixture.addFileToProject("a_part.dart", "part of a; class APart {}");
+    myFixture.addFileToProject("b.dart", "export 'a.dart' hide A; class B {} class B2 {} class _B {}");
+    PsiFile file = myFixture.addFileToProject("main.dart", "import 'a.dart'; class _Main {} A a; APart p; B b; B2 b2; _A a_; _B b_; _Main m;");
+
+    List<String> resolved = new ArrayList<>();
+    for (DartType type : PsiTreeUtil.findChildrenOfType(file, DartType.class)) {
+      if (resolve(type, getName(type)) != null) {
+        resolved.add(getName(type));
+      }
+    }
+    assertEquals(List.of("A", "APart", "B", "_Main"), resolved);
+  }
+
+  public void testImportCallbacksMatchFullWalk() {
+    myFixture.addFileToProject("a.dart", "library a; export 'b.dart' show B; part 'a_part.dart'; class A {}");
+    myFixture.addFileToProject("a_part.dart", "part of a; class APart {}");
+    myFixture.addFileToProject("b.dart", "class B {} class B2 {}");
+    PsiFile file = myFixture.addFileToProject("main.dart", "import 'a.dart'; class Main {} A a; APart p; B b; Main m; Object o;");
+
+    for (DartType type : PsiTreeUtil.findChildrenOfType(file, DartType.class)) {
+      String name = getName(type);
+      ImportPathRecorder withHint = new ImportPathRecorder(name);
+      DartResolveUtil.processTopLevelDeclarations(type, withHint, file.getVirtualFile(), name);
+      ImportPathRecorder fullWalk = new ImportPathRecorder(name);
+      DartResolveUtil.processTopLevelDeclarations(type, fullWalk, file.getVirtualFile(), null);
+
+      assertNotNull(name, fullWalk.myImportPath);
+      assertEquals(name, fullWalk.myImportPath, withHint.myImportPath);
+      assertEquals(name, 0, withHint.myDepth);
+    }
+  }
+
+  private static @NotNull String getName(@NotNull DartType type) {
+    DartReferenceExpression reference = type.getReferenceExpression();
+    assertNotNull(type.getText(), reference);
+    return reference.getText();
+  }
+
+  private static @Nullable DartComponentName resolve(@NotNull DartType type, @NotNull String name) {
+    List<DartComponentName> result = new ArrayList<>();
+    DartResolveUtil.processTopLevelDeclarations(type, new DartResolveProcessor(result, name),
+                                                type.getContainingFile().getVirtualFile(), name);
+    return result.isEmpty() ? null : result.get(0);
+  }
+
+  /**
+   * Remembers the imported and exported files the processor was notified about when it found the first declaration with the name.
+   */
+  private static final class ImportPathRecorder extends DartPsiScopeProcessor {
+    private final @NotNull String myName;
+    private final List<String> myCurrentPath = new ArrayList<>();
+    private @Nullable List<String> myImportPath;
+    private int myDepth;
+
+    private ImportPathRecorder(@NotNull String name) {
+      myName = name;
+    }
+
+    @Override
+    public void importedFileProcessingStarted(@NotNull VirtualFile importedFile, @NotNull DartShowHideInfo showHideInfo) {
+      super.importedFileProcessingStarted(importedFile, showHideInfo);
+      myCurrentPath.add(importedFile.getName());
+      myDepth++;
+    }
+
+    @Override
+    public void importedFileProcessingFinished(@NotNull VirtualFile importedFile) {
+      super.importedFileProcessingFinished(importedFile);
+      myCurrentPath.remove(myCurrentPath.size() - 1);
+      myDepth--;
+    }
+
+    @Override
+    protected boolean doExecute(@NotNull DartComponentName dartComponentName) {
+      if (myImportPath == null && myName.equals(dartComponentName.getName())) {
+        myImportPath = new ArrayList<>(myCurrentPath);
+      }
+      return true;
+    }
+  }
+
+  /**
+   * {@code pkg/all.dart} exports all libraries hiding one class of each, every library has a part and re-exports one class
+   * of the next library, so the export graph is cyclic.
+   */
+  private void createPackageGraph() {
+    StringBuilder all = new StringBuilder();
+    for (int i = 0; i < LIBRARY_COUNT; i++) {
+      all.append("export 'lib").append(i).append(".dart' hide Hidden").append(i).append(";\n");
+
+      int next = (i + 1) % LIBRARY_COUNT;
+      StringBuilder lib = new StringBuilder();
+      lib.append("library lib").append(i).append(";\n");
+      lib.append("export 'lib").append(next).append(".dart' show A").append(next).append("_0;\n");
+      lib.append("part 'lib").append(i).append("_part.dart';\n");
+      lib.append("class Hidden").append(i).append(" {}\n");
+      for (int k = 0; k < CLASSES_PER_LIBRARY; k++) {
+        lib.append("class A").append(i).append('_').append(k).append(" {}\n");
+      }
+      myFixture.addFileToProject("pkg/lib" + i + ".dart", lib.toString());
+      myFixture.addFileToProject("pkg/lib" + i + "_part.dart", "part of lib" + i + ";\nclass P" + i + " {}\n");
+    }
+    myFixture.addFileToProject("pkg/all.dart", all.toString());
+  }
+
+  private static @NotNull String createMainFile() {
+    StringBuilder text = new StringBuilder("import 'pkg/all.dart';\n");
+    for (int line = 0; line < LINE_COUNT; line++) {
+      int library = line * 7 % LIBRARY_COUNT;
+      String type = switch (line % 10) {
+        case 0 -> "Hidden" + library;
+        case 1 -> "P" + library;
+        default -> "A" + library + "_" + line % CLASSES_PER_LIBRARY;
+      };
+      text.append(type).append(" f").append(line).append("() => null;\n");
+    }
+    return text.toString();
+  }
+}
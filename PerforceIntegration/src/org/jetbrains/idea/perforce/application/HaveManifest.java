@@ -0,0 +1,148 @@
+package org.jetbrains.idea.perforce.application;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.vcs.FilePath;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.io.IOUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Local copy of {@code p4 have} for one connection: local path to the synced revision, and the size, timestamp and writability
+ * the file had when the server was asked about it. A file that still looks the same doesn't have to be asked about again.
+ * <p>
+ * Files the server reported as not synced are kept with revision 0, so that unchanged unversioned files aren't asked about either,
+ * and synced files missing locally are kept with length -1.
+ */
+final class HaveManifest {
+  private static final Logger LOG = Logger.getInstance(HaveManifest.class);
+  private static final int VERSION = 1;
+
+  record Entry(long revision, long length, long timestamp, boolean writable) {
+    static Entry of(long revision, @NotNull VirtualFile file) {
+      return new Entry(revision, file.getLength(), file.getTimeStamp(), file.isWritable());
+    }
+
+    static Entry missing(long revision) {
+      return new Entry(revision, -1, -1, false);
+    }
+
+    boolean matches(@NotNull VirtualFile file) {
+      return length == file.getLength() && timestamp == file.getTimeStamp() && writable == file.isWritable();
+    }
+  }
+
+  private final String myConnectionKey;
+  private final NavigableMap<String, Entry> myEntries = new TreeMap<>();
+  private boolean myComplete;
+  private boolean myModified;
+
+  HaveManifest(@NotNull String connectionKey) {
+    myConnectionKey = connectionKey;
+  }
+
+  /**
+   * @return whether the manifest was built by a full {@code p4 have} of all the connection roots and can be used instead of it
+   */
+  synchronized boolean isComplete() {
+    return myComplete;
+  }
+
+  synchronized void markComplete() {
+    myComplete = true;
+    myModified = true;
+  }
+
+  @Nullable
+  synchronized Entry get(@NotNull String path) {
+    return myEntries.get(path);
+  }
+
+  synchronized List<String> getPathsUnder(@NotNull FilePath root) {
+    String path = root.getPath();
+    if (!root.isDirectory()) {
+      return myEntries.containsKey(path) ? Collections.singletonList(path) : Collections.emptyList();
+    }
+    String prefix = path.endsWith("/") ? path : path + "/";
+    return new ArrayList<>(myEntries.subMap(prefix, true, prefix + Character.MAX_VALUE, false).keySet());
+  }
+
+  /**
+   * Replaces everything known about the given roots with the result of a {@code p4 have} over them.
+   */
+  synchronized void replaceUnder(@NotNull Collection<FilePath> roots, @NotNull Map<String, Entry> entries) {
+    for (FilePath root : roots) {
+      for (String path : getPathsUnder(root)) {
+        myEntries.remove(path);
+      }
+    }
+    myEntries.putAll(entries);
+    myModified = true;
+  }
+
+  synchronized void update(@NotNull Map<String, Entry> entries, @NotNull Collection<String> removed) {
+    for (String path : removed) {
+      myEntries.remove(path);
+    }
+    myEntries.putAll(entries);
+    myModified |= !entries.isEmpty() || !removed.isEmpty();
+  }
+
+  synchronized int size() {
+    return myEntries.size();
+  }
+
+  synchronized void save(@NotNull Path file) {
+    if (!myModified) return;
+    try {
+      Files.createDirectories(file.getParent());
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+        out.writeInt(VERSION);
+        IOUtil.writeUTF(out, myConnectionKey);
+        out.writeBoolean(myComplete);
+        out.writeInt(myEntries.size());
+        for (Map.Entry<String, Entry> entry : myEntries.entrySet()) {
+          IOUtil.writeUTF(out, entry.getKey());
+          Entry value = entry.getValue();
+          out.writeLong(value.revision());
+          out.writeLong(value.length());
+          out.writeLong(value.timestamp());
+          out.writeBoolean(value.writable());
+        }
+      }
+      myModified = false;
+    }
+    catch (IOException e) {
+      LOG.info("Can't save p4 have manifest to " + file, e);
+    }
+  }
+
+  @NotNull
+  static HaveManifest load(@NotNull Path file, @NotNull String connectionKey) {
+    HaveManifest manifest = new HaveManifest(connectionKey);
+    if (!Files.isRegularFile(file)) return manifest;
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != VERSION || !connectionKey.equals(IOUtil.readUTF(in))) {
+        return manifest;
+      }
+      boolean complete = in.readBoolean();
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String path = IOUtil.readUTF(in);
+        manifest.myEntries.put(path, new Entry(in.readLong(), in.readLong(), in.readLong(), in.readBoolean()));
+      }
+      manifest.myComplete = complete;
+    }
+    catch (IOException e) {
+      LOG.info("Can't load p4 have manifest from " + file, e);
+      manifest.myEntries.clear();
+    }
+    return manifest;
+  }
+}
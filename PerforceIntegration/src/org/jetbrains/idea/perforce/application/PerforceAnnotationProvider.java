@@ -33,6 +33,7 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.idea.perforce.PerforceBundle;
 import org.jetbrains.idea.perforce.application.annotation.AnnotationInfo;
 import org.jetbrains.idea.perforce.application.annotation.PerforceFileAnnotation;
+import org.jetbrains.idea.perforce.perforce.FStat;
 import org.jetbrains.idea.perforce.perforce.P4File;
 import org.jetbrains.idea.perforce.perforce.P4Revision;
 import org.jetbrains.idea.perforce.perforce.PerforceRunner;
@@ -67,12 +68,22 @@ public class PerforceAnnotationProvider implements AnnotationProviderEx {
 
   @NotNull
   private AnnotationPrecursor doAnnotate(final long changeNumber, P4Connection connection, @NotNull final String path) throws VcsException {
-    final P4Revision[] fileLog = myRunner.filelog(connection, path, true);
+    FStat head = myRunner.headRevision(connection, path);
+    final P4Revision[] fileLog = head == null ? myRunner.filelog(connection, path, true) : myRunner.cachedFilelog(connection, head);
     P4Revision p4Revision = ContainerUtil.find(fileLog, p4Revision1 -> p4Revision1.getChangeNumber() == changeNumber);
     String pathAtRevision = p4Revision == null ? path : p4Revision.getDepotPath();
     long revision = p4Revision == null ? -1 : p4Revision.getRevisionNumber();
 
-    final AnnotationInfo annotationInfo = myRunner.annotate(connection, pathAtRevision, revision);
+    final AnnotationInfo annotationInfo;
+    if (head == null) {
+      annotationInfo = myRunner.annotate(connection, pathAtRevision, revision);
+    }
+    else if (p4Revision == null) {
+      annotationInfo = myRunner.cachedAnnotate(connection, head.depotFile, Long.parseLong(head.headRev));
+    }
+    else {
+      annotationInfo = myRunner.cachedAnnotate(connection, pathAtRevision, revision);
+    }
     return new AnnotationPrecursor(annotationInfo, fileLog, revision, p4Revision, connection);
   }
 
@@ -26,6 +26,7 @@ import com.intellij.openapi.util.Comparing;
 import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vcs.VcsException;
 import com.intellij.openapi.vcs.changes.VcsDirtyScopeManager;
 import com.intellij.openapi.vfs.*;
@@ -246,6 +247,18 @@ public final class PerforceManager  {
     return OutputMessageParser.parseServerVersion(serverVersions.get(0));
   }
 
+  /**
+   * Identifies the server behind the connection by its address, ID and root, so that another server started at the same address
+   * is not taken for it.
+   */
+  @NotNull
+  public String getServerIdentity(@NotNull P4Connection connection) throws VcsException {
+    Map<String, List<String>> info = getCachedInfo(connection);
+    return connection.getConnectionKey().getServer() + "|" +
+           StringUtil.notNullize(ContainerUtil.getFirstItem(info.get(PerforceRunner.SERVER_ID))) + "|" +
+           StringUtil.notNullize(ContainerUtil.getFirstItem(info.get(PerforceRunner.SERVER_ROOT)));
+  }
+
   public boolean isUnderPerforceRoot(@NotNull final VirtualFile virtualFile) throws VcsException {
     final P4Connection connection = PerforceSettings.getSettings(myProject).getConnectionForFile(virtualFile);
     return getClientRoots(connection).stream().anyMatch(path -> isUnderClientRoot(virtualFile, path));
@@ -74,6 +74,7 @@ public final class PerforceReadOnlyFileStateManager {
   private void deactivate() {
     myUnversionedTracker.isActive = false;
     myHasLostFocus = true;
+    myUnversionedTracker.saveHaveManifests();
   }
 
   public void getChanges(final VcsDirtyScope dirtyScope, final ChangelistBuilder builder, final ProgressIndicator progress,
@@ -188,6 +189,7 @@ public final class PerforceReadOnlyFileStateManager {
   }
 
   public void discardUnversioned() {
+    myUnversionedTracker.discardHaveManifests();
     myUnversionedTracker.totalRescan();
   }
 
@@ -1,5 +1,6 @@
 package org.jetbrains.idea.perforce.application;
 
+import com.intellij.openapi.application.PathManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.options.advanced.AdvancedSettings;
 import com.intellij.openapi.progress.ProcessCanceledException;
@@ -29,7 +30,9 @@ import org.jetbrains.idea.perforce.perforce.View;
 import org.jetbrains.idea.perforce.perforce.connections.P4Connection;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PerforceUnversionedTracker {
   private static final Logger LOG = Logger.getInstance(PerforceUnversionedTracker.class);
@@ -42,6 +45,7 @@ public class PerforceUnversionedTracker {
   private final Set<FilePath> myDirtyFiles = new HashSet<>();
   private final Object myScannerLock = new Object();
   private final VcsDirtyScopeManager myDirtyScopeManager;
+  private final Map<ConnectionKey, HaveManifest> myHaveManifests = new ConcurrentHashMap<>();
   volatile boolean isActive;
 
   public PerforceUnversionedTracker(Project project) {
@@ -186,6 +190,11 @@ public class PerforceUnversionedTracker {
           throw new ProcessCanceledException();
         }
       }
+
+      @Override
+      protected HaveManifest getHaveManifest(P4Connection connection) {
+        return PerforceUnversionedTracker.this.getHaveManifest(connection);
+      }
     };
     synchronized (myScannerLock) {
       if (myTotalRescanThresholdPassed) {
@@ -209,6 +218,38 @@ public class PerforceUnversionedTracker {
     }
   }
 
+  private HaveManifest getHaveManifest(P4Connection connection) {
+    return myHaveManifests.computeIfAbsent(connection.getConnectionKey(),
+                                           key -> HaveManifest.load(getHaveManifestFile(key), key.toString()));
+  }
+
+  /**
+   * Makes the next total rescan ask the server about every file again, e.g. when the user explicitly requests a refresh.
+   */
+  void discardHaveManifests() {
+    synchronized (myScannerLock) {
+      myHaveManifests.clear();
+      File[] files = getHaveManifestDir().toFile().listFiles((dir, name) -> name.startsWith(myProject.getLocationHash() + "."));
+      if (files != null) {
+        for (File file : files) {
+          FileUtil.delete(file);
+        }
+      }
+    }
+  }
+
+  void saveHaveManifests() {
+    myHaveManifests.forEach((key, manifest) -> manifest.save(getHaveManifestFile(key)));
+  }
+
+  private Path getHaveManifestFile(ConnectionKey key) {
+    return getHaveManifestDir().resolve(myProject.getLocationHash() + "." + Integer.toHexString(key.toString().hashCode()));
+  }
+
+  private static Path getHaveManifestDir() {
+    return PathManager.getSystemDir().resolve("perforce").resolve("have");
+  }
+
   private boolean addDirtyFile(FilePath holder) {
     synchronized (myScannerLock) {
       if (myTotalRescanThresholdPassed) {
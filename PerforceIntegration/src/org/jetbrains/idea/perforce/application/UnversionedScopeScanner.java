@@ -14,6 +14,7 @@ import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.containers.MultiMap;
 import com.intellij.vcsUtil.VcsUtil;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.idea.perforce.perforce.P4HaveParser;
 import org.jetbrains.idea.perforce.perforce.PathsHelper;
 import org.jetbrains.idea.perforce.perforce.PerforceRunner;
@@ -53,36 +54,13 @@ public abstract class UnversionedScopeScanner {
       result.allLocalFiles.addAll(localFiles);
       checkCanceled();
 
-      final LocalFileSystem fs = LocalFileSystem.getInstance();
-      myRunner.haveMultiple(collectPaths(files), connection, new P4HaveParser(PerforceManager.getInstance(myProject)) {
-        @Override
-        public void consumeRevision(String path, long revision) {
-          checkCanceled();
-
-          VirtualFile vFile = findVirtualFile(path);
-          if (vFile != null) {
-            localFiles.remove(vFile);
-          }
-          else {
-            if (LOG.isDebugEnabled()) {
-              LOG.debug("locally missing file reported: " + path);
-            }
-            result.missingFiles.add(path);
-          }
-        }
-
-        private VirtualFile findVirtualFile(String path) {
-          VirtualFile vFile = fs.findFileByPathIfCached(FileUtil.toSystemIndependentName(path));
-          if (vFile != null) {
-            return vFile;
-          }
-
-          // see https://youtrack.jetbrains.com/issue/IDEA-39796
-          File ioFile = new File(path);
-          String appleForkPath = FileUtil.toSystemIndependentName(ioFile.getParent()) + "/%" + ioFile.getName();
-          return fs.findFileByPathIfCached(FileUtil.toSystemIndependentName(appleForkPath));
-        }
-      });
+      HaveManifest manifest = getHaveManifest(connection);
+      if (manifest != null && manifest.isComplete()) {
+        queryChangedFiles(connection, files, localFiles, manifest, result);
+      }
+      else {
+        queryAllFiles(connection, files, localFiles, manifest, force, result);
+      }
       checkCanceled();
 
       if (force) {
@@ -104,6 +82,135 @@ public abstract class UnversionedScopeScanner {
     return result;
   }
 
+  /**
+   * @return the local copy of {@code p4 have} for the connection, or null if it isn't maintained
+   */
+  @Nullable
+  protected HaveManifest getHaveManifest(P4Connection connection) {
+    return null;
+  }
+
+  private void queryAllFiles(P4Connection connection,
+                             Collection<FilePath> roots,
+                             Set<VirtualFile> localFiles,
+                             @Nullable HaveManifest manifest,
+                             boolean everything,
+                             ScanResult result) throws VcsException {
+    Map<String, HaveManifest.Entry> entries = new HashMap<>();
+    queryHave(connection, collectPaths(roots), localFiles, entries, result);
+    if (manifest != null) {
+      for (VirtualFile file : localFiles) {
+        entries.put(file.getPath(), HaveManifest.Entry.of(0, file));
+      }
+      manifest.replaceUnder(roots, entries);
+      if (everything) {
+        manifest.markComplete();
+      }
+    }
+  }
+
+  /**
+   * Asks the server only about the files that changed since they were last asked about, appeared, or vanished,
+   * and about the explicitly dirty files, which may have been opened or submitted without being touched.
+   */
+  private void queryChangedFiles(P4Connection connection,
+                                 Collection<FilePath> roots,
+                                 Set<VirtualFile> localFiles,
+                                 HaveManifest manifest,
+                                 ScanResult result) throws VcsException {
+    final PathsHelper helper = new PathsHelper(PerforceManager.getInstance(myProject));
+    final Set<String> queried = new HashSet<>();
+    for (FilePath root : roots) {
+      if (!root.isDirectory() && queried.add(root.getPath())) {
+        helper.add(root);
+      }
+    }
+
+    final List<VirtualFile> synced = new ArrayList<>();
+    for (VirtualFile file : localFiles) {
+      if (queried.contains(file.getPath())) continue;
+      HaveManifest.Entry entry = manifest.get(file.getPath());
+      if (entry == null || !entry.matches(file)) {
+        queried.add(file.getPath());
+        helper.add(VcsUtil.getFilePath(file));
+      }
+      else if (entry.revision() > 0) {
+        synced.add(file);
+      }
+    }
+    synced.forEach(localFiles::remove);
+    checkCanceled();
+
+    final LocalFileSystem fs = LocalFileSystem.getInstance();
+    for (FilePath root : roots) {
+      for (String path : manifest.getPathsUnder(root)) {
+        if (!queried.contains(path) && fs.findFileByPathIfCached(path) == null) {
+          queried.add(path);
+          helper.add(VcsUtil.getFilePath(path, false));
+        }
+      }
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("querying " + queried.size() + " changed files out of " + manifest.size() + " known ones");
+    }
+    if (queried.isEmpty()) return;
+
+    Map<String, HaveManifest.Entry> entries = new HashMap<>();
+    queryHave(connection, helper, localFiles, entries, result);
+    List<String> removed = new ArrayList<>();
+    for (String path : queried) {
+      if (!entries.containsKey(path)) {
+        VirtualFile file = fs.findFileByPathIfCached(path);
+        if (file != null && localFiles.contains(file)) {
+          entries.put(path, HaveManifest.Entry.of(0, file));
+        }
+        else {
+          removed.add(path);
+        }
+      }
+    }
+    manifest.update(entries, removed);
+  }
+
+  private void queryHave(P4Connection connection,
+                         PathsHelper paths,
+                         final Set<VirtualFile> localFiles,
+                         final Map<String, HaveManifest.Entry> entries,
+                         final ScanResult result) throws VcsException {
+    final LocalFileSystem fs = LocalFileSystem.getInstance();
+    myRunner.haveMultiple(paths, connection, new P4HaveParser(PerforceManager.getInstance(myProject)) {
+      @Override
+      public void consumeRevision(String path, long revision) {
+        checkCanceled();
+
+        VirtualFile vFile = findVirtualFile(path);
+        if (vFile != null) {
+          localFiles.remove(vFile);
+          entries.put(vFile.getPath(), HaveManifest.Entry.of(revision, vFile));
+        }
+        else {
+          if (LOG.isDebugEnabled()) {
+            LOG.debug("locally missing file reported: " + path);
+          }
+          result.missingFiles.add(path);
+          entries.put(FileUtil.toSystemIndependentName(path), HaveManifest.Entry.missing(revision));
+        }
+      }
+
+      private VirtualFile findVirtualFile(String path) {
+        VirtualFile vFile = fs.findFileByPathIfCached(FileUtil.toSystemIndependentName(path));
+        if (vFile != null) {
+          return vFile;
+        }
+
+        // see https://youtrack.jetbrains.com/issue/IDEA-39796
+        File ioFile = new File(path);
+        String appleForkPath = FileUtil.toSystemIndependentName(ioFile.getParent()) + "/%" + ioFile.getName();
+        return fs.findFileByPathIfCached(FileUtil.toSystemIndependentName(appleForkPath));
+      }
+    });
+  }
+
   private PathsHelper collectPaths(Collection<FilePath> value) {
     final PathsHelper helper = new PathsHelper(PerforceManager.getInstance(myProject));
     for (final FilePath dir : value) {
@@ -57,6 +57,12 @@ public final class AnnotationInfo {
     myRevisions = revisions.toLongArray();
   }
 
+  AnnotationInfo(String content, long[] revisions, boolean useChangelistNumbers) {
+    myContent = content;
+    myRevisions = revisions;
+    myUseChangelistNumbers = useChangelistNumbers;
+  }
+
   public String getContent() {
     return myContent;
   }
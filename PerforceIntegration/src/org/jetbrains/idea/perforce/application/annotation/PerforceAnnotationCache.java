@@ -0,0 +1,312 @@
+package org.jetbrains.idea.perforce.application.annotation;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorLongDescriptor;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.PersistentHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.idea.perforce.perforce.P4Revision;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * On-disk cache of parsed {@code p4 annotate} and {@code p4 filelog} results.
+ * <p>
+ * Annotations are keyed by an exact depot revision, filelogs by a depot file and remember the change they're up to date with:
+ * history below a submitted change never changes, so only the part newer than that change has to be fetched again.
+ * <p>
+ * Both stores are bounded: entries not used for {@link #MAX_UNUSED_AGE} are dropped, and when a store grows over its limit
+ * the least recently used entries are dropped until it's back at {@link #TRIMMED_RATIO} of the limit.
+ */
+@Service
+public final class PerforceAnnotationCache implements Disposable {
+  private static final Logger LOG = Logger.getInstance(PerforceAnnotationCache.class);
+  private static final int VERSION = 3;
+  private static final int MAX_ANNOTATIONS = 1000;
+  private static final int MAX_FILELOGS = 5000;
+  private static final long MAX_UNUSED_AGE = TimeUnit.DAYS.toMillis(30);
+  private static final double TRIMMED_RATIO = 0.75;
+
+  private final Path myBaseDir = PathManager.getSystemDir().resolve("perforce");
+  private final Path myDir = myBaseDir.resolve("annotations.v" + VERSION);
+  private final Object myLock = new Object();
+  private BoundedMap<AnnotationInfo> myAnnotations;
+  private BoundedMap<CachedFilelog> myFilelogs;
+
+  public static PerforceAnnotationCache getInstance() {
+    return ApplicationManager.getApplication().getService(PerforceAnnotationCache.class);
+  }
+
+  public record CachedFilelog(long headChange, P4Revision @NotNull [] revisions) {
+  }
+
+  @Nullable
+  public AnnotationInfo getAnnotation(@NotNull String key) {
+    synchronized (myLock) {
+      try {
+        return getAnnotationMap().get(key);
+      }
+      catch (IOException e) {
+        handleCorruption(e);
+        return null;
+      }
+    }
+  }
+
+  public void putAnnotation(@NotNull String key, @NotNull AnnotationInfo info) {
+    synchronized (myLock) {
+      try {
+        getAnnotationMap().put(key, info);
+      }
+      catch (IOException e) {
+        handleCorruption(e);
+      }
+    }
+  }
+
+  @Nullable
+  public CachedFilelog getFilelog(@NotNull String key) {
+    synchronized (myLock) {
+      try {
+        return getFilelogMap().get(key);
+      }
+      catch (IOException e) {
+        handleCorruption(e);
+        return null;
+      }
+    }
+  }
+
+  public void putFilelog(@NotNull String key, @NotNull CachedFilelog filelog) {
+    synchronized (myLock) {
+      try {
+        getFilelogMap().put(key, filelog);
+      }
+      catch (IOException e) {
+        handleCorruption(e);
+      }
+    }
+  }
+
+  @Override
+  public void dispose() {
+    synchronized (myLock) {
+      closeMaps();
+    }
+  }
+
+  private BoundedMap<AnnotationInfo> getAnnotationMap() throws IOException {
+    if (myAnnotations == null) {
+      deleteOutdatedVersions();
+      myAnnotations = new BoundedMap<>(myDir.resolve("annotate"), new AnnotationExternalizer(), MAX_ANNOTATIONS);
+    }
+    return myAnnotations;
+  }
+
+  private BoundedMap<CachedFilelog> getFilelogMap() throws IOException {
+    if (myFilelogs == null) {
+      deleteOutdatedVersions();
+      myFilelogs = new BoundedMap<>(myDir.resolve("filelog"), new FilelogExternalizer(), MAX_FILELOGS);
+    }
+    return myFilelogs;
+  }
+
+  private void deleteOutdatedVersions() {
+    for (int version = 1; version < VERSION; version++) {
+      FileUtil.delete(myBaseDir.resolve("annotations.v" + version));
+    }
+  }
+
+  private void handleCorruption(IOException e) {
+    LOG.info("Perforce annotation cache is corrupted, dropping it", e);
+    closeMaps();
+    FileUtil.delete(myDir);
+  }
+
+  private void closeMaps() {
+    try {
+      if (myAnnotations != null) myAnnotations.close();
+      if (myFilelogs != null) myFilelogs.close();
+    }
+    catch (IOException e) {
+      LOG.info(e);
+    }
+    finally {
+      myAnnotations = null;
+      myFilelogs = null;
+    }
+  }
+
+  /**
+   * A persistent map which remembers when each entry was last used, in a separate small map so that trimming doesn't read the values.
+   */
+  private static final class BoundedMap<V> {
+    private final PersistentHashMap<String, V> myValues;
+    private final PersistentHashMap<String, Long> myLastUsed;
+    private final int myLimit;
+    private int mySize;
+
+    BoundedMap(@NotNull Path path, @NotNull DataExternalizer<V> externalizer, int limit) throws IOException {
+      myValues = new PersistentHashMap<>(path, EnumeratorStringDescriptor.INSTANCE, externalizer);
+      myLastUsed = new PersistentHashMap<>(path.resolveSibling(path.getFileName() + ".used"), EnumeratorStringDescriptor.INSTANCE,
+                                           EnumeratorLongDescriptor.INSTANCE);
+      myLimit = limit;
+      trim(System.currentTimeMillis() - MAX_UNUSED_AGE, limit);
+    }
+
+    @Nullable
+    V get(@NotNull String key) throws IOException {
+      V value = myValues.get(key);
+      if (value != null) {
+        myLastUsed.put(key, System.currentTimeMillis());
+      }
+      return value;
+    }
+
+    void put(@NotNull String key, @NotNull V value) throws IOException {
+      if (myLastUsed.get(key) == null) {
+        mySize++;
+      }
+      myValues.put(key, value);
+      myLastUsed.put(key, System.currentTimeMillis());
+      if (mySize > myLimit) {
+        trim(System.currentTimeMillis() - MAX_UNUSED_AGE, (int)(myLimit * TRIMMED_RATIO));
+      }
+    }
+
+    /**
+     * Drops the entries last used before {@code minLastUsed}, then the least recently used ones until at most {@code maxSize} are left.
+     */
+    private void trim(long minLastUsed, int maxSize) throws IOException {
+      List<String> keys = new ArrayList<>();
+      myLastUsed.processKeysWithExistingMapping(key -> keys.add(key));
+
+      List<Pair<String, Long>> kept = new ArrayList<>();
+      for (String key : keys) {
+        Long lastUsed = myLastUsed.get(key);
+        if (lastUsed == null || lastUsed < minLastUsed) {
+          remove(key);
+        }
+        else {
+          kept.add(Pair.create(key, lastUsed));
+        }
+      }
+
+      if (kept.size() > maxSize) {
+        kept.sort(Comparator.comparingLong(pair -> pair.second));
+        for (Pair<String, Long> pair : kept.subList(0, kept.size() - maxSize)) {
+          remove(pair.first);
+        }
+        kept = kept.subList(kept.size() - maxSize, kept.size());
+      }
+      mySize = kept.size();
+    }
+
+    private void remove(@NotNull String key) throws IOException {
+      myValues.remove(key);
+      myLastUsed.remove(key);
+    }
+
+    void close() throws IOException {
+      try {
+        myValues.close();
+      }
+      finally {
+        myLastUsed.close();
+      }
+    }
+  }
+
+  private static final class AnnotationExternalizer implements DataExternalizer<AnnotationInfo> {
+    @Override
+    public void save(@NotNull DataOutput out, AnnotationInfo info) throws IOException {
+      out.writeBoolean(info.isUseChangelistNumbers());
+      IOUtil.writeUTF(out, info.getContent());
+      out.writeInt(info.getLineCount());
+      for (int i = 0; i < info.getLineCount(); i++) {
+        out.writeLong(info.getRevision(i));
+      }
+    }
+
+    @Override
+    public AnnotationInfo read(@NotNull DataInput in) throws IOException {
+      boolean useChangelistNumbers = in.readBoolean();
+      String content = IOUtil.readUTF(in);
+      long[] revisions = new long[in.readInt()];
+      for (int i = 0; i < revisions.length; i++) {
+        revisions[i] = in.readLong();
+      }
+      return new AnnotationInfo(content, revisions, useChangelistNumbers);
+    }
+  }
+
+  private static final class FilelogExternalizer implements DataExternalizer<CachedFilelog> {
+    @Override
+    public void save(@NotNull DataOutput out, CachedFilelog filelog) throws IOException {
+      out.writeLong(filelog.headChange());
+      out.writeInt(filelog.revisions().length);
+      for (P4Revision revision : filelog.revisions()) {
+        IOUtil.writeUTF(out, revision.getDepotPath());
+        out.writeLong(revision.getRevisionNumber());
+        out.writeLong(revision.getChangeNumber());
+        writeNullable(out, revision.getAction());
+        out.writeLong(revision.getDate() == null ? -1 : revision.getDate().getTime());
+        writeNullable(out, revision.getUser());
+        writeNullable(out, revision.getClient());
+        writeNullable(out, revision.getType());
+        out.writeBoolean(revision.isBranched());
+        writeNullable(out, revision.getSubmitMessage());
+      }
+    }
+
+    @Override
+    public CachedFilelog read(@NotNull DataInput in) throws IOException {
+      long headChange = in.readLong();
+      P4Revision[] revisions = new P4Revision[in.readInt()];
+      for (int i = 0; i < revisions.length; i++) {
+        String depotPath = IOUtil.readUTF(in);
+        long revisionNumber = in.readLong();
+        long changeNumber = in.readLong();
+        String action = readNullable(in);
+        long time = in.readLong();
+        String user = readNullable(in);
+        String client = readNullable(in);
+        String type = readNullable(in);
+        boolean branched = in.readBoolean();
+        revisions[i] = new P4Revision(depotPath, revisionNumber, changeNumber, action, time == -1 ? null : new Date(time),
+                                      user, client, type, branched);
+        revisions[i].setDescription(readNullable(in));
+      }
+      return new CachedFilelog(headChange, revisions);
+    }
+
+    private static void writeNullable(DataOutput out, @Nullable String s) throws IOException {
+      out.writeBoolean(s != null);
+      if (s != null) {
+        IOUtil.writeUTF(out, s);
+      }
+    }
+
+    @Nullable
+    private static String readNullable(DataInput in) throws IOException {
+      return in.readBoolean() ? IOUtil.readUTF(in) : null;
+    }
+  }
+}
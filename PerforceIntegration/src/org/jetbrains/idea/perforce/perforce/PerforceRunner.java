@@ -61,6 +61,7 @@ import org.jetbrains.idea.perforce.PerforceBundle;
 import org.jetbrains.idea.perforce.ServerVersion;
 import org.jetbrains.idea.perforce.application.*;
 import org.jetbrains.idea.perforce.application.annotation.AnnotationInfo;
+import org.jetbrains.idea.perforce.application.annotation.PerforceAnnotationCache;
 import org.jetbrains.idea.perforce.changesBrowser.FileChange;
 import org.jetbrains.idea.perforce.merge.BaseRevision;
 import org.jetbrains.idea.perforce.perforce.connections.P4Connection;
@@ -76,6 +77,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 import java.sql.Time;
 import java.text.ParseException;
@@ -144,6 +146,7 @@ public final class PerforceRunner implements PerforceRunnerI {
   @NonNls public static final String SERVER_DATE = "Server date:";
   @NonNls public static final String SERVER_LICENSE = "Server license:";
   @NonNls public static final String SERVER_VERSION = "Server version:";
+  @NonNls public static final String SERVER_ID = "ServerID:";
 
   @NonNls private static final SyncDateFormat DATESPEC_DATE_FORMAT = new SyncDateFormat(new SimpleDateFormat("yyyy/MM/dd:HH:mm:ss", Locale.US));
   @NonNls private static final String NOW = "now";
@@ -175,7 +178,8 @@ public final class PerforceRunner implements PerforceRunnerI {
     SERVER_ROOT,
     SERVER_DATE,
     SERVER_LICENSE,
-    SERVER_VERSION};
+    SERVER_VERSION,
+    SERVER_ID};
 
   private static final Logger LOG = Logger.getInstance(PerforceRunner.class);
   private static final Logger SPECIFICATION_LOG = Logger.getInstance("#PerforceJobSpecificationLogging");
@@ -1489,6 +1493,79 @@ public final class PerforceRunner implements PerforceRunnerI {
     return parseLogOutput(execResult, isFilelogNewDateVersion(connection));
   }
 
+  /**
+   * @return the head revision data of a single file or {@code null} if it has no submitted revisions
+   */
+  @Nullable
+  public FStat headRevision(@NotNull P4Connection connection, @NotNull String path) throws VcsException {
+    final ExecResult execResult = executeP4Command(new String[]{"fstat", path}, connection);
+    if (execResult.getStdout().isEmpty()) return null;
+    checkError(execResult, connection);
+
+    FStat fStat = FStat.parseFStat(new BufferedReader(new StringReader(execResult.getStdout())));
+    if (fStat == null || StringUtil.isEmpty(fStat.depotFile) || StringUtil.parseLong(fStat.headRev, -1) <= 0 ||
+        StringUtil.parseLong(fStat.headChange, -1) <= 0) {
+      return null;
+    }
+    return fStat;
+  }
+
+  /**
+   * Same as {@code filelog(connection, head.depotFile, true)} but backed by {@link PerforceAnnotationCache}:
+   * the history below an already cached change doesn't change, so only the revisions submitted after it are requested.
+   */
+  public P4Revision[] cachedFilelog(@NotNull P4Connection connection, @NotNull FStat head) throws VcsException {
+    long headChange = Long.parseLong(head.headChange);
+    PerforceAnnotationCache cache = PerforceAnnotationCache.getInstance();
+    String key = getAnnotationCacheKey(connection, createFilelogArgs(true, connection).getArguments(), head.depotFile);
+    PerforceAnnotationCache.CachedFilelog cached = cache.getFilelog(key);
+    if (cached != null && cached.headChange() == headChange) {
+      return cached.revisions();
+    }
+
+    P4Revision[] result = null;
+    if (cached != null && cached.headChange() < headChange) {
+      result = appendFilelogTail(connection, head.depotFile, cached, headChange);
+    }
+    if (result == null) {
+      result = filelog(connection, head.depotFile + "@" + headChange, true);
+    }
+    cache.putFilelog(key, new PerforceAnnotationCache.CachedFilelog(headChange, result));
+    return result;
+  }
+
+  private P4Revision @Nullable [] appendFilelogTail(@NotNull P4Connection connection,
+                                                    @NotNull String depotFile,
+                                                    @NotNull PerforceAnnotationCache.CachedFilelog cached,
+                                                    long headChange) throws VcsException {
+    P4Revision[] tail = filelog(connection, depotFile + "@" + (cached.headChange() + 1) + ",@" + headChange, false);
+    List<P4Revision> result = new ArrayList<>(tail.length + cached.revisions().length);
+    Set<String> tailRevisions = new HashSet<>();
+    for (P4Revision revision : tail) {
+      if (startsNewHistory(revision)) {
+        // the inherited part of the history may have changed, so the cached one can't be reused
+        return null;
+      }
+      result.add(revision);
+      tailRevisions.add(revision.getDepotPath() + "#" + revision.getRevisionNumber());
+    }
+    for (P4Revision revision : cached.revisions()) {
+      if (!tailRevisions.contains(revision.getDepotPath() + "#" + revision.getRevisionNumber())) {
+        result.add(revision);
+      }
+    }
+    int limit = getHistoryLimit();
+    if (limit > 0 && result.size() > limit) {
+      return result.subList(0, limit).toArray(new P4Revision[0]);
+    }
+    return result.toArray(new P4Revision[0]);
+  }
+
+  private static boolean startsNewHistory(P4Revision revision) {
+    String action = revision.getAction();
+    return revision.isBranched() || "branch".equals(action) || "move/add".equals(action) || "import".equals(action);
+  }
+
   public List<String> files(final Collection<String> escapedPaths, final P4Connection connection) throws VcsException {
     if (escapedPaths.isEmpty()) return Collections.emptyList();
 
@@ -1508,7 +1585,7 @@ public final class PerforceRunner implements PerforceRunnerI {
     if (isFilelogNewDateVersion(connection)) {
       arguments.append("-t");
     }
-    int limit = VcsConfiguration.getInstance(myProject).LIMIT_HISTORY ? VcsConfiguration.getInstance(myProject).MAXIMUM_HISTORY_ROWS : -1;
+    int limit = getHistoryLimit();
     if (limit > 0) {
       arguments.append("-m");
       arguments.append(limit);
@@ -1516,6 +1593,10 @@ public final class PerforceRunner implements PerforceRunnerI {
     return arguments;
   }
 
+  private int getHistoryLimit() {
+    return VcsConfiguration.getInstance(myProject).LIMIT_HISTORY ? VcsConfiguration.getInstance(myProject).MAXIMUM_HISTORY_ROWS : -1;
+  }
+
   private boolean isFilelogNewDateVersion(@Nullable final P4Connection connection) throws VcsException {
     final ServerVersion serverVersion = mySettings.getServerFullVersion(connection);
     if (serverVersion == null) return false;
@@ -1536,28 +1617,53 @@ public final class PerforceRunner implements PerforceRunnerI {
     if (revision != -1) {
       filePath += "#" + revision;
     }
+    List<String> commands = createAnnotateArgs(connection);
+    boolean useChangelistNumbers = commands.contains("-i");
+    commands.add(filePath);
+    final ExecResult execResult = executeP4Command(ArrayUtilRt.toStringArray(commands), connection);
+    checkError(execResult, connection);
+    try {
+      return new AnnotationInfo(execResult.getStdout(), useChangelistNumbers);
+    }
+    catch (IOException e) {
+      throw new VcsException(e);
+    }
+  }
+
+  /**
+   * Annotates a submitted depot revision, which never changes, so the result is stored in {@link PerforceAnnotationCache}.
+   */
+  public AnnotationInfo cachedAnnotate(@NotNull P4Connection connection, @NotNull String depotPath, long revision) throws VcsException {
+    PerforceAnnotationCache cache = PerforceAnnotationCache.getInstance();
+    String key = getAnnotationCacheKey(connection, ArrayUtilRt.toStringArray(createAnnotateArgs(connection)), depotPath + "#" + revision);
+    AnnotationInfo cached = cache.getAnnotation(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    AnnotationInfo result = annotate(connection, depotPath, revision);
+    cache.putAnnotation(key, result);
+    return result;
+  }
+
+  private List<String> createAnnotateArgs(@Nullable P4Connection connection) throws VcsException {
     List<String> commands = new ArrayList<>();
     commands.add("annotate");
     commands.add("-q");
-    boolean useChangelistNumbers = false;
     if (mySettings.SHOW_BRANCHES_HISTORY && isAnnotateBranchSupported(connection)) {
       commands.add("-i");
-      useChangelistNumbers = true;
     }
     if (isAnnotateIgnoringWhitespaceSupported(connection)) {
       commands.add("-dw");
     } else {
       commands.add("-dl");
     }
-    commands.add(filePath);
-    final ExecResult execResult = executeP4Command(ArrayUtilRt.toStringArray(commands), connection);
-    checkError(execResult, connection);
-    try {
-      return new AnnotationInfo(execResult.getStdout(), useChangelistNumbers);
-    }
-    catch (IOException e) {
-      throw new VcsException(e);
-    }
+    return commands;
+  }
+
+  private String getAnnotationCacheKey(@NotNull P4Connection connection, String @NotNull [] arguments, @NotNull String path)
+    throws VcsException {
+    return myPerforceManager.getServerIdentity(connection) + "|" + String.join(" ", arguments) + "|" + path;
   }
 
   private boolean isAnnotateBranchSupported(@Nullable final P4Connection connection) throws VcsException {
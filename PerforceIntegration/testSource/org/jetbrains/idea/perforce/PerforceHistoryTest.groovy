@@ -14,6 +14,8 @@ import com.intellij.openapi.vfs.VfsUtil
 import com.intellij.openapi.vfs.VirtualFile
 import com.intellij.openapi.vfs.encoding.EncodingProjectManager
 import com.intellij.testFramework.PsiTestUtil
+import com.intellij.util.CollectConsumer
+import com.intellij.util.containers.ContainerUtil
 import com.intellij.vcsUtil.VcsUtil
 import org.jetbrains.idea.perforce.actions.ShowAllSubmittedFilesAction
 import org.jetbrains.idea.perforce.application.PerforceAnnotationProvider
@@ -24,6 +26,7 @@ import org.jetbrains.idea.perforce.application.annotation.PerforceFileAnnotation
 import org.jetbrains.idea.perforce.perforce.P4Revision
 import org.jetbrains.idea.perforce.perforce.PerforceChangeList
 import org.jetbrains.idea.perforce.perforce.PerforceSettings
+import org.jetbrains.idea.perforce.perforce.connections.AbstractP4Connection
 import org.junit.Test
 
 import java.nio.charset.StandardCharsets
@@ -384,4 +387,41 @@ class PerforceHistoryTest extends PerforceTestCase {
     assert diffs.collect { it.document.text } == ["third", "second", "first"]
     assert diffs.collect { it.charset } == [StandardCharsets.UTF_16LE, StandardCharsets.UTF_8, StandardCharsets.UTF_8]
   }
+
+  @Test
+  void "test annotating unchanged file again costs one fstat"() {
+    VirtualFile file = createFileInCommand("a.txt", "aaa")
+    submitDefaultList("initial")
+    createTestAnnotation(file)
+
+    List<String> commands = ContainerUtil.createEmptyCOWList()
+    AbstractP4Connection.setCommandCallback(new CollectConsumer<String>(commands), myTestRootDisposable)
+    def annotation = createTestAnnotation(file)
+    assert annotation.findRevisionForLine(0).submitMessage.contains("initial")
+
+    assert commands.count { it.startsWith("fstat ") && it.endsWith("a.txt") } == 1
+    assert !commands.any { it.startsWith("filelog ") || it.startsWith("annotate ") }
+  }
+
+  @Test
+  void "test only history tail is fetched after new submit"() {
+    VirtualFile file = createFileInCommand("a.txt", "aaa\n")
+    submitDefaultList("initial")
+    createTestAnnotation(file)
+
+    openForEdit(file)
+    setFileText(file, "aaa\nbbb\n")
+    submitDefaultList("added bbb")
+
+    List<String> commands = ContainerUtil.createEmptyCOWList()
+    AbstractP4Connection.setCommandCallback(new CollectConsumer<String>(commands), myTestRootDisposable)
+    def annotation = createTestAnnotation(file)
+    assert annotation.findRevisionForLine(0).submitMessage.contains("initial")
+    assert annotation.findRevisionForLine(1).submitMessage.contains("added bbb")
+
+    def filelogs = commands.findAll { it.startsWith("filelog ") }
+    assert filelogs.size() == 1
+    assert filelogs[0].contains(",@")
+    assert commands.count { it.startsWith("annotate ") } == 1
+  }
 }
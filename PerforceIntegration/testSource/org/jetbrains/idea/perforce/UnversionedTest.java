@@ -2,20 +2,25 @@ package org.jetbrains.idea.perforce;
 
 import com.intellij.execution.process.ProcessOutput;
 import com.intellij.openapi.vcs.FileStatus;
+import com.intellij.openapi.vcs.ProjectLevelVcsManager;
 import com.intellij.openapi.vcs.VcsConfiguration;
 import com.intellij.openapi.vcs.VcsShowConfirmationOption;
 import com.intellij.openapi.vcs.changes.ChangeListManagerImpl;
 import com.intellij.openapi.vcs.changes.VcsDirtyScopeManager;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.idea.perforce.application.PerforceChangeProvider;
 import org.jetbrains.idea.perforce.application.PerforceVcs;
+import org.jetbrains.idea.perforce.perforce.connections.AbstractP4Connection;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 public class UnversionedTest extends PerforceTestCase {
 
@@ -119,4 +124,42 @@ public class UnversionedTest extends PerforceTestCase {
     assertEquals(FileStatus.UNKNOWN, myChangeListManager.getStatus(b));
   }
 
+  @Test
+  public void testTotalRescanQueriesOnlyChangedFiles() {
+    int count = 1000;
+    VirtualFile dir = createDirInCommand(myWorkingCopyDir, "lib");
+    List<VirtualFile> files = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      files.add(createFileInCommand(dir, "file" + i + ".txt", "content " + i));
+    }
+    verify(runP4WithClient("add", dir.getPath() + "/..."));
+    submitDefaultList("initial");
+    myDirtyScopeManager.markEverythingDirty();
+    myChangeListManager.ensureUpToDate();
+
+    VirtualFile unversioned = createFileInCommand(dir, "new.txt", "new");
+    verify(runP4WithClient("edit", files.get(0).getPath()));
+    setFileText(files.get(0), "changed");
+    myChangeListManager.ensureUpToDate();
+
+    List<String> commands = new ArrayList<>();
+    AbstractP4Connection.setCommandCallback(commands::add, myTestRootDisposable);
+    myProject.getMessageBus().syncPublisher(ProjectLevelVcsManager.VCS_CONFIGURATION_CHANGED).directoryMappingChanged();
+    myDirtyScopeManager.markEverythingDirty();
+    myChangeListManager.ensureUpToDate();
+
+    assertEquals(FileStatus.UNKNOWN, myChangeListManager.getStatus(unversioned));
+    assertEquals(FileStatus.MODIFIED, myChangeListManager.getStatus(files.get(0)));
+    assertEquals(FileStatus.NOT_CHANGED, myChangeListManager.getStatus(files.get(count - 1)));
+
+    List<String> queriedPaths = new ArrayList<>();
+    for (String command : commands) {
+      assertFalse(command, command.startsWith("-x ") && command.contains(" have"));
+      if (command.startsWith("have ")) {
+        queriedPaths.addAll(Arrays.asList(command.substring("have ".length()).split(" ")));
+      }
+    }
+    assertFalse(queriedPaths.toString(), ContainerUtil.exists(queriedPaths, path -> path.endsWith("...")));
+    assertTrue(queriedPaths.toString(), queriedPaths.size() <= 3);
+  }
 }
@@ -80,6 +80,7 @@ public final class FlexTestSuite {
     testSuite.addTestSuite(ActionScriptLineMarkersTest.class);
     testSuite.addTestSuite(ActionScriptRegExpHighlightingTest.class);
     testSuite.addTestSuite(ActionScriptStubsTest.class);
+    testSuite.addTestSuite(FlexCodeContextConcurrencyTest.class);
     testSuite.addTestSuite(FlexColorAnnotatorTest.class);
     testSuite.addTestSuite(FlexHighlightingPerformanceTest.class);
     testSuite.addTestSuite(FlexHighlightingTest.class);
@@ -0,0 +1,179 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.intellij.flex.highlighting;
+
+import com.intellij.flex.FlexTestOption;
+import com.intellij.flex.FlexTestOptions;
+import com.intellij.flex.model.bc.CompilerOptionInfo;
+import com.intellij.flex.util.FlexTestUtils;
+import com.intellij.javascript.flex.mxml.schema.CodeContext;
+import com.intellij.lang.javascript.JSDaemonAnalyzerTestCase;
+import com.intellij.lang.javascript.JavaScriptSupportLoader;
+import com.intellij.lang.javascript.flex.FlexModuleType;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.application.WriteAction;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleType;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class FlexCodeContextConcurrencyTest extends JSDaemonAnalyzerTestCase {
+  private static final int MODULE_COUNT = 4;
+  private static final int THREADS_PER_MODULE = 4;
+  private static final String[] STANDARD_NAMESPACES = {JavaScriptSupportLoader.MXML_URI, JavaScriptSupportLoader.MXML_URI3};
+
+  @Override
+  public void setUp() throws Exception {
+    FlexTestUtils.allowFlexVfsRootsFor(getTestRootDisposable(), "");
+    super.setUp();
+  }
+
+  @NotNull
+  @Override
+  protected ModuleType getModuleType() {
+    return FlexModuleType.getInstance();
+  }
+
+  @Override
+  protected void setUpJdk() {
+    FlexTestUtils.setupFlexSdk(myModule, getTestName(false), getClass(), getTestRootDisposable());
+  }
+
+  @NotNull
+  @Override
+  protected String getTestDataPath() {
+    return FlexTestUtils.getTestDataPath("");
+  }
+
+  @FlexTestOptions(FlexTestOption.WithGumboSdk)
+  public void testConcurrentRequestsShareContexts() throws Exception {
+    final List<Module> modules = createModules();
+
+    // all modules have the same SDK, so contexts built concurrently must match the ones of the module built sequentially
+    final Module referenceModule = modules.get(0);
+    final Map<String, Integer> referenceSizes = new HashMap<>();
+    for (String namespace : STANDARD_NAMESPACES) {
+      final CodeContext context = CodeContext.getContext(namespace, referenceModule);
+      assertTrue(context.getAllDescriptorsSize() > 0);
+      referenceSizes.put(namespace, context.getAllDescriptorsSize());
+    }
+
+    final Map<String, CodeContext> contexts = new ConcurrentHashMap<>();
+    final List<Future<?>> futures = new ArrayList<>();
+    for (Module module : modules.subList(1, modules.size())) {
+      for (int i = 0; i < THREADS_PER_MODULE; i++) {
+        futures.add(ApplicationManager.getApplication().executeOnPooledThread(() -> ReadAction.run(() -> {
+          for (String namespace : STANDARD_NAMESPACES) {
+            final CodeContext context = CodeContext.getContext(namespace, module);
+            final CodeContext previous = contexts.putIfAbsent(module.getName() + " " + namespace, context);
+            if (previous != null) {
+              assertSame(previous, context);
+            }
+          }
+          CodeContext.getContext("*", module);
+        })));
+      }
+    }
+    for (Future<?> future : futures) {
+      future.get(1, TimeUnit.MINUTES);
+    }
+
+    assertEquals((modules.size() - 1) * STANDARD_NAMESPACES.length, contexts.size());
+    for (Module module : modules.subList(1, modules.size())) {
+      for (String namespace : STANDARD_NAMESPACES) {
+        final CodeContext context = contexts.get(module.getName() + " " + namespace);
+        assertEquals(referenceSizes.get(namespace).intValue(), context.getAllDescriptorsSize());
+        assertSame(context, CodeContext.getContext(namespace, module));
+      }
+    }
+  }
+
+  @FlexTestOptions(FlexTestOption.WithGumboSdk)
+  public void testBuiltContextsAreNotBlockedByOtherModules() throws Exception {
+    final List<Module> modules = createModules();
+    final Module builtModule = modules.get(0);
+    final CodeContext context = CodeContext.getContext(JavaScriptSupportLoader.MXML_URI3, builtModule);
+
+    final List<Future<?>> futures = new ArrayList<>();
+    for (Module module : modules.subList(1, modules.size())) {
+      futures.add(ApplicationManager.getApplication().executeOnPooledThread(
+        () -> ReadAction.run(() -> CodeContext.getContext(JavaScriptSupportLoader.MXML_URI3, module))));
+    }
+
+    final long start = System.currentTimeMillis();
+    for (int i = 0; i < 1000; i++) {
+      assertSame(context, ReadAction.compute(() -> CodeContext.getContext(JavaScriptSupportLoader.MXML_URI3, builtModule)));
+    }
+    final long elapsed = System.currentTimeMillis() - start;
+
+    for (Future<?> future : futures) {
+      future.get(1, TimeUnit.MINUTES);
+    }
+    assertTrue("Getting a built context took " + elapsed + " ms", elapsed < 5000);
+  }
+
+  @FlexTestOptions(FlexTestOption.WithGumboSdk)
+  public void testChangedManifestRebuildsOnlyDependentContexts() throws Exception {
+    final File dir = createTempDirectory();
+    final VirtualFile manifest1 = createManifest(dir, "manifest1.xml", "First");
+    final VirtualFile manifest2 = createManifest(dir, "manifest2.xml", "Second");
+    FlexTestUtils.modifyBuildConfiguration(myModule, bc -> bc.getCompilerOptions().setAllOptions(Collections.singletonMap(
+      "compiler.namespaces.namespace",
+      "http://first\t" + manifest1.getPath() + CompilerOptionInfo.LIST_ENTRIES_SEPARATOR + "http://second\t" + manifest2.getPath())));
+
+    final CodeContext first = CodeContext.getContext("http://first", myModule);
+    final CodeContext second = CodeContext.getContext("http://second", myModule);
+    final CodeContext standard = CodeContext.getContext(JavaScriptSupportLoader.MXML_URI3, myModule);
+    assertNotNull(first.getElementDescriptor("First", "First"));
+    assertNotNull(second.getElementDescriptor("Second", "Second"));
+
+    WriteAction.runAndWait(() -> VfsUtil.saveText(manifest1, getManifestText("Changed")));
+
+    final CodeContext rebuiltFirst = CodeContext.getContext("http://first", myModule);
+    assertNotSame(first, rebuiltFirst);
+    assertNotNull(rebuiltFirst.getElementDescriptor("Changed", "Changed"));
+    assertNull(rebuiltFirst.getElementDescriptor("First", "First"));
+    assertSame(second, CodeContext.getContext("http://second", myModule));
+    assertSame(standard, CodeContext.getContext(JavaScriptSupportLoader.MXML_URI3, myModule));
+  }
+
+  @NotNull
+  private static VirtualFile createManifest(@NotNull File dir, @NotNull String fileName, @NotNull String componentName) throws IOException {
+    final File file = new File(dir, fileName);
+    FileUtil.writeToFile(file, getManifestText(componentName));
+    final VirtualFile virtualFile = LocalFileSystem.getInstance().refreshAndFindFileByIoFile(file);
+    assertNotNull(virtualFile);
+    return virtualFile;
+  }
+
+  @NotNull
+  private static String getManifestText(@NotNull String componentName) {
+    return "<?xml version=\"1.0\"?>\n<componentPackage>\n  <component class=\"" + componentName + "\"/>\n</componentPackage>\n";
+  }
+
+  @NotNull
+  private List<Module> createModules() throws Exception {
+    final List<Module> modules = new ArrayList<>();
+    modules.add(myModule);
+    for (int i = 1; i < MODULE_COUNT; i++) {
+      final Module module = FlexTestUtils.createModule(myProject, "module" + i, null);
+      FlexTestUtils.setupFlexSdk(module, getTestName(false), getClass(), getTestRootDisposable());
+      modules.add(module);
+    }
+    return modules;
+  }
+}
@@ -6,6 +6,10 @@ import com.intellij.flex.util.ActionScriptDaemonAnalyzerTestCase;
 import com.intellij.flex.util.FlexTestUtils;
 import com.intellij.lang.javascript.flex.FlexModuleType;
 import com.intellij.openapi.module.ModuleType;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.css.inspections.CssUnknownPropertyInspection;
+import com.intellij.psi.css.inspections.invalid.CssInvalidPropertyValueInspection;
+import com.intellij.psi.impl.PsiModificationTrackerImpl;
 import com.intellij.testFramework.PlatformTestUtil;
 import com.jetbrains.performancePlugin.yourkit.YourKitProfilerHandler;
 import org.jetbrains.annotations.NotNull;
@@ -47,6 +51,34 @@ public class FlexHighlightingPerformanceTest extends ActionScriptDaemonAnalyzerT
     }
   }
 
+  @FlexTestOptions(FlexTestOption.WithFlexFacet)
+  public void testCssPerformance() throws Exception {
+    enableInspectionTool(new CssUnknownPropertyInspection());
+    enableInspectionTool(new CssInvalidPropertyValueInspection());
+    configureFromFileText(getTestName(false) + ".css", generateCss());
+
+    // every pass starts without cached style tables, as after a change in the code
+    PlatformTestUtil.startPerformanceTest("Flex css highlighting", 10_000, () -> doHighlighting())
+      .setup(() -> ((PsiModificationTrackerImpl)PsiManager.getInstance(myProject).getModificationTracker()).incCounter())
+      .assertTiming();
+  }
+
+  @NotNull
+  private static String generateCss() {
+    String[] selectors = {"Application", "Button", "Panel", "Button:up", ".buttonStyle", "Application Panel Button"};
+    String[] properties = {"disabledColor: #FFFFFF;", "borderAlpha: 0.9;", "color: red;", "fontSize: 12;", "paddingTop: 1px;",
+      "cornerRadius: 4;", "fontWeight: bold;", "backgroundColor: 0xFFFFFF;"};
+    StringBuilder css = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      css.append(selectors[i % selectors.length]).append(" {\n");
+      for (String property : properties) {
+        css.append("  ").append(property).append("\n");
+      }
+      css.append("}\n\n");
+    }
+    return css.toString();
+  }
+
   @NotNull
   @Override
   protected ModuleType getModuleType() {
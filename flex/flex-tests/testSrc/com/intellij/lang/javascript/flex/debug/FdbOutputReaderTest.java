@@ -0,0 +1,95 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package com.intellij.lang.javascript.flex.debug;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class FdbOutputReaderTest extends TestCase {
+
+  public void testBatchedResponsesInOneChunk() throws IOException {
+    final ScriptedStream stream = new ScriptedStream("#0   this = [Object 1, class='A'].A() at A.as:5\n(fdb) " +
+                                                     "$1 = true\n(fdb) " +
+                                                     "$2 = 3 (0x3)\n(fdb) ");
+    final List<Boolean> suspended = new ArrayList<>();
+    final FdbOutputReader reader = new FdbOutputReader(stream) {
+      @Override
+      protected void responseRead(boolean endsWithMarker) {
+        suspended.add(endsWithMarker);
+      }
+    };
+
+    assertEquals("#0   this = [Object 1, class='A'].A() at A.as:5\n", reader.readLine(false));
+    assertEquals("$1 = true\n", reader.readLine(false));
+    assertEquals("$2 = 3 (0x3)\n", reader.readLine(false));
+    assertEquals(1, stream.myReads);
+    assertEquals(Arrays.asList(true, true, true), suspended);
+
+    assertNull(reader.readLine(false));
+  }
+
+  public void testMarkerSplitBetweenChunks() throws IOException {
+    final ScriptedStream stream = new ScriptedStream("$1 = 5\n(fd", "b) $2 = 6\n(fdb", ") Do you want to quit? ", "(y or", " n)");
+    final FdbOutputReader reader = new FdbOutputReader(stream);
+
+    assertEquals("$1 = 5\n", reader.readLine(false));
+    assertEquals(2, stream.myReads);
+    assertEquals("$2 = 6\n", reader.readLine(false));
+    assertEquals(3, stream.myReads);
+    assertEquals("Do you want to quit? ", reader.readLine(false));
+    assertEquals(5, stream.myReads);
+  }
+
+  public void testResponseWithoutMarker() throws IOException {
+    final ScriptedStream stream = new ScriptedStream("[SWF] Main.swf - 1,234 bytes after decompression\n",
+                                                     FdbOutputReader.WAITING_PLAYER_MARKER_1 + "...", "\n(fdb) ");
+    final List<Boolean> suspended = new ArrayList<>();
+    final FdbOutputReader reader = new FdbOutputReader(stream) {
+      @Override
+      protected void responseRead(boolean endsWithMarker) {
+        suspended.add(endsWithMarker);
+      }
+    };
+
+    assertEquals("[SWF] Main.swf - 1,234 bytes after decompression\n", reader.readLine(true));
+    assertEquals(FdbOutputReader.WAITING_PLAYER_MARKER_1 + "...", reader.readLine(false));
+    assertEquals("\n", reader.readLine(false));
+    assertEquals(Arrays.asList(false, false, true), suspended);
+  }
+
+  /**
+   * Returns one chunk of fdb output per read, like a process that flushes its output after each response.
+   */
+  private static final class ScriptedStream extends InputStream {
+    private final byte[][] myChunks;
+    private int myChunk;
+    private int myReads;
+
+    private ScriptedStream(String... chunks) {
+      myChunks = new byte[chunks.length][];
+      for (int i = 0; i < chunks.length; i++) {
+        myChunks[i] = chunks[i].getBytes(StandardCharsets.UTF_8);
+      }
+    }
+
+    @Override
+    public int read() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (myChunk == myChunks.length) return -1;
+      final byte[] chunk = myChunks[myChunk++];
+      assertTrue(chunk.length <= len);
+      System.arraycopy(chunk, 0, b, off, chunk.length);
+      ++myReads;
+      return chunk.length;
+    }
+  }
+}
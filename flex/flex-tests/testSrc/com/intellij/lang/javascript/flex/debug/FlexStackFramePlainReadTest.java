@@ -0,0 +1,23 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package com.intellij.lang.javascript.flex.debug;
+
+import junit.framework.TestCase;
+
+public class FlexStackFramePlainReadTest extends TestCase {
+
+  public void testPlainReadsKeepPrefetchedChildren() {
+    assertTrue(FlexStackFrame.isPlainRead("this"));
+    assertTrue(FlexStackFrame.isPlainRead("#1234."));
+    assertTrue(FlexStackFrame.isPlainRead("items.fixed"));
+    assertTrue(FlexStackFrame.isPlainRead("this.items[0].name"));
+    assertTrue(FlexStackFrame.isPlainRead("map['key'].$value"));
+  }
+
+  public void testOtherEvaluationsDropPrefetchedChildren() {
+    assertFalse(FlexStackFrame.isPlainRead("x = 5"));
+    assertFalse(FlexStackFrame.isPlainRead("items.push(1)"));
+    assertFalse(FlexStackFrame.isPlainRead("counter++"));
+    assertFalse(FlexStackFrame.isPlainRead("items[next()]"));
+    assertFalse(FlexStackFrame.isPlainRead("new Foo().bar"));
+  }
+}
@@ -3,7 +3,6 @@ package com.intellij.javascript.flex.css;
 
 import com.intellij.codeInsight.documentation.DocumentationManager;
 import com.intellij.codeInspection.LocalQuickFix;
-import com.intellij.javascript.flex.FlexAnnotationNames;
 import com.intellij.javascript.flex.mxml.schema.CodeContext;
 import com.intellij.lang.Language;
 import com.intellij.lang.css.CSSLanguage;
@@ -14,14 +13,10 @@ import com.intellij.lang.documentation.DocumentationProvider;
 import com.intellij.lang.injection.InjectedLanguageManager;
 import com.intellij.lang.javascript.JavaScriptSupportLoader;
 import com.intellij.lang.javascript.flex.FlexModuleType;
-import com.intellij.lang.javascript.flex.FlexUtils;
 import com.intellij.lang.javascript.flex.XmlBackedJSClassImpl;
-import com.intellij.lang.javascript.psi.ecmal4.JSAttribute;
-import com.intellij.lang.javascript.psi.ecmal4.JSAttributeNameValuePair;
 import com.intellij.lang.javascript.psi.ecmal4.JSClass;
 import com.intellij.lang.javascript.psi.ecmal4.JSQualifiedNamedElement;
 import com.intellij.lang.javascript.psi.ecmal4.impl.ActionScriptClassImpl;
-import com.intellij.lang.javascript.psi.resolve.ActionScriptResolveUtil;
 import com.intellij.lang.javascript.psi.resolve.JSResolveUtil;
 import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.fileTypes.FileTypeRegistry;
@@ -31,7 +26,6 @@ import com.intellij.openapi.module.ModuleType;
 import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Comparing;
-import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
@@ -175,31 +169,6 @@ public class FlexCssElementDescriptorProvider extends CssElementDescriptorProvid
     return false;
   }
 
-  @Nullable
-  private static String findJsClassOrFile(@NotNull JSClass root, Set<JSClass> visited, Set<String> possibleQNames) {
-    if (!visited.add(root)) return null;
-    String qName = root.getQualifiedName();
-    if (qName != null && possibleQNames.contains(qName)) {
-      return qName;
-    }
-    Set<String> includes = new LinkedHashSet<>();
-    FlexCssUtil.collectAllIncludes(root, includes);
-    String fileName = null;
-    for (String include : includes) {
-      if (possibleQNames.contains(include)) {
-        fileName = include;
-      }
-    }
-    if (fileName != null) {
-      return fileName;
-    }
-    for (JSClass jsSuper : root.getSupers()) {
-      String result = findJsClassOrFile(jsSuper, visited, possibleQNames);
-      if (result != null) return result;
-    }
-    return null;
-  }
-
   private static List<FlexStyleIndexInfo> filter(Collection<? extends Collection<FlexStyleIndexInfo>> collections,
                                                  List<CssSimpleSelector> selectors,
                                                  @NotNull GlobalSearchScope scope,
@@ -218,7 +187,7 @@ public class FlexCssElementDescriptorProvider extends CssElementDescriptorProvid
         if (module != null) {
           final JSClass jsClass = getClassFromMxmlDescriptor(selector, module);
           if (jsClass != null) {
-            String classOrFileName = findJsClassOrFile(jsClass, new LinkedHashSet<>(), allNames);
+            String classOrFileName = FlexInheritedStyles.getInstance(jsClass).findClassOrFile(allNames);
             if (classOrFileName != null) {
               namesFromSelectors.add(classOrFileName);
             }
@@ -230,7 +199,7 @@ public class FlexCssElementDescriptorProvider extends CssElementDescriptorProvid
         Collection<JSQualifiedNamedElement> elements = JSResolveUtil.findElementsByName(selectorName, scope.getProject(), scope);
         for (PsiElement element : elements) {
           if (element instanceof JSClass) {
-            String classOrFileName = findJsClassOrFile((JSClass)element, new LinkedHashSet<>(), allNames);
+            String classOrFileName = FlexInheritedStyles.getInstance((JSClass)element).findClassOrFile(allNames);
             if (classOrFileName != null) {
               namesFromSelectors.add(classOrFileName);
             }
@@ -319,32 +288,12 @@ public class FlexCssElementDescriptorProvider extends CssElementDescriptorProvid
     return propertyName.indexOf('-') >= 0;
   }
 
-  private static void fillPropertyDescriptorsDynamically(@NotNull final JSClass jsClass, Set<JSClass> visited, final Set<CssPropertyDescriptor> result) {
+  private static void addInheritedStyles(@NotNull JSClass jsClass,
+                                         @NotNull Set<JSClass> visited,
+                                         @NotNull Map<String, Set<CssPropertyDescriptor>> result) {
     if (!visited.add(jsClass)) return;
-    FlexUtils.processMetaAttributesForClass(jsClass, new ActionScriptResolveUtil.MetaDataProcessor() {
-      @Override
-      public boolean process(@NotNull JSAttribute jsAttribute) {
-        if (FlexAnnotationNames.STYLE.equals(jsAttribute.getName())) {
-          JSAttributeNameValuePair pair = jsAttribute.getValueByName("name");
-          String styleName = pair != null ? pair.getSimpleValue() : null;
-          String qualifiedName = jsClass.getQualifiedName();
-          if (styleName != null && qualifiedName != null) {
-            result.add(new FlexCssPropertyDescriptor(ContainerUtil.newLinkedHashSet(
-              FlexStyleIndexInfo.create(qualifiedName, styleName, jsAttribute, true))));
-          }
-        }
-        return true;
-      }
-
-      @Override
-      public boolean handleOtherElement(PsiElement el, PsiElement context, @Nullable Ref<PsiElement> continuePassElement) {
-        return true;
-      }
-    });
-    for (JSClass jsSuper : jsClass.getSupers()) {
-      if (jsSuper != null) {
-        fillPropertyDescriptorsDynamically(jsSuper, visited, result);
-      }
+    for (Map.Entry<String, List<FlexCssPropertyDescriptor>> entry : FlexInheritedStyles.getInstance(jsClass).getStyles().entrySet()) {
+      result.computeIfAbsent(entry.getKey(), __ -> new LinkedHashSet<>()).addAll(entry.getValue());
     }
   }
 
@@ -353,14 +302,14 @@ public class FlexCssElementDescriptorProvider extends CssElementDescriptorProvid
                                                                                                @NotNull Module module) {
     FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
     GlobalSearchScope scope = module.getModuleWithDependenciesAndLibrariesScope(false);
-    Set<JSClass> visited = new LinkedHashSet<>();
-    Set<CssPropertyDescriptor> result = new LinkedHashSet<>();
+    Set<JSClass> visited = new HashSet<>();
+    Map<String, Set<CssPropertyDescriptor>> stylesByName = new LinkedHashMap<>();
     Project project = module.getProject();
 
     for (CssSimpleSelector selector : selectors) {
       final JSClass jsClass = getClassFromMxmlDescriptor(selector, module);
       if (jsClass != null) {
-        fillPropertyDescriptorsDynamically(jsClass, visited, result);
+        addInheritedStyles(jsClass, visited, stylesByName);
         continue;
       }
 
@@ -368,16 +317,15 @@ public class FlexCssElementDescriptorProvider extends CssElementDescriptorProvid
       Collection<JSQualifiedNamedElement> candidates = JSResolveUtil.findElementsByName(shortClassName, project, scope);
       for (JSQualifiedNamedElement candidate : candidates) {
         if (candidate instanceof JSClass) {
-          fillPropertyDescriptorsDynamically((JSClass)candidate, visited, result);
+          addInheritedStyles((JSClass)candidate, visited, stylesByName);
         }
       }
     }
 
-    for (Iterator<CssPropertyDescriptor> iterator = result.iterator(); iterator.hasNext();) {
-      CssPropertyDescriptor propertyDescriptor = iterator.next();
-      List<Set<FlexStyleIndexInfo>> values = fileBasedIndex.getValues(FlexStyleIndex.INDEX_ID, propertyDescriptor.getPropertyName(), scope);
-      if (values.size() == 0) {
-        iterator.remove();
+    Set<CssPropertyDescriptor> result = new LinkedHashSet<>();
+    for (Map.Entry<String, Set<CssPropertyDescriptor>> entry : stylesByName.entrySet()) {
+      if (!fileBasedIndex.getValues(FlexStyleIndex.INDEX_ID, entry.getKey(), scope).isEmpty()) {
+        result.addAll(entry.getValue());
       }
     }
     return result;
@@ -0,0 +1,126 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.intellij.javascript.flex.css;
+
+import com.intellij.javascript.flex.FlexAnnotationNames;
+import com.intellij.lang.javascript.flex.FlexUtils;
+import com.intellij.lang.javascript.psi.ecmal4.JSAttribute;
+import com.intellij.lang.javascript.psi.ecmal4.JSAttributeNameValuePair;
+import com.intellij.lang.javascript.psi.ecmal4.JSClass;
+import com.intellij.lang.javascript.psi.resolve.ActionScriptResolveUtil;
+import com.intellij.openapi.util.Ref;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Styles declared with {@code [Style]} metadata in a class and all its supers, cached per class.
+ * The class and its supers are walked depth-first, each class once.
+ */
+final class FlexInheritedStyles {
+  private record HierarchyEntry(@Nullable String qualifiedName, @NotNull Set<String> includes) {
+  }
+
+  // the class and its supers in the walk order, with the files included by each of them
+  private final List<HierarchyEntry> myHierarchy;
+  // a style declared in several classes of the hierarchy has several descriptors
+  private final Map<String, List<FlexCssPropertyDescriptor>> myStyles;
+
+  private FlexInheritedStyles(@NotNull List<HierarchyEntry> hierarchy, @NotNull Map<String, List<FlexCssPropertyDescriptor>> styles) {
+    myHierarchy = hierarchy;
+    myStyles = styles;
+  }
+
+  @NotNull
+  static FlexInheritedStyles getInstance(@NotNull JSClass jsClass) {
+    return CachedValuesManager.getCachedValue(jsClass, () -> CachedValueProvider.Result
+      .create(compute(jsClass), PsiModificationTracker.MODIFICATION_COUNT));
+  }
+
+  /**
+   * @return style names mapped to descriptors of the styles declared in the class or its supers
+   */
+  @NotNull
+  Map<String, List<FlexCssPropertyDescriptor>> getStyles() {
+    return myStyles;
+  }
+
+  /**
+   * @return the qualified name of the first class in the hierarchy that is in {@code classOrFileNames},
+   * or the last of the files included by that class that is in {@code classOrFileNames}
+   */
+  @Nullable
+  String findClassOrFile(@NotNull Set<String> classOrFileNames) {
+    for (HierarchyEntry entry : myHierarchy) {
+      if (entry.qualifiedName != null && classOrFileNames.contains(entry.qualifiedName)) {
+        return entry.qualifiedName;
+      }
+      String fileName = null;
+      for (String include : entry.includes) {
+        if (classOrFileNames.contains(include)) {
+          fileName = include;
+        }
+      }
+      if (fileName != null) {
+        return fileName;
+      }
+    }
+    return null;
+  }
+
+  @NotNull
+  private static FlexInheritedStyles compute(@NotNull JSClass root) {
+    final List<HierarchyEntry> hierarchy = new ArrayList<>();
+    final Map<String, List<FlexCssPropertyDescriptor>> styles = new LinkedHashMap<>();
+    collect(root, new HashSet<>(), hierarchy, styles);
+    styles.replaceAll((styleName, descriptors) -> List.copyOf(descriptors));
+    return new FlexInheritedStyles(List.copyOf(hierarchy), Collections.unmodifiableMap(styles));
+  }
+
+  private static void collect(@NotNull final JSClass jsClass,
+                              @NotNull Set<JSClass> visited,
+                              @NotNull List<HierarchyEntry> hierarchy,
+                              @NotNull final Map<String, List<FlexCssPropertyDescriptor>> styles) {
+    if (!visited.add(jsClass)) return;
+
+    final String qualifiedName = jsClass.getQualifiedName();
+    final Set<String> includes = new LinkedHashSet<>();
+    FlexCssUtil.collectAllIncludes(jsClass, includes);
+    hierarchy.add(new HierarchyEntry(qualifiedName, Collections.unmodifiableSet(includes)));
+
+    FlexUtils.processMetaAttributesForClass(jsClass, new ActionScriptResolveUtil.MetaDataProcessor() {
+      @Override
+      public boolean process(@NotNull JSAttribute jsAttribute) {
+        if (FlexAnnotationNames.STYLE.equals(jsAttribute.getName())) {
+          JSAttributeNameValuePair pair = jsAttribute.getValueByName("name");
+          String styleName = pair != null ? pair.getSimpleValue() : null;
+          if (styleName != null && qualifiedName != null) {
+            FlexCssPropertyDescriptor descriptor = new FlexCssPropertyDescriptor(ContainerUtil.newLinkedHashSet(
+              FlexStyleIndexInfo.create(qualifiedName, styleName, jsAttribute, true)));
+            List<FlexCssPropertyDescriptor> descriptors = styles.computeIfAbsent(styleName, __ -> new ArrayList<>());
+            if (!descriptors.contains(descriptor)) {
+              descriptors.add(descriptor);
+            }
+          }
+        }
+        return true;
+      }
+
+      @Override
+      public boolean handleOtherElement(PsiElement el, PsiElement context, @Nullable Ref<PsiElement> continuePassElement) {
+        return true;
+      }
+    });
+
+    for (JSClass jsSuper : jsClass.getSupers()) {
+      if (jsSuper != null) {
+        collect(jsSuper, visited, hierarchy, styles);
+      }
+    }
+  }
+}
@@ -46,6 +46,7 @@ import com.intellij.psi.PsiManager;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.xml.XmlFile;
 import com.intellij.psi.xml.XmlTag;
+import com.intellij.util.ArrayUtil;
 import com.intellij.xml.XmlElementDescriptor;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
@@ -74,7 +75,9 @@ public final class CodeContext {
   final GlobalSearchScope scope;
   final String namespace;
   final Module module;
-  private final Set<Object> dependencies = new HashSet<>();
+  private final Set<ModificationTracker> dependencies = new LinkedHashSet<>();
+  private volatile ModificationTracker @NotNull [] myDependencyTrackers = ModificationTracker.EMPTY_ARRAY;
+  private volatile long @NotNull [] myDependencyStamps = ArrayUtil.EMPTY_LONG_ARRAY;
 
   CodeContext(String _namespace, Module _module, GlobalSearchScope scope) {
     myNameToDescriptorsMap = new HashMap<>(100);
@@ -122,12 +125,50 @@ public final class CodeContext {
     myNameToDescriptorsMap.put(name, descriptor);
   }
 
-  private void addDependency(final @NotNull Object dep) {
+  private void addDependency(final @NotNull ModificationTracker dep) {
     dependencies.add(dep);
   }
 
+  /**
+   * A directory matters only when files are added to it or removed from it, unlike PSI changes anywhere in the project
+   * that a {@link PsiDirectory} means as a {@link com.intellij.psi.util.CachedValue} dependency.
+   */
+  private void addDependency(final @NotNull PsiDirectory directory) {
+    addDependency(VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS);
+  }
+
+  /**
+   * Source files are tracked by their PSI stamp, which also changes on edits that are not saved yet.
+   */
+  private void addDependency(final @NotNull PsiFile file) {
+    addDependency(() -> file.isValid() ? file.getModificationStamp() : -1);
+  }
+
   Object[] getDependencies() {
-    return dependencies.toArray();
+    return myDependencyTrackers;
+  }
+
+  /**
+   * Called once the context is built, {@link #isUpToDate()} compares the dependencies with their state at this moment.
+   */
+  void rememberDependencyStamps() {
+    final ModificationTracker[] trackers = dependencies.toArray(ModificationTracker.EMPTY_ARRAY);
+    final long[] stamps = new long[trackers.length];
+    for (int i = 0; i < trackers.length; i++) {
+      stamps[i] = trackers[i].getModificationCount();
+    }
+    myDependencyStamps = stamps;
+    myDependencyTrackers = trackers;
+  }
+
+  boolean isUpToDate() {
+    final ModificationTracker[] trackers = myDependencyTrackers;
+    final long[] stamps = myDependencyStamps;
+    if (trackers.length != stamps.length) return false;
+    for (int i = 0; i < trackers.length; i++) {
+      if (trackers[i].getModificationCount() != stamps[i]) return false;
+    }
+    return true;
   }
 
   public static CodeContext getContext(final String namespace, final Module module) {
@@ -143,26 +184,14 @@ public final class CodeContext {
     final FlexBuildConfiguration bc = FlexBuildConfigurationManager.getInstance(module).getActiveConfiguration();
     if (bc == null) return EMPTY;
 
-    CodeContext codeContext;
-
-    synchronized (CodeContext.class) {
-      if (isStdNamespace(namespace)) {
-        return getStdCodeContext(namespace, module, scope, bc);
-      }
-
-      final CodeContextHolder contextHolder = CodeContextHolder.getInstance(module.getProject());
-      codeContext = contextHolder.getCodeContext(namespace, module, scope);
-
-      if (codeContext == null) {
-        codeContext = createCodeContext(namespace, module, bc, scope);
-        if (codeContext.getAllDescriptorsSize() > 0) {
-          // avoid adding of incorrect namespaces that appear during completion like "http://www.adobe.IntellijIdeaRulezzz com/2006/mxml"
-          contextHolder.putCodeContext(namespace, module, scope, codeContext);
-        }
-      }
+    if (isStdNamespace(namespace)) {
+      return getStdCodeContext(namespace, module, scope, bc);
     }
 
-    return codeContext;
+    // contexts without descriptors are not cached to avoid adding of incorrect namespaces that appear during completion
+    // like "http://www.adobe.IntellijIdeaRulezzz com/2006/mxml"
+    return CodeContextHolder.getInstance(module.getProject())
+      .getCodeContext(namespace, module, scope, () -> createCodeContext(namespace, module, bc, scope));
   }
 
   public static boolean isStdNamespace(final String namespace) {
@@ -175,7 +204,8 @@ public final class CodeContext {
 
   private static CodeContext createCodeContext(String namespace, Module module, FlexBuildConfiguration bc, GlobalSearchScope scope) {
     if (!isPackageBackedNamespace(namespace)) {
-      return createCodeContextFromLibraries(namespace, module, scope, bc);
+      final CodeContext codeContext = createCodeContextsFromLibraries(module, scope, bc, new HashMap<>()).get(namespace);
+      return codeContext != null ? codeContext : EMPTY;
     }
 
     final Project project = module.getProject();
@@ -191,6 +221,8 @@ public final class CodeContext {
           addFileBackedDescriptor(file, codeContext, packageName, project);
           PsiDirectory psiDirectory = PsiManager.getInstance(project).findDirectory(file.getParent());
           if (psiDirectory != null) codeContext.addDependency(psiDirectory);
+          final PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+          if (psiFile != null) codeContext.addDependency(psiFile);
         }
         else {
           String qName = ActionScriptResolveUtil.buildQualifiedName(packageName, name);
@@ -198,8 +230,8 @@ public final class CodeContext {
           final PsiFile containingFile = PsiManager.getInstance(project).findFile(file);
           if (containingFile == null) return true;
           final PsiDirectory containingDirectory = containingFile.getParent();
-          final Object dependency = containingDirectory != null ? containingDirectory : containingFile;
-          codeContext.addDependency(dependency);
+          if (containingDirectory != null) codeContext.addDependency(containingDirectory);
+          codeContext.addDependency(containingFile);
         }
 
         return true;
@@ -209,7 +241,10 @@ public final class CodeContext {
     return codeContext;
   }
 
-  private static void handleSwcFromSdk(@NotNull Module module, @NotNull GlobalSearchScope scope, @NotNull FlexBuildConfiguration bc) {
+  private static void handleSwcFromSdk(@NotNull Module module,
+                                       @NotNull GlobalSearchScope scope,
+                                       @NotNull FlexBuildConfiguration bc,
+                                       @NotNull Map<String, CodeContext> standardContexts) {
     final Sdk sdk = bc.getSdk();
     if (sdk == null) return;
 
@@ -217,7 +252,7 @@ public final class CodeContext {
     for (final VirtualFile file : sdk.getRootProvider().getFiles(OrderRootType.CLASSES)) {
       final String swcPath = VirtualFileManager.extractPath(StringUtil.trimEnd(file.getUrl(), JarFileSystem.JAR_SEPARATOR));
       if (BCUtils.getSdkEntryLinkageType(swcPath, bc) != null) {
-        handleFileDependency(module, contextsOfModule, file);
+        handleFileDependency(module, contextsOfModule, standardContexts, file);
       }
     }
     final CodeContextHolder contextHolder = CodeContextHolder.getInstance(module.getProject());
@@ -226,29 +261,31 @@ public final class CodeContext {
     }
   }
 
-  private static CodeContext createCodeContextFromLibraries(String namespace,
-                                                            Module module,
-                                                            GlobalSearchScope scope,
-                                                            FlexBuildConfiguration bc) {
+  /**
+   * Creates contexts of all non-standard namespaces of the libraries and caches them.
+   * Components of standard namespaces are added to {@code standardContexts}.
+   */
+  private static Map<String, CodeContext> createCodeContextsFromLibraries(Module module,
+                                                                         GlobalSearchScope scope,
+                                                                         FlexBuildConfiguration bc,
+                                                                         Map<String, CodeContext> standardContexts) {
     final Map<String, CodeContext> contextsOfModule = new HashMap<>();
     final ModuleRootManager rootManager = ModuleRootManager.getInstance(module);
 
-    // TODO: this code should not be invoked per ns!
-    // If fixed - then method usage at getStdCodeContext() must be changed to make sure that all namespaces handled at that point.
     for (DependencyEntry entry : bc.getDependencies().getEntries()) {
       if (entry.getDependencyType().getLinkageType() == LinkageType.LoadInRuntime) continue;
 
       if (entry instanceof BuildConfigurationEntry) {
         final FlexBuildConfiguration bcDependency = ((BuildConfigurationEntry)entry).findBuildConfiguration();
         if (bcDependency != null && bcDependency.getOutputType() == OutputType.Library) {
-          addComponentsFromManifests(module, contextsOfModule, bcDependency, true);
+          addComponentsFromManifests(module, contextsOfModule, standardContexts, bcDependency, true);
         }
       }
       else if (entry instanceof ModuleLibraryEntry) {
         final LibraryOrderEntry orderEntry = FlexProjectRootsUtil.findOrderEntry((ModuleLibraryEntry)entry, rootManager);
         if (orderEntry != null) {
           for (VirtualFile file : orderEntry.getRootFiles(OrderRootType.CLASSES)) {
-            handleFileDependency(module, contextsOfModule, file);
+            handleFileDependency(module, contextsOfModule, standardContexts, file);
           }
         }
       }
@@ -256,28 +293,26 @@ public final class CodeContext {
         final Library library = FlexProjectRootsUtil.findOrderEntry(module.getProject(), (SharedLibraryEntry)entry);
         if (library != null) {
           for (VirtualFile file : library.getFiles(OrderRootType.CLASSES)) {
-            handleFileDependency(module, contextsOfModule, file);
+            handleFileDependency(module, contextsOfModule, standardContexts, file);
           }
         }
       }
     }
 
-    addComponentsFromManifests(module, contextsOfModule, bc, false);
+    addComponentsFromManifests(module, contextsOfModule, standardContexts, bc, false);
 
     final CodeContextHolder contextHolder = CodeContextHolder.getInstance(module.getProject());
     for (Map.Entry<String, CodeContext> entry : contextsOfModule.entrySet()) {
       contextHolder.putCodeContext(entry.getKey(), module, scope, entry.getValue());
     }
-
-    CodeContext codeContext = contextsOfModule.get(namespace);
-    if (codeContext == null) {
-      codeContext = EMPTY;
-    }
-    return codeContext;
+    return contextsOfModule;
   }
 
-  private static void addComponentsFromManifests(final Module module, final Map<String, CodeContext> contextsOfModule,
-                                                 final FlexBuildConfiguration bc, boolean onlyIncludedInSwc) {
+  private static void addComponentsFromManifests(final Module module,
+                                                 final Map<String, CodeContext> contextsOfModule,
+                                                 final Map<String, CodeContext> standardContexts,
+                                                 final FlexBuildConfiguration bc,
+                                                 boolean onlyIncludedInSwc) {
     final String configFilePath = bc.getCompilerOptions().getAdditionalConfigFilePath();
     final VirtualFile configFile = StringUtil.isEmptyOrSpaces(configFilePath)
                                    ? null
@@ -288,7 +323,7 @@ public final class CodeContext {
 
       final VirtualFile manifestFile = VfsUtilCore.findRelativeFile(info.manifest, configFile);
       if (manifestFile != null && !manifestFile.isDirectory()) {
-        processManifestFile(module, contextsOfModule, manifestFile, info.namespace, configFile);
+        processManifestFile(module, contextsOfModule, standardContexts, manifestFile, info.namespace, configFile);
       }
     }
 
@@ -296,13 +331,16 @@ public final class CodeContext {
       // namespaces configured in IDEA are always included in SWC
       final VirtualFile manifestFile = VfsUtilCore.findRelativeFile(namespaceAndManifest.second, configFile);
       if (manifestFile != null && !manifestFile.isDirectory()) {
-        processManifestFile(module, contextsOfModule, manifestFile, namespaceAndManifest.first, configFile);
+        processManifestFile(module, contextsOfModule, standardContexts, manifestFile, namespaceAndManifest.first, configFile);
       }
       return true;
     });
   }
 
-  private static void handleFileDependency(Module module, Map<String, CodeContext> contextsOfModule, VirtualFile file) {
+  private static void handleFileDependency(Module module,
+                                           Map<String, CodeContext> contextsOfModule,
+                                           Map<String, CodeContext> standardContexts,
+                                           VirtualFile file) {
     if (FileTypeRegistry.getInstance().isFileOfType(file, ArchiveFileType.INSTANCE) &&
         ("swc".equalsIgnoreCase(file.getExtension()) ||
          "ane".equalsIgnoreCase(file.getExtension()) ||
@@ -313,15 +351,16 @@ public final class CodeContext {
       final VirtualFile catalog = jarRoot.findChild("catalog.xml");
       if (catalog == null) return;
 
-      processCatalogFile(module, contextsOfModule, catalog);
+      processCatalogFile(module, contextsOfModule, standardContexts, catalog);
     }
   }
 
   private static void processCatalogFile(final Module module,
                                          final Map<String, CodeContext> contextsOfModule,
+                                         final Map<String, CodeContext> standardContexts,
                                          final VirtualFile catalogFile) {
     SwcCatalogXmlUtil.processComponentsFromCatalogXml(catalogFile, componentFromCatalogXml -> {
-      CodeContext codeContext = identifyCodeContext(module, contextsOfModule, componentFromCatalogXml.myUri);
+      CodeContext codeContext = identifyCodeContext(module, contextsOfModule, standardContexts, componentFromCatalogXml.myUri);
       codeContext.addDependency(catalogFile);
       codeContext.putDescriptor(componentFromCatalogXml.myName,
                                 new ClassBackedElementDescriptor(componentFromCatalogXml.myName,
@@ -334,32 +373,26 @@ public final class CodeContext {
     });
   }
 
-  private static CodeContext identifyCodeContext(Module module, Map<String, CodeContext> contextsOfModule, String uri) {
-    CodeContext codeContext;
-    if (isStdNamespace(uri)) {
-      final CodeContextHolder contextHolder = CodeContextHolder.getInstance(module.getProject());
-      codeContext = contextHolder.getStandardContext(uri, module);
-      if (codeContext == null) {
-        codeContext = new CodeContext(uri, module, GlobalSearchScope.moduleWithDependenciesAndLibrariesScope(module));
-        contextHolder.putStandardContext(uri, module, codeContext);
-      }
-    }
-    else {
-      codeContext = contextsOfModule.get(uri);
-      if (codeContext == null) {
-        codeContext = new CodeContext(uri, module, GlobalSearchScope.moduleWithDependenciesAndLibrariesScope(module));
-        contextsOfModule.put(uri, codeContext);
-      }
+  private static CodeContext identifyCodeContext(Module module,
+                                                 Map<String, CodeContext> contextsOfModule,
+                                                 Map<String, CodeContext> standardContexts,
+                                                 String uri) {
+    final Map<String, CodeContext> contexts = isStdNamespace(uri) ? standardContexts : contextsOfModule;
+    CodeContext codeContext = contexts.get(uri);
+    if (codeContext == null) {
+      codeContext = new CodeContext(uri, module, GlobalSearchScope.moduleWithDependenciesAndLibrariesScope(module));
+      contexts.put(uri, codeContext);
     }
     return codeContext;
   }
 
   private static void processManifestFile(final Module module,
                                           final Map<String, CodeContext> contextsOfModule,
+                                          final Map<String, CodeContext> standardContexts,
                                           final VirtualFile manifestFile,
                                           final String uri,
                                           final @Nullable ModificationTracker dependency) {
-    final CodeContext codeContext = identifyCodeContext(module, contextsOfModule, uri);
+    final CodeContext codeContext = identifyCodeContext(module, contextsOfModule, standardContexts, uri);
     if (dependency != null) {
       codeContext.addDependency(dependency);
     }
@@ -389,14 +422,16 @@ public final class CodeContext {
   private static CodeContext getStdCodeContext(final String namespace, final Module module, GlobalSearchScope scope, final FlexBuildConfiguration bc) {
     final CodeContextHolder contextHolder = CodeContextHolder.getInstance(module.getProject());
 
-    if (!contextHolder.areSdkComponentsHandledForModule(module)) { // handleAllStandardManifests only once per module
-      handleAllStandardManifests(module, bc);
-      handleSwcFromSdk(module, scope, bc); //swc files attached to Flex SDK may contribute to standard context
-      createCodeContextFromLibraries(namespace, module, scope, bc); // other libraries may contribute to standard context
-      contextHolder.setSdkComponentsHandledForModule(module);
-    }
+    // all standard contexts of the module are built at once
+    final Map<String, CodeContext> standardContexts = contextHolder.getStandardContexts(module, () -> {
+      final Map<String, CodeContext> contexts = new HashMap<>();
+      handleAllStandardManifests(module, bc, contexts);
+      handleSwcFromSdk(module, scope, bc, contexts); //swc files attached to Flex SDK may contribute to standard context
+      createCodeContextsFromLibraries(module, scope, bc, contexts); // other libraries may contribute to standard context
+      return contexts;
+    });
 
-    final CodeContext context = contextHolder.getStandardContext(namespace, module);
+    final CodeContext context = standardContexts.get(namespace);
     return context != null ? context : EMPTY;
   }
 
@@ -456,7 +491,9 @@ public final class CodeContext {
     return descriptor;
   }
 
-  private static void handleAllStandardManifests(final Module module, @NotNull final FlexBuildConfiguration bc) {
+  private static void handleAllStandardManifests(final Module module,
+                                                 @NotNull final FlexBuildConfiguration bc,
+                                                 @NotNull final Map<String, CodeContext> standardContexts) {
     final Sdk sdk = bc.getSdk();
     final String homePath = sdk == null ? null : sdk.getHomePath();
     final VirtualFile sdkHome = homePath == null ? null : LocalFileSystem.getInstance().findFileByPath(homePath);
@@ -466,7 +503,7 @@ public final class CodeContext {
       final VirtualFile manifestFile = VfsUtilCore.findRelativeFile(relativePath, sdkHome);
 
       if (manifestFile != null) {
-        handleStandardManifest(module, namespace1, manifestFile, sdkHome);
+        handleStandardManifest(module, namespace1, manifestFile, sdkHome, standardContexts);
       }
     });
   }
@@ -474,12 +511,12 @@ public final class CodeContext {
   private static void handleStandardManifest(final Module module,
                                              final String namespace,
                                              final VirtualFile manifestFile,
-                                             final VirtualFile flexSdkRoot) {
-    final CodeContextHolder contextHolder = CodeContextHolder.getInstance(module.getProject());
-    CodeContext _context = contextHolder.getStandardContext(namespace, module);
+                                             final VirtualFile flexSdkRoot,
+                                             final Map<String, CodeContext> standardContexts) {
+    CodeContext _context = standardContexts.get(namespace);
     if (_context == null) {
       _context = new CodeContext(namespace, module, GlobalSearchScope.moduleWithDependenciesAndLibrariesScope(module));
-      contextHolder.putStandardContext(namespace, module, _context);
+      standardContexts.put(namespace, _context);
     }
 
     final CodeContext context = _context;
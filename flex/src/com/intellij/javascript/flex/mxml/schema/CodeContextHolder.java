@@ -2,86 +2,201 @@
 package com.intellij.javascript.flex.mxml.schema;
 
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Pair;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.ExceptionUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+/**
+ * Caches {@link CodeContext}s of modules. Each context is built at most once at a time: concurrent requests for the same context wait for
+ * the thread that builds it, requests for other contexts don't. A context is rebuilt when any of its dependencies changes.
+ */
 public final class CodeContextHolder {
-  private final Set<Module> myModulesWithSdkComponentsHandled = new HashSet<>();
-  private final Map<String, Map<Module, CodeContext>> myStandardContexts = new HashMap<>();
-  private final Map<String, Map<Pair<Module, GlobalSearchScope>, CodeContext>> myNSToCodeContextMap = new HashMap<>();
+  private static final long CHECK_CANCELED_PERIOD_MS = 10;
 
-  synchronized void clear() {
-    myNSToCodeContextMap.clear();
+  private record ContextKey(@NotNull String namespace, @NotNull Module module, @NotNull GlobalSearchScope scope) {
+  }
+
+  // all standard contexts of a module are built at once
+  private final ConcurrentMap<Module, CompletableFuture<Map<String, CodeContext>>> myStandardContexts = new ConcurrentHashMap<>();
+  private final ConcurrentMap<ContextKey, CompletableFuture<CodeContext>> myCodeContexts = new ConcurrentHashMap<>();
+
+  void clear() {
+    myCodeContexts.clear();
     myStandardContexts.clear();
-    myModulesWithSdkComponentsHandled.clear();
   }
 
+  /**
+   * @return the context if it has already been built and is up to date
+   */
   @Nullable
-  public synchronized CodeContext getCodeContext(@NotNull String namespace, @NotNull Module module, @NotNull GlobalSearchScope scope) {
-    Map<Pair<Module, GlobalSearchScope>, CodeContext> map = myNSToCodeContextMap.get(namespace);
-    return map != null ? map.get(Pair.create(module, scope)) : null;
+  public CodeContext getCodeContext(@NotNull String namespace, @NotNull Module module, @NotNull GlobalSearchScope scope) {
+    return getIfUpToDate(myCodeContexts.get(new ContextKey(namespace, module, scope)), CodeContext::isUpToDate);
   }
 
-  synchronized void putCodeContext(@NotNull String namespace, @NotNull Module module, @NotNull GlobalSearchScope scope, @NotNull CodeContext codeContext) {
-    var map = myNSToCodeContextMap.get(namespace);
-    if (map == null) {
-      map = new HashMap<>();
-      myNSToCodeContextMap.put(namespace, map);
-    }
-    map.put(Pair.create(module, scope), codeContext);
+  /**
+   * Returns the cached context or builds it with {@code builder}. Contexts without descriptors are not cached.
+   */
+  @NotNull
+  CodeContext getCodeContext(@NotNull String namespace,
+                             @NotNull Module module,
+                             @NotNull GlobalSearchScope scope,
+                             @NotNull Supplier<CodeContext> builder) {
+    return getOrBuild(myCodeContexts, new ContextKey(namespace, module, scope), CodeContext::isUpToDate, () -> {
+      final CodeContext context = builder.get();
+      context.rememberDependencyStamps();
+      return context;
+    }, context -> context.getAllDescriptorsSize() > 0);
   }
 
-  synchronized void clearCodeContext(@NotNull String namespace, @NotNull Module module, @NotNull GlobalSearchScope scope) {
-    var map = myNSToCodeContextMap.get(namespace);
-    if (map != null) {
-      map.remove(Pair.create(module, scope));
-    }
+  /**
+   * Caches a context built together with another one. A context that is being built by another thread or is still up to date
+   * is not replaced, so that contexts not depending on the change that caused the rebuild stay the same.
+   */
+  void putCodeContext(@NotNull String namespace, @NotNull Module module, @NotNull GlobalSearchScope scope, @NotNull CodeContext codeContext) {
+    codeContext.rememberDependencyStamps();
+    final ContextKey key = new ContextKey(namespace, module, scope);
+    final CompletableFuture<CodeContext> future = CompletableFuture.completedFuture(codeContext);
+    myCodeContexts.compute(key, (k, existing) -> {
+      if (existing == null) return future;
+      if (!existing.isDone()) return existing;
+      return getIfUpToDate(existing, CodeContext::isUpToDate) != null ? existing : future;
+    });
   }
 
   public static CodeContextHolder getInstance(@NotNull Project project) {
     return project.getService(CodeContextHolder.class);
   }
 
+  /**
+   * @return the context if standard contexts of the module have already been built and are up to date
+   */
   @Nullable
-  public synchronized CodeContext getStandardContext(final String namespace, final Module module) {
-    final Map<Module, CodeContext> map = myStandardContexts.get(namespace);
-    return map == null ? null : map.get(module);
+  public CodeContext getStandardContext(final String namespace, final Module module) {
+    final Map<String, CodeContext> contexts = getIfUpToDate(myStandardContexts.get(module), CodeContextHolder::areUpToDate);
+    return contexts == null ? null : contexts.get(namespace);
   }
 
-  public synchronized Collection<String> getNamespaces(Module module, GlobalSearchScope scope) {
-    final List<String> result = new ArrayList<>();
-    for (final Map.Entry<String, Map<Module, CodeContext>> entry : myStandardContexts.entrySet()) {
-      if (entry.getValue().containsKey(module)) {
-        result.add(entry.getKey());
+  /**
+   * Returns cached standard contexts of the module or builds all of them with {@code builder}.
+   */
+  @NotNull
+  Map<String, CodeContext> getStandardContexts(@NotNull Module module, @NotNull Supplier<Map<String, CodeContext>> builder) {
+    return getOrBuild(myStandardContexts, module, CodeContextHolder::areUpToDate, () -> {
+      final Map<String, CodeContext> contexts = builder.get();
+      for (CodeContext context : contexts.values()) {
+        context.rememberDependencyStamps();
       }
+      return Collections.unmodifiableMap(contexts);
+    }, contexts -> true);
+  }
+
+  public Collection<String> getNamespaces(Module module, GlobalSearchScope scope) {
+    final List<String> result = new ArrayList<>();
+    final Map<String, CodeContext> standardContexts = getIfUpToDate(myStandardContexts.get(module), CodeContextHolder::areUpToDate);
+    if (standardContexts != null) {
+      result.addAll(standardContexts.keySet());
     }
-    for (var entry : myNSToCodeContextMap.entrySet()) {
-      if (entry.getValue().containsKey(Pair.create(module, scope))) {
-        result.add(entry.getKey());
+    for (Map.Entry<ContextKey, CompletableFuture<CodeContext>> entry : myCodeContexts.entrySet()) {
+      final ContextKey key = entry.getKey();
+      if (key.module().equals(module) && key.scope().equals(scope) && getIfUpToDate(entry.getValue(), CodeContext::isUpToDate) != null) {
+        result.add(key.namespace());
       }
     }
     return result;
   }
 
-  synchronized void putStandardContext(final String namespace, final Module module, final CodeContext codeContext) {
-    Map<Module, CodeContext> map = myStandardContexts.get(namespace);
-    if (map == null) {
-      map = new HashMap<>();
-      myStandardContexts.put(namespace, map);
+  private static boolean areUpToDate(@NotNull Map<String, CodeContext> contexts) {
+    for (CodeContext context : contexts.values()) {
+      if (!context.isUpToDate()) return false;
+    }
+    return true;
+  }
+
+  @Nullable
+  private static <V> V getIfUpToDate(@Nullable CompletableFuture<V> future, @NotNull Predicate<? super V> isUpToDate) {
+    if (future == null || !future.isDone() || future.isCompletedExceptionally()) return null;
+    final V value = future.join();
+    return isUpToDate.test(value) ? value : null;
+  }
+
+  @NotNull
+  private static <K, V> V getOrBuild(@NotNull ConcurrentMap<K, CompletableFuture<V>> map,
+                                     @NotNull K key,
+                                     @NotNull Predicate<? super V> isUpToDate,
+                                     @NotNull Supplier<? extends V> builder,
+                                     @NotNull Predicate<? super V> shouldCache) {
+    while (true) {
+      CompletableFuture<V> future = map.get(key);
+      if (future == null) {
+        final CompletableFuture<V> newFuture = new CompletableFuture<>();
+        future = map.putIfAbsent(key, newFuture);
+        if (future == null) {
+          return build(map, key, newFuture, builder, shouldCache);
+        }
+      }
+
+      final V value = await(future);
+      if (value != null && isUpToDate.test(value)) {
+        return value;
+      }
+      // built by a thread that has been canceled, or one of the dependencies has changed since
+      map.remove(key, future);
     }
-    map.put(module, codeContext);
   }
 
-  synchronized boolean areSdkComponentsHandledForModule(final Module module) {
-    return myModulesWithSdkComponentsHandled.contains(module);
+  @NotNull
+  private static <K, V> V build(@NotNull ConcurrentMap<K, CompletableFuture<V>> map,
+                                @NotNull K key,
+                                @NotNull CompletableFuture<V> future,
+                                @NotNull Supplier<? extends V> builder,
+                                @NotNull Predicate<? super V> shouldCache) {
+    final V value;
+    try {
+      value = builder.get();
+    }
+    catch (RuntimeException | Error e) {
+      map.remove(key, future);
+      future.completeExceptionally(e);
+      throw e;
+    }
+
+    if (!shouldCache.test(value)) {
+      map.remove(key, future);
+    }
+    future.complete(value);
+    return value;
   }
 
-  synchronized boolean setSdkComponentsHandledForModule(final Module module) {
-    return myModulesWithSdkComponentsHandled.add(module);
+  /**
+   * @return {@code null} if the thread that builds the value has been canceled
+   */
+  @Nullable
+  private static <V> V await(@NotNull CompletableFuture<V> future) {
+    while (true) {
+      ProgressManager.checkCanceled();
+      try {
+        return future.get(CHECK_CANCELED_PERIOD_MS, TimeUnit.MILLISECONDS);
+      }
+      catch (TimeoutException ignored) {
+      }
+      catch (InterruptedException e) {
+        throw new ProcessCanceledException(e);
+      }
+      catch (ExecutionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof ProcessCanceledException) return null;
+        ExceptionUtil.rethrowUnchecked(cause);
+        throw new RuntimeException(cause);
+      }
+    }
   }
 }
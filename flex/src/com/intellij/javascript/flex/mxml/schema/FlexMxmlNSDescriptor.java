@@ -174,8 +174,6 @@ public class FlexMxmlNSDescriptor implements XmlNSDescriptor, Validator<XmlDocum
     assert namespace != null;
     assert module != null;
     assert scope != null;
-
-    CodeContextHolder.getInstance(module.getProject()).clearCodeContext(namespace, module, scope);
   }
 
   @Override
@@ -0,0 +1,123 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.intellij.lang.javascript.flex.debug;
+
+import com.intellij.flex.FlexCommonUtils;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+/**
+ * Splits fdb output into command responses, each one terminated by the {@code (fdb)} prompt or by a {@code (y or n)} question.
+ * <p>
+ * Several commands may be written to fdb back to back, so one read from the stream may bring several responses. Every part of
+ * the buffered text is scanned for markers once, however the output is chunked, and returned responses are not copied around.
+ */
+class FdbOutputReader {
+  @NonNls static final String FDB_MARKER = "(fdb) ";
+  @NonNls static final String QUESTION_MARKER = "(y or n)";
+  @NonNls static final String WAITING_PLAYER_MARKER_1 = "Waiting for Player to connect";
+  @NonNls static final String WAITING_PLAYER_MARKER_2 = "Trying to connect to Player";
+
+  private static final int COMPACTION_THRESHOLD = 64 * 1024;
+
+  private final InputStreamReader myReader;
+  private final InputStream myInputStream;
+  private final char[] myBuf = new char[8192];
+  private final StringBuilder myText = new StringBuilder();
+  private int myStart; // the text before it has been returned already
+  private int myScannedEnd; // the text before it has been scanned for markers already
+  private boolean myWaitingForPlayer;
+
+  FdbOutputReader(final InputStream inputStream) {
+    myReader = FlexCommonUtils.createInputStreamReader(inputStream);
+    myInputStream = inputStream;
+  }
+
+  boolean hasSomeDataPending() throws IOException {
+    return myInputStream.available() > 0;
+  }
+
+  @Nullable
+  String readLine(boolean nonblock) throws IOException {
+    {
+      final String response = getNextResponse(nonblock);
+      if (response != null) return response;
+    }
+
+    while (true) {
+      int read = myReader.read(myBuf, 0, myBuf.length);
+      if (read == -1) return null;
+      myText.append(myBuf, 0, read);
+
+      if (read < myBuf.length) {
+        final String response = getNextResponse(nonblock);
+        if (response != null) return response;
+      }
+    }
+  }
+
+  /**
+   * Called for every returned response.
+   *
+   * @param endsWithMarker whether the response was terminated by a marker, i.e. fdb is waiting for the next command
+   */
+  protected void responseRead(boolean endsWithMarker) {
+  }
+
+  @Nullable
+  private String getNextResponse(boolean allowEmptyMarker) {
+    String marker = FDB_MARKER;
+    int i = indexOfNew(marker);
+
+    if (i == -1) {
+      marker = QUESTION_MARKER;
+      i = indexOfNew(marker);
+    }
+
+    if (i == -1 && !myWaitingForPlayer) {
+      myWaitingForPlayer = indexOfNew(WAITING_PLAYER_MARKER_1) != -1 || indexOfNew(WAITING_PLAYER_MARKER_2) != -1;
+    }
+
+    if (i == -1 && (allowEmptyMarker || myWaitingForPlayer) && myText.length() > myStart) {
+      i = myText.length();
+      marker = "";
+    }
+
+    if (i == -1) {
+      myScannedEnd = myText.length();
+      return null;
+    }
+
+    final String result = myText.substring(myStart, i);
+    myStart = i + marker.length();
+    myScannedEnd = myStart;
+    myWaitingForPlayer = false;
+    if (isBlankTail()) {
+      myText.setLength(0);
+      myStart = myScannedEnd = 0;
+    }
+    else if (myStart > COMPACTION_THRESHOLD) {
+      myText.delete(0, myStart);
+      myStart = myScannedEnd = 0;
+    }
+    responseRead(marker.length() != 0);
+    return result;
+  }
+
+  /**
+   * Looks for the marker in the text that hasn't been checked for it yet, including a marker split between two reads.
+   */
+  private int indexOfNew(String marker) {
+    return myText.indexOf(marker, Math.max(myStart, myScannedEnd - marker.length() + 1));
+  }
+
+  private boolean isBlankTail() {
+    for (int i = myStart; i < myText.length(); ++i) {
+      if (myText.charAt(i) != ' ') return false;
+    }
+    return true;
+  }
+}
@@ -112,9 +112,6 @@ public class FlexDebugProcess extends XDebugProcess {
 
   @NonNls static final String RESOLVED_BREAKPOINT_MARKER = "Resolved breakpoint ";
   @NonNls static final String BREAKPOINT_MARKER = "Breakpoint ";
-  @NonNls private static final String FDB_MARKER = "(fdb) ";
-  @NonNls private static final String WAITING_PLAYER_MARKER_1 = "Waiting for Player to connect";
-  @NonNls private static final String WAITING_PLAYER_MARKER_2 = "Trying to connect to Player";
   @NonNls static final String ATTEMPTING_TO_RESOLVE_BREAKPOINT_MARKER = "Attempting to resolve breakpoint ";
 
   @NonNls private static final String ADL_PREFIX = "[AIR Debug Launcher]: ";
@@ -1207,79 +1204,14 @@ public class FlexDebugProcess extends XDebugProcess {
     return null;
   }
 
-  class MyFdbOutputReader {
-    private final InputStreamReader myReader;
-    private final char[] buf = new char[8192];
-    private final StringBuilder lastText = new StringBuilder();
-    private int lastTextMarkerScanningStart;
-    private final InputStream myInputStream;
-
+  class MyFdbOutputReader extends FdbOutputReader {
     MyFdbOutputReader(final InputStream _inputStream) {
-      myReader = FlexCommonUtils.createInputStreamReader(_inputStream);
-      myInputStream = _inputStream;
-    }
-
-    boolean hasSomeDataPending() throws IOException {
-      return myInputStream.available() > 0;
-    }
-
-    String readLine(boolean nonblock) throws IOException {
-      {
-        final String lastText = getNextLine(nonblock);
-        if (lastText != null) return lastText;
-      }
-
-      while (true) {
-        int read = myReader.read(buf, 0, buf.length);
-        if (read == -1) return null;
-        lastText.append(buf, 0, read);
-
-        if (read < buf.length) {
-          final String lastText = getNextLine(nonblock);
-          if (lastText != null) return lastText;
-        }
-      }
+      super(_inputStream);
     }
 
-    private String getNextLine(boolean allowEmptyMarker) {
-      String result;
-      String marker = FDB_MARKER;
-      int i = lastText.indexOf(marker, lastTextMarkerScanningStart);
-
-      if (i == -1) {
-        marker = "(y or n)";
-        i = lastText.indexOf(marker, lastTextMarkerScanningStart);
-      }
-
-      if (i == -1 &&
-          (allowEmptyMarker ||
-           lastText.indexOf(WAITING_PLAYER_MARKER_1, lastTextMarkerScanningStart) >= 0 ||
-           lastText.indexOf(WAITING_PLAYER_MARKER_2, lastTextMarkerScanningStart) >= 0) &&
-          lastText.length() > 0) {
-        i = lastText.length();
-        marker = "";
-      }
-
-      if (i != -1) {
-        result = lastText.substring(0, i);
-        lastText.delete(0, i + marker.length());
-        lastTextMarkerScanningStart = 0;
-        if (isBlank(lastText)) lastText.setLength(0);
-        setSuspended(marker.length() != 0);
-        return result;
-      }
-      else {
-        lastTextMarkerScanningStart = lastText.length();
-        result = null;
-      }
-      return result;
-    }
-
-    private boolean isBlank(StringBuilder lastText) {
-      for (int i = 0; i < lastText.length(); ++i) {
-        if (lastText.charAt(i) != ' ') return false;
-      }
-      return true;
+    @Override
+    protected void responseRead(boolean endsWithMarker) {
+      setSuspended(endsWithMarker);
     }
   }
 
@@ -1579,7 +1511,7 @@ public class FlexDebugProcess extends XDebugProcess {
         return CommandOutputProcessingMode.DONE;
       }
 
-      if (s.contains(WAITING_PLAYER_MARKER_1) || s.contains(WAITING_PLAYER_MARKER_2)) {
+      if (s.contains(FdbOutputReader.WAITING_PLAYER_MARKER_1) || s.contains(FdbOutputReader.WAITING_PLAYER_MARKER_2)) {
         fdbWaitingForPlayerStateReached = true;
         getSession().rebuildViews();
         notifyFdbWaitingForPlayerStateReached();
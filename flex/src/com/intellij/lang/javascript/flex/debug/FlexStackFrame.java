@@ -15,6 +15,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.NullableComputable;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
 import com.intellij.psi.impl.source.tree.injected.InjectedLanguageUtil;
@@ -28,6 +29,7 @@ import com.intellij.xdebugger.evaluation.ExpressionInfo;
 import com.intellij.xdebugger.evaluation.XDebuggerEvaluator;
 import com.intellij.xdebugger.frame.XCompositeNode;
 import com.intellij.xdebugger.frame.XStackFrame;
+import com.intellij.xdebugger.frame.XValue;
 import com.intellij.xdebugger.frame.XValueChildrenList;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
@@ -35,6 +37,9 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 public class FlexStackFrame extends XStackFrame {
   private static final String ANONYMOUS = "<anonymous>";
@@ -53,6 +58,12 @@ public class FlexStackFrame extends XStackFrame {
   @NonNls protected static final String UNKNOWN_SCOPE = "<unknown>";
   static final String CLASS_MARKER = ", class='";
   static final String CANNOT_EVALUATE_EXPRESSION = "Cannot evaluate expression: ";
+  private static final int MAX_PREFETCHED_VALUES = 20;
+  // a variable or an object id followed by member and index accesses with literal indices, e.g. this.items[0].name or #1234.
+  private static final Pattern PLAIN_READ = Pattern.compile("[#$\\w]+(?:\\.[$\\w]*|\\[(?:-?\\d+|'[^']*'|\"[^\"]*\")])*");
+
+  // children of the object values of this frame, read ahead in one batch: expression -> fdb output
+  private final Map<String, String> myPrefetchedChildren = new ConcurrentHashMap<>();
 
   FlexStackFrame(final FlexDebugProcess debugProcess, final @Nullable XSourcePosition sourcePosition) {
     myDebugProcess = debugProcess;
@@ -223,6 +234,39 @@ public class FlexStackFrame extends XStackFrame {
     return addFrameOffset("print " + _expression);
   }
 
+  static boolean isPlainRead(@NotNull String expression) {
+    return PLAIN_READ.matcher(expression.trim()).matches();
+  }
+
+  static String getEvaluationResult(String s) {
+    final int i = s.indexOf(DELIM);
+    if (i != -1) s = s.substring(i + DELIM.length());
+    return s.trim();
+  }
+
+  @Nullable
+  String getPrefetchedChildren(String expression) {
+    return myPrefetchedChildren.get(expression);
+  }
+
+  private void prefetchChildren(XValueChildrenList children) {
+    final List<String> expressions = new ArrayList<>();
+    for (int i = 0; i < children.size() && expressions.size() < MAX_PREFETCHED_VALUES; i++) {
+      final XValue value = children.getValue(i);
+      final String expression = value instanceof FlexValue ? ((FlexValue)value).getPrefetchableChildrenExpression() : null;
+      if (expression != null && !myPrefetchedChildren.containsKey(expression) && !expressions.contains(expression)) {
+        expressions.add(expression);
+      }
+    }
+    if (expressions.isEmpty()) return;
+
+    final List<Consumer<String>> consumers = new ArrayList<>(expressions.size());
+    for (String expression : expressions) {
+      consumers.add(output -> myPrefetchedChildren.put(expression, output));
+    }
+    myDebugProcess.sendCommand(new BatchEvaluateCommand(expressions, consumers));
+  }
+
   private void ensureQName2IdMapLoaded() {
     if (qName2IdMap != null) return;
     qName2IdMap = myDebugProcess.getQName2IdIfSameEqualityObject(getEqualityObject());
@@ -271,6 +315,14 @@ public class FlexStackFrame extends XStackFrame {
       callback = _callback;
     }
 
+    @Override
+    public void post(FlexDebugProcess flexDebugProcess) throws IOException {
+      if (!isPlainRead(expression)) {
+        myPrefetchedChildren.clear(); // values read ahead may be affected by a method call, an assignment or an increment
+      }
+      super.post(flexDebugProcess);
+    }
+
     @Override
     CommandOutputProcessingMode onTextAvailable(@NonNls String line) {
       if (myDebugProcess.filterStdResponse(line)) return CommandOutputProcessingMode.PROCEEDING;
@@ -381,10 +433,7 @@ public class FlexStackFrame extends XStackFrame {
     }
 
     protected void dispatchResult(String s) {
-      final int i = s.indexOf(DELIM);
-      if (i != -1) s = s.substring(i + DELIM.length());
-
-      result = s.trim();
+      result = getEvaluationResult(s);
 
       if (callback != null) {
         ApplicationManager.getApplication().executeOnPooledThread(
@@ -409,6 +458,33 @@ public class FlexStackFrame extends XStackFrame {
     }
   }
 
+  /**
+   * Prints several expressions in this frame with one command. fdb answers the {@code print} lines one after another, so the whole batch
+   * costs a single round trip. Each consumer gets the response for its expression; expressions are never treated as assignments.
+   */
+  class BatchEvaluateCommand extends DebuggerCommand {
+    private final List<Consumer<String>> myConsumers;
+    private int myResponseCount;
+
+    BatchEvaluateCommand(@NotNull List<String> expressions, @NotNull List<Consumer<String>> consumers) {
+      super(addFrameOffset(StringUtil.join(expressions, expression -> "print " + expression, "\n")),
+            CommandOutputProcessingType.SPECIAL_PROCESSING);
+      assert !expressions.isEmpty() && expressions.size() == consumers.size();
+      myConsumers = consumers;
+    }
+
+    @Override
+    CommandOutputProcessingMode onTextAvailable(@NonNls String line) {
+      if (myDebugProcess.filterStdResponse(line)) return CommandOutputProcessingMode.PROCEEDING;
+      ++myResponseCount;
+      if (myResponseCount == 1) { // skip frame
+        return CommandOutputProcessingMode.PROCEEDING;
+      }
+      myConsumers.get(myResponseCount - 2).accept(line);
+      return myResponseCount > myConsumers.size() ? CommandOutputProcessingMode.DONE : CommandOutputProcessingMode.PROCEEDING;
+    }
+  }
+
   static String validObjectId(String s) {
     // some object ids from Flash player are negative (e.g. on Linux) and can not be consumed back e.g. for tracing
     // so we transform them into unsigned ones assuming there is just sign transmition problem (see IDEA-49837)
@@ -573,6 +649,7 @@ public class FlexStackFrame extends XStackFrame {
 
       if (current == offsetIndex + 1) {
         myNode.addChildren(resultChildren, false);
+        prefetchChildren(resultChildren);
         return CommandOutputProcessingMode.DONE;
       } else {
         return CommandOutputProcessingMode.PROCEEDING;
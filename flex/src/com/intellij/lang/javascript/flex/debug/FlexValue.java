@@ -36,6 +36,7 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.debugger.DebuggerSupportUtils;
 
 import javax.swing.*;
+import java.io.IOException;
 import java.util.*;
 
 class FlexValue extends XValue {
@@ -214,23 +215,21 @@ class FlexValue extends XValue {
   }
 
   private void scheduleVectorPresentation(final XValueNode node, final String type) {
-    final FlexStackFrame.EvaluateCommand command =
-      myFlexStackFrame.new EvaluateCommand(myExpression + ".fixed", new XDebuggerEvaluator.XEvaluationCallback() {
-
-        @Override
-        public void evaluated(@NotNull XValue result) {
-          if (!node.isObsolete()) {
-            final String resultText = ((FlexValue)result).myResult;
-            final String prefix = ("true".equals(resultText) || "false".equals(resultText)) ? "fixed = " + resultText : "";
-            node.setPresentation(getIcon(), type, prefix, true);
-            scheduleCollectionSizePresentation(node, type, prefix);
-          }
+    // both values are printed by one command: fdb answers them back to back, without a round trip in between
+    final Ref<String> prefix = Ref.create("");
+    final FlexStackFrame.BatchEvaluateCommand command = myFlexStackFrame.new BatchEvaluateCommand(
+      Arrays.asList(myExpression + ".fixed", myExpression + ".length"),
+      Arrays.asList(fixedResponse -> {
+        if (!node.isObsolete()) {
+          final String resultText = FlexStackFrame.getEvaluationResult(fixedResponse);
+          prefix.set(("true".equals(resultText) || "false".equals(resultText)) ? "fixed = " + resultText : "");
+          node.setPresentation(getIcon(), type, prefix.get(), true);
         }
-
-        @Override
-        public void errorOccurred(@NotNull String errorMessage) {
+      }, lengthResponse -> {
+        if (!node.isObsolete()) {
+          setCollectionSizePresentation(node, type, prefix.get(), FlexStackFrame.getEvaluationResult(lengthResponse));
         }
-      });
+      }));
 
     myDebugProcess.addPendingCommand(new CompositeDebuggerCommand(node, command), 100);
   }
@@ -242,12 +241,7 @@ class FlexValue extends XValue {
         @Override
         public void evaluated(@NotNull XValue result) {
           if (!node.isObsolete()) {
-            final String resultText = ((FlexValue)result).myResult;
-            final int index = resultText.indexOf(" (0x");
-            if (index != -1) {
-              final String value = (prefix.isEmpty() ? "" : prefix + ", ") + "size = " + resultText.substring(0, index);
-              node.setPresentation(getIcon(), type, value, true);
-            }
+            setCollectionSizePresentation(node, type, prefix, ((FlexValue)result).myResult);
           }
         }
 
@@ -259,6 +253,14 @@ class FlexValue extends XValue {
     myDebugProcess.addPendingCommand(new CompositeDebuggerCommand(node, command), 100);
   }
 
+  private void setCollectionSizePresentation(final XValueNode node, final String type, final String prefix, final String resultText) {
+    final int index = resultText.indexOf(" (0x");
+    if (index != -1) {
+      final String value = (prefix.isEmpty() ? "" : prefix + ", ") + "size = " + resultText.substring(0, index);
+      node.setPresentation(getIcon(), type, value, true);
+    }
+  }
+
   private static void setXmlListPresentation(final XValueNode node, final String value, final FlexValue flexValue) {
     node.setFullValueEvaluator(new XFullValueEvaluator() {
       @Override
@@ -413,6 +415,24 @@ class FlexValue extends XValue {
 
     final FlexStackFrame.EvaluateCommand
       command = myFlexStackFrame.new EvaluateCommand(expression, null) {
+      private String myPrefetchedOutput;
+
+      @Override
+      public void post(FlexDebugProcess flexDebugProcess) throws IOException {
+        myPrefetchedOutput = myFlexStackFrame.getPrefetchedChildren(expression);
+        if (myPrefetchedOutput == null) super.post(flexDebugProcess);
+      }
+
+      @Override
+      public String read(FlexDebugProcess flexDebugProcess) throws IOException {
+        return myPrefetchedOutput != null ? myPrefetchedOutput : super.read(flexDebugProcess);
+      }
+
+      @Override
+      CommandOutputProcessingMode onTextAvailable(@NonNls String line) {
+        return myPrefetchedOutput != null ? doOnTextAvailable(line) : super.onTextAvailable(line);
+      }
+
       @Override
       CommandOutputProcessingMode doOnTextAvailable(@NonNls final String resultS) {
         StringTokenizer tokenizer = new StringTokenizer(resultS, "\r\n");
@@ -742,6 +762,26 @@ class FlexValue extends XValue {
     }
   }
 
+  /**
+   * @return expression that prints the children of this value if they are worth reading ahead together with the frame, {@code null} otherwise
+   */
+  @Nullable
+  String getPrefetchableChildrenExpression() {
+    final int i = myResult.indexOf(OBJECT_MARKER);
+    if (i == -1) return null;
+
+    // collections and XML may print a lot, leave them until expanded
+    final String type = getType(getTypeAndAdditionalInfo(myResult).first);
+    if (type == null || isCollection(type) || XML_TYPE.equals(type) || XMLLIST_TYPE.equals(type)) return null;
+
+    try {
+      return referenceObjectBase(i, OBJECT_MARKER);
+    }
+    catch (StringIndexOutOfBoundsException e) {
+      return null;
+    }
+  }
+
   private String referenceObjectBase(int i, String marker) {
     // expression may have incorrect syntax like x.dict1.-1. (see examples in http://youtrack.jetbrains.net/issue/IDEA-56653)
     // so it is more reliable to use objectId
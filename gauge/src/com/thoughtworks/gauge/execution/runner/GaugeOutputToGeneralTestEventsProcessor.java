@@ -16,12 +16,16 @@
 
 package com.thoughtworks.gauge.execution.runner;
 
-import com.google.gson.GsonBuilder;
+import com.google.gson.Gson;
 import com.intellij.execution.process.ProcessHandler;
 import com.intellij.execution.testframework.TestConsoleProperties;
 import com.intellij.execution.testframework.sm.ServiceMessageBuilder;
 import com.intellij.execution.testframework.sm.runner.GeneralTestEventsProcessor;
 import com.intellij.execution.testframework.sm.runner.OutputToGeneralTestEventsConverter;
+import com.intellij.execution.testframework.sm.runner.events.TestFinishedEvent;
+import com.intellij.execution.testframework.sm.runner.events.TestStartedEvent;
+import com.intellij.execution.testframework.sm.runner.events.TestSuiteFinishedEvent;
+import com.intellij.execution.testframework.sm.runner.events.TestSuiteStartedEvent;
 import com.intellij.openapi.util.Key;
 import com.thoughtworks.gauge.execution.runner.event.ExecutionEvent;
 import com.thoughtworks.gauge.execution.runner.event.ExecutionResult;
@@ -34,11 +38,17 @@ import java.text.ParseException;
 import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Builds the test tree from Gauge execution events. Starts and ends of specs and scenarios go straight to the events processor,
+ * only failures and ignores, which are comparatively rare, are reported as service messages.
+ */
 public final class GaugeOutputToGeneralTestEventsProcessor extends OutputToGeneralTestEventsConverter implements MessageProcessor {
   private static final Integer SUCCESS = 0;
+  private static final Gson GSON = new Gson();
   private final ProcessHandler handler;
   private Key<?> outputType;
   private ServiceMessageVisitor visitor;
+  private @Nullable GeneralTestEventsProcessor eventsProcessor;
   private final List<EventProcessor> processors;
   private final EventProcessor unexpectedEndProcessor;
 
@@ -48,19 +58,28 @@ public final class GaugeOutputToGeneralTestEventsProcessor extends OutputToGener
     super(testFrameworkName, consoleProperties);
     this.handler = handler;
     TestsCache cache = new TestsCache();
-    processors = Arrays.asList(
-      new SuiteEventProcessor(this, cache),
-      new SpecEventProcessor(this, cache),
-      new ScenarioEventProcessor(this, cache),
-      new NotificationEventProcessor(this, cache),
-      new StandardOutputEventProcessor(this, cache)
-    );
+    processors = createProcessors(this, cache);
     unexpectedEndProcessor = new UnexpectedEndProcessor(this, cache);
   }
 
+  static @NotNull List<EventProcessor> createProcessors(@NotNull MessageProcessor messageProcessor, @NotNull TestsCache cache) {
+    return Arrays.asList(
+      new SuiteEventProcessor(messageProcessor, cache),
+      new SpecEventProcessor(messageProcessor, cache),
+      new ScenarioEventProcessor(messageProcessor, cache),
+      new NotificationEventProcessor(messageProcessor, cache),
+      new StandardOutputEventProcessor(messageProcessor, cache)
+    );
+  }
+
+  static ExecutionEvent readEvent(@NotNull String text) {
+    return GSON.fromJson(text, ExecutionEvent.class);
+  }
+
   @Override
   public void setProcessor(@Nullable GeneralTestEventsProcessor processor) {
     super.setProcessor(processor);
+    eventsProcessor = processor;
     if (processor != null) {
       processor.onRootPresentationAdded("Test Suite", null, null);
     }
@@ -71,7 +90,7 @@ public final class GaugeOutputToGeneralTestEventsProcessor extends OutputToGener
     this.outputType = outputType;
     this.visitor = visitor;
     if (text.startsWith("{")) {
-      ExecutionEvent event = new GsonBuilder().create().fromJson(text, ExecutionEvent.class);
+      ExecutionEvent event = readEvent(text);
       for (EventProcessor processor : processors) {
         if (processor.canProcess(event)) return processor.process(event);
       }
@@ -87,11 +106,49 @@ public final class GaugeOutputToGeneralTestEventsProcessor extends OutputToGener
   }
 
   @Override
-  public boolean process(ServiceMessageBuilder msg, Integer nodeId, Integer parentId) throws ParseException {
+  public void suiteStarted(@NotNull String name, int nodeId, int parentId, @Nullable String locationHint) {
+    if (eventsProcessor == null) return;
+    eventsProcessor.onSuiteStarted(
+      new TestSuiteStartedEvent(name, String.valueOf(nodeId), String.valueOf(parentId), locationHint, null, null, null, true));
+  }
+
+  @Override
+  public void suiteFinished(@NotNull String name, int nodeId) {
+    if (eventsProcessor == null) return;
+    eventsProcessor.onSuiteFinished(new TestSuiteFinishedEvent(name, String.valueOf(nodeId)));
+  }
+
+  @Override
+  public void testStarted(@NotNull String name, int nodeId, int parentId, @Nullable String locationHint) {
+    if (eventsProcessor == null) return;
+    eventsProcessor.onTestStarted(
+      new TestStartedEvent(name, String.valueOf(nodeId), String.valueOf(parentId), locationHint, null, null, null, true));
+  }
+
+  @Override
+  public void testFailed(@NotNull String name, int nodeId, int parentId, @NotNull String message) throws ParseException {
+    ServiceMessageBuilder msg = ServiceMessageBuilder.testFailed(name);
+    msg.addAttribute("message", message);
+    process(msg, nodeId, parentId);
+  }
+
+  @Override
+  public void testIgnored(@NotNull String name, int nodeId, int parentId, @NotNull String message) throws ParseException {
+    ServiceMessageBuilder msg = ServiceMessageBuilder.testIgnored(name);
+    msg.addAttribute("message", message);
+    process(msg, nodeId, parentId);
+  }
+
+  @Override
+  public void testFinished(@NotNull String name, int nodeId, int parentId, @Nullable Long duration) {
+    if (eventsProcessor == null) return;
+    eventsProcessor.onTestFinished(new TestFinishedEvent(name, String.valueOf(nodeId), duration));
+  }
+
+  private void process(ServiceMessageBuilder msg, int nodeId, int parentId) throws ParseException {
     msg.addAttribute("nodeId", String.valueOf(nodeId));
     msg.addAttribute("parentNodeId", String.valueOf(parentId));
     super.processServiceMessages(msg.toString(), outputType, visitor);
-    return true;
   }
 
   @Override
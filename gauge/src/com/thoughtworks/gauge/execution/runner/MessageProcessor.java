@@ -16,12 +16,26 @@
 
 package com.thoughtworks.gauge.execution.runner;
 
-import com.intellij.execution.testframework.sm.ServiceMessageBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.text.ParseException;
 
+/**
+ * Receives the test tree built from Gauge execution events; node ids are the ones of {@link TestsCache}.
+ */
 public interface MessageProcessor {
-  boolean process(ServiceMessageBuilder msg, Integer nodeId, Integer parentId) throws ParseException;
+  void suiteStarted(@NotNull String name, int nodeId, int parentId, @Nullable String locationHint);
+
+  void suiteFinished(@NotNull String name, int nodeId);
+
+  void testStarted(@NotNull String name, int nodeId, int parentId, @Nullable String locationHint);
+
+  void testFailed(@NotNull String name, int nodeId, int parentId, @NotNull String message) throws ParseException;
+
+  void testIgnored(@NotNull String name, int nodeId, int parentId, @NotNull String message) throws ParseException;
+
+  void testFinished(@NotNull String name, int nodeId, int parentId, @Nullable Long duration);
 
   void process(String text);
 
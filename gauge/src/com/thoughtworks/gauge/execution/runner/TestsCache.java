@@ -16,22 +16,35 @@
 
 package com.thoughtworks.gauge.execution.runner;
 
-import java.util.HashMap;
-import java.util.Map;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 
 public final class TestsCache {
-  private final Map<String, Integer> idCache = new HashMap<>();
-  private Integer id = 0;
+  public static final int NO_ID = -1;
 
-  public Integer getId(String key) {
-    return idCache.get(key);
+  private final Object2IntMap<String> idCache = new Object2IntOpenHashMap<>();
+  private int id = 0;
+
+  public TestsCache() {
+    idCache.defaultReturnValue(NO_ID);
+  }
+
+  /**
+   * @return the node id of the key or {@link #NO_ID} if it has none yet
+   */
+  public int getId(String key) {
+    return idCache.getInt(key);
+  }
+
+  public boolean hasId(String key) {
+    return idCache.containsKey(key);
   }
 
-  public Integer getCurrentId() {
+  public int getCurrentId() {
     return id;
   }
 
-  public void setId(String key, Integer id) {
+  public void setId(String key, int id) {
     idCache.put(key, id);
   }
 
@@ -16,12 +16,12 @@
 
 package com.thoughtworks.gauge.execution.runner.processors;
 
-import com.intellij.execution.testframework.sm.ServiceMessageBuilder;
 import com.thoughtworks.gauge.GaugeConstants;
 import com.thoughtworks.gauge.execution.runner.MessageProcessor;
 import com.thoughtworks.gauge.execution.runner.TestsCache;
 import com.thoughtworks.gauge.execution.runner.event.ExecutionError;
 import com.thoughtworks.gauge.execution.runner.event.ExecutionEvent;
+import org.jetbrains.annotations.Nullable;
 
 import java.text.ParseException;
 
@@ -52,32 +52,30 @@ abstract class GaugeEventProcessor implements EventProcessor {
     return cache;
   }
 
-  boolean addHooks(ExecutionEvent event, String before, String after, String prefix, Integer parentId) throws ParseException {
+  boolean addHooks(ExecutionEvent event, String before, String after, String prefix, int parentId) throws ParseException {
     failTest(parentId, before, event.result.beforeHookFailure, prefix + before, event);
     failTest(parentId, after, event.result.afterHookFailure, prefix + after, event);
     return true;
   }
 
-  boolean addTest(String name, Integer parentId, String key, ExecutionEvent event) throws ParseException {
-    ServiceMessageBuilder test = ServiceMessageBuilder.testStarted(name);
-    addLocation(event, test);
+  boolean addTest(String name, int parentId, String key, ExecutionEvent event) {
     getCache().setId(key);
-    return getProcessor().process(test, getCache().getId(key), parentId);
+    getProcessor().testStarted(name, getCache().getId(key), parentId, getLocation(event));
+    return true;
   }
 
-  void addLocation(ExecutionEvent event, ServiceMessageBuilder msg) {
+  static @Nullable String getLocation(ExecutionEvent event) {
     if (event.filename != null && event.line != null) {
-      msg.addAttribute("locationHint", FILE_PREFIX + event.filename + GaugeConstants.SPEC_SCENARIO_DELIMITER + event.line.toString());
+      return FILE_PREFIX + event.filename + GaugeConstants.SPEC_SCENARIO_DELIMITER + event.line.toString();
     }
+    return null;
   }
 
-  private void failTest(Integer parentId, String name, ExecutionError failure, String key, ExecutionEvent event) throws ParseException {
+  private void failTest(int parentId, String name, ExecutionError failure, String key, ExecutionEvent event) throws ParseException {
     if (failure != null) {
       addTest(name, parentId, key, event);
-      ServiceMessageBuilder failed = ServiceMessageBuilder.testFailed(name);
-      failed.addAttribute("message", failure.format("Failed: "));
-      getProcessor().process(failed, getCache().getId(key), parentId);
-      getProcessor().process(ServiceMessageBuilder.testFinished(name), getCache().getId(key), parentId);
+      getProcessor().testFailed(name, getCache().getId(key), parentId, failure.format("Failed: "));
+      getProcessor().testFinished(name, getCache().getId(key), parentId, null);
     }
   }
 }
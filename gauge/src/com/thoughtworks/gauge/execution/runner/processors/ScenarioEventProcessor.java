@@ -16,7 +16,6 @@
 
 package com.thoughtworks.gauge.execution.runner.processors;
 
-import com.intellij.execution.testframework.sm.ServiceMessageBuilder;
 import com.thoughtworks.gauge.execution.runner.MessageProcessor;
 import com.thoughtworks.gauge.execution.runner.TestsCache;
 import com.thoughtworks.gauge.execution.runner.event.ExecutionError;
@@ -39,24 +38,23 @@ public final class ScenarioEventProcessor extends GaugeEventProcessor {
 
   @Override
   public boolean onStart(ExecutionEvent event) throws ParseException {
-    Integer parentId = getCache().getId(event.parentId);
+    int parentId = getCache().getId(event.parentId);
     return super.addTest(getIdentifier(event, event.name), parentId, getIdentifier(event, event.id), event);
   }
 
   @Override
   public boolean onEnd(ExecutionEvent event) throws ParseException {
-    Integer parentId = getCache().getId(event.parentId);
-    Integer id = getCache().getId(getIdentifier(event, event.id));
+    int parentId = getCache().getId(event.parentId);
+    int id = getCache().getId(getIdentifier(event, event.id));
     String name = getIdentifier(event, event.name);
     if (event.result.failed()) {
-      scenarioMessage(ServiceMessageBuilder.testFailed(name), id, parentId, event.result, "Failed: ");
+      getProcessor().testFailed(name, id, parentId, scenarioMessage(event.result, "Failed: "));
     }
     else if (event.result.skipped()) {
-      scenarioMessage(ServiceMessageBuilder.testIgnored(name), id, parentId, event.result, "Skipped: ");
+      getProcessor().testIgnored(name, id, parentId, scenarioMessage(event.result, "Skipped: "));
     }
-    ServiceMessageBuilder scenarioEnd = ServiceMessageBuilder.testFinished(name);
-    scenarioEnd.addAttribute("duration", String.valueOf(event.result.time));
-    return getProcessor().process(scenarioEnd, id, parentId);
+    getProcessor().testFinished(name, id, parentId, event.result.time != null ? Long.valueOf(event.result.time) : null);
+    return true;
   }
 
   @Override
@@ -65,8 +63,7 @@ public final class ScenarioEventProcessor extends GaugeEventProcessor {
            event.type.equalsIgnoreCase(ExecutionEvent.SCENARIO_END);
   }
 
-  private void scenarioMessage(ServiceMessageBuilder msg, Integer nodeId, Integer parentId, ExecutionResult result, String status)
-    throws ParseException {
+  private static String scenarioMessage(ExecutionResult result, String status) {
     List<ExecutionError> errors = new ArrayList<>();
     String tableText = "";
     if (result.table != null) {
@@ -75,10 +72,9 @@ public final class ScenarioEventProcessor extends GaugeEventProcessor {
     if (result.beforeHookFailure != null) errors.add(result.beforeHookFailure);
     if (result.errors != null) errors.addAll(Arrays.asList(result.errors));
     if (result.afterHookFailure != null) errors.add(result.afterHookFailure);
-    msg.addAttribute("message", tableText + errors.stream()
+    return tableText + errors.stream()
       .map(e -> e.format(status))
-      .collect(Collectors.joining("\n\n")));
-    getProcessor().process(msg, nodeId, parentId);
+      .collect(Collectors.joining("\n\n"));
   }
 
   private static String getIdentifier(ExecutionEvent event, String value) {
@@ -16,7 +16,6 @@
 
 package com.thoughtworks.gauge.execution.runner.processors;
 
-import com.intellij.execution.testframework.sm.ServiceMessageBuilder;
 import com.thoughtworks.gauge.GaugeConstants;
 import com.thoughtworks.gauge.execution.runner.MessageProcessor;
 import com.thoughtworks.gauge.execution.runner.TestsCache;
@@ -36,20 +35,19 @@ public final class SpecEventProcessor extends GaugeEventProcessor {
   protected boolean onStart(ExecutionEvent event) throws ParseException {
     if (getCache().getCurrentId() == SuiteEventProcessor.SUITE_ID) getProcessor().processLineBreak();
     getCache().setId(event.id);
-    if (getCache().getId(event.id.split(GaugeConstants.SPEC_SCENARIO_DELIMITER)[0]) == null) {
-      getCache().setId(event.id.split(GaugeConstants.SPEC_SCENARIO_DELIMITER)[0], getCache().getId(event.id));
+    String specFile = event.id.split(GaugeConstants.SPEC_SCENARIO_DELIMITER)[0];
+    if (!getCache().hasId(specFile)) {
+      getCache().setId(specFile, getCache().getId(event.id));
     }
-    ServiceMessageBuilder msg = ServiceMessageBuilder.testSuiteStarted(event.name);
-    super.addLocation(event, msg);
-    return getProcessor().process(msg, getCache().getId(event.id), SuiteEventProcessor.SUITE_ID);
+    getProcessor().suiteStarted(event.name, getCache().getId(event.id), SuiteEventProcessor.SUITE_ID, getLocation(event));
+    return true;
   }
 
   @Override
   protected boolean onEnd(ExecutionEvent event) throws ParseException {
     super.addHooks(event, BEFORE_SPEC, AFTER_SPEC, event.id, getCache().getId(event.id));
-    ServiceMessageBuilder msg = ServiceMessageBuilder.testSuiteFinished(event.name);
-    msg.addAttribute("duration", String.valueOf(event.result.time));
-    return getProcessor().process(msg, getCache().getId(event.id), SuiteEventProcessor.SUITE_ID);
+    getProcessor().suiteFinished(event.name, getCache().getId(event.id));
+    return true;
   }
 
   @Override
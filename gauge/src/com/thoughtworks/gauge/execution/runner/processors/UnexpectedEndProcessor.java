@@ -16,7 +16,6 @@
 
 package com.thoughtworks.gauge.execution.runner.processors;
 
-import com.intellij.execution.testframework.sm.ServiceMessageBuilder;
 import com.thoughtworks.gauge.execution.runner.MessageProcessor;
 import com.thoughtworks.gauge.execution.runner.TestsCache;
 import com.thoughtworks.gauge.execution.runner.event.ExecutionEvent;
@@ -35,16 +34,16 @@ public final class UnexpectedEndProcessor extends GaugeEventProcessor {
 
   @Override
   protected boolean onEnd(ExecutionEvent event) throws ParseException {
-    String name = "Failed";
-    ServiceMessageBuilder msg = ServiceMessageBuilder.testFailed(name);
-    if (event.result.skipped()) {
-      name = "Ignored";
-      msg = ServiceMessageBuilder.testIgnored(name);
+    boolean skipped = event.result.skipped();
+    String name = skipped ? "Ignored" : "Failed";
+    getProcessor().testStarted(name, 1, SuiteEventProcessor.SUITE_ID, null);
+    if (skipped) {
+      getProcessor().testIgnored(name, 1, SuiteEventProcessor.SUITE_ID, " ");
     }
-    getProcessor().process(ServiceMessageBuilder.testStarted(name), 1, SuiteEventProcessor.SUITE_ID);
-    msg.addAttribute("message", " ");
-    getProcessor().process(msg, 1, 0);
-    getProcessor().process(ServiceMessageBuilder.testFinished(name), 1, SuiteEventProcessor.SUITE_ID);
+    else {
+      getProcessor().testFailed(name, 1, SuiteEventProcessor.SUITE_ID, " ");
+    }
+    getProcessor().testFinished(name, 1, SuiteEventProcessor.SUITE_ID, null);
     return false;
   }
 
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2020 ThoughtWorks, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.thoughtworks.gauge.execution.runner;
+
+import com.intellij.execution.configurations.ConfigurationTypeUtil;
+import com.intellij.execution.executors.DefaultRunExecutor;
+import com.intellij.execution.process.ProcessOutputTypes;
+import com.intellij.execution.testframework.sm.runner.GeneralIdBasedToSMTRunnerEventsConvertor;
+import com.intellij.execution.testframework.sm.runner.SMTestProxy;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.thoughtworks.gauge.execution.GaugeRunConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays a Gauge event log through {@link GaugeOutputToGeneralTestEventsProcessor} into the test tree of the SM runner,
+ * so both the events sent directly to the events processor and the failures sent as service messages are covered.
+ */
+public class GaugeEventsReplayTest extends BasePlatformTestCase {
+  private static final int SPECS = 1020;
+  private static final int SCENARIOS_PER_SPEC = 48;
+
+  public void testShouldBuildTreeFromEventLog() {
+    SMTestProxy.SMRootTestProxy root = replay(createEventLog());
+
+    List<? extends SMTestProxy> specs = root.getChildren();
+    assertEquals(SPECS, specs.size());
+    int failed = 0;
+    for (SMTestProxy spec : specs) {
+      assertTrue(spec.isSuite());
+      assertEquals(spec.getName(), SCENARIOS_PER_SPEC, spec.getChildren().size());
+      for (SMTestProxy scenario : spec.getChildren()) {
+        assertTrue(scenario.getName(), scenario.isLeaf());
+        assertTrue(scenario.getName(), scenario.isFinal());
+        if (scenario.isDefect()) {
+          failed++;
+          assertEquals("Scenario 0", scenario.getName());
+        }
+      }
+    }
+    assertEquals(SPECS, failed);
+  }
+
+  public void testReplayPerformance() {
+    List<String> log = createEventLog();
+    assertTrue(log.size() >= 100_000);
+    PlatformTestUtil.startPerformanceTest("Replaying " + log.size() + " Gauge execution events", 3_000, () -> replay(log))
+      .assertTiming();
+  }
+
+  private SMTestProxy.SMRootTestProxy replay(@NotNull List<String> log) {
+    GaugeRunConfiguration configuration = (GaugeRunConfiguration)ConfigurationTypeUtil.findConfigurationType("executeSpecs")
+      .getConfigurationFactories()[0].createTemplateConfiguration(getProject());
+    GaugeConsoleProperties properties =
+      new GaugeConsoleProperties(configuration, "Gauge", DefaultRunExecutor.getRunExecutorInstance(), null);
+    SMTestProxy.SMRootTestProxy root = new SMTestProxy.SMRootTestProxy();
+    GeneralIdBasedToSMTRunnerEventsConvertor eventsProcessor =
+      new GeneralIdBasedToSMTRunnerEventsConvertor(getProject(), root, "Gauge");
+    GaugeOutputToGeneralTestEventsProcessor converter = new GaugeOutputToGeneralTestEventsProcessor("Gauge", properties, null);
+    try {
+      converter.setProcessor(eventsProcessor);
+      eventsProcessor.onStartTesting();
+      for (String line : log) {
+        converter.process(line + "\n", ProcessOutputTypes.STDOUT);
+      }
+      converter.flushBufferOnProcessTermination(0);
+      eventsProcessor.onFinishTesting();
+      PlatformTestUtil.dispatchAllEventsInIdeEventQueue();
+    }
+    finally {
+      Disposer.dispose(converter);
+      Disposer.dispose(eventsProcessor);
+      Disposer.dispose(properties);
+    }
+    return root;
+  }
+
+  private static List<String> createEventLog() {
+    List<String> log = new ArrayList<>();
+    log.add("{\"type\":\"suiteStart\"}");
+    for (int spec = 0; spec < SPECS; spec++) {
+      String specId = "specs/spec" + spec + ".spec";
+      log.add("{\"type\":\"specStart\",\"id\":\"" + specId + "\",\"name\":\"Spec " + spec + "\",\"filename\":\"/project/" + specId +
+              "\",\"line\":1,\"result\":{\"status\":\"pass\",\"time\":0}}");
+      for (int scenario = 0; scenario < SCENARIOS_PER_SPEC; scenario++) {
+        String scenarioId = specId + ":" + (scenario * 5 + 3);
+        String common = "\"id\":\"" + scenarioId + "\",\"parentId\":\"" + specId + "\",\"name\":\"Scenario " + scenario +
+                        "\",\"filename\":\"/project/" + specId + "\",\"line\":" + (scenario * 5 + 3);
+        log.add("{\"type\":\"scenarioStart\"," + common + ",\"result\":{\"status\":\"pass\",\"time\":0}}");
+        String result = scenario == 0
+                        ? "{\"status\":\"fail\",\"time\":12,\"errors\":[{\"text\":\"Step failed\",\"filename\":\"Steps.java\"," +
+                          "\"lineNo\":\"42\",\"message\":\"expected 1 but was 2\",\"stackTrace\":\"at Steps.step(Steps.java:42)\"}]}"
+                        : "{\"status\":\"pass\",\"time\":12}";
+        log.add("{\"type\":\"scenarioEnd\"," + common + ",\"result\":" + result + "}");
+      }
+      log.add("{\"type\":\"specEnd\",\"id\":\"" + specId + "\",\"name\":\"Spec " + spec + "\",\"result\":{\"status\":\"pass\",\"time\":600}}");
+    }
+    log.add("{\"type\":\"suiteEnd\",\"result\":{\"status\":\"pass\",\"time\":612000}}");
+    return log;
+  }
+}
@@ -13,11 +13,14 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
 
 public class KarmaCoveragePeer {
 
   private final File myCoverageTempDir;
   private volatile KarmaCoverageSession myActiveCoverageSession;
+  private volatile Map<String, KarmaLcovReader.FileCoverage> myPreviousCoverage = Collections.emptyMap();
 
   public KarmaCoveragePeer() throws IOException {
     myCoverageTempDir = FileUtil.createTempDirectory("karma-intellij-coverage-", null);
@@ -42,7 +45,20 @@ public class KarmaCoveragePeer {
     myActiveCoverageSession = coverageSession;
   }
 
+  /**
+   * @return coverage read from the previous report of this server, to be reused by the next one
+   */
+  @NotNull
+  Map<String, KarmaLcovReader.FileCoverage> getPreviousCoverage() {
+    return myPreviousCoverage;
+  }
+
+  void setPreviousCoverage(@NotNull Map<String, KarmaLcovReader.FileCoverage> previousCoverage) {
+    myPreviousCoverage = previousCoverage;
+  }
+
   public void registerEventHandlers(@NotNull final KarmaServer server) {
+    server.onTerminated(exitCode -> myPreviousCoverage = Collections.emptyMap());
     server.registerStreamEventHandler(new StreamEventHandler() {
       @NotNull
       @Override
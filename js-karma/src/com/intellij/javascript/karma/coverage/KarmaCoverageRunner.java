@@ -9,11 +9,20 @@ import com.intellij.javascript.karma.server.KarmaServer;
 import com.intellij.javascript.nodejs.execution.NodeTargetRun;
 import com.intellij.javascript.testing.CoverageProjectDataLoader;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.rt.coverage.data.ClassData;
 import com.intellij.rt.coverage.data.ProjectData;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Objects;
 
 public class KarmaCoverageRunner extends CoverageRunner {
@@ -32,6 +41,18 @@ public class KarmaCoverageRunner extends CoverageRunner {
     KarmaConfig karmaConfig = myKarmaServer != null ? myKarmaServer.getKarmaConfig() : null;
     File localBasePathDir = karmaConfig != null ? toLocal(karmaConfig.getBasePath()) : null;
     if (localBasePathDir != null && localBasePathDir.isAbsolute() && localBasePathDir.isDirectory()) {
+      try {
+        ProjectData projectData = readLcov(sessionDataFile, localBasePathDir);
+        if (projectData != null) {
+          return projectData;
+        }
+      }
+      catch (ProcessCanceledException e) {
+        throw e;
+      }
+      catch (Exception e) {
+        LOG.info("Can't read " + sessionDataFile + " as lcov report", e);
+      }
       try {
         return CoverageProjectDataLoader.readProjectData(sessionDataFile, localBasePathDir,
                                                          myKarmaServer.getServerSettings().getNodeInterpreter(), myTargetRun);
@@ -43,6 +64,48 @@ public class KarmaCoverageRunner extends CoverageRunner {
     return null;
   }
 
+  /**
+   * @return coverage data of the lcov report, or null if it has no records
+   */
+  private @Nullable ProjectData readLcov(@NotNull File sessionDataFile, @NotNull File localBasePathDir) throws IOException {
+    // the previous report is kept by the server it came from, and released when the server terminates
+    KarmaCoveragePeer coveragePeer = myKarmaServer.getCoveragePeer();
+    Map<String, KarmaLcovReader.FileCoverage> previousCoverage =
+      coveragePeer != null ? coveragePeer.getPreviousCoverage() : Collections.emptyMap();
+    Map<String, KarmaLcovReader.FileCoverage> coverage;
+    try (InputStream input = new BufferedInputStream(Files.newInputStream(sessionDataFile.toPath()))) {
+      coverage = KarmaLcovReader.read(input, previousCoverage);
+    }
+    if (coverage.isEmpty()) {
+      return null;
+    }
+    if (coveragePeer != null) {
+      coveragePeer.setPreviousCoverage(coverage);
+    }
+
+    ProjectData projectData = new ProjectData();
+    for (Map.Entry<String, KarmaLcovReader.FileCoverage> entry : coverage.entrySet()) {
+      String path = toLocalSourcePath(entry.getKey(), localBasePathDir);
+      if (path != null) {
+        ClassData classData = projectData.getOrCreateClassData(path);
+        classData.setLines(entry.getValue().toLineData());
+      }
+    }
+    return projectData;
+  }
+
+  private @Nullable String toLocalSourcePath(@NotNull String reportedPath, @NotNull File localBasePathDir) {
+    File file;
+    if (FileUtil.isAbsolutePlatformIndependent(reportedPath)) {
+      file = toLocal(reportedPath);
+      if (file == null) return null;
+    }
+    else {
+      file = new File(localBasePathDir, reportedPath);
+    }
+    return FileUtil.toCanonicalPath(file.getAbsolutePath());
+  }
+
   private @Nullable File toLocal(@NotNull String targetPath) {
     try {
       return new File(myTargetRun.convertTargetPathToLocalPath(targetPath));
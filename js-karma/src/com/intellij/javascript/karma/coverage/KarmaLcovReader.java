@@ -0,0 +1,218 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.intellij.javascript.karma.coverage;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.rt.coverage.data.LineData;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Streaming reader of the line hits of an {@code lcov.info} report.
+ * <p>
+ * The report is scanned as bytes, {@code DA} records are parsed in place into per-file int arrays, so the only objects created
+ * per record are the file path and the resulting arrays. Each record is checksummed, and a record that is the same as in the
+ * previous report reuses the arrays read from it.
+ */
+final class KarmaLcovReader {
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int CANCELLATION_CHECK_MASK = 0xFFF;
+  private static final byte[] SOURCE_FILE = "SF:".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] LINE_HITS = "DA:".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] END_OF_RECORD = "end_of_record".getBytes(StandardCharsets.US_ASCII);
+
+  /**
+   * Line hits of one source file, {@code hits[i]} is the hit count of the line {@code lines[i]}. Arrays are never modified.
+   */
+  record FileCoverage(long checksum, int @NotNull [] lines, int @NotNull [] hits) {
+    LineData @NotNull [] toLineData() {
+      int maxLine = 0;
+      for (int line : lines) {
+        maxLine = Math.max(maxLine, line);
+      }
+      LineData[] result = new LineData[maxLine + 1];
+      for (int i = 0; i < lines.length; i++) {
+        LineData lineData = result[lines[i]];
+        if (lineData == null) {
+          lineData = new LineData(lines[i], null);
+          result[lines[i]] = lineData;
+        }
+        lineData.setHits(saturatedAdd(lineData.getHits(), hits[i]));
+      }
+      return result;
+    }
+
+    @NotNull FileCoverage append(@NotNull FileCoverage other) {
+      int[] lines = Arrays.copyOf(this.lines, this.lines.length + other.lines.length);
+      int[] hits = Arrays.copyOf(this.hits, this.hits.length + other.hits.length);
+      System.arraycopy(other.lines, 0, lines, this.lines.length, other.lines.length);
+      System.arraycopy(other.hits, 0, hits, this.hits.length, other.hits.length);
+      return new FileCoverage(checksum * 31 + other.checksum, lines, hits);
+    }
+  }
+
+  private final InputStream myInput;
+  private byte[] myBuf = new byte[BUFFER_SIZE];
+  private int myPos;
+  private int myLimit;
+  private int myLineStart;
+  private int myLineEnd;
+  private boolean myEof;
+
+  private final CRC32 myCrc = new CRC32();
+  private long myRecordLength;
+  private int[] myLines = new int[1024];
+  private int[] myHits = new int[1024];
+  private int mySize;
+
+  private KarmaLcovReader(@NotNull InputStream input) {
+    myInput = input;
+  }
+
+  /**
+   * @param previous the result of reading the previous report, its arrays are reused for the records that haven't changed
+   * @return source file paths, as they are written in the report, mapped to their line hits
+   */
+  static @NotNull Map<String, FileCoverage> read(@NotNull InputStream input, @NotNull Map<String, FileCoverage> previous)
+    throws IOException {
+    return new KarmaLcovReader(input).readRecords(previous);
+  }
+
+  private @NotNull Map<String, FileCoverage> readRecords(@NotNull Map<String, FileCoverage> previous) throws IOException {
+    Map<String, FileCoverage> result = new LinkedHashMap<>();
+    String path = null;
+    int lineCount = 0;
+    while (nextLine()) {
+      if ((++lineCount & CANCELLATION_CHECK_MASK) == 0) {
+        ProgressManager.checkCanceled();
+      }
+      if (startsWith(SOURCE_FILE)) {
+        path = new String(myBuf, myLineStart + SOURCE_FILE.length, myLineEnd - myLineStart - SOURCE_FILE.length,
+                          StandardCharsets.UTF_8);
+        myCrc.reset();
+        myRecordLength = 0;
+        mySize = 0;
+      }
+      else if (path != null) {
+        if (startsWith(END_OF_RECORD)) {
+          FileCoverage coverage = createCoverage(previous.get(path));
+          FileCoverage existing = result.get(path);
+          result.put(path, existing != null ? existing.append(coverage) : coverage);
+          path = null;
+        }
+        else {
+          myCrc.update(myBuf, myLineStart, myLineEnd - myLineStart);
+          myRecordLength += myLineEnd - myLineStart + 1;
+          if (startsWith(LINE_HITS)) {
+            readLineHits();
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private @NotNull FileCoverage createCoverage(@Nullable FileCoverage previous) {
+    long checksum = myRecordLength << 32 | myCrc.getValue();
+    if (previous != null && previous.checksum() == checksum) {
+      return previous;
+    }
+    return new FileCoverage(checksum, Arrays.copyOf(myLines, mySize), Arrays.copyOf(myHits, mySize));
+  }
+
+  /**
+   * Parses {@code DA:<line>,<hits>[,<checksum>]}, skipping malformed records.
+   */
+  private void readLineHits() {
+    int i = myLineStart + LINE_HITS.length;
+    long line = 0;
+    int start = i;
+    while (i < myLineEnd && isDigit(myBuf[i])) {
+      line = Math.min(line * 10 + myBuf[i++] - '0', Integer.MAX_VALUE);
+    }
+    if (i == start || i == myLineEnd || myBuf[i++] != ',' || line == 0) return;
+    long hits = 0;
+    start = i;
+    while (i < myLineEnd && isDigit(myBuf[i])) {
+      hits = Math.min(hits * 10 + myBuf[i++] - '0', Integer.MAX_VALUE);
+    }
+    if (i == start) return;
+
+    if (mySize == myLines.length) {
+      myLines = Arrays.copyOf(myLines, mySize * 2);
+      myHits = Arrays.copyOf(myHits, mySize * 2);
+    }
+    myLines[mySize] = (int)line;
+    myHits[mySize] = (int)hits;
+    mySize++;
+  }
+
+  private boolean startsWith(byte @NotNull [] prefix) {
+    if (myLineEnd - myLineStart < prefix.length) return false;
+    for (int i = 0; i < prefix.length; i++) {
+      if (myBuf[myLineStart + i] != prefix[i]) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Moves to the next line, which is then {@code myBuf[myLineStart, myLineEnd)} without the line separator.
+   */
+  private boolean nextLine() throws IOException {
+    while (true) {
+      for (int i = myPos; i < myLimit; i++) {
+        if (myBuf[i] == '\n') {
+          setLine(myPos, i);
+          myPos = i + 1;
+          return true;
+        }
+      }
+      if (myEof) {
+        if (myPos == myLimit) return false;
+        setLine(myPos, myLimit);
+        myPos = myLimit;
+        return true;
+      }
+      fill();
+    }
+  }
+
+  private void setLine(int start, int end) {
+    myLineStart = start;
+    myLineEnd = end > start && myBuf[end - 1] == '\r' ? end - 1 : end;
+  }
+
+  private void fill() throws IOException {
+    if (myPos > 0) {
+      System.arraycopy(myBuf, myPos, myBuf, 0, myLimit - myPos);
+      myLimit -= myPos;
+      myPos = 0;
+    }
+    else if (myLimit == myBuf.length) {
+      myBuf = Arrays.copyOf(myBuf, myBuf.length * 2);
+    }
+    int read = myInput.read(myBuf, myLimit, myBuf.length - myLimit);
+    if (read == -1) {
+      myEof = true;
+    }
+    else {
+      myLimit += read;
+    }
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+
+  private static int saturatedAdd(int a, int b) {
+    long sum = (long)a + b;
+    return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int)sum;
+  }
+}
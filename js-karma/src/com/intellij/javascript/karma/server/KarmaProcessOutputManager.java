@@ -7,13 +7,12 @@ import com.intellij.javascript.karma.util.StreamEventListener;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.Consumer;
+import com.intellij.util.text.CharArrayUtil;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Deque;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 public class KarmaProcessOutputManager {
@@ -31,6 +30,8 @@ public class KarmaProcessOutputManager {
   private boolean myArchiveTextsTruncated = false;
   private final List<ArchivedOutputListener> myOutputListeners = new CopyOnWriteArrayList<>();
   private final List<StreamEventListener> myStdOutStreamEventListeners = new CopyOnWriteArrayList<>();
+  // the incomplete last line of stdout: its text and the chunks it came in (kept as is for the archive)
+  private final StringBuilder myStdOutCurrentLine = new StringBuilder();
   private final List<Pair<String, Key>> myStdOutCurrentLineChunks = new ArrayList<>();
   private final Consumer<? super String> myStdOutLineConsumer;
 
@@ -54,66 +55,76 @@ public class KarmaProcessOutputManager {
     myProcessHandler.startNotify();
   }
 
-  private void processStandardOutput(@NotNull String text, @NotNull Key type) {
-    if (handleLineAsEvent(text)) {
-      for (Pair<String, Key> chunk : myStdOutCurrentLineChunks) {
-        addText(chunk.getFirst(), chunk.getSecond());
-      }
+  /**
+   * Splits stdout into lines, passing complete {@code ##intellij-event[type:body]} lines to event listeners and all other text to
+   * the line consumer and the archive. Lines are located and matched in place, so no intermediate strings are created for
+   * event lines; all archived pieces of one chunk are added under a single lock acquisition.
+   */
+  void processStandardOutput(@NotNull String text, @NotNull Key type) {
+    List<Pair<String, Key>> textsToArchive = new ArrayList<>();
+    if (text.indexOf(NEW_LINE) == text.length() - 1 && handleLineAsEvent(text, 0, text.length())) {
+      // an event is always printed as a separate chunk, so an incomplete line before it won't be continued
+      textsToArchive.addAll(myStdOutCurrentLineChunks);
+      myStdOutCurrentLine.setLength(0);
       myStdOutCurrentLineChunks.clear();
+      addTexts(textsToArchive);
       return;
     }
     int lineStartInd = 0;
     int newLineInd = text.indexOf(NEW_LINE, lineStartInd);
     while (newLineInd != -1) {
-      String line = text.substring(lineStartInd, newLineInd + 1); // always not empty
-      if (!myStdOutCurrentLineChunks.isEmpty()) {
-        myStdOutCurrentLineChunks.add(Pair.create(line, type));
-        line = concatCurrentLineChunks();
-      }
-      if (!handleLineAsEvent(line)) {
-        onStandardOutputLineAvailable(line);
-        if (!myStdOutCurrentLineChunks.isEmpty()) {
-          for (Pair<String, Key> chunk : myStdOutCurrentLineChunks) {
-            addText(chunk.getFirst(), chunk.getSecond());
-          }
+      int lineEndInd = newLineInd + 1;
+      if (myStdOutCurrentLine.length() == 0) {
+        if (!handleLineAsEvent(text, lineStartInd, lineEndInd)) {
+          String line = text.substring(lineStartInd, lineEndInd); // always not empty
+          onStandardOutputLineAvailable(line);
+          textsToArchive.add(Pair.create(line, type));
         }
-        else {
-          addText(line, type);
+      }
+      else {
+        myStdOutCurrentLine.append(text, lineStartInd, lineEndInd);
+        myStdOutCurrentLineChunks.add(Pair.create(text.substring(lineStartInd, lineEndInd), type));
+        if (!handleLineAsEvent(myStdOutCurrentLine, 0, myStdOutCurrentLine.length())) {
+          onStandardOutputLineAvailable(myStdOutCurrentLine.toString());
+          textsToArchive.addAll(myStdOutCurrentLineChunks);
         }
+        myStdOutCurrentLine.setLength(0);
+        myStdOutCurrentLineChunks.clear();
       }
-      myStdOutCurrentLineChunks.clear();
-      lineStartInd = newLineInd + 1;
+      lineStartInd = lineEndInd;
       newLineInd = text.indexOf(NEW_LINE, lineStartInd);
     }
     if (lineStartInd < text.length()) {
-      myStdOutCurrentLineChunks.add(Pair.create(text.substring(lineStartInd), type));
+      myStdOutCurrentLine.append(text, lineStartInd, text.length());
+      myStdOutCurrentLineChunks.add(Pair.create(lineStartInd == 0 ? text : text.substring(lineStartInd), type));
     }
+    addTexts(textsToArchive);
   }
 
-  @NotNull
-  private String concatCurrentLineChunks() {
-    int size = 0;
-    for (Pair<String, Key> chunk : myStdOutCurrentLineChunks) {
-      size += chunk.getFirst().length();
-    }
-    StringBuilder result = new StringBuilder(size);
-    for (Pair<String, Key> chunk : myStdOutCurrentLineChunks) {
-      result.append(chunk.getFirst());
-    }
-    return result.toString();
+  private void addText(@NotNull String text, @NotNull Key outputType) {
+    addTexts(Collections.singletonList(Pair.create(text, outputType)));
   }
 
-  private void addText(@NotNull String text, @NotNull Key outputType) {
+  private void addTexts(@NotNull List<Pair<String, Key>> texts) {
+    if (texts.isEmpty()) return;
+    ArchivedOutputListener[] listeners;
     synchronized (myArchivedTexts) {
-      myArchivedTexts.addLast(Pair.create(text, outputType));
-      myArchivedTextsLength += text.length();
+      for (Pair<String, Key> text : texts) {
+        myArchivedTexts.addLast(text);
+        myArchivedTextsLength += text.getFirst().length();
+      }
       while (myArchivedTextsLength > MAX_ARCHIVED_TEXTS_LENGTH) {
         Pair<String, Key> pair = myArchivedTexts.removeFirst();
         myArchivedTextsLength -= pair.getFirst().length();
         myArchiveTextsTruncated = true;
       }
-      for (ArchivedOutputListener listener : myOutputListeners) {
-        listener.onOutputAvailable(text, outputType, false);
+      // Listeners are notified outside the lock. The snapshot is taken under the lock, so a listener being added concurrently
+      // gets these texts either from the archive or from this notification, but never from both.
+      listeners = myOutputListeners.toArray(new ArchivedOutputListener[0]);
+    }
+    for (Pair<String, Key> text : texts) {
+      for (ArchivedOutputListener listener : listeners) {
+        listener.onOutputAvailable(text.getFirst(), text.getSecond(), false);
       }
     }
   }
@@ -122,21 +133,36 @@ public class KarmaProcessOutputManager {
     myStdOutLineConsumer.consume(line);
   }
 
-  private boolean handleLineAsEvent(@NotNull String line) {
-    if (line.startsWith(PREFIX) && (line.endsWith(SUFFIX_LF) || line.endsWith(SUFFIX_CRLF))) {
-      int colonInd = line.indexOf(':');
-      if (colonInd == -1) {
-        return false;
-      }
-      String eventType = line.substring(PREFIX.length(), colonInd);
-      String suffix = line.endsWith(SUFFIX_LF) ? SUFFIX_LF : SUFFIX_CRLF;
-      String eventBody = line.substring(colonInd + 1, line.length() - suffix.length());
-      for (StreamEventListener listener : myStdOutStreamEventListeners) {
-        listener.on(eventType, eventBody);
-      }
-      return true;
+  /**
+   * @param text  text containing the line to check
+   * @param start start offset of the line in {@code text}
+   * @param end   end offset of the line in {@code text}, exclusive
+   */
+  private boolean handleLineAsEvent(@NotNull CharSequence text, int start, int end) {
+    int suffixLength = endsWith(text, end, SUFFIX_LF) ? SUFFIX_LF.length()
+                                                      : endsWith(text, end, SUFFIX_CRLF) ? SUFFIX_CRLF.length() : -1;
+    if (suffixLength == -1 || end - start < PREFIX.length() + suffixLength || !startsWith(text, start, PREFIX)) {
+      return false;
+    }
+    int bodyEnd = end - suffixLength;
+    int colonInd = StringUtil.indexOf(text, ':', start + PREFIX.length(), bodyEnd);
+    if (colonInd == -1) {
+      return false;
     }
-    return false;
+    String eventType = text.subSequence(start + PREFIX.length(), colonInd).toString();
+    String eventBody = text.subSequence(colonInd + 1, bodyEnd).toString();
+    for (StreamEventListener listener : myStdOutStreamEventListeners) {
+      listener.on(eventType, eventBody);
+    }
+    return true;
+  }
+
+  private static boolean startsWith(@NotNull CharSequence text, int start, @NotNull String prefix) {
+    return CharArrayUtil.regionMatches(text, start, prefix);
+  }
+
+  private static boolean endsWith(@NotNull CharSequence text, int end, @NotNull String suffix) {
+    return end >= suffix.length() && CharArrayUtil.regionMatches(text, end - suffix.length(), suffix);
   }
 
   @NotNull
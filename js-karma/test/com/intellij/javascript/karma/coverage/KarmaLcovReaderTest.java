@@ -0,0 +1,107 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.intellij.javascript.karma.coverage;
+
+import com.intellij.openapi.util.Ref;
+import com.intellij.rt.coverage.data.LineData;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class KarmaLcovReaderTest extends BasePlatformTestCase {
+  public void testLineHits() throws IOException {
+    Map<String, KarmaLcovReader.FileCoverage> coverage = read("TN:\n" +
+                                                              "SF:src/a.js\r\n" +
+                                                              "FN:1,foo\n" +
+                                                              "DA:1,3\r\n" +
+                                                              "DA:2,0,checksum\n" +
+                                                              "DA:x,1\n" +
+                                                              "LF:2\n" +
+                                                              "end_of_record\n" +
+                                                              "SF:/abs/b.js\n" +
+                                                              "DA:5,99999999999\n" +
+                                                              "end_of_record\n" +
+                                                              "SF:src/a.js\n" +
+                                                              "DA:2,1\n" +
+                                                              "end_of_record", Collections.emptyMap());
+    assertEquals(List.of("src/a.js", "/abs/b.js"), List.copyOf(coverage.keySet()));
+
+    LineData[] a = coverage.get("src/a.js").toLineData();
+    assertEquals(3, a.length);
+    assertNull(a[0]);
+    assertEquals(3, a[1].getHits());
+    assertEquals(1, a[2].getHits());
+
+    LineData[] b = coverage.get("/abs/b.js").toLineData();
+    assertEquals(Integer.MAX_VALUE, b[5].getHits());
+  }
+
+  public void testUnchangedRecordsAreReused() throws IOException {
+    Map<String, KarmaLcovReader.FileCoverage> first = read("SF:a.js\nDA:1,1\nend_of_record\nSF:b.js\nDA:1,1\nend_of_record\n",
+                                                           Collections.emptyMap());
+    Map<String, KarmaLcovReader.FileCoverage> second = read("SF:a.js\nDA:1,1\nend_of_record\nSF:b.js\nDA:1,2\nend_of_record\n", first);
+    assertSame(first.get("a.js"), second.get("a.js"));
+    assertNotSame(first.get("b.js"), second.get("b.js"));
+    assertEquals(2, second.get("b.js").toLineData()[1].getHits());
+  }
+
+  public void testLargeReport() throws IOException {
+    File report = createLargeReport(2000, 2500);
+    Ref<Map<String, KarmaLcovReader.FileCoverage>> result = Ref.create();
+    PlatformTestUtil.startPerformanceTest("Reading " + report.length() / (1024 * 1024) + " MB lcov report", 3_000, () -> {
+      result.set(read(report, Collections.emptyMap()));
+    }).assertTiming();
+    assertEquals(2000, result.get().size());
+
+    long allocated = getAllocatedBytes(report, Collections.emptyMap());
+    long allocatedOnRereading = getAllocatedBytes(report, result.get());
+    String message = "Allocated " + allocated + " bytes, " + allocatedOnRereading + " bytes on re-reading " + report.length() + " bytes";
+    assertTrue(message, allocated < report.length() * 2);
+    assertTrue(message, allocatedOnRereading < report.length() / 10);
+  }
+
+  private static long getAllocatedBytes(@NotNull File report, @NotNull Map<String, KarmaLcovReader.FileCoverage> previous) {
+    com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    long before = bean.getThreadAllocatedBytes(threadId);
+    read(report, previous);
+    return bean.getThreadAllocatedBytes(threadId) - before;
+  }
+
+  private @NotNull File createLargeReport(int fileCount, int linesPerFile) throws IOException {
+    File report = new File(myFixture.getTempDirPath(), "lcov.info");
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(report), StandardCharsets.UTF_8))) {
+      for (int i = 0; i < fileCount; i++) {
+        writer.write("TN:\nSF:src/module" + i / 100 + "/file" + i + ".js\n");
+        for (int line = 1; line <= linesPerFile; line++) {
+          writer.write("DA:" + line + "," + (line * 7 + i) % 13 + "\n");
+        }
+        writer.write("LF:" + linesPerFile + "\nend_of_record\n");
+      }
+    }
+    return report;
+  }
+
+  private static @NotNull Map<String, KarmaLcovReader.FileCoverage> read(@NotNull String text,
+                                                                       @NotNull Map<String, KarmaLcovReader.FileCoverage> previous)
+    throws IOException {
+    return KarmaLcovReader.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), previous);
+  }
+
+  private static @NotNull Map<String, KarmaLcovReader.FileCoverage> read(@NotNull File report,
+                                                                       @NotNull Map<String, KarmaLcovReader.FileCoverage> previous) {
+    try (InputStream input = new BufferedInputStream(Files.newInputStream(report.toPath()))) {
+      return KarmaLcovReader.read(input, previous);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.intellij.javascript.karma.server;
+
+import com.intellij.execution.process.NopProcessHandler;
+import com.intellij.execution.process.ProcessOutputTypes;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class KarmaProcessOutputManagerTest extends BasePlatformTestCase {
+  private final List<String> myEvents = new ArrayList<>();
+  private final List<String> myLines = new ArrayList<>();
+
+  public void testEventsAndLines() {
+    KarmaProcessOutputManager manager = createManager();
+    manager.processStandardOutput("##intellij-event[browserConnected:{\"name\":\"Chrome\"}]\n", ProcessOutputTypes.STDOUT);
+    manager.processStandardOutput("INFO [karma]: Karma server started\n##intellij-event[testStarted:{\"id\":1}]\r\n",
+                                  ProcessOutputTypes.STDOUT);
+    manager.processStandardOutput("##intellij-event[testFin", ProcessOutputTypes.STDOUT);
+    manager.processStandardOutput("ished:{\"id\":1}]\nLOG: 'a:b'", ProcessOutputTypes.STDOUT);
+    manager.processStandardOutput("]\n##intellij-event[no colon]\n", ProcessOutputTypes.STDOUT);
+
+    assertEquals(List.of("browserConnected {\"name\":\"Chrome\"}", "testStarted {\"id\":1}", "testFinished {\"id\":1}"), myEvents);
+    assertEquals(List.of("INFO [karma]: Karma server started\n", "LOG: 'a:b']\n", "##intellij-event[no colon]\n"), myLines);
+  }
+
+  public void testRecordedOutputInRandomChunks() {
+    String output = generateOutput(1000);
+    List<String> chunks = splitRandomly(output, new Random(42));
+
+    KarmaProcessOutputManager manager = createManager();
+    for (String chunk : chunks) {
+      manager.processStandardOutput(chunk, ProcessOutputTypes.STDOUT);
+    }
+    assertEquals(3000, myEvents.size());
+    assertEquals(1000, myLines.size());
+    assertEquals("testSuiteStarted {\"id\":0,\"name\":\"suite 0\"}", myEvents.get(0));
+    assertEquals("LOG: 'spec 999 done'\n", myLines.get(999));
+  }
+
+  public void testParsingPerformance() {
+    List<String> chunks = splitRandomly(generateOutput(20_000), new Random(42));
+    PlatformTestUtil.startPerformanceTest("Karma output of " + chunks.size() + " chunks", 2_000, () -> {
+      myEvents.clear();
+      myLines.clear();
+      KarmaProcessOutputManager manager = createManager();
+      for (String chunk : chunks) {
+        manager.processStandardOutput(chunk, ProcessOutputTypes.STDOUT);
+      }
+      assertEquals(60_000, myEvents.size());
+    }).assertTiming();
+  }
+
+  private @NotNull KarmaProcessOutputManager createManager() {
+    KarmaProcessOutputManager manager = new KarmaProcessOutputManager(new NopProcessHandler(), myLines::add);
+    manager.addStreamEventListener((eventType, eventBody) -> myEvents.add(eventType + " " + eventBody));
+    return manager;
+  }
+
+  private static @NotNull String generateOutput(int specCount) {
+    StringBuilder result = new StringBuilder();
+    for (int i = 0; i < specCount; i++) {
+      result.append("##intellij-event[testSuiteStarted:{\"id\":").append(i).append(",\"name\":\"suite ").append(i).append("\"}]\n");
+      result.append("##intellij-event[testStarted:{\"id\":").append(i).append(",\"name\":\"spec ").append(i).append("\"}]\n");
+      result.append("LOG: 'spec ").append(i).append(" done'\n");
+      result.append("##intellij-event[testFinished:{\"id\":").append(i).append(",\"duration\":").append(i % 17).append("}]\n");
+    }
+    return result.toString();
+  }
+
+  private static @NotNull List<String> splitRandomly(@NotNull String text, @NotNull Random random) {
+    List<String> result = new ArrayList<>();
+    int start = 0;
+    while (start < text.length()) {
+      int end = Math.min(text.length(), start + 1 + random.nextInt(200));
+      result.add(text.substring(start, end));
+      start = end;
+    }
+    return result;
+  }
+}
@@ -1,6 +1,28 @@
 package com.jetbrains.lang.makefile
 
-import com.intellij.psi.stubs.PsiFileStub
+import com.intellij.psi.PsiFile
+import com.intellij.psi.StubBuilder
+import com.intellij.psi.stubs.*
 import com.intellij.psi.tree.IStubFileElementType
+import com.intellij.psi.util.PsiTreeUtil
+import com.jetbrains.lang.makefile.psi.MakefileInclude
+import com.jetbrains.lang.makefile.stub.MakefileFileStub
 
-class MakefileStubFileElementType : IStubFileElementType<PsiFileStub<MakefileFile>>("makefile", MakefileLanguage)
\ No newline at end of file
+class MakefileStubFileElementType : IStubFileElementType<MakefileFileStub>("makefile", MakefileLanguage) {
+  override fun getStubVersion() = 2
+
+  override fun getBuilder(): StubBuilder = object : DefaultStubBuilder() {
+    override fun createStubForFile(file: PsiFile): StubElement<*> {
+      val includes = PsiTreeUtil.findChildrenOfType(file, MakefileInclude::class.java).flatMap { include -> include.filenameList.map { it.text } }
+      return MakefileFileStub(file as MakefileFile, includes)
+    }
+  }
+
+  override fun serialize(stub: MakefileFileStub, dataStream: StubOutputStream) {
+    dataStream.writeVarInt(stub.includes.size)
+    stub.includes.forEach(dataStream::writeUTFFast)
+  }
+
+  override fun deserialize(dataStream: StubInputStream, parentStub: StubElement<*>?) =
+    MakefileFileStub(null, List(dataStream.readVarInt()) { dataStream.readUTFFast() })
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.jetbrains.lang.makefile
+
+import com.intellij.openapi.vfs.*
+import com.intellij.psi.*
+import com.intellij.psi.util.*
+import com.jetbrains.lang.makefile.psi.*
+import com.jetbrains.lang.makefile.stub.*
+
+/**
+ * Variables and targets visible from a Makefile, hashed by name: the file's own definitions followed by
+ * those of the files it pulls in with `include`, `-include` and `sinclude`, transitively.
+ * Like `make`, relative include paths are resolved against the directory of the top-level Makefile,
+ * falling back to the directory of the including file.
+ *
+ * The table is built from stubs, so included files are never parsed, and is cached until
+ * one of the files it was built from changes.
+ */
+class MakefileSymbolTable private constructor(val variables: Map<String, List<MakefileVariable>>,
+                                              val targets: Map<String, List<MakefileTarget>>,
+                                              private val genericTargets: List<MakefileTarget>) {
+  fun findVariables(name: String): List<MakefileVariable> = variables[name].orEmpty()
+
+  fun findTargets(name: String): List<MakefileTarget> = targets[name].orEmpty()
+
+  /**
+   * Targets matching [prerequisite], including pattern (`%.o`) and suffix (`.c.o`) rules.
+   */
+  fun findMatchingTargets(prerequisite: String): List<MakefileTarget> =
+    findTargets(prerequisite) + genericTargets.filter { it.name != prerequisite && it.matches(prerequisite) }
+
+  companion object {
+    fun forFile(file: MakefileFile): MakefileSymbolTable = CachedValuesManager.getCachedValue(file) {
+      val variables = LinkedHashMap<String, MutableList<MakefileVariable>>()
+      val targets = LinkedHashMap<String, MutableList<MakefileTarget>>()
+      val genericTargets = mutableListOf<MakefileTarget>()
+
+      val visited = linkedSetOf<MakefileFile>()
+      val queue = ArrayDeque<MakefileFile>()
+      queue.add(file)
+      while (queue.isNotEmpty()) {
+        val current = queue.removeFirst()
+        if (!visited.add(current)) continue
+        val stubTree = current.greenStubTree ?: current.calcStubTree()
+        for (stub in stubTree.plainList) {
+          when (stub) {
+            is MakefileVariableStubElement -> variables.getOrPut(stub.name ?: continue) { mutableListOf() }.add(stub.psi)
+            is MakefileTargetStubElement -> {
+              val name = stub.name ?: continue
+              targets.getOrPut(name) { mutableListOf() }.add(stub.psi)
+              if (name.startsWith("%") || name.endsWith("%") || name.startsWith(".")) {
+                genericTargets.add(stub.psi)
+              }
+            }
+          }
+        }
+        (stubTree.root as? MakefileFileStub)?.includes?.mapNotNullTo(queue) { resolveInclude(file, current, it) }
+      }
+
+      CachedValueProvider.Result.create(MakefileSymbolTable(variables, targets, genericTargets),
+                                        *visited.toTypedArray(), VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS)
+    }
+
+    private fun resolveInclude(topLevelFile: PsiFile, file: PsiFile, path: String): MakefileFile? {
+      if (path.contains('$') || path.contains('*') || path.contains('?')) return null
+      val included = if (path.startsWith("/")) {
+        file.originalFile.virtualFile?.fileSystem?.findFileByPath(path)
+      }
+      else {
+        sequenceOf(topLevelFile, file).mapNotNull { it.originalFile.virtualFile?.parent }.distinct()
+          .mapNotNull { it.findFileByRelativePath(path) }.firstOrNull()
+      }
+      return included?.let { PsiManager.getInstance(file.project).findFile(it) } as? MakefileFile
+    }
+  }
+}
@@ -22,21 +22,20 @@ class MakefileTargetReference(private val prerequisite: MakefilePrerequisite) :
     get() = prerequisite.parent.parent.parent.parent as? MakefileRule
 
   override fun getVariants()
-      = (prerequisite.containingFile as MakefileFile).targets.filterNot { it.isPatternTarget || rule?.targets?.any { t -> t.name == it.name } == true }.distinctBy { it.name }.map {
+      = MakefileSymbolTable.forFile(prerequisite.containingFile as MakefileFile).targets.values.map { it.first() }.filterNot { it.isSpecialTarget || it.isPatternTarget || rule?.targets?.any { t -> t.name == it.name } == true }.map {
     LookupElementBuilder.create(it).withIcon(MakefileTargetIcon)
   }.toTypedArray()
 
   override fun multiResolve(incompleteCode: Boolean): Array<ResolveResult> {
+    val symbolTable = MakefileSymbolTable.forFile(prerequisite.containingFile as MakefileFile)
     val match = Regex("""\$\((.*)\)""").find(prerequisite.text)
     if (match != null) {
       val name = match.groups[1]!!.value
-      return (prerequisite.containingFile as MakefileFile).variables
-          .filter { it.text == name }
+      return symbolTable.findVariables(name)
           .map(::PsiElementResolveResult)
           .toTypedArray()
     }
-    return (prerequisite.containingFile as MakefileFile).allTargets
-        .filter { it.matches(prerequisite.text) }
+    return symbolTable.findMatchingTargets(prerequisite.text)
         .map(::PsiElementResolveResult)
         .toTypedArray()
   }
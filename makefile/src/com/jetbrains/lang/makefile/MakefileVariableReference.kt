@@ -30,13 +30,13 @@ class MakefileVariableReference(private val usage: MakefileVariableUsage) : PsiP
   }
 
   override fun getVariants()
-      = (usage.containingFile as MakefileFile).variables.distinctBy { it.text }.map {
-    LookupElementBuilder.create(it)
+      = MakefileSymbolTable.forFile(usage.containingFile as MakefileFile).variables.values.map {
+    LookupElementBuilder.create(it.first())
   }.toTypedArray()
 
   override fun multiResolve(incompleteCode: Boolean): Array<ResolveResult> {
-    return (usage.containingFile as MakefileFile).variables
-        .filter { it.text == nameNode.text }
+    return MakefileSymbolTable.forFile(usage.containingFile as MakefileFile)
+        .findVariables(nameNode.text)
         .map(::PsiElementResolveResult)
         .toTypedArray()
   }
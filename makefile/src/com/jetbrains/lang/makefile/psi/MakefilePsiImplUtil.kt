@@ -29,7 +29,7 @@ object MakefilePsiImplUtil {
 
   @JvmStatic
   fun getName(element: MakefileTarget): String {
-    return element.text
+    return element.stub?.name ?: element.text
   }
 
   @JvmStatic
@@ -45,7 +45,7 @@ object MakefilePsiImplUtil {
 
   @JvmStatic
   fun getName(element: MakefileVariable): String {
-    return element.text
+    return element.stub?.name ?: element.text
   }
 
   @JvmStatic
@@ -2,9 +2,13 @@ package com.jetbrains.lang.makefile.psi.impl
 
 import com.intellij.extapi.psi.*
 import com.intellij.lang.*
+import com.intellij.psi.stubs.*
 import com.jetbrains.lang.makefile.psi.*
+import com.jetbrains.lang.makefile.stub.*
+
+abstract class MakefileVariableNamedElementImpl : StubBasedPsiElementBase<MakefileVariableStubElement>, MakefileNamedElement {
+  constructor(node: ASTNode) : super(node)
+  constructor(stub: MakefileVariableStubElement, nodeType: IStubElementType<*, *>) : super(stub, nodeType)
 
-abstract class MakefileVariableNamedElementImpl(private val node: ASTNode) : ASTWrapperPsiElement(node), MakefileNamedElement {
   override fun toString() = "MakefileVariableImpl(VARIABLE)"
-  override fun getNode(): ASTNode = node
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.jetbrains.lang.makefile.stub
+
+import com.intellij.psi.stubs.PsiFileStubImpl
+import com.jetbrains.lang.makefile.MakefileFile
+
+/**
+ * File stub remembering the names listed in `include`, `-include` and `sinclude` directives,
+ * so that included files can be followed without building their AST.
+ */
+class MakefileFileStub(file: MakefileFile?, val includes: List<String>) : PsiFileStubImpl<MakefileFile>(file)
\ No newline at end of file
@@ -0,0 +1,6 @@
+package com.jetbrains.lang.makefile.stub
+
+import com.intellij.psi.stubs.NamedStub
+import com.jetbrains.lang.makefile.psi.MakefileVariable
+
+interface MakefileVariableStubElement : NamedStub<MakefileVariable>
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.jetbrains.lang.makefile.stub
+
+import com.intellij.psi.stubs.NamedStubBase
+import com.intellij.psi.stubs.StubElement
+import com.jetbrains.lang.makefile.psi.MakefileVariable
+
+class MakefileVariableStubElementImpl(parent: StubElement<*>?, name: String?) : NamedStubBase<MakefileVariable>(parent, MakefileVariableStubElementType, name), MakefileVariableStubElement
\ No newline at end of file
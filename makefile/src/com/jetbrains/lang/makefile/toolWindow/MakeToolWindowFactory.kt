@@ -7,7 +7,6 @@ import com.intellij.openapi.actionSystem.CommonDataKeys.*
 import com.intellij.openapi.project.*
 import com.intellij.openapi.ui.*
 import com.intellij.openapi.wm.*
-import com.intellij.psi.search.*
 import com.intellij.ui.*
 import com.intellij.ui.content.impl.*
 import com.intellij.ui.treeStructure.*
@@ -47,7 +46,8 @@ class MakeToolWindowFactory : ToolWindowFactory {
           if (PSI_ELEMENT.`is`(dataId)) {
             if (selectedNodes.any()) {
               val selected = selectedNodes.first()
-              return MakefileTargetIndex.get(selected.name, project, GlobalSearchScope.fileScope(selected.parent.psiFile)).firstOrNull()
+              val file = selected.parent.psiFile as? MakefileFile ?: return null
+              return findTargets(file, selected.name).firstOrNull()
             }
           }
           return null
@@ -2,7 +2,6 @@ package com.jetbrains.lang.makefile.toolWindow
 
 import com.intellij.openapi.actionSystem.*
 import com.intellij.openapi.project.*
-import com.intellij.psi.search.*
 import com.intellij.ui.treeStructure.*
 import com.jetbrains.lang.makefile.*
 
@@ -14,8 +13,8 @@ class MakefileToolWindowGoToTargetAction(private val tree: Tree, private val pro
     val selectedNodes = tree.getSelectedNodes(MakefileTargetNode::class.java, {true})
     if (selectedNodes.any()) {
       val selected = selectedNodes.first()
-      val elements = MakefileTargetIndex.get(selected.name, project, GlobalSearchScope.fileScope(selected.parent.psiFile))
-      elements.first().navigate(true)
+      val file = selected.parent.psiFile as? MakefileFile ?: return
+      findTargets(file, selected.name).firstOrNull()?.navigate(true)
     }
   }
 }
\ No newline at end of file
@@ -19,5 +19,8 @@ fun findTargets(project: Project, name: String): Collection<MakefileTarget> =
 
 fun findTargets(psiFile: PsiFile) = PsiTreeUtil.findChildrenOfType(psiFile, MakefileTarget::class.java).asIterable()
 
+fun findTargets(psiFile: MakefileFile, name: String): List<MakefileTarget> =
+    MakefileSymbolTable.forFile(psiFile).findTargets(name).filter { it.containingFile == psiFile }
+
 fun MakefilePrerequisite.findTargetLine(): MakefileTargetLine? =
   this.parent.parent.parent as? MakefileTargetLine
\ No newline at end of file
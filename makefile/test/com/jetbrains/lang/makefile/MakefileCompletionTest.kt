@@ -10,9 +10,16 @@ class MakefileCompletionTest : BasePlatformTestCase() {
   fun testVariables() = doTest("a", "b", "c", *functions)
   fun testCurly() = doTest("a", "b", "c")
   fun testComment() = doTest()
+  fun testIncludedVariables() = doTestWithInclude("a", "b", "c", *functions)
+  fun testIncludedTargets() = doTestWithInclude("build", "test")
 
   fun doTest(vararg variants: String) = myFixture.testCompletionVariants("$basePath/$testFilename", *variants)
 
+  private fun doTestWithInclude(vararg variants: String) {
+    myFixture.copyFileToProject("$basePath/${getTestName(true)}.inc.mk")
+    doTest(*variants)
+  }
+
   private val testFilename get() = "${getTestName(true)}.mk"
   override fun getTestDataPath() = BASE_TEST_DATA_PATH
   override fun getBasePath() = "completion"
@@ -31,4 +31,17 @@ class MakefileInspectionsTest : BasePlatformTestCase() {
 
   @Test
   fun unresolvedWithPattern() = doTest()
+
+  @Test
+  fun resolvedFromInclude() {
+    myFixture.copyFileToProject("$basePath/${getTestName(true)}.inc.mk")
+    doTest()
+  }
+
+  @Test
+  fun resolvedFromNestedInclude() {
+    myFixture.copyFileToProject("$basePath/nested/${getTestName(true)}.inc.mk")
+    myFixture.copyFileToProject("$basePath/nested/${getTestName(true)}.targets.mk")
+    doTest()
+  }
 }
\ No newline at end of file
@@ -0,0 +1,4 @@
+build:
+	touch $@
+
+test: build
\ No newline at end of file
@@ -0,0 +1,3 @@
+include includedTargets.inc.mk
+
+all: <caret>
\ No newline at end of file
@@ -0,0 +1,3 @@
+a = qwe
+b = asdf
+c = zxcv
\ No newline at end of file
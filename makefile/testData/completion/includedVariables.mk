@@ -0,0 +1,3 @@
+include includedVariables.inc.mk
+
+d = $(<caret>)
\ No newline at end of file
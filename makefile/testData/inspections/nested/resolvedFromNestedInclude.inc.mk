@@ -0,0 +1 @@
+include nested/resolvedFromNestedInclude.targets.mk
\ No newline at end of file
@@ -0,0 +1,3 @@
+build: main.o
+
+%.o: %.c
\ No newline at end of file
@@ -0,0 +1,3 @@
+include nested/resolvedFromNestedInclude.inc.mk
+
+all: build <weak_warning descr="Unresolved prerequisite">missing</weak_warning>
\ No newline at end of file
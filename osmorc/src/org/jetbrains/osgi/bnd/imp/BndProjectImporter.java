@@ -4,9 +4,13 @@ package org.jetbrains.osgi.bnd.imp;
 import aQute.bnd.build.Container;
 import aQute.bnd.build.Project;
 import aQute.bnd.build.Workspace;
-import aQute.bnd.header.Attrs;
+import aQute.bnd.build.WorkspaceRepository;
+import aQute.bnd.header.Parameters;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Processor;
 import aQute.bnd.service.Refreshable;
 import aQute.bnd.service.RepositoryPlugin;
+import aQute.bnd.version.Version;
 import com.intellij.compiler.CompilerConfiguration;
 import com.intellij.compiler.impl.javaCompiler.javac.JavacConfiguration;
 import com.intellij.facet.impl.FacetUtil;
@@ -40,10 +44,13 @@ import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.pom.java.LanguageLevel;
 import com.intellij.util.ObjectUtils;
 import com.intellij.util.PathUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.intellij.util.containers.CollectionFactory;
 import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.io.DigestUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
 import org.jetbrains.jps.model.java.compiler.JpsJavaCompilerOptions;
 import org.jetbrains.osgi.jps.model.ManifestGenerationMode;
 import org.jetbrains.osgi.jps.model.OutputPathType;
@@ -54,9 +61,17 @@ import org.osmorc.i18n.OsmorcBundle;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -76,6 +91,8 @@ public final class BndProjectImporter {
   private static final String JAVAC_TARGET = "javac.target";
   private static final String SRC_ROOT = "OSGI-OPT/src";
   private static final String JDK_DEPENDENCY = "ee.j2se";
+  private static final String[] DEPENDENCY_HEADERS = {Constants.BUILDPATH, Constants.TESTPATH, Constants.DEPENDSON};
+  private static final int PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
 
   private static final Comparator<OrderEntry> ORDER_ENTRY_COMPARATOR = new Comparator<>() {
     @Override
@@ -97,7 +114,9 @@ public final class BndProjectImporter {
   private final com.intellij.openapi.project.Project myProject;
   private final Workspace myWorkspace;
   private final Collection<? extends Project> myProjects;
-  private final Map<String, String> mySourcesMap = CollectionFactory.createFilePathMap();
+  private final Map<String, String> mySourcesMap = Collections.synchronizedMap(CollectionFactory.createFilePathMap());
+  private final Map<Project, BndProjectModel> myModels = new HashMap<>();
+  private final List<String> myResolvedProjects = new ArrayList<>();
 
   public BndProjectImporter(@NotNull com.intellij.openapi.project.Project project,
                             @NotNull Workspace workspace,
@@ -156,69 +175,322 @@ public final class BndProjectImporter {
     }
   }
 
+  /**
+   * Prepares the projects to import, each one after the projects it depends on. bnd workspaces are not thread-safe, so projects are
+   * prepared one at a time; only looking for sources in the jars of their classpaths is done in parallel.
+   * <p>
+   * A project whose bnd files, dependency projects and workspace repositories haven't changed since the previous import
+   * is restored from {@link BndResolutionCache} instead; it's only prepared when a changed project depends on it.
+   */
   private boolean resolve(@Nullable ProgressIndicator indicator) {
-    int progress = 0;
+    Path cacheFile = BndResolutionCache.getCacheFile(myProject);
+    BndResolutionCache cache = BndResolutionCache.load(cacheFile);
+    Map<Project, Set<Project>> dependencies = getDependencies();
+    Map<Project, String> hashes = getHashes(dependencies);
+
+    Set<Project> toResolve = new LinkedHashSet<>();
     for (Project project : myProjects) {
-      LOG.info("resolving: " + project.getBase());
+      String hash = hashes.get(project);
+      BndProjectModel model = hash != null ? cache.get(project.getName(), hash) : null;
+      if (model != null) {
+        myModels.put(project, model);
+      }
+      else {
+        toResolve.add(project);
+      }
+    }
+    LOG.info("resolving " + toResolve.size() + " of " + myProjects.size() + " projects");
 
+    List<Project> toPrepare = sortByDependencies(withDependencies(toResolve, dependencies), dependencies);
+    Map<Project, BndProjectModel> resolved = new LinkedHashMap<>();
+    int progress = 0;
+    for (Project project : toPrepare) {
       if (indicator != null) {
         indicator.checkCanceled();
         indicator.setText(project.getName());
       }
 
       try {
+        LOG.info("resolving: " + project.getBase());
         project.prepare();
+        if (toResolve.contains(project)) {
+          resolved.put(project, BndProjectModel.create(project, JAVAC_SOURCE, JAVAC_TARGET));
+        }
       }
       catch (Exception e) {
-        checkErrors(project, e);
+        checkErrors(project.getName(), e);
         return false;
       }
 
-      checkWarnings(project, project.getErrors(), true);
-      checkWarnings(project, project.getWarnings(), false);
+      if (indicator != null) {
+        indicator.setFraction((double)(++progress) / toPrepare.size());
+      }
+    }
+
+    findSourceRoots(resolved.values(), indicator);
+    for (Map.Entry<Project, BndProjectModel> entry : resolved.entrySet()) {
+      Project project = entry.getKey();
+      BndProjectModel model = entry.getValue().withSourceRoots(file -> mySourcesMap.get(file.getPath()));
+      myModels.put(project, model);
+      myResolvedProjects.add(project.getName());
+      String hash = hashes.get(project);
+      if (hash != null) {
+        cache.put(hash, model);
+      }
+    }
+
+    cache.save(cacheFile);
+
+    for (Project project : myProjects) {
+      BndProjectModel model = myModels.get(project);
+      checkWarnings(model.name(), model.errors(), true);
+      checkWarnings(model.name(), model.warnings(), false);
+    }
+
+    return true;
+  }
+
+  /**
+   * Looks for sources in the jars of the models' classpaths on a bounded pool, filling {@link #mySourcesMap}.
+   */
+  private void findSourceRoots(Collection<BndProjectModel> models, @Nullable ProgressIndicator indicator) {
+    Set<File> jars = new LinkedHashSet<>();
+    for (BndProjectModel model : models) {
+      for (List<BndProjectModel.Dependency> classpath : List.of(model.bootclasspath(), model.buildpath(), model.testpath())) {
+        for (BndProjectModel.Dependency dependency : classpath) {
+          if (dependency.type() == Container.TYPE.REPO || dependency.type() == Container.TYPE.EXTERNAL) {
+            jars.add(dependency.file());
+          }
+        }
+      }
+    }
+    if (jars.isEmpty()) return;
 
-      findSources(project);
+    ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("BndProjectImporter", PARALLELISM);
+    try {
+      List<Future<?>> futures = new ArrayList<>(jars.size());
+      for (File jar : jars) {
+        futures.add(executor.submit(() -> findSourceRoot(jar)));
+      }
+      for (Future<?> future : futures) {
+        try {
+          await(future, indicator);
+        }
+        catch (ExecutionException e) {
+          LOG.info(e);  // the jar is left without sources
+        }
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
 
+  private static <T> T await(Future<T> future, @Nullable ProgressIndicator indicator) throws ExecutionException {
+    while (true) {
       if (indicator != null) {
-        indicator.setFraction((double)(++progress) / myProjects.size());
+        indicator.checkCanceled();
+      }
+      try {
+        return future.get(50, TimeUnit.MILLISECONDS);
+      }
+      catch (TimeoutException ignored) { }
+      catch (InterruptedException e) {
+        throw new ExecutionException(e);
       }
     }
+  }
 
-    return true;
+  /**
+   * Finds workspace projects each project depends on, without preparing them: {@code -buildpath}, {@code -testpath}
+   * and {@code -dependson} entries naming a workspace project or one of its sub-bundles.
+   */
+  private Map<Project, Set<Project>> getDependencies() {
+    Map<String, Project> byName = new HashMap<>();
+    for (Project project : getWorkspaceProjects(myWorkspace)) {
+      byName.put(project.getName(), project);
+    }
+    for (Project project : myProjects) {
+      byName.putIfAbsent(project.getName(), project);
+    }
+
+    Map<Project, Set<Project>> result = new HashMap<>();
+    Deque<Project> queue = new ArrayDeque<>(myProjects);
+    while (!queue.isEmpty()) {
+      Project project = queue.poll();
+      if (result.containsKey(project)) continue;
+
+      Set<Project> projectDependencies = new LinkedHashSet<>();
+      for (String header : DEPENDENCY_HEADERS) {
+        String value = project.getProperty(header);
+        if (value == null) continue;
+        for (String key : new Parameters(value).keySet()) {
+          Project dependency = findProject(byName, Processor.removeDuplicateMarker(key));
+          if (dependency != null && dependency != project) {
+            projectDependencies.add(dependency);
+          }
+        }
+      }
+      result.put(project, projectDependencies);
+      queue.addAll(projectDependencies);
+    }
+    return result;
   }
 
-  private void findSources(Project project) {
+  private static @Nullable Project findProject(Map<String, Project> byName, String bsn) {
+    for (String name = bsn; ; ) {
+      Project project = byName.get(name);
+      if (project != null) return project;
+      int dot = name.lastIndexOf('.');
+      if (dot <= 0) return null;
+      name = name.substring(0, dot);  // a sub-bundle of a project is named <project>.<sub-bundle>
+    }
+  }
+
+  private static Set<Project> withDependencies(Collection<Project> projects, Map<Project, Set<Project>> dependencies) {
+    Set<Project> result = new LinkedHashSet<>();
+    Deque<Project> queue = new ArrayDeque<>(projects);
+    while (!queue.isEmpty()) {
+      Project project = queue.poll();
+      if (result.add(project)) {
+        queue.addAll(dependencies.getOrDefault(project, Collections.emptySet()));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Orders projects so that every project goes after all the projects it depends on.
+   */
+  private static List<Project> sortByDependencies(Collection<Project> projects, Map<Project, Set<Project>> dependencies) {
+    List<Project> result = new ArrayList<>(projects.size());
+    Set<Project> remaining = new LinkedHashSet<>(projects);
+    while (!remaining.isEmpty()) {
+      List<Project> ready = ContainerUtil.filter(remaining, p -> !ContainerUtil.exists(dependencies.get(p), remaining::contains));
+      if (ready.isEmpty()) {
+        ready = List.of(remaining.iterator().next());  // a dependency cycle, bnd reports it when preparing the project
+      }
+      ready.forEach(remaining::remove);
+      result.addAll(ready);
+    }
+    return result;
+  }
+
+  /**
+   * A project's hash covers the contents of its bnd and bndrun files, the hashes of the projects it depends on, the workspace bnd files and
+   * the content of the workspace repositories. Returns an empty map when the workspace can't be hashed.
+   */
+  private Map<Project, String> getHashes(Map<Project, Set<Project>> dependencies) {
+    Map<Project, String> hashes = new HashMap<>();
     try {
-      findSources(project.getBootclasspath());
-      findSources(project.getBuildpath());
-      findSources(project.getTestpath());
-    }
-    catch (Exception ignored) { }
-  }
-
-  private void findSources(Collection<Container> classpath) {
-    for (Container dependency : classpath) {
-      Container.TYPE type = dependency.getType();
-      if (type == Container.TYPE.REPO || type == Container.TYPE.EXTERNAL) {
-        File file = dependency.getFile();
-        if (file.isFile() && FileUtilRt.extensionEquals(file.getName(), "jar")) {
-          String path = file.getPath();
-          if (!mySourcesMap.containsKey(path)) {
-            try (ZipFile zipFile = new ZipFile(file)) {
-              ZipEntry srcRoot = zipFile.getEntry(SRC_ROOT);
-              if (srcRoot != null) {
-                mySourcesMap.put(path, SRC_ROOT);
-              }
-            }
-            catch (IOException e) {
-              mySourcesMap.put(path, null);
-            }
+      MessageDigest digest = DigestUtil.sha256();
+      List<File> workspaceFiles = new ArrayList<>();
+      workspaceFiles.add(myWorkspace.getPropertiesFile());
+      workspaceFiles.addAll(ObjectUtils.notNull(myWorkspace.getIncluded(), Collections.emptySet()));
+      workspaceFiles.addAll(listBndFiles(myWorkspace.getBuildDir()));
+      workspaceFiles.addAll(listBndFiles(new File(myWorkspace.getBuildDir(), "ext")));
+      hashFiles(digest, workspaceFiles);
+      hashRepositories(digest);
+      byte[] workspaceHash = digest.digest();
+
+      for (Project project : myProjects) {
+        getHash(project, workspaceHash, dependencies, hashes, new HashSet<>());
+      }
+    }
+    catch (Exception e) {
+      LOG.info("Can't hash bnd workspace, resolving all projects", e);
+      hashes.clear();
+    }
+    return hashes;
+  }
+
+  private static String getHash(Project project,
+                                byte[] workspaceHash,
+                                Map<Project, Set<Project>> dependencies,
+                                Map<Project, String> hashes,
+                                Set<Project> visiting) throws IOException {
+    String hash = hashes.get(project);
+    if (hash != null) return hash;
+    if (!visiting.add(project)) return project.getName();  // a dependency cycle
+
+    MessageDigest digest = DigestUtil.sha256();
+    digest.update(workspaceHash);
+    List<File> files = listBndFiles(project.getBase());
+    files.addAll(ObjectUtils.notNull(project.getIncluded(), Collections.emptySet()));
+    hashFiles(digest, files);
+    List<Project> projectDependencies = new ArrayList<>(dependencies.getOrDefault(project, Collections.emptySet()));
+    projectDependencies.sort(Comparator.comparing(Project::getName));
+    for (Project dependency : projectDependencies) {
+      digest.update(getHash(dependency, workspaceHash, dependencies, hashes, visiting).getBytes(StandardCharsets.UTF_8));
+    }
+    hash = StringUtil.toHexString(digest.digest());
+    hashes.put(project, hash);
+    return hash;
+  }
+
+  /**
+   * Lists {@code .bnd} and {@code .bndrun} files of the directory, so that editing any of them invalidates the hash.
+   */
+  private static List<File> listBndFiles(File dir) {
+    File[] files = dir.listFiles(file -> file.isFile() && (FileUtilRt.extensionEquals(file.getName(), "bnd") ||
+                                                           FileUtilRt.extensionEquals(file.getName(), "bndrun")));
+    return files != null ? new ArrayList<>(Arrays.asList(files)) : new ArrayList<>();
+  }
+
+  private static void hashFiles(MessageDigest digest, List<File> files) throws IOException {
+    Set<File> sorted = new TreeSet<>(Comparator.comparing(File::getPath));
+    sorted.addAll(files);
+    for (File file : sorted) {
+      digest.update(file.getPath().getBytes(StandardCharsets.UTF_8));
+      if (file.isFile()) {
+        digest.update(Files.readAllBytes(file.toPath()));
+      }
+    }
+  }
+
+  private void hashRepositories(MessageDigest digest) throws Exception {
+    for (RepositoryPlugin repository : myWorkspace.getPlugins(RepositoryPlugin.class)) {
+      if (repository instanceof WorkspaceRepository) continue;  // workspace projects are covered by their bnd files
+      digest.update((repository.getName() + "\n" + repository.getLocation() + "\n").getBytes(StandardCharsets.UTF_8));
+      List<String> bsns = repository.list(null);
+      if (bsns == null) continue;
+      for (String bsn : new TreeSet<>(bsns)) {
+        digest.update(bsn.getBytes(StandardCharsets.UTF_8));
+        SortedSet<Version> versions = repository.versions(bsn);
+        if (versions != null) {
+          for (Version version : versions) {
+            digest.update(version.toString().getBytes(StandardCharsets.UTF_8));
           }
         }
       }
     }
   }
 
+  private @Nullable String findSourceRoot(File file) {
+    if (!file.isFile() || !FileUtilRt.extensionEquals(file.getName(), "jar")) {
+      return null;
+    }
+    String path = file.getPath();
+    if (mySourcesMap.containsKey(path)) {
+      return mySourcesMap.get(path);
+    }
+    String srcRoot = null;
+    try (ZipFile zipFile = new ZipFile(file)) {
+      ZipEntry entry = zipFile.getEntry(SRC_ROOT);
+      if (entry != null) {
+        srcRoot = SRC_ROOT;
+      }
+    }
+    catch (IOException ignored) { }
+    mySourcesMap.put(path, srcRoot);
+    return srcRoot;
+  }
+
+  @TestOnly
+  @NotNull List<String> getResolvedProjects() {
+    return myResolvedProjects;
+  }
+
   private void createProjectStructure() {
     if (myProject.isDisposed()) {
       return;
@@ -226,25 +498,16 @@ public final class BndProjectImporter {
 
     ApplicationManager.getApplication().runWriteAction(() -> {
       LanguageLevel projectLevel = LanguageLevelProjectExtension.getInstance(myProject).getLanguageLevel();
-      Map<Project, ModifiableRootModel> rootModels = new HashMap<>();
+      Map<BndProjectModel, ModifiableRootModel> rootModels = new LinkedHashMap<>();
       ModifiableModuleModel moduleModel = ModuleManager.getInstance(myProject).getModifiableModel();
       LibraryTable.ModifiableModel libraryModel = LibraryTablesRegistrar.getInstance().getLibraryTable(myProject).getModifiableModel();
       try {
         for (Project project : myProjects) {
-          try {
-            rootModels.put(project, createModule(moduleModel, project, projectLevel));
-          }
-          catch (Exception e) {
-            LOG.error(e);  // should not happen, since project.prepare() is already called
-          }
+          BndProjectModel model = myModels.get(project);
+          rootModels.put(model, createModule(moduleModel, model, projectLevel));
         }
-        for (Project project : myProjects) {
-          try {
-            setDependencies(moduleModel, libraryModel, rootModels.get(project), project);
-          }
-          catch (Exception e) {
-            LOG.error(e);  // should not happen, since project.prepare() is already called
-          }
+        for (Map.Entry<BndProjectModel, ModifiableRootModel> entry : rootModels.entrySet()) {
+          setDependencies(moduleModel, libraryModel, entry.getValue(), entry.getKey());
         }
       }
       finally {
@@ -254,11 +517,11 @@ public final class BndProjectImporter {
     });
   }
 
-  private ModifiableRootModel createModule(ModifiableModuleModel moduleModel, Project project, LanguageLevel projectLevel) throws Exception {
-    String name = project.getName();
+  private ModifiableRootModel createModule(ModifiableModuleModel moduleModel, BndProjectModel project, LanguageLevel projectLevel) {
+    String name = project.name();
     Module module = moduleModel.findModuleByName(name);
     if (module == null) {
-      String path = project.getBase().getPath() + File.separator + name + ModuleFileType.DOT_DEFAULT_EXTENSION;
+      String path = project.base().getPath() + File.separator + name + ModuleFileType.DOT_DEFAULT_EXTENSION;
       module = moduleModel.newModule(path, StdModuleTypes.JAVA.getId());
     }
 
@@ -273,36 +536,36 @@ public final class BndProjectImporter {
     }
     rootModel.inheritSdk();
 
-    ContentEntry contentEntry = rootModel.addContentEntry(url(project.getBase()));
-    for (File src : project.getSourcePath()) {
+    ContentEntry contentEntry = rootModel.addContentEntry(url(project.base()));
+    for (File src : project.sourcePath()) {
       contentEntry.addSourceFolder(url(src), false);
     }
-    File testSrc = project.getTestSrc();
+    File testSrc = project.testSrc();
     if (testSrc != null) {
       contentEntry.addSourceFolder(url(testSrc), true);
     }
-    contentEntry.addExcludeFolder(url(project.getTarget()));
+    contentEntry.addExcludeFolder(url(project.target()));
 
-    LanguageLevel sourceLevel = LanguageLevel.parse(project.getProperty(JAVAC_SOURCE));
+    LanguageLevel sourceLevel = LanguageLevel.parse(project.sourceLevel());
     if (sourceLevel == projectLevel) sourceLevel = null;
     rootModel.getModuleExtension(LanguageLevelModuleExtension.class).setLanguageLevel(sourceLevel);
 
     CompilerModuleExtension compilerExt = rootModel.getModuleExtension(CompilerModuleExtension.class);
     compilerExt.inheritCompilerOutputPath(false);
     compilerExt.setExcludeOutput(true);
-    compilerExt.setCompilerOutputPath(url(project.getSrcOutput()));
-    compilerExt.setCompilerOutputPathForTests(url(project.getTestOutput()));
+    compilerExt.setCompilerOutputPath(url(project.srcOutput()));
+    compilerExt.setCompilerOutputPathForTests(url(project.testOutput()));
 
-    String targetLevel = project.getProperty(JAVAC_TARGET);
+    String targetLevel = project.targetLevel();
     CompilerConfiguration.getInstance(myProject).setBytecodeTargetLevel(module, targetLevel);
 
     OsmorcFacet facet = OsmorcFacet.getInstance(module);
 
-    if (project.isNoBundles() && facet != null) {
+    if (project.noBundles() && facet != null) {
       FacetUtil.deleteFacet(facet);
       facet = null;
     }
-    else if (!project.isNoBundles() && facet == null) {
+    else if (!project.noBundles() && facet == null) {
       facet = FacetUtil.addFacet(module, OsmorcFacetType.getInstance());
     }
 
@@ -310,11 +573,8 @@ public final class BndProjectImporter {
       OsmorcFacetConfiguration facetConfig = facet.getConfiguration();
 
       facetConfig.setManifestGenerationMode(ManifestGenerationMode.Bnd);
-      facetConfig.setBndFileLocation(FileUtil.getRelativePath(path(project.getBase()), path(project.getPropertiesFile()), '/'));
-
-      Map.Entry<String, Attrs> bsn = project.getBundleSymbolicName();
-      File bundle = project.getOutputFile(bsn != null ? bsn.getKey() : name, project.getBundleVersion());
-      facetConfig.setJarFileLocation(path(bundle), OutputPathType.SpecificOutputPath);
+      facetConfig.setBndFileLocation(FileUtil.getRelativePath(path(project.base()), path(project.propertiesFile()), '/'));
+      facetConfig.setJarFileLocation(path(project.outputFile()), OutputPathType.SpecificOutputPath);
 
       facetConfig.setDoNotSynchronizeWithMaven(true);
     }
@@ -325,11 +585,11 @@ public final class BndProjectImporter {
   private void setDependencies(ModifiableModuleModel moduleModel,
                                LibraryTable.ModifiableModel libraryModel,
                                ModifiableRootModel rootModel,
-                               Project project) throws Exception {
+                               BndProjectModel project) {
     List<String> warnings = new ArrayList<>();
 
-    Collection<Container> boot = project.getBootclasspath();
-    Set<Container> bootSet = Collections.emptySet();
+    List<BndProjectModel.Dependency> boot = project.bootclasspath();
+    Set<BndProjectModel.Dependency> bootSet = Collections.emptySet();
     if (!boot.isEmpty()) {
       setDependencies(moduleModel, libraryModel, rootModel, project, boot, false, bootSet, warnings);
       bootSet = new HashSet<>(boot);
@@ -341,26 +601,26 @@ public final class BndProjectImporter {
       }
     }
 
-    setDependencies(moduleModel, libraryModel, rootModel, project, project.getBuildpath(), false, bootSet, warnings);
-    setDependencies(moduleModel, libraryModel, rootModel, project, project.getTestpath(), true, bootSet, warnings);
+    setDependencies(moduleModel, libraryModel, rootModel, project, project.buildpath(), false, bootSet, warnings);
+    setDependencies(moduleModel, libraryModel, rootModel, project, project.testpath(), true, bootSet, warnings);
 
-    checkWarnings(project, warnings, false);
+    checkWarnings(project.name(), warnings, false);
   }
 
   private void setDependencies(ModifiableModuleModel moduleModel,
                                LibraryTable.ModifiableModel libraryModel,
                                ModifiableRootModel rootModel,
-                               Project project,
-                               Collection<Container> classpath,
+                               BndProjectModel project,
+                               List<BndProjectModel.Dependency> classpath,
                                boolean tests,
-                               Set<Container> excluded,
+                               Set<BndProjectModel.Dependency> excluded,
                                List<String> warnings) {
     DependencyScope scope = tests ? DependencyScope.TEST : DependencyScope.COMPILE;
-    for (Container dependency : classpath) {
+    for (BndProjectModel.Dependency dependency : classpath) {
       if (excluded.contains(dependency)) {
         continue;  // skip boot path dependency
       }
-      if (dependency.getType() == Container.TYPE.PROJECT && project == dependency.getProject()) {
+      if (dependency.type() == Container.TYPE.PROJECT && project.name().equals(dependency.project())) {
         continue;  // skip self-reference
       }
       try {
@@ -375,11 +635,11 @@ public final class BndProjectImporter {
   private void addEntry(ModifiableModuleModel moduleModel,
                         LibraryTable.ModifiableModel libraryModel,
                         ModifiableRootModel rootModel,
-                        Container dependency,
+                        BndProjectModel.Dependency dependency,
                         DependencyScope scope) throws IllegalArgumentException {
-    File file = dependency.getFile();
-    String bsn = dependency.getBundleSymbolicName();
-    String version = dependency.getVersion();
+    File file = dependency.file();
+    String bsn = dependency.bsn();
+    String version = dependency.version();
 
     String path = file.getPath();
     if (path.contains(": ")) {
@@ -412,9 +672,9 @@ public final class BndProjectImporter {
 
     ExportableOrderEntry entry;
 
-    switch (dependency.getType()) {
+    switch (dependency.type()) {
       case PROJECT -> {
-        String name = dependency.getProject().getName();
+        String name = dependency.project();
         Module module = moduleModel.findModuleByName(name);
         if (module == null) {
           throw new IllegalArgumentException("Unknown module '" + name + "'");
@@ -436,7 +696,7 @@ public final class BndProjectImporter {
         for (String url : model.getUrls(OrderRootType.CLASSES)) model.removeRoot(url, OrderRootType.CLASSES);
         for (String url : model.getUrls(OrderRootType.SOURCES)) model.removeRoot(url, OrderRootType.SOURCES);
         model.addRoot(url(file), OrderRootType.CLASSES);
-        String srcRoot = mySourcesMap.get(path);
+        String srcRoot = dependency.sourceRoot();
         if (srcRoot != null) {
           model.addRoot(url(file) + srcRoot, OrderRootType.SOURCES);
         }
@@ -448,7 +708,7 @@ public final class BndProjectImporter {
         Library library = rootModel.getModuleLibraryTable().createLibrary(file.getName());
         Library.ModifiableModel model = library.getModifiableModel();
         model.addRoot(url(file), OrderRootType.CLASSES);
-        String srcRoot = mySourcesMap.get(path);
+        String srcRoot = dependency.sourceRoot();
         if (srcRoot != null) {
           model.addRoot(url(file) + srcRoot, OrderRootType.SOURCES);
         }
@@ -456,17 +716,17 @@ public final class BndProjectImporter {
         entry = rootModel.findLibraryOrderEntry(library);
         assert entry != null : library;
       }
-      default -> throw new IllegalArgumentException("Unknown dependency '" + dependency + "' of type " + dependency.getType());
+      default -> throw new IllegalArgumentException("Unknown dependency '" + dependency + "' of type " + dependency.type());
     }
 
     entry.setScope(scope);
   }
 
-  private void checkErrors(Project project, Exception e) {
+  private void checkErrors(String projectName, Exception e) {
     if (!isUnitTestMode()) {
       String text;
       LOG.warn(e);
-      text = message("bnd.import.resolve.error", project.getName(), e.getMessage());
+      text = message("bnd.import.resolve.error", projectName, e.getMessage());
       OsmorcBundle.bnd(message("bnd.import.error.title"), text, NotificationType.ERROR).notify(myProject);
     }
     else {
@@ -474,11 +734,11 @@ public final class BndProjectImporter {
     }
   }
 
-  private void checkWarnings(Project project, List<String> warnings, boolean error) {
+  private void checkWarnings(String projectName, List<String> warnings, boolean error) {
     if (warnings != null && !warnings.isEmpty()) {
       if (!isUnitTestMode()) {
         LOG.warn(warnings.toString());
-        String text = message("bnd.import.warn.text", project.getName(), "<br>" + StringUtil.join(warnings, "<br>"));
+        String text = message("bnd.import.warn.text", projectName, "<br>" + StringUtil.join(warnings, "<br>"));
         NotificationType type = error ? NotificationType.ERROR : NotificationType.WARNING;
         OsmorcBundle.bnd(message("bnd.import.warn.title"), text, type).notify(myProject);
       }
@@ -0,0 +1,196 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.osgi.bnd.imp;
+
+import aQute.bnd.build.Container;
+import aQute.bnd.build.Project;
+import aQute.bnd.header.Attrs;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.io.IOUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Everything the importer needs to know about a resolved bnd project to set up its module.
+ * Unlike {@link Project} it doesn't need bnd to be read, so it can be stored between imports.
+ */
+record BndProjectModel(@NotNull String name,
+                       @NotNull File base,
+                       @NotNull List<File> sourcePath,
+                       @Nullable File testSrc,
+                       @NotNull File target,
+                       @NotNull File srcOutput,
+                       @NotNull File testOutput,
+                       boolean noBundles,
+                       @NotNull File propertiesFile,
+                       @NotNull File outputFile,
+                       @Nullable String sourceLevel,
+                       @Nullable String targetLevel,
+                       @NotNull List<Dependency> bootclasspath,
+                       @NotNull List<Dependency> buildpath,
+                       @NotNull List<Dependency> testpath,
+                       @NotNull List<String> errors,
+                       @NotNull List<String> warnings) {
+
+  /**
+   * A resolved {@link Container} of a classpath.
+   *
+   * @param project    the name of the project the dependency refers to, for {@link Container.TYPE#PROJECT} dependencies
+   * @param sourceRoot the root of sources inside a jar file, if it has them
+   */
+  record Dependency(@NotNull Container.TYPE type,
+                    @NotNull File file,
+                    @Nullable String bsn,
+                    @Nullable String version,
+                    @Nullable String project,
+                    @Nullable String sourceRoot) {
+  }
+
+  /**
+   * Must be called on a prepared project.
+   */
+  static @NotNull BndProjectModel create(@NotNull Project project,
+                                         @NotNull String sourceLevelProperty,
+                                         @NotNull String targetLevelProperty) throws Exception {
+    String name = project.getName();
+    Map.Entry<String, Attrs> bsn = project.getBundleSymbolicName();
+    File outputFile = project.getOutputFile(bsn != null ? bsn.getKey() : name, project.getBundleVersion());
+    return new BndProjectModel(name, project.getBase(), List.copyOf(project.getSourcePath()), project.getTestSrc(), project.getTarget(),
+                               project.getSrcOutput(), project.getTestOutput(), project.isNoBundles(), project.getPropertiesFile(),
+                               outputFile, project.getProperty(sourceLevelProperty), project.getProperty(targetLevelProperty),
+                               dependencies(project.getBootclasspath()), dependencies(project.getBuildpath()),
+                               dependencies(project.getTestpath()), List.copyOf(project.getErrors()), List.copyOf(project.getWarnings()));
+  }
+
+  private static List<Dependency> dependencies(Collection<Container> classpath) {
+    List<Dependency> result = new ArrayList<>(classpath.size());
+    for (Container container : classpath) {
+      Container.TYPE type = container.getType();
+      Project project = type == Container.TYPE.PROJECT ? container.getProject() : null;
+      result.add(new Dependency(type, container.getFile(), container.getBundleSymbolicName(), container.getVersion(),
+                                project != null ? project.getName() : null, null));
+    }
+    return result;
+  }
+
+  /**
+   * Returns a copy with source roots of {@link Container.TYPE#REPO} and {@link Container.TYPE#EXTERNAL} dependencies
+   * looked up in {@code sourceRoots}, which doesn't need bnd.
+   */
+  @NotNull BndProjectModel withSourceRoots(@NotNull Function<File, String> sourceRoots) {
+    return new BndProjectModel(name, base, sourcePath, testSrc, target, srcOutput, testOutput, noBundles, propertiesFile, outputFile,
+                               sourceLevel, targetLevel, withSourceRoots(bootclasspath, sourceRoots),
+                               withSourceRoots(buildpath, sourceRoots), withSourceRoots(testpath, sourceRoots), errors, warnings);
+  }
+
+  private static List<Dependency> withSourceRoots(List<Dependency> classpath, Function<File, String> sourceRoots) {
+    List<Dependency> result = new ArrayList<>(classpath.size());
+    for (Dependency dependency : classpath) {
+      Container.TYPE type = dependency.type();
+      String sourceRoot = type == Container.TYPE.REPO || type == Container.TYPE.EXTERNAL ? sourceRoots.apply(dependency.file()) : null;
+      result.add(new Dependency(type, dependency.file(), dependency.bsn(), dependency.version(), dependency.project(), sourceRoot));
+    }
+    return result;
+  }
+
+  void save(@NotNull DataOutput out) throws IOException {
+    IOUtil.writeUTF(out, name);
+    writeFile(out, base);
+    out.writeInt(sourcePath.size());
+    for (File file : sourcePath) writeFile(out, file);
+    writeNullable(out, testSrc != null ? testSrc.getPath() : null);
+    writeFile(out, target);
+    writeFile(out, srcOutput);
+    writeFile(out, testOutput);
+    out.writeBoolean(noBundles);
+    writeFile(out, propertiesFile);
+    writeFile(out, outputFile);
+    writeNullable(out, sourceLevel);
+    writeNullable(out, targetLevel);
+    writeDependencies(out, bootclasspath);
+    writeDependencies(out, buildpath);
+    writeDependencies(out, testpath);
+    writeStrings(out, errors);
+    writeStrings(out, warnings);
+  }
+
+  static @NotNull BndProjectModel read(@NotNull DataInput in) throws IOException {
+    String name = IOUtil.readUTF(in);
+    File base = readFile(in);
+    int sourcePathSize = in.readInt();
+    List<File> sourcePath = new ArrayList<>(sourcePathSize);
+    for (int i = 0; i < sourcePathSize; i++) sourcePath.add(readFile(in));
+    String testSrc = readNullable(in);
+    return new BndProjectModel(name, base, sourcePath, testSrc != null ? new File(testSrc) : null, readFile(in), readFile(in), readFile(in),
+                               in.readBoolean(), readFile(in), readFile(in), readNullable(in), readNullable(in),
+                               readDependencies(in), readDependencies(in), readDependencies(in), readStrings(in), readStrings(in));
+  }
+
+  private static void writeDependencies(DataOutput out, List<Dependency> dependencies) throws IOException {
+    out.writeInt(dependencies.size());
+    for (Dependency dependency : dependencies) {
+      IOUtil.writeUTF(out, dependency.type().name());
+      writeFile(out, dependency.file());
+      writeNullable(out, dependency.bsn());
+      writeNullable(out, dependency.version());
+      writeNullable(out, dependency.project());
+      writeNullable(out, dependency.sourceRoot());
+    }
+  }
+
+  private static List<Dependency> readDependencies(DataInput in) throws IOException {
+    int size = in.readInt();
+    List<Dependency> result = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      Container.TYPE type;
+      try {
+        type = Container.TYPE.valueOf(IOUtil.readUTF(in));
+      }
+      catch (IllegalArgumentException e) {
+        throw new IOException(e);
+      }
+      result.add(new Dependency(type, readFile(in), readNullable(in), readNullable(in), readNullable(in), readNullable(in)));
+    }
+    return result;
+  }
+
+  private static void writeStrings(DataOutput out, List<String> strings) throws IOException {
+    out.writeInt(strings.size());
+    for (String s : strings) IOUtil.writeUTF(out, s);
+  }
+
+  private static List<String> readStrings(DataInput in) throws IOException {
+    int size = in.readInt();
+    List<String> result = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) result.add(IOUtil.readUTF(in));
+    return result;
+  }
+
+  private static void writeFile(DataOutput out, File file) throws IOException {
+    IOUtil.writeUTF(out, FileUtil.toSystemIndependentName(file.getPath()));
+  }
+
+  private static File readFile(DataInput in) throws IOException {
+    return new File(FileUtil.toSystemDependentName(IOUtil.readUTF(in)));
+  }
+
+  private static void writeNullable(DataOutput out, @Nullable String s) throws IOException {
+    out.writeBoolean(s != null);
+    if (s != null) {
+      IOUtil.writeUTF(out, s);
+    }
+  }
+
+  private static @Nullable String readNullable(DataInput in) throws IOException {
+    return in.readBoolean() ? IOUtil.readUTF(in) : null;
+  }
+}
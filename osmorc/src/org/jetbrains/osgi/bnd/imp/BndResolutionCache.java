@@ -0,0 +1,83 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.osgi.bnd.imp;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.io.IOUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolved bnd projects of one IDE project, stored between imports. Each project is stored with the hash of everything its
+ * resolution depends on (see {@link BndProjectImporter}), and is only restored while the hash stays the same.
+ */
+final class BndResolutionCache {
+  private static final Logger LOG = Logger.getInstance(BndResolutionCache.class);
+  private static final int VERSION = 1;
+
+  private record Entry(@NotNull String hash, @NotNull BndProjectModel model) { }
+
+  private final Map<String, Entry> myEntries = new HashMap<>();
+  private boolean myModified;
+
+  static @NotNull Path getCacheFile(@NotNull com.intellij.openapi.project.Project project) {
+    return PathManager.getSystemDir().resolve("bnd").resolve(project.getLocationHash() + ".dat");
+  }
+
+  synchronized @Nullable BndProjectModel get(@NotNull String name, @NotNull String hash) {
+    Entry entry = myEntries.get(name);
+    return entry != null && entry.hash().equals(hash) ? entry.model() : null;
+  }
+
+  synchronized void put(@NotNull String hash, @NotNull BndProjectModel model) {
+    myEntries.put(model.name(), new Entry(hash, model));
+    myModified = true;
+  }
+
+  synchronized void save(@NotNull Path file) {
+    if (!myModified) return;
+    try {
+      Files.createDirectories(file.getParent());
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+        out.writeInt(VERSION);
+        out.writeInt(myEntries.size());
+        for (Entry entry : myEntries.values()) {
+          IOUtil.writeUTF(out, entry.hash());
+          entry.model().save(out);
+        }
+      }
+      myModified = false;
+    }
+    catch (IOException e) {
+      LOG.info("Can't save bnd resolution cache to " + file, e);
+    }
+  }
+
+  static @NotNull BndResolutionCache load(@NotNull Path file) {
+    BndResolutionCache cache = new BndResolutionCache();
+    if (!Files.isRegularFile(file)) return cache;
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != VERSION) {
+        return cache;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String hash = IOUtil.readUTF(in);
+        BndProjectModel model = BndProjectModel.read(in);
+        cache.myEntries.put(model.name(), new Entry(hash, model));
+      }
+    }
+    catch (IOException e) {
+      LOG.info("Can't load bnd resolution cache from " + file, e);
+      cache.myEntries.clear();
+    }
+    return cache;
+  }
+}
@@ -9,9 +9,11 @@ import com.intellij.openapi.application.runWriteAction
 import com.intellij.openapi.module.Module
 import com.intellij.openapi.module.ModuleManager
 import com.intellij.openapi.roots.*
+import com.intellij.openapi.util.io.FileUtil
 import com.intellij.openapi.vfs.VfsUtilCore
 import com.intellij.pom.java.LanguageLevel
 import com.intellij.testFramework.JavaProjectTestCase
+import com.intellij.testFramework.PlatformTestUtil
 import org.assertj.core.api.Assertions.assertThat
 import org.jetbrains.osgi.jps.model.ManifestGenerationMode
 import org.osmorc.facet.OsmorcFacet
@@ -158,6 +160,53 @@ class BndProjectImporterTest : JavaProjectTestCase() {
     assertNotNull(OsmorcFacet.getInstance(module))
   }
 
+  fun testIncrementalImport() {
+    val count = 200
+    for (i in 0 until count) {
+      File(myProjectDir, "gen.p$i/src").mkdirs()
+      val buildpath = setOf(i - 1, i / 2).filter { it in 0 until i }.joinToString(",") { "gen.p$it" }
+      File(myProjectDir, "gen.p$i/bnd.bnd").writeText(if (buildpath.isEmpty()) "" else "-buildpath: $buildpath")
+    }
+    val workspace = Workspace(File(myProjectDir), BndProjectImporter.CNF_DIR)
+    val cacheFile = BndResolutionCache.getCacheFile(myProject)
+
+    var resolved = emptyList<String>()
+    PlatformTestUtil.startPerformanceTest("Full import of $count bnd projects", 60_000) {
+      FileUtil.delete(cacheFile)
+      resolved = reimport(workspace).resolvedProjects
+    }.assertTiming()
+    assertEquals(count + 3, resolved.size)
+
+    PlatformTestUtil.startPerformanceTest("Incremental import of $count unchanged bnd projects", 5_000) {
+      resolved = reimport(workspace).resolvedProjects
+    }.assertTiming()
+    assertEmpty(resolved)
+    val module = ModuleManager.getInstance(myProject).findModuleByName("gen.p5")!!
+    assertThat(getDependencies(module)).containsExactly("<jdk>", "<src>", "gen.p4", "gen.p2")
+
+    File(myProjectDir, "gen.p${count - 1}/bnd.bnd").writeText("-buildpath: gen.p0")
+    assertThat(reimport(workspace).resolvedProjects).containsExactly("gen.p${count - 1}")
+
+    File(myProjectDir, "gen.p${count - 2}/launch.bndrun").writeText("-runfw: org.apache.felix.framework")
+    assertThat(reimport(workspace).resolvedProjects).containsExactly("gen.p${count - 2}")
+
+    File(myProjectDir, "gen.p1/bnd.bnd").writeText("-buildpath: gen.p0\njavac.source: 1.7")
+    assertThat(reimport(workspace).resolvedProjects).hasSize(count - 1)
+    val changed = ModuleManager.getInstance(myProject).findModuleByName("gen.p1")!!
+    val languageLevel = ModuleRootManager.getInstance(changed).getModuleExtension(LanguageLevelModuleExtension::class.java).languageLevel
+    assertEquals(LanguageLevel.JDK_1_7, languageLevel)
+  }
+
+  private fun reimport(workspace: Workspace): BndProjectImporter {
+    workspace.clear()
+    workspace.forceRefresh()
+    val projects = BndProjectImporter.getWorkspaceProjects(workspace)
+    projects.forEach {
+      it.clear()
+      it.forceRefresh()
+    }
+    return BndProjectImporter(myProject, workspace, projects).also { it.resolve(false) }
+  }
 
   private fun getDependencies(it: Module): List<String> {
     val dependencies: MutableList<String> = arrayListOf()
@@ -14,5 +14,4 @@ public interface PostCssElementTypes {
   CssStylesheetLazyElementType POST_CSS_LAZY_STYLESHEET = new CssStylesheetLazyElementType("POST_CSS_LAZY_STYLESHEET", PostCssLanguage.INSTANCE);
 
   IElementType POST_CSS_SIMPLE_VARIABLE = new PostCssElementType("POST_CSS_SIMPLE_VARIABLE");
-  IElementType POST_CSS_SIMPLE_VARIABLE_DECLARATION = new PostCssElementType("POST_CSS_SIMPLE_VARIABLE_DECLARATION");
 }
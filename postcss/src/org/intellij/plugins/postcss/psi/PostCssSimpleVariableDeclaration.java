@@ -18,4 +18,10 @@ public interface PostCssSimpleVariableDeclaration extends CssNamedElement, PsiNa
 
   @Nullable
   CssTermList getInitializer();
+
+  /**
+   * @return the text of the initializer, available without loading the AST
+   */
+  @NotNull
+  String getInitializerText();
 }
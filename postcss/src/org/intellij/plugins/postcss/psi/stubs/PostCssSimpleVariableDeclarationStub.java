@@ -0,0 +1,25 @@
+package org.intellij.plugins.postcss.psi.stubs;
+
+import com.intellij.psi.css.impl.stubs.base.CssNamedStub;
+import com.intellij.psi.stubs.IStubElementType;
+import com.intellij.psi.stubs.StubElement;
+import org.intellij.plugins.postcss.psi.PostCssSimpleVariableDeclaration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public class PostCssSimpleVariableDeclarationStub extends CssNamedStub<PostCssSimpleVariableDeclaration> {
+  private final String myInitializerText;
+
+  public PostCssSimpleVariableDeclarationStub(StubElement parent,
+                                              @NotNull IStubElementType elementType,
+                                              @Nullable String name,
+                                              @NotNull String initializerText) {
+    super(parent, elementType, name);
+    myInitializerText = initializerText;
+  }
+
+  @NotNull
+  public String getInitializerText() {
+    return myInitializerText;
+  }
+}
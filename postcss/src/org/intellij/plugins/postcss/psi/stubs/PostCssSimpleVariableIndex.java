@@ -0,0 +1,16 @@
+package org.intellij.plugins.postcss.psi.stubs;
+
+import com.intellij.psi.stubs.StringStubIndexExtension;
+import com.intellij.psi.stubs.StubIndexKey;
+import org.intellij.plugins.postcss.psi.PostCssSimpleVariableDeclaration;
+import org.jetbrains.annotations.NotNull;
+
+public class PostCssSimpleVariableIndex extends StringStubIndexExtension<PostCssSimpleVariableDeclaration> {
+  public static final StubIndexKey<String, PostCssSimpleVariableDeclaration> KEY = StubIndexKey.createIndexKey("postcss.simple.variable");
+
+  @NotNull
+  @Override
+  public StubIndexKey<String, PostCssSimpleVariableDeclaration> getKey() {
+    return KEY;
+  }
+}
@@ -0,0 +1,63 @@
+package org.intellij.plugins.postcss.psi.stubs.types;
+
+import com.intellij.lang.ASTNode;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.css.CssTermList;
+import com.intellij.psi.css.impl.stubs.base.CssNamedStub;
+import com.intellij.psi.css.impl.stubs.base.CssSimpleNamedStubElementType;
+import com.intellij.psi.stubs.IndexSink;
+import com.intellij.psi.stubs.StubElement;
+import com.intellij.psi.stubs.StubInputStream;
+import com.intellij.psi.stubs.StubOutputStream;
+import org.intellij.plugins.postcss.PostCssLanguage;
+import org.intellij.plugins.postcss.psi.PostCssSimpleVariableDeclaration;
+import org.intellij.plugins.postcss.psi.impl.PostCssSimpleVariableDeclarationImpl;
+import org.intellij.plugins.postcss.psi.stubs.PostCssSimpleVariableDeclarationStub;
+import org.intellij.plugins.postcss.psi.stubs.PostCssSimpleVariableIndex;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+public class PostCssSimpleVariableDeclarationStubElementType extends CssSimpleNamedStubElementType<PostCssSimpleVariableDeclaration> {
+
+  public PostCssSimpleVariableDeclarationStubElementType(@NonNls @NotNull String debugName) {
+    super(debugName, PostCssLanguage.INSTANCE);
+  }
+
+  @Override
+  public PsiElement createElement(ASTNode node) {
+    return new PostCssSimpleVariableDeclarationImpl(node);
+  }
+
+  @Override
+  public PostCssSimpleVariableDeclaration createPsi(@NotNull CssNamedStub<PostCssSimpleVariableDeclaration> stub) {
+    return new PostCssSimpleVariableDeclarationImpl(stub, this);
+  }
+
+  @NotNull
+  @Override
+  public CssNamedStub<PostCssSimpleVariableDeclaration> createStub(@NotNull PostCssSimpleVariableDeclaration psi, StubElement parentStub) {
+    CssTermList initializer = psi.getInitializer();
+    return new PostCssSimpleVariableDeclarationStub(parentStub, this, psi.getName(), initializer != null ? initializer.getText() : "");
+  }
+
+  @Override
+  public void serialize(@NotNull CssNamedStub<PostCssSimpleVariableDeclaration> stub, @NotNull StubOutputStream dataStream)
+    throws IOException {
+    dataStream.writeName(stub.getName());
+    dataStream.writeUTFFast(((PostCssSimpleVariableDeclarationStub)stub).getInitializerText());
+  }
+
+  @NotNull
+  @Override
+  public CssNamedStub<PostCssSimpleVariableDeclaration> deserialize(@NotNull StubInputStream dataStream, StubElement parentStub)
+    throws IOException {
+    return new PostCssSimpleVariableDeclarationStub(parentStub, this, dataStream.readNameString(), dataStream.readUTFFast());
+  }
+
+  @Override
+  public void indexStub(@NotNull final CssNamedStub<PostCssSimpleVariableDeclaration> stub, @NotNull final IndexSink sink) {
+    sink.occurrence(PostCssSimpleVariableIndex.KEY, stub.getName());
+  }
+}
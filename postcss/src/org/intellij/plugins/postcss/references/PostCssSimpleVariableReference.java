@@ -3,9 +3,12 @@ package org.intellij.plugins.postcss.references;
 import com.intellij.codeInsight.lookup.LookupElement;
 import com.intellij.codeInsight.lookup.LookupElementBuilder;
 import com.intellij.icons.AllIcons;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiFileFactory;
@@ -13,18 +16,27 @@ import com.intellij.psi.PsiReferenceBase;
 import com.intellij.psi.css.*;
 import com.intellij.psi.css.impl.util.CssUtil;
 import com.intellij.psi.css.reference.CssReference;
+import com.intellij.psi.impl.source.PsiFileImpl;
 import com.intellij.psi.impl.source.resolve.ResolveCache;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.stubs.StubElement;
+import com.intellij.psi.stubs.StubIndex;
+import com.intellij.psi.stubs.StubTree;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.IncorrectOperationException;
 import com.intellij.util.Processor;
 import com.intellij.util.SmartList;
 import org.intellij.plugins.postcss.PostCssLanguage;
+import org.intellij.plugins.postcss.PostCssStubElementTypes;
 import org.intellij.plugins.postcss.lexer.PostCssTokenTypes;
 import org.intellij.plugins.postcss.psi.PostCssSimpleVariableDeclaration;
+import org.intellij.plugins.postcss.psi.stubs.PostCssSimpleVariableIndex;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Set;
+import java.util.*;
 
 public class PostCssSimpleVariableReference extends PsiReferenceBase<PsiElement> implements CssReference {
   private static final ResolveCache.AbstractResolver<PostCssSimpleVariableReference, PostCssSimpleVariableDeclaration> RESOLVER =
@@ -33,7 +45,7 @@ public class PostCssSimpleVariableReference extends PsiReferenceBase<PsiElement>
       if (varName.isEmpty()) return null;
 
       final Ref<PostCssSimpleVariableDeclaration> result = Ref.create();
-      processSimpleVariableDeclarations(reference.getElement(), element -> {
+      processSimpleVariableDeclarations(reference.getElement(), varName, element -> {
         if (varName.equals(element.getName())) {
           result.set(element);
           return false;
@@ -77,11 +89,11 @@ public class PostCssSimpleVariableReference extends PsiReferenceBase<PsiElement>
   @Override
   public Object @NotNull [] getVariants() {
     final SmartList<LookupElement> result = new SmartList<>();
-    processSimpleVariableDeclarations(myElement, element -> {
+    processSimpleVariableDeclarations(myElement, null, element -> {
       LookupElementBuilder lookup = LookupElementBuilder.create(element).withIcon(AllIcons.Nodes.Variable);
-      CssTermList initializer = element.getInitializer();
-      if (initializer != null) {
-        lookup = lookup.withTailText(" " + initializer.getText(), true);
+      String initializer = element.getInitializerText();
+      if (!initializer.isEmpty()) {
+        lookup = lookup.withTailText(" " + initializer, true);
       }
       result.add(lookup);
       return true;
@@ -111,7 +123,15 @@ public class PostCssSimpleVariableReference extends PsiReferenceBase<PsiElement>
     return myElement;
   }
 
+  /**
+   * Processes declarations of the context file, from its end, then declarations of its transitively imported files in import order.
+   * Declarations of the given name in indexed files are looked up in {@link PostCssSimpleVariableIndex}. When all declarations are
+   * processed, e.g. for completion, the stub tree of each imported file is walked from its end. Either way imported files aren't parsed.
+   *
+   * @param name the name of declarations to process, or null to process all of them
+   */
   private static void processSimpleVariableDeclarations(@NotNull PsiElement context,
+                                                        @Nullable String name,
                                                         @NotNull Processor<PostCssSimpleVariableDeclaration> processor) {
     CssRulesetList rulesetList = PsiTreeUtil.getParentOfType(context, CssRulesetList.class);
     if (rulesetList == null) return;
@@ -119,19 +139,115 @@ public class PostCssSimpleVariableReference extends PsiReferenceBase<PsiElement>
     if (!processSimpleVarsInRulesetList(rulesetList, processor)) return;
 
     PsiFile contextFile = context.getContainingFile();
-    Set<VirtualFile> otherFiles = CssUtil.getImportedFiles(context.getContainingFile(), context, true);
-    for (VirtualFile otherFile : otherFiles) {
+    List<VirtualFile> importedFiles = getImportedFiles(contextFile);
+    if (importedFiles.isEmpty()) return;
+
+    Project project = contextFile.getProject();
+    GlobalSearchScope indexedScope = name == null || DumbService.isDumb(project)
+                                     ? GlobalSearchScope.EMPTY_SCOPE
+                                     : GlobalSearchScope.allScope(project);
+    Map<VirtualFile, List<PostCssSimpleVariableDeclaration>> indexedDeclarations =
+      indexedScope == GlobalSearchScope.EMPTY_SCOPE ? Collections.emptyMap() : findDeclarations(project, importedFiles, name);
+
+    for (VirtualFile otherFile : importedFiles) {
+      if (indexedScope.contains(otherFile)) {
+        List<PostCssSimpleVariableDeclaration> declarations = indexedDeclarations.getOrDefault(otherFile, Collections.emptyList());
+        for (int i = declarations.size() - 1; i >= 0; i--) {
+          if (!processor.process(declarations.get(i))) return;
+        }
+        continue;
+      }
       PsiFile otherPsiFile = contextFile.getManager().findFile(otherFile);
-      if (otherPsiFile instanceof StylesheetFile && !otherFile.equals(contextFile.getVirtualFile())) {
-        CssStylesheet otherStylesheet = ((StylesheetFile)otherPsiFile).getStylesheet();
-        CssRulesetList otherRulesetList = otherStylesheet == null ? null : otherStylesheet.getRulesetList();
-        if (otherRulesetList != null) {
-          if (!processSimpleVarsInRulesetList(otherRulesetList, processor)) return;
+      if (!(otherPsiFile instanceof StylesheetFile)) continue;
+
+      StubTree stubTree = getStubTree(otherPsiFile);
+      if (stubTree != null) {
+        if (!processSimpleVarsInStubTree(stubTree, processor)) return;
+        continue;
+      }
+      CssStylesheet otherStylesheet = ((StylesheetFile)otherPsiFile).getStylesheet();
+      CssRulesetList otherRulesetList = otherStylesheet == null ? null : otherStylesheet.getRulesetList();
+      if (otherRulesetList != null) {
+        if (!processSimpleVarsInRulesetList(otherRulesetList, processor)) return;
+      }
+    }
+  }
+
+  /**
+   * @return the stub tree of the file, or null if only its AST is available
+   */
+  @Nullable
+  private static StubTree getStubTree(@NotNull PsiFile file) {
+    if (!(file instanceof PsiFileImpl)) return null;
+    StubTree stubTree = ((PsiFileImpl)file).getGreenStubTree();
+    return stubTree != null ? stubTree : ((PsiFileImpl)file).getStubTree();
+  }
+
+  @NotNull
+  private static Map<VirtualFile, List<PostCssSimpleVariableDeclaration>> findDeclarations(@NotNull Project project,
+                                                                                           @NotNull List<VirtualFile> files,
+                                                                                           @NotNull String name) {
+    Map<VirtualFile, List<PostCssSimpleVariableDeclaration>> result = new HashMap<>();
+    GlobalSearchScope scope = GlobalSearchScope.filesScope(project, files);
+    for (PostCssSimpleVariableDeclaration declaration :
+      StubIndex.getElements(PostCssSimpleVariableIndex.KEY, name, project, scope, PostCssSimpleVariableDeclaration.class)) {
+      result.computeIfAbsent(declaration.getContainingFile().getVirtualFile(), file -> new ArrayList<>()).add(declaration);
+    }
+    return result;
+  }
+
+  /**
+   * @return files transitively imported by the file in import order, without the file itself
+   */
+  @NotNull
+  private static List<VirtualFile> getImportedFiles(@NotNull PsiFile file) {
+    return CachedValuesManager.getCachedValue(file, () -> {
+      Set<VirtualFile> result = new LinkedHashSet<>();
+      List<Object> dependencies = new ArrayList<>();
+      dependencies.add(file);
+      dependencies.add(VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS);
+
+      Deque<VirtualFile> stack = new ArrayDeque<>();
+      pushImports(stack, getDirectlyImportedFiles(file));
+      while (!stack.isEmpty()) {
+        VirtualFile importedFile = stack.pop();
+        if (importedFile.equals(file.getVirtualFile()) || !result.add(importedFile)) continue;
+        PsiFile importedPsiFile = file.getManager().findFile(importedFile);
+        if (importedPsiFile != null) {
+          dependencies.add(importedPsiFile);
+          pushImports(stack, getDirectlyImportedFiles(importedPsiFile));
         }
       }
+      return CachedValueProvider.Result.create(List.copyOf(result), dependencies.toArray());
+    });
+  }
+
+  private static void pushImports(@NotNull Deque<VirtualFile> stack, @NotNull List<VirtualFile> imports) {
+    for (int i = imports.size() - 1; i >= 0; i--) {
+      stack.push(imports.get(i));
     }
   }
 
+  @NotNull
+  private static List<VirtualFile> getDirectlyImportedFiles(@NotNull PsiFile file) {
+    return CachedValuesManager.getCachedValue(file, () -> {
+      List<VirtualFile> imports = List.copyOf(CssUtil.getImportedFiles(file, file, false));
+      return CachedValueProvider.Result.create(imports, file, VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS);
+    });
+  }
+
+  private static boolean processSimpleVarsInStubTree(@NotNull StubTree stubTree,
+                                                     @NotNull Processor<PostCssSimpleVariableDeclaration> processor) {
+    List<StubElement<?>> stubs = stubTree.getPlainList();
+    for (int i = stubs.size() - 1; i >= 0; i--) {
+      StubElement<?> stub = stubs.get(i);
+      if (stub.getStubType() == PostCssStubElementTypes.POST_CSS_SIMPLE_VARIABLE_DECLARATION) {
+        if (!processor.process((PostCssSimpleVariableDeclaration)stub.getPsi())) return false;
+      }
+    }
+    return true;
+  }
+
   private static boolean processSimpleVarsInRulesetList(@NotNull CssRulesetList rulesetList,
                                                         @NotNull Processor<PostCssSimpleVariableDeclaration> processor) {
     PsiElement child = rulesetList.getLastChild();
@@ -14,6 +14,7 @@ import org.intellij.plugins.postcss.parser.*;
 import org.intellij.plugins.postcss.rename.PostCssRenameTest;
 import org.intellij.plugins.postcss.resolve.PostCssCustomMediaResolveTest;
 import org.intellij.plugins.postcss.resolve.PostCssCustomSelectorResolveTest;
+import org.intellij.plugins.postcss.resolve.PostCssSimpleVarsPerformanceTest;
 import org.intellij.plugins.postcss.resolve.PostCssSimpleVarsTest;
 import org.intellij.plugins.postcss.smartEnter.PostCssSmartEnterTest;
 import org.intellij.plugins.postcss.usages.PostCssFindUsagesTest;
@@ -39,6 +40,14 @@ public final class PostCssTestSuite {
     }
   }
 
+  public static final class Performance {
+    public static Test suite() {
+      TestSuite suite = new TestSuite("Performance PostCSS");
+      suite.addTestSuite(PostCssSimpleVarsPerformanceTest.class);
+      return suite;
+    }
+  }
+
   public static final class Fast {
     public static Test suite() {
       TestSuite suite = new TestSuite("Fast PostCSS");
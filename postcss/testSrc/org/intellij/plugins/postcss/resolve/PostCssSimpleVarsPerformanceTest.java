@@ -0,0 +1,60 @@
+package org.intellij.plugins.postcss.resolve;
+
+import com.intellij.codeInsight.TargetElementUtil;
+import com.intellij.codeInsight.lookup.LookupElement;
+import com.intellij.codeInsight.lookup.LookupElementPresentation;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.impl.source.PsiFileImpl;
+import com.intellij.testFramework.PlatformTestUtil;
+import org.intellij.plugins.postcss.PostCssFixtureTestCase;
+
+public class PostCssSimpleVarsPerformanceTest extends PostCssFixtureTestCase {
+  private static final int IMPORT_CHAIN_LENGTH = 200;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    for (int i = 0; i < IMPORT_CHAIN_LENGTH; i++) {
+      StringBuilder text = new StringBuilder();
+      if (i + 1 < IMPORT_CHAIN_LENGTH) {
+        text.append("@import \"vars").append(i + 1).append(".pcss\";\n");
+      }
+      for (int j = 0; j < 20; j++) {
+        text.append("$var").append(i).append('_').append(j).append(": ").append(j).append("px;\n");
+      }
+      myFixture.addFileToProject("vars" + i + ".pcss", text.toString());
+    }
+  }
+
+  public void testResolveVariableFromLastImportedFile() {
+    String lastVar = "var" + (IMPORT_CHAIN_LENGTH - 1) + "_19";
+    myFixture.configureByText("foo.pcss", "@import \"vars0.pcss\";\n.header { width: $<caret>" + lastVar + "; }");
+    PsiReference reference = TargetElementUtil.findReference(myFixture.getEditor());
+    assertNotNull(reference);
+    PlatformTestUtil.startPerformanceTest("Resolving simple var through " + IMPORT_CHAIN_LENGTH + " imports", 500, () -> {
+      myFixture.getPsiManager().dropPsiCaches();
+      PsiElement resolve = reference.resolve();
+      assertNotNull(resolve);
+      assertEquals("$" + lastVar + ": 19px;", resolve.getText());
+    }).assertTiming();
+  }
+
+  public void testCompleteVariablesFromImportedFiles() {
+    myFixture.configureByText("foo.pcss", "@import \"vars0.pcss\";\n.header { width: $var<caret>; }");
+    PlatformTestUtil.startPerformanceTest("Completing simple vars through " + IMPORT_CHAIN_LENGTH + " imports", 2_000, () -> {
+      myFixture.getPsiManager().dropPsiCaches();
+      LookupElement[] elements = myFixture.completeBasic();
+      assertNotNull(elements);
+      assertTrue(elements.length >= IMPORT_CHAIN_LENGTH * 20);
+      LookupElementPresentation presentation = LookupElementPresentation.renderElement(elements[0]);
+      assertTrue(presentation.getTailText(), presentation.getTailText().endsWith("px"));
+    }).assertTiming();
+
+    myFixture.getPsiManager().dropPsiCaches();
+    myFixture.completeBasic();
+    PsiFile lastImportedFile = myFixture.getPsiManager().findFile(myFixture.findFileInTempDir("vars" + (IMPORT_CHAIN_LENGTH - 1) + ".pcss"));
+    assertFalse(((PsiFileImpl)lastImportedFile).isContentsLoaded());
+  }
+}
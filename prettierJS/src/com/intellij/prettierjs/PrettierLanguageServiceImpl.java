@@ -30,11 +30,13 @@ import org.jetbrains.annotations.Nullable;
 import java.io.File;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.intellij.lang.javascript.service.JSLanguageServiceQueue.LOGGER;
 
 public class PrettierLanguageServiceImpl extends JSLanguageServiceBase implements PrettierLanguageService {
   private volatile boolean myFlushConfigCache;
+  private final AtomicLong myConfigModificationCount = new AtomicLong();
 
   public PrettierLanguageServiceImpl(@NotNull Project project) {
     super(project);
@@ -44,6 +46,7 @@ public class PrettierLanguageServiceImpl extends JSLanguageServiceBase implement
         for (VFileEvent event : events) {
           if (!(event instanceof VFileContentChangeEvent) || PrettierUtil.isConfigFileOrPackageJson(event.getFile())) {
             myFlushConfigCache = true;
+            myConfigModificationCount.incrementAndGet();
             break;
           }
         }
@@ -72,6 +75,12 @@ public class PrettierLanguageServiceImpl extends JSLanguageServiceBase implement
     });
   }
 
+  /**
+   * Incremented whenever a change that may affect the resolved Prettier configuration of some file happens.
+   */
+  public long getConfigModificationCount() {
+    return myConfigModificationCount.get();
+  }
 
   @NotNull
   private static FormatResult parseReformatResponse(JSLanguageServiceAnswer response) {
@@ -30,6 +30,7 @@ import com.intellij.openapi.actionSystem.CommonDataKeys;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.CommandProcessor;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Document;
@@ -41,7 +42,9 @@ import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.DumbAware;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.registry.Registry;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.ThrowableComputable;
 import com.intellij.openapi.util.text.StringUtil;
@@ -58,7 +61,6 @@ import com.intellij.util.ArrayUtil;
 import com.intellij.util.LineSeparator;
 import com.intellij.util.NullableFunction;
 import com.intellij.util.SmartList;
-import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.text.SemVer;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.NotNull;
@@ -73,6 +75,8 @@ import java.util.concurrent.CompletableFuture;
 public class ReformatWithPrettierAction extends AnAction implements DumbAware {
   private static final @NotNull Logger LOG = Logger.getInstance(ReformatWithPrettierAction.class);
   private static final long EDT_TIMEOUT_MS = 2000;
+  static final int WRITE_ACTION_CHUNK_SIZE = 50;
+  private static final Key<FormattedStamp> LAST_FORMATTED_STAMP = Key.create("prettier.last.formatted.stamp");
 
   private final ErrorHandler myErrorHandler;
 
@@ -293,56 +297,135 @@ public class ReformatWithPrettierAction extends AnAction implements DumbAware {
                                           @NotNull NodePackage nodePackage,
                                           boolean reportSkippedFiles,
                                           @NotNull ErrorHandler errorHandler) {
-    PrettierLanguageService service = PrettierLanguageService.getInstance(project);
-    Map<PsiFile, PrettierLanguageService.FormatResult> results = executeUnderProgress(project, indicator -> {
-      Map<PsiFile, PrettierLanguageService.FormatResult> reformattedResults = new HashMap<>();
-
+    PrettierLanguageServiceImpl service = PrettierLanguageService.getInstance(project);
+    List<String> errors = executeUnderProgress(project, indicator -> {
       List<PsiFile> files = new SmartList<>();
       ReadAction.run(() -> {
         while (fileIterator.hasNext()) {
           files.add(fileIterator.next());
         }
       });
+      return reformatFiles(project, files, nodePackage, service, reportSkippedFiles, indicator);
+    });
+
+    if (errors != null && errors.size() > 0) {
+      errorHandler.showErrorWithDetails(project, null,
+                                        PrettierBundle.message("failed.to.reformat.0.files", errors.size()),
+                                        StringUtil.join(errors, "\n"));
+    }
+  }
 
-      for (PsiFile currentFile : files) {
-        indicator.setText(PrettierBundle.message("processing.0.progress", currentFile.getName()));
-        PrettierLanguageService.FormatResult result = performRequestForFile(project, nodePackage, service, currentFile, null);
-        // timed out. show notification?
-        if (result == null) {
-          continue;
+  /**
+   * Sends up to {@code prettier.max.pending.requests} format requests ahead of the one being awaited, so that the service
+   * never waits for the IDE, and applies the results in write actions of at most {@link #WRITE_ACTION_CHUNK_SIZE} files,
+   * so that neither the results nor the write lock are held until all files are processed.
+   * Files not modified since Prettier output was last applied to them, with the same configuration, are not sent at all.
+   *
+   * @return error messages for the files that were not reformatted
+   */
+  static @NotNull List<String> reformatFiles(@NotNull Project project,
+                                             @NotNull List<PsiFile> files,
+                                             @NotNull NodePackage nodePackage,
+                                             @NotNull PrettierLanguageServiceImpl service,
+                                             boolean reportSkippedFiles,
+                                             @NotNull ProgressIndicator indicator) {
+    int maxPendingRequests = Math.max(1, Registry.intValue("prettier.max.pending.requests", 8));
+    // all chunks are merged into a single undoable command
+    Object commandGroupId = new Object();
+    List<String> errors = new ArrayList<>();
+    Deque<PendingRequest> pendingRequests = new ArrayDeque<>();
+    List<PendingRequest> resultsToApply = new ArrayList<>();
+    Iterator<PsiFile> iterator = files.iterator();
+    int processedCount = 0;
+    while (true) {
+      while (iterator.hasNext() && pendingRequests.size() < maxPendingRequests) {
+        PendingRequest request = sendRequest(project, nodePackage, service, iterator.next());
+        if (request != null) {
+          pendingRequests.addLast(request);
         }
-        if (result.unsupported && reportSkippedFiles) {
-          PrettierLanguageService.FormatResult errorResult = PrettierLanguageService.FormatResult
-            .error(PrettierBundle.message("not.supported.file", currentFile.getName()));
-          reformattedResults.put(currentFile, errorResult);
+        else {
+          processedCount++;
         }
-        if (result.ignored) {
-          PrettierLanguageService.FormatResult errorResult =
-            PrettierLanguageService.FormatResult.error(PrettierBundle.message("file.was.ignored", currentFile.getName()));
-          reformattedResults.put(currentFile, errorResult);
-          continue;
+      }
+      PendingRequest request = pendingRequests.pollFirst();
+      if (request == null) {
+        break;
+      }
+      indicator.checkCanceled();
+      indicator.setText(PrettierBundle.message("processing.0.progress", request.file.getName()));
+      indicator.setFraction((double)++processedCount / files.size());
+
+      PrettierLanguageService.FormatResult result = request.awaitResult();
+      // timed out. show notification?
+      if (result == null) {
+        continue;
+      }
+      if (result.ignored) {
+        errors.add(PrettierBundle.message("file.was.ignored", request.file.getName()));
+      }
+      else if (result.unsupported) {
+        if (reportSkippedFiles) {
+          errors.add(PrettierBundle.message("not.supported.file", request.file.getName()));
         }
-        reformattedResults.put(currentFile, result);
       }
-      return reformattedResults;
-    });
+      else if (!StringUtil.isEmpty(result.error)) {
+        errors.add(result.error);
+      }
+      else {
+        request.result = result;
+        resultsToApply.add(request);
+        if (resultsToApply.size() >= WRITE_ACTION_CHUNK_SIZE) {
+          applyFormatResults(project, resultsToApply, commandGroupId);
+          resultsToApply.clear();
+        }
+      }
+    }
+    applyFormatResults(project, resultsToApply, commandGroupId);
+    return errors;
+  }
 
-    runWriteCommandAction(project, () -> {
-      for (Map.Entry<PsiFile, PrettierLanguageService.FormatResult> entry : results.entrySet()) {
-        VirtualFile virtualFile = entry.getKey().getVirtualFile();
-        if (virtualFile == null) {
-          continue;
+  private static void applyFormatResults(@NotNull Project project,
+                                         @NotNull List<PendingRequest> requests,
+                                         @NotNull Object commandGroupId) {
+    if (requests.isEmpty()) return;
+    String commandName = PrettierBundle.message("reformat.with.prettier.command.name");
+    ApplicationManager.getApplication().invokeAndWait(
+      () -> CommandProcessor.getInstance().executeCommand(project, () -> ApplicationManager.getApplication().runWriteAction(() -> {
+        for (PendingRequest request : requests) {
+          applyFormatResult(project, request.virtualFile, request.result);
+          Document document = FileDocumentManager.getInstance().getDocument(request.virtualFile);
+          if (document != null) {
+            FormattedStamp stamp =
+              new FormattedStamp(document.getModificationStamp(), request.configModificationCount, request.nodePackage);
+            request.virtualFile.putUserData(LAST_FORMATTED_STAMP, stamp);
+          }
         }
-        PrettierLanguageService.FormatResult result = entry.getValue();
-        applyFormatResult(project, virtualFile, result);
+      }), commandName, commandGroupId),
+      ModalityState.defaultModalityState());
+  }
+
+  /**
+   * @return request for the file or {@code null} if the file is already formatted
+   */
+  private static @Nullable PendingRequest sendRequest(@NotNull Project project,
+                                                      @NotNull NodePackage nodePackage,
+                                                      @NotNull PrettierLanguageServiceImpl service,
+                                                      @NotNull PsiFile file) {
+    long configModificationCount = service.getConfigModificationCount();
+    FormatRequest formatRequest = createRequest(project, file);
+    VirtualFile virtualFile = file.getVirtualFile();
+    CompletableFuture<PrettierLanguageService.FormatResult> future;
+    if (formatRequest == null || virtualFile == null) {
+      future = CompletableFuture.completedFuture(PrettierLanguageService.FormatResult.UNSUPPORTED);
+    }
+    else {
+      FormattedStamp stamp = virtualFile.getUserData(LAST_FORMATTED_STAMP);
+      if (stamp != null && stamp.matches(formatRequest.documentStamp, configModificationCount, nodePackage)) {
+        return null;
       }
-    });
-    List<String> errors = ContainerUtil.mapNotNull(results.entrySet(), t -> t.getValue().error);
-    if (errors.size() > 0) {
-      errorHandler.showErrorWithDetails(project, null,
-                                        PrettierBundle.message("failed.to.reformat.0.files", errors.size()),
-                                        StringUtil.join(errors, "\n"));
+      future = service.format(formatRequest.filePath, formatRequest.ignoreFilePath, formatRequest.text, nodePackage, null);
     }
+    return new PendingRequest(file, virtualFile, future, configModificationCount, nodePackage);
   }
 
   /**
@@ -379,36 +462,33 @@ public class ReformatWithPrettierAction extends AnAction implements DumbAware {
       LOG.error("JSLanguageServiceUtil.awaitFuture() under read action may cause deadlock");
     }
 
-    Ref<String> text = Ref.create();
-    Ref<String> filePath = Ref.create();
-    Ref<String> ignoreFilePath = Ref.create();
-
-    ReadAction.run(() -> {
-      if (!currentFile.isValid()) return;
-
-      VirtualFile currentVFile = currentFile.getVirtualFile();
-      filePath.set(LocalFilePath.asLocalFilePath(currentVFile.toNioPath()));
-      // PsiFile might be not committed at this point, take text from document
-      Document document = PsiDocumentManager.getInstance(project).getDocument(currentFile);
-      if (document == null) return;
-      CharSequence content = document.getImmutableCharSequence();
-      text.set(JSLanguageServiceUtil.convertLineSeparatorsToFileOriginal(project, content, currentVFile).toString());
-      VirtualFile ignoreVFile = PrettierUtil.findIgnoreFile(currentVFile, project);
-      if (ignoreVFile != null) {
-        ignoreFilePath.set(ignoreVFile.getPath());
-      }
-    });
-
-    if (text.isNull()) {
+    FormatRequest request = createRequest(project, currentFile);
+    if (request == null) {
       return PrettierLanguageService.FormatResult.UNSUPPORTED;
     }
 
     CompletableFuture<PrettierLanguageService.FormatResult> formatFuture =
-      service.format(filePath.get(), ignoreFilePath.get(), text.get(), nodePackage, range);
+      service.format(request.filePath, request.ignoreFilePath, request.text, nodePackage, range);
     long timeout = edt ? EDT_TIMEOUT_MS : JSLanguageServiceUtil.getTimeout();
     return JSLanguageServiceUtil.awaitFuture(formatFuture, timeout, JSLanguageServiceUtil.QUOTA_MILLS, null, true, null, edt);
   }
 
+  private static @Nullable FormatRequest createRequest(@NotNull Project project, @NotNull PsiFile file) {
+    return ReadAction.compute(() -> {
+      if (!file.isValid()) return null;
+
+      VirtualFile vFile = file.getVirtualFile();
+      // PsiFile might be not committed at this point, take text from document
+      Document document = PsiDocumentManager.getInstance(project).getDocument(file);
+      if (document == null) return null;
+      String filePath = LocalFilePath.asLocalFilePath(vFile.toNioPath());
+      CharSequence content = document.getImmutableCharSequence();
+      String text = JSLanguageServiceUtil.convertLineSeparatorsToFileOriginal(project, content, vFile).toString();
+      VirtualFile ignoreVFile = PrettierUtil.findIgnoreFile(vFile, project);
+      return new FormatRequest(filePath, ignoreVFile != null ? ignoreVFile.getPath() : null, text, document.getModificationStamp());
+    });
+  }
+
   private static <T> T executeUnderProgress(@NotNull Project project, @NotNull NullableFunction<ProgressIndicator, T> handler) {
     return ProgressManager
       .getInstance()
@@ -521,4 +601,66 @@ public class ReformatWithPrettierAction extends AnAction implements DumbAware {
       }
     }
   }
+
+  private static final class FormatRequest {
+    final String filePath;
+    final String ignoreFilePath;
+    final String text;
+    final long documentStamp;
+
+    private FormatRequest(@NotNull String filePath, @Nullable String ignoreFilePath, @NotNull String text, long documentStamp) {
+      this.filePath = filePath;
+      this.ignoreFilePath = ignoreFilePath;
+      this.text = text;
+      this.documentStamp = documentStamp;
+    }
+  }
+
+  private static final class PendingRequest {
+    final PsiFile file;
+    final VirtualFile virtualFile;
+    final CompletableFuture<PrettierLanguageService.FormatResult> future;
+    final long configModificationCount;
+    final NodePackage nodePackage;
+    PrettierLanguageService.FormatResult result;
+
+    private PendingRequest(@NotNull PsiFile file,
+                           @Nullable VirtualFile virtualFile,
+                           @Nullable CompletableFuture<PrettierLanguageService.FormatResult> future,
+                           long configModificationCount,
+                           @NotNull NodePackage nodePackage) {
+      this.file = file;
+      this.virtualFile = virtualFile;
+      this.future = future;
+      this.configModificationCount = configModificationCount;
+      this.nodePackage = nodePackage;
+    }
+
+    @Nullable PrettierLanguageService.FormatResult awaitResult() {
+      return JSLanguageServiceUtil.awaitFuture(future, JSLanguageServiceUtil.getTimeout(), JSLanguageServiceUtil.QUOTA_MILLS, null, true,
+                                               null, false);
+    }
+  }
+
+  /**
+   * Modification stamp of a document right after {@link #reformatFiles} applied Prettier output to it,
+   * and the configuration the output was produced with.
+   */
+  private static final class FormattedStamp {
+    final long documentStamp;
+    final long configModificationCount;
+    final NodePackage nodePackage;
+
+    private FormattedStamp(long documentStamp, long configModificationCount, @NotNull NodePackage nodePackage) {
+      this.documentStamp = documentStamp;
+      this.configModificationCount = configModificationCount;
+      this.nodePackage = nodePackage;
+    }
+
+    boolean matches(long documentStamp, long configModificationCount, @NotNull NodePackage nodePackage) {
+      return this.documentStamp == documentStamp &&
+             this.configModificationCount == configModificationCount &&
+             this.nodePackage.equals(nodePackage);
+    }
+  }
 }
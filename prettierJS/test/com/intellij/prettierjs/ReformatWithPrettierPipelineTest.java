@@ -0,0 +1,189 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package com.intellij.prettierjs;
+
+import com.intellij.javascript.nodejs.util.NodePackage;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.application.WriteAction;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.intellij.testFramework.fixtures.TempDirTestFixture;
+import com.intellij.testFramework.fixtures.impl.TempDirTestFixtureImpl;
+import com.intellij.util.TimeoutUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.ref.GCUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs {@link ReformatWithPrettierAction#reformatFiles} against a stub service that "formats" files by collapsing double spaces,
+ * so the pipeline itself can be tested and measured without Node.js and Prettier.
+ */
+public class ReformatWithPrettierPipelineTest extends BasePlatformTestCase {
+  private static final String UNFORMATTED = "const  a  =  1;\nfunction  f()  {\n  return  a;\n}\n";
+  private static final String FORMATTED = "const a = 1;\nfunction f() {\n return a;\n}\n";
+
+  private StubPrettierService myService;
+
+  @Override
+  protected TempDirTestFixture createTempDirTestFixture() {
+    // format requests are sent with local file paths
+    return new TempDirTestFixtureImpl();
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myService = new StubPrettierService();
+    Disposer.register(getTestRootDisposable(), myService);
+  }
+
+  public void testAllFilesAreReformatted() throws Exception {
+    List<VirtualFile> files = createFiles(100);
+    assertEmpty(reformat(files));
+    for (VirtualFile file : files) {
+      assertEquals(FORMATTED, FileDocumentManager.getInstance().getDocument(file).getText());
+    }
+    assertEquals(100, myService.myRequestCount.get());
+    assertTrue(myService.myMaxInFlightCount.get() > 1);
+    assertTrue(myService.myMaxInFlightCount.get() <= 8);
+  }
+
+  public void testResultsAreReleasedOnceApplied() throws Exception {
+    List<VirtualFile> files = createFiles(1_000);
+    myService.myTrackRetainedResults = true;
+    assertEmpty(reformat(files));
+    // applied results of a chunk, the pending requests and the result being processed
+    int maxRetainedResultCount = ReformatWithPrettierAction.WRITE_ACTION_CHUNK_SIZE + 8 + 1;
+    assertTrue(String.valueOf(myService.myMaxRetainedResultCount.get()),
+               myService.myMaxRetainedResultCount.get() <= maxRetainedResultCount);
+  }
+
+  public void testFormattedFilesAreNotSentAgain() throws Exception {
+    List<VirtualFile> files = createFiles(20);
+    assertEmpty(reformat(files));
+    assertEquals(20, myService.myRequestCount.get());
+
+    WriteAction.runAndWait(() -> FileDocumentManager.getInstance().getDocument(files.get(3)).setText(UNFORMATTED));
+    assertEmpty(reformat(files));
+    assertEquals(21, myService.myRequestCount.get());
+
+    myService.myConfigModificationCount.incrementAndGet();
+    assertEmpty(reformat(files));
+    assertEquals(41, myService.myRequestCount.get());
+  }
+
+  public void testErrorsAreCollected() throws Exception {
+    List<VirtualFile> files = createFiles(10);
+    myService.myFailingFile = files.get(5).getName();
+    List<String> errors = reformat(files);
+    assertEquals(List.of("Cannot format " + files.get(5).getName()), errors);
+    assertEquals(UNFORMATTED, FileDocumentManager.getInstance().getDocument(files.get(5)).getText());
+    assertEquals(FORMATTED, FileDocumentManager.getInstance().getDocument(files.get(6)).getText());
+  }
+
+  public void testReformatLargeTree() throws Exception {
+    List<VirtualFile> files = createFiles(2_000);
+    PlatformTestUtil.startPerformanceTest("Reformat " + files.size() + " files with stub Prettier service", 10_000, () -> {
+      assertEmpty(reformat(files));
+    }).setup(() -> {
+      WriteAction.runAndWait(() -> {
+        for (VirtualFile file : files) {
+          FileDocumentManager.getInstance().getDocument(file).setText(UNFORMATTED);
+        }
+      });
+    }).assertTiming();
+  }
+
+  private @NotNull List<VirtualFile> createFiles(int count) throws Exception {
+    List<VirtualFile> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      result.add(myFixture.getTempDirFixture().createFile("dir" + i / 100 + "/file" + i + ".js", UNFORMATTED));
+    }
+    return result;
+  }
+
+  private @NotNull List<String> reformat(@NotNull List<VirtualFile> files) throws Exception {
+    List<PsiFile> psiFiles = ReadAction.compute(() -> {
+      List<PsiFile> result = new ArrayList<>();
+      for (VirtualFile file : files) {
+        result.add(PsiManager.getInstance(getProject()).findFile(file));
+      }
+      return result;
+    });
+    // results are applied on EDT, so run the pipeline in background, as the action does
+    return PlatformTestUtil.waitForFuture(ApplicationManager.getApplication().executeOnPooledThread(
+      () -> ReformatWithPrettierAction.reformatFiles(getProject(), psiFiles, new NodePackage("/stub/prettier"), myService, true,
+                                                     new EmptyProgressIndicator())), 60_000);
+  }
+
+  private class StubPrettierService extends PrettierLanguageServiceImpl {
+    private final AtomicInteger myRequestCount = new AtomicInteger();
+    private final AtomicInteger myInFlightCount = new AtomicInteger();
+    private final AtomicInteger myMaxInFlightCount = new AtomicInteger();
+    private final AtomicInteger myMaxRetainedResultCount = new AtomicInteger();
+    private final Queue<WeakReference<FormatResult>> myResults = new ConcurrentLinkedQueue<>();
+    private final AtomicLong myConfigModificationCount = new AtomicLong();
+    private volatile String myFailingFile;
+    private volatile boolean myTrackRetainedResults;
+
+    StubPrettierService() {
+      super(getProject());
+    }
+
+    @Override
+    public long getConfigModificationCount() {
+      return myConfigModificationCount.get();
+    }
+
+    @Override
+    public @Nullable CompletableFuture<FormatResult> format(@NotNull String filePath,
+                                                            @Nullable String ignoreFilePath,
+                                                            @NotNull String text,
+                                                            @NotNull NodePackage prettierPackage,
+                                                            @Nullable TextRange range) {
+      int requestCount = myRequestCount.incrementAndGet();
+      boolean trackRetainedResults = myTrackRetainedResults;
+      if (trackRetainedResults && requestCount % 100 == 0) {
+        // called by the pipeline, so everything it holds is reachable now
+        GCUtil.tryForceGC();
+        int retainedResultCount = (int)myResults.stream().filter(ref -> ref.get() != null).count();
+        myMaxRetainedResultCount.accumulateAndGet(retainedResultCount, Math::max);
+      }
+      myMaxInFlightCount.accumulateAndGet(myInFlightCount.incrementAndGet(), Math::max);
+      return CompletableFuture.supplyAsync(() -> {
+        // a real service takes a while, let requests pile up
+        TimeoutUtil.sleep(1);
+        FormatResult result;
+        String failingFile = myFailingFile;
+        if (failingFile != null && filePath.endsWith(failingFile)) {
+          result = FormatResult.error("Cannot format " + failingFile);
+        }
+        else {
+          result = FormatResult.formatted(text.replace("  ", " "));
+        }
+        if (trackRetainedResults) {
+          myResults.add(new WeakReference<>(result));
+        }
+        myInFlightCount.decrementAndGet();
+        return result;
+      }, AppExecutorUtil.getAppExecutorService());
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.protobuf.lang.annotation;
+
+import com.intellij.lang.annotation.AnnotationHolder;
+import com.intellij.lang.annotation.HighlightSeverity;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.protobuf.ide.PbCompositeModificationTracker;
+import com.intellij.protobuf.lang.PbLangBundle;
+import com.intellij.protobuf.lang.psi.*;
+import com.intellij.protobuf.lang.psi.util.PbPsiUtil;
+import com.intellij.protobuf.lang.stub.index.PbExtensionNumberIndex;
+import com.intellij.protobuf.lang.stub.index.PbExtensionNumberIndex.Extension;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.QualifiedName;
+
+import java.util.*;
+
+/**
+ * Checks the numbers of extension fields against their extended message: the number must be in one
+ * of the extension ranges of the message, and must not be used by another extension of the message.
+ *
+ * <p>Like protoc, an extension only conflicts with the extensions declared in the same file or in
+ * the files it imports, directly or not. These are found with {@link PbExtensionNumberIndex}, so
+ * the cost of the check depends on the number of extensions of the message instead of the size of
+ * the imported files.
+ */
+final class ExtensionNumberTracker {
+
+  private ExtensionNumberTracker() {}
+
+  /** Annotates any problems with the number of an extension field. */
+  static void annotateExtensionField(PbField field, AnnotationHolder holder) {
+    PbTypeName extendeeType = field.getExtendee();
+    PbNumberValue fieldNumberValue = field.getFieldNumber();
+    if (extendeeType == null || fieldNumberValue == null || !fieldNumberValue.isValidInt32()) {
+      return;
+    }
+    Long fieldNumber = fieldNumberValue.getLongValue();
+    if (fieldNumber == null || fieldNumber <= 0) {
+      return;
+    }
+    PbMessageType extendee =
+        PbPsiUtil.resolveRefToType(extendeeType.getEffectiveReference(), PbMessageType.class);
+    if (extendee == null) {
+      return;
+    }
+    long maxFieldNumber =
+        extendee.isMessageSet() ? PbField.MAX_MESSAGE_SET_FIELD_NUMBER : PbField.MAX_FIELD_NUMBER;
+    if (fieldNumber > maxFieldNumber || PbField.NUMBERS_RESERVED_BY_PROTO.contains(fieldNumber)) {
+      // Already reported with the other field number problems.
+      return;
+    }
+    QualifiedName extendeeName = extendee.getQualifiedName();
+    if (extendeeName == null) {
+      return;
+    }
+    if (!extendee.getExtensionRanges().contains(fieldNumber)) {
+      holder.newAnnotation(
+          HighlightSeverity.ERROR,
+          PbLangBundle.message("extension.number.not.declared", extendeeName, fieldNumber))
+          .range(fieldNumberValue)
+          .create();
+      return;
+    }
+    String earlierExtension = findEarlierExtension(field, extendee, extendeeName, fieldNumber);
+    if (earlierExtension != null) {
+      holder.newAnnotation(
+          HighlightSeverity.ERROR,
+          PbLangBundle.message(
+              "extension.number.already.used", fieldNumber, extendeeName, earlierExtension))
+          .range(fieldNumberValue)
+          .create();
+    }
+  }
+
+  /**
+   * Returns the name of another extension of the message with the same number, declared in a file
+   * linked with the file of the field. Within the file of the field, only the extensions declared
+   * before the field are considered, like for the fields of a message.
+   */
+  private static String findEarlierExtension(
+      PbField field, PbMessageType extendee, QualifiedName extendeeName, long fieldNumber) {
+    Project project = field.getProject();
+    PbFile file = field.getPbFile();
+    VirtualFile virtualFile = file.getVirtualFile();
+    int offset = field.getTextRange().getStartOffset();
+    Map<VirtualFile, List<Extension>> extensions =
+        PbExtensionNumberIndex.getExtensions(
+            extendeeName, GlobalSearchScope.filesScope(project, getLinkedFiles(file)));
+    for (Map.Entry<VirtualFile, List<Extension>> entry : extensions.entrySet()) {
+      VirtualFile extensionFile = entry.getKey();
+      boolean sameFile = extensionFile.equals(virtualFile);
+      for (Extension extension : entry.getValue()) {
+        if (extension.number() != fieldNumber || (sameFile && extension.offset() >= offset)) {
+          continue;
+        }
+        if (extension.unambiguous()
+            || extendsMessage(
+                PbExtensionNumberIndex.findField(project, extensionFile, extension), extendee)) {
+          return extension.name();
+        }
+      }
+    }
+    return null;
+  }
+
+  private static boolean extendsMessage(PbField field, PbMessageType message) {
+    if (field == null) {
+      return false;
+    }
+    PbTypeName extendeeType = field.getExtendee();
+    return extendeeType != null
+        && message.equals(
+            PbPsiUtil.resolveRefToType(extendeeType.getEffectiveReference(), PbMessageType.class));
+  }
+
+  /** Returns the file and the files it imports, directly or not. */
+  private static Set<VirtualFile> getLinkedFiles(PbFile file) {
+    return CachedValuesManager.getCachedValue(
+        file,
+        () -> {
+          Set<PbFile> linkedFiles = new LinkedHashSet<>();
+          collectImportsRecursively(file, linkedFiles);
+          Set<VirtualFile> virtualFiles = new HashSet<>();
+          for (PbFile linkedFile : linkedFiles) {
+            VirtualFile virtualFile = linkedFile.getVirtualFile();
+            if (virtualFile != null) {
+              virtualFiles.add(virtualFile);
+            }
+          }
+          return CachedValueProvider.Result.create(
+              virtualFiles, PbCompositeModificationTracker.byElement(file));
+        });
+  }
+
+  private static void collectImportsRecursively(PbFile file, Set<PbFile> linkedFiles) {
+    if (!linkedFiles.add(file)) {
+      return;
+    }
+    for (PbImportStatement importStatement : file.getImportStatements()) {
+      PbImportName importName = importStatement.getImportName();
+      if (importName == null) {
+        continue;
+      }
+      PsiReference ref = importName.getReference();
+      if (ref == null) {
+        continue;
+      }
+      PsiElement importedFile = ref.resolve();
+      if (importedFile instanceof PbFile) {
+        collectImportsRecursively((PbFile) importedFile, linkedFiles);
+      }
+    }
+  }
+}
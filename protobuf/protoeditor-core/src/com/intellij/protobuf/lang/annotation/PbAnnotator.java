@@ -389,6 +389,9 @@ public class PbAnnotator implements Annotator {
     annotateMessageSetExtensionField(field, holder);
     annotateFieldLabel(field.getDeclaredLabel(), holder);
     MessageFieldTracker.annotateField(field, holder);
+    if (field.isExtension()) {
+      ExtensionNumberTracker.annotateExtensionField(field, holder);
+    }
   }
 
   private static void annotateInvalidFieldInMessageSet(PbField field, AnnotationHolder holder) {
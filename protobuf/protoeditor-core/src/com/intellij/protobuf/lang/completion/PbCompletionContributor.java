@@ -15,19 +15,27 @@
  */
 package com.intellij.protobuf.lang.completion;
 
+import com.google.common.collect.Range;
 import com.intellij.codeInsight.completion.*;
 import com.intellij.codeInsight.lookup.LookupElement;
 import com.intellij.codeInsight.lookup.LookupElementBuilder;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiErrorElement;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.util.QualifiedName;
 import com.intellij.util.ProcessingContext;
 import com.intellij.protobuf.lang.psi.*;
 import com.intellij.protobuf.lang.psi.util.PbPsiUtil;
+import com.intellij.protobuf.lang.stub.index.PbExtensionNumberIndex;
+import com.intellij.protobuf.lang.stub.index.PbExtensionNumberIndex.Extension;
 import com.intellij.protobuf.lang.util.BuiltInType;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -73,6 +81,15 @@ public class PbCompletionContributor extends CompletionContributor {
         psiElement()
             .withParent(psiElement(PbIdentifierValue.class).withParent(PbOptionExpression.class)),
         new BooleanKeywords());
+
+    // Extension field numbers
+    extend(
+        CompletionType.BASIC,
+        psiElement()
+            .afterLeaf("=")
+            .inside(PbField.class)
+            .andNot(psiElement().inside(PbOptionList.class)),
+        new NextExtensionNumber());
   }
 
   /**
@@ -235,6 +252,70 @@ public class PbCompletionContributor extends CompletionContributor {
     }
   }
 
+  /**
+   * The lowest number in the extension ranges of the extended message that is not used by any
+   * extension of the message in the project.
+   */
+  private static class NextExtensionNumber extends CompletionProvider<CompletionParameters> {
+
+    @Override
+    protected void addCompletions(
+        @NotNull CompletionParameters parameters,
+        @NotNull ProcessingContext processingContext,
+        @NotNull CompletionResultSet result) {
+      PbField field = PsiTreeUtil.getParentOfType(parameters.getPosition(), PbField.class);
+      if (field == null) {
+        return;
+      }
+      PbTypeName extendeeType = field.getExtendee();
+      if (extendeeType == null) {
+        return;
+      }
+      PbMessageType extendee =
+          PbPsiUtil.resolveRefToType(extendeeType.getEffectiveReference(), PbMessageType.class);
+      if (extendee == null) {
+        return;
+      }
+      QualifiedName extendeeName = extendee.getQualifiedName();
+      if (extendeeName == null) {
+        return;
+      }
+      Long number =
+          findNextFreeNumber(
+              extendee, extendeeName, GlobalSearchScope.allScope(field.getProject()));
+      if (number != null) {
+        result.addElement(LookupElementBuilder.create(String.valueOf(number)));
+      }
+    }
+
+    @Nullable
+    private static Long findNextFreeNumber(
+        PbMessageType extendee, QualifiedName extendeeName, GlobalSearchScope scope) {
+      // Numbers of extensions that might extend another message with the same name are skipped
+      // too, which is cheaper than resolving their extendees.
+      Set<Long> usedNumbers = new HashSet<>();
+      for (List<Extension> extensions :
+          PbExtensionNumberIndex.getExtensions(extendeeName, scope).values()) {
+        for (Extension extension : extensions) {
+          usedNumbers.add(extension.number());
+        }
+      }
+      for (Range<Long> range : extendee.getExtensionRanges().asRanges()) {
+        long number = range.lowerEndpoint();
+        while (number <= range.upperEndpoint()) {
+          if (PbField.NUMBERS_RESERVED_BY_PROTO.contains(number)) {
+            number = PbField.NUMBERS_RESERVED_BY_PROTO.upperEndpoint() + 1;
+          } else if (usedNumbers.contains(number)) {
+            number++;
+          } else {
+            return number;
+          }
+        }
+      }
+      return null;
+    }
+  }
+
   private static LookupElement lookupElementWithSpace(String keyword) {
     return LookupElementBuilder.create(keyword).withInsertHandler(AddSpaceInsertHandler.INSTANCE);
   }
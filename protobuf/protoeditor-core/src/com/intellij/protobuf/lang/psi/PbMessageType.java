@@ -15,6 +15,9 @@
  */
 package com.intellij.protobuf.lang.psi;
 
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeSet;
 import com.intellij.protobuf.lang.psi.util.PbPsiUtil;
 
 /** A message type: either a MessageDefinition or a GroupField. */
@@ -55,4 +58,29 @@ public interface PbMessageType extends PbNamedTypeElement, PbSymbolOwner {
     }
     return false;
   }
+
+  /** Returns the field numbers declared for extensions in this message. */
+  default RangeSet<Long> getExtensionRanges() {
+    RangeSet<Long> ranges = TreeRangeSet.create();
+    PbMessageBody body = getBody();
+    if (body == null) {
+      return ranges;
+    }
+    for (PbExtensionsStatement extensionsStatement : body.getExtensionsStatementList()) {
+      for (PbExtensionRange extensionRange : extensionsStatement.getExtensionRangeList()) {
+        Long from = extensionRange.getFrom();
+        if (from == null) {
+          continue;
+        }
+        Long to = extensionRange.getTo();
+        if (to == null) {
+          to = from;
+        }
+        if (from > 0 && from <= to) {
+          ranges.add(Range.closed(from, to));
+        }
+      }
+    }
+    return ranges;
+  }
 }
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2019 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.protobuf.lang.stub.index;
+
+import com.intellij.lang.LighterAST;
+import com.intellij.lang.LighterASTNode;
+import com.intellij.lang.LighterASTTokenNode;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.protobuf.lang.PbFileType;
+import com.intellij.protobuf.lang.psi.PbField;
+import com.intellij.protobuf.lang.psi.PbTypes;
+import com.intellij.protobuf.lang.psi.ProtoTokenTypes;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.impl.source.tree.LightTreeUtil;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.util.QualifiedName;
+import com.intellij.util.indexing.*;
+import com.intellij.util.indexing.FileBasedIndex.InputFilter;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Index to map from the qualified name of an extended message -> the extension fields of that
+ * message declared in a file.
+ *
+ * <p>The name in an extend statement is resolved relative to the scope of the statement, which
+ * needs the symbols of the imported files. Indexing only sees a single file, so an extension is
+ * stored under every name its extendee could resolve to. The name the extendee resolves to if the
+ * message exists is marked as {@link Extension#unambiguous()}. Other names can be shadowed by
+ * symbols in the inner scopes, and extensions found by them need to be confirmed by resolving the
+ * extendee of the {@link #findField found field}.
+ */
+public class PbExtensionNumberIndex
+    extends FileBasedIndexExtension<String, List<PbExtensionNumberIndex.Extension>> {
+
+  public static final ID<String, List<Extension>> INDEX_ID =
+      ID.create("protobuf.extensionNumbers");
+
+  /**
+   * An extension field.
+   *
+   * @param name the name of the field
+   * @param number the field number
+   * @param offset the start offset of the field in the file
+   * @param unambiguous <code>true</code> if the extendee name is fully qualified, or the field is
+   *     stored under the innermost name the extendee could resolve to
+   */
+  public record Extension(@NotNull String name, long number, int offset, boolean unambiguous) {}
+
+  private static final DataIndexer<String, List<Extension>, FileContent> INDEXER_INSTANCE =
+      new ExtensionNumberIndexer();
+
+  private static final DataExternalizer<List<Extension>> EXTERNALIZER =
+      new DataExternalizer<>() {
+        @Override
+        public void save(@NotNull DataOutput out, List<Extension> value) throws IOException {
+          DataInputOutputUtil.writeINT(out, value.size());
+          for (Extension extension : value) {
+            IOUtil.writeUTF(out, extension.name());
+            DataInputOutputUtil.writeLONG(out, extension.number());
+            DataInputOutputUtil.writeINT(out, extension.offset());
+            out.writeBoolean(extension.unambiguous());
+          }
+        }
+
+        @Override
+        public List<Extension> read(@NotNull DataInput in) throws IOException {
+          int size = DataInputOutputUtil.readINT(in);
+          List<Extension> extensions = new ArrayList<>(size);
+          for (int i = 0; i < size; i++) {
+            String name = IOUtil.readUTF(in);
+            long number = DataInputOutputUtil.readLONG(in);
+            int offset = DataInputOutputUtil.readINT(in);
+            boolean unambiguous = in.readBoolean();
+            extensions.add(new Extension(name, number, offset, unambiguous));
+          }
+          return extensions;
+        }
+      };
+
+  /**
+   * Returns the extensions stored under the given extendee name, by the file that declares them.
+   */
+  public static Map<VirtualFile, List<Extension>> getExtensions(
+      QualifiedName extendeeName, GlobalSearchScope scope) {
+    Map<VirtualFile, List<Extension>> result = new HashMap<>();
+    FileBasedIndex.getInstance()
+        .processValues(
+            INDEX_ID,
+            extendeeName.toString(),
+            null,
+            (file, extensions) -> {
+              result.put(file, extensions);
+              return true;
+            },
+            scope);
+    return result;
+  }
+
+  /** Returns the field of an extension found in the given file. */
+  @Nullable
+  public static PbField findField(Project project, VirtualFile file, Extension extension) {
+    PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+    if (psiFile == null) {
+      return null;
+    }
+    return PsiTreeUtil.findElementOfClassAtOffset(
+        psiFile, extension.offset(), PbField.class, /* strictStart= */ true);
+  }
+
+  @NotNull
+  @Override
+  public ID<String, List<Extension>> getName() {
+    return INDEX_ID;
+  }
+
+  @NotNull
+  @Override
+  public DataIndexer<String, List<Extension>, FileContent> getIndexer() {
+    return INDEXER_INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public DataExternalizer<List<Extension>> getValueExternalizer() {
+    return EXTERNALIZER;
+  }
+
+  @NotNull
+  @Override
+  public InputFilter getInputFilter() {
+    return new DefaultFileTypeSpecificInputFilter(PbFileType.INSTANCE);
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  @Override
+  public int getVersion() {
+    return 0;
+  }
+
+  /** Collects the extension fields of a file from its light tree. */
+  private static class ExtensionNumberIndexer
+      implements DataIndexer<String, List<Extension>, FileContent> {
+
+    @Override
+    @NotNull
+    public Map<String, List<Extension>> map(@NotNull FileContent inputData) {
+      LighterAST tree = ((PsiDependentFileContent) inputData).getLighterAST();
+      LighterASTNode root = tree.getRoot();
+      LighterASTNode packageStatement =
+          LightTreeUtil.firstChildOfType(tree, root, PbTypes.PACKAGE_STATEMENT);
+      LighterASTNode packageNameNode =
+          packageStatement != null
+              ? LightTreeUtil.firstChildOfType(tree, packageStatement, PbTypes.PACKAGE_NAME)
+              : null;
+      QualifiedName packageName =
+          packageNameNode != null
+              ? QualifiedName.fromComponents(getIdentifiers(tree, packageNameNode))
+              : QualifiedName.fromComponents();
+      Map<String, List<Extension>> result = new HashMap<>();
+      visitStatements(tree, root, packageName, result);
+      return result;
+    }
+
+    private static void visitStatements(
+        LighterAST tree,
+        LighterASTNode owner,
+        QualifiedName scope,
+        Map<String, List<Extension>> result) {
+      for (LighterASTNode child : tree.getChildren(owner)) {
+        if (child.getTokenType() == PbTypes.MESSAGE_DEFINITION
+            || child.getTokenType() == PbTypes.GROUP_DEFINITION) {
+          visitMessageType(tree, child, scope, result);
+        } else if (child.getTokenType() == PbTypes.ONEOF_DEFINITION) {
+          // Oneofs don't introduce a scope, but may contain groups.
+          LighterASTNode body = LightTreeUtil.firstChildOfType(tree, child, PbTypes.ONEOF_BODY);
+          if (body != null) {
+            visitStatements(tree, body, scope, result);
+          }
+        } else if (child.getTokenType() == PbTypes.EXTEND_DEFINITION) {
+          visitExtendDefinition(tree, child, scope, result);
+        }
+      }
+    }
+
+    private static void visitMessageType(
+        LighterAST tree,
+        LighterASTNode messageType,
+        QualifiedName scope,
+        Map<String, List<Extension>> result) {
+      String name = getName(tree, messageType);
+      LighterASTNode body = LightTreeUtil.firstChildOfType(tree, messageType, PbTypes.MESSAGE_BODY);
+      if (name != null && body != null) {
+        visitStatements(tree, body, scope.append(name), result);
+      }
+    }
+
+    private static void visitExtendDefinition(
+        LighterAST tree,
+        LighterASTNode extendDefinition,
+        QualifiedName scope,
+        Map<String, List<Extension>> result) {
+      LighterASTNode typeName =
+          LightTreeUtil.firstChildOfType(tree, extendDefinition, PbTypes.MESSAGE_TYPE_NAME);
+      LighterASTNode body =
+          LightTreeUtil.firstChildOfType(tree, extendDefinition, PbTypes.EXTEND_BODY);
+      if (typeName == null || body == null) {
+        return;
+      }
+      List<String> extendeeComponents = getIdentifiers(tree, typeName);
+      if (extendeeComponents.isEmpty()) {
+        return;
+      }
+      QualifiedName extendeeName = QualifiedName.fromComponents(extendeeComponents);
+      boolean fullyQualified =
+          LightTreeUtil.firstChildOfType(tree, typeName, ProtoTokenTypes.DOT) != null;
+
+      for (LighterASTNode field : tree.getChildren(body)) {
+        if (field.getTokenType() != PbTypes.SIMPLE_FIELD
+            && field.getTokenType() != PbTypes.GROUP_DEFINITION) {
+          continue;
+        }
+        String name = getName(tree, field);
+        Long number = getFieldNumber(tree, field);
+        if (name == null || number == null) {
+          continue;
+        }
+        if (fullyQualified) {
+          addExtension(
+              result, extendeeName, new Extension(name, number, field.getStartOffset(), true));
+        } else {
+          // Like in PbSymbolResolver, the innermost scope is tried first.
+          QualifiedName candidateScope = scope;
+          boolean innermost = true;
+          while (true) {
+            addExtension(
+                result,
+                candidateScope.append(extendeeName),
+                new Extension(name, number, field.getStartOffset(), innermost));
+            if (candidateScope.getComponentCount() == 0) {
+              break;
+            }
+            candidateScope = candidateScope.removeLastComponent();
+            innermost = false;
+          }
+        }
+        if (field.getTokenType() == PbTypes.GROUP_DEFINITION) {
+          visitMessageType(tree, field, scope, result);
+        }
+      }
+    }
+
+    private static void addExtension(
+        Map<String, List<Extension>> result, QualifiedName extendeeName, Extension extension) {
+      result.computeIfAbsent(extendeeName.toString(), name -> new ArrayList<>()).add(extension);
+    }
+
+    @Nullable
+    private static String getName(LighterAST tree, LighterASTNode node) {
+      LighterASTNode identifier =
+          LightTreeUtil.firstChildOfType(tree, node, ProtoTokenTypes.IDENTIFIER_LITERAL);
+      return identifier instanceof LighterASTTokenNode
+          ? ((LighterASTTokenNode) identifier).getText().toString()
+          : null;
+    }
+
+    @Nullable
+    private static Long getFieldNumber(LighterAST tree, LighterASTNode field) {
+      LighterASTNode numberValue =
+          LightTreeUtil.firstChildOfType(tree, field, PbTypes.NUMBER_VALUE);
+      if (numberValue == null
+          || LightTreeUtil.firstChildOfType(tree, numberValue, ProtoTokenTypes.MINUS) != null) {
+        return null;
+      }
+      LighterASTNode literal =
+          LightTreeUtil.firstChildOfType(tree, numberValue, ProtoTokenTypes.INTEGER_LITERAL);
+      if (!(literal instanceof LighterASTTokenNode)) {
+        return null;
+      }
+      try {
+        // Decimal, hexadecimal and octal literals are written the same way as in Java.
+        return Long.decode(((LighterASTTokenNode) literal).getText().toString());
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+
+    /** Returns the identifiers under the given node, in order. */
+    private static List<String> getIdentifiers(LighterAST tree, LighterASTNode node) {
+      List<String> identifiers = new ArrayList<>();
+      collectIdentifiers(tree, node, identifiers);
+      return identifiers;
+    }
+
+    private static void collectIdentifiers(
+        LighterAST tree, LighterASTNode node, List<String> identifiers) {
+      for (LighterASTNode child : tree.getChildren(node)) {
+        if (child instanceof LighterASTTokenNode) {
+          if (child.getTokenType() == ProtoTokenTypes.IDENTIFIER_LITERAL) {
+            identifiers.add(((LighterASTTokenNode) child).getText().toString());
+          }
+        } else {
+          collectIdentifiers(tree, child, identifiers);
+        }
+      }
+    }
+  }
+}
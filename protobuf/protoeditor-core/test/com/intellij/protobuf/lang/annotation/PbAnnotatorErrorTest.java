@@ -128,6 +128,12 @@ public class PbAnnotatorErrorTest extends PbCodeInsightFixtureTestCase {
     doTest("lang/annotation/ExtendErrors.proto.testdata");
   }
 
+  public void testExtensionNumberErrorAnnotations() {
+    myFixture.configureByFile("lang/annotation/extension_numbers.proto");
+    myFixture.configureByFile("lang/annotation/extension_numbers_unlinked.proto");
+    doTest("lang/annotation/ExtensionNumberErrors.proto.testdata");
+  }
+
   public void testNameConflictErrorAnnotations() {
     myFixture.configureByFile("lang/annotation/conflictimport1.proto");
     myFixture.configureByFile("lang/annotation/conflictimport2.proto");
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.protobuf.lang.annotation;
+
+import com.intellij.codeInsight.daemon.impl.HighlightInfo;
+import com.intellij.codeInsight.lookup.LookupElement;
+import com.intellij.codeInsight.lookup.LookupManager;
+import com.intellij.lang.annotation.HighlightSeverity;
+import com.intellij.protobuf.TestUtils;
+import com.intellij.protobuf.fixtures.PbCodeInsightFixtureTestCase;
+import com.intellij.protobuf.lang.PbLangBundle;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.impl.PsiModificationTrackerImpl;
+import com.intellij.testFramework.PlatformTestUtil;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.intellij.testFramework.EditorTestUtil.CARET_TAG;
+
+/**
+ * Extension number checks and completion in a project with thousands of files extending the same
+ * message, of which only a few are imported.
+ */
+public class PbExtensionNumberPerformanceTest extends PbCodeInsightFixtureTestCase {
+  private static final int EXTENSION_FILE_COUNT = 2000;
+  private static final int IMPORTED_FILE_COUNT = 20;
+  private static final int LOCAL_EXTENSION_COUNT = 200;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    TestUtils.addTestFileResolveProvider(getProject(), getTestRootDisposable());
+    addExtensionFiles();
+  }
+
+  public void testExtensionNumberAnnotations() {
+    StringBuilder text = new StringBuilder(header()).append(importBase());
+    for (int i = 0; i < IMPORTED_FILE_COUNT; i++) {
+      text.append("import \"perf/ext").append(i).append(".proto\";\n");
+    }
+    text.append("extend Base {\n");
+    for (int i = 0; i < LOCAL_EXTENSION_COUNT; i++) {
+      text.append("  optional int32 local").append(i).append(" = ")
+          .append(EXTENSION_FILE_COUNT + i + 1).append(";\n");
+    }
+    // Also used by the extension in perf/ext0.proto.
+    text.append("  optional int32 reused = 1;\n");
+    text.append("}\n");
+    myFixture.configureByText("main.proto", text.toString());
+
+    String what = "Extension number annotations with " + EXTENSION_FILE_COUNT + " extension files";
+    PlatformTestUtil.startPerformanceTest(what, 3000, () -> {
+      List<HighlightInfo> errors = myFixture.doHighlighting(HighlightSeverity.ERROR);
+      assertSize(1, errors);
+      assertEquals(
+          PbLangBundle.message("extension.number.already.used", 1, "perf.Base", "ext0"),
+          errors.get(0).getDescription());
+    }).setup(this::dropCaches).assertTiming();
+  }
+
+  public void testNextFreeExtensionNumber() {
+    myFixture.configureByText(
+        "main.proto",
+        header() + importBase() + "extend Base {\n  optional int32 next = " + CARET_TAG + "\n}\n");
+    String nextFreeNumber = String.valueOf(EXTENSION_FILE_COUNT + 1);
+
+    String what = "Next free extension number with " + EXTENSION_FILE_COUNT + " extension files";
+    PlatformTestUtil.startPerformanceTest(what, 2000, () -> {
+      LookupElement[] completions = myFixture.completeBasic();
+      assertNotNull(completions);
+      assertTrue(
+          Arrays.stream(completions)
+              .anyMatch(item -> nextFreeNumber.equals(item.getLookupString())));
+      LookupManager.getInstance(getProject()).hideActiveLookup();
+    }).setup(this::dropCaches).assertTiming();
+  }
+
+  /** Makes every attempt resolve and compute the cached values again. */
+  private void dropCaches() {
+    ((PsiModificationTrackerImpl) PsiManager.getInstance(getProject()).getModificationTracker())
+        .incCounter();
+  }
+
+  private void addExtensionFiles() {
+    myFixture.addFileToProject(
+        "perf/base.proto", header() + "message Base {\n  extensions 1 to max;\n}\n");
+    for (int i = 0; i < EXTENSION_FILE_COUNT; i++) {
+      myFixture.addFileToProject(
+          "perf/ext" + i + ".proto",
+          header()
+              + importBase()
+              + "extend Base {\n"
+              + "  optional int32 ext" + i + " = " + (i + 1) + ";\n"
+              + "}\n");
+    }
+  }
+
+  private static String header() {
+    return "syntax = \"proto2\";\npackage perf;\n";
+  }
+
+  private static String importBase() {
+    return "import \"perf/base.proto\";\n";
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.protobuf.lang.completion;
+
+import java.util.List;
+
+import static com.intellij.testFramework.EditorTestUtil.CARET_TAG;
+
+/** Tests for extension field number completion. */
+public class PbCompleteExtensionNumbersTest extends PbCompletionContributorTestCase {
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    withSyntax("proto2");
+  }
+
+  public void testNextFreeExtensionNumber() {
+    setAdditionalFile("other.proto", "extend Extendable {", "  optional int32 other = 101;", "}");
+    setInput(
+        "message Extendable {",
+        "  extensions 100 to 199;",
+        "}",
+        "extend Extendable {",
+        "  optional int32 first = 100;",
+        "  optional int32 second = 102;",
+        "  optional int32 third = " + CARET_TAG,
+        "}");
+    List<String> completions = getCompletionItemsAsStrings();
+    assertNotNull(completions);
+    assertContainsElements(completions, "103");
+    assertDoesntContain(completions, "100", "101", "102");
+  }
+
+  public void testNextFreeExtensionNumberSkipsNumbersReservedByProto() {
+    setInput(
+        "message Extendable {",
+        "  extensions 18999 to 20010;",
+        "}",
+        "extend Extendable {",
+        "  optional int32 first = 18999;",
+        "  optional int32 second = " + CARET_TAG,
+        "}");
+    List<String> completions = getCompletionItemsAsStrings();
+    assertNotNull(completions);
+    assertContainsElements(completions, "20000");
+  }
+
+  public void testNoNumberOutsideExtensionRanges() {
+    setInput(
+        "message Extendable {",
+        "  extensions 100;",
+        "}",
+        "extend Extendable {",
+        "  optional int32 first = 100;",
+        "  optional int32 second = " + CARET_TAG,
+        "}");
+    List<String> completions = getCompletionItemsAsStrings();
+    assertNotNull(completions);
+    assertDoesntContain(completions, "100", "101");
+  }
+}
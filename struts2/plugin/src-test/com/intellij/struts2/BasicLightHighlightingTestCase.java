@@ -27,6 +27,7 @@ import com.intellij.struts2.facet.ui.StrutsFileSet;
 import com.intellij.testFramework.LightProjectDescriptor;
 import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
 import com.intellij.testFramework.fixtures.MavenDependencyUtil;
+import com.intellij.util.io.URLUtil;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 
@@ -138,7 +139,7 @@ public abstract class BasicLightHighlightingTestCase extends LightJavaCodeInsigh
   }
 
   /**
-   * @param strutsXmlPaths Paths to files or URL inside JAR from VFS
+   * @param strutsXmlPaths Paths to files or VFS URLs (e.g. inside JAR or of files created in the test)
    */
   protected void createStrutsFileSet(@NonNls String... strutsXmlPaths) {
     final StrutsFacet strutsFacet = StrutsFacet.getInstance(getModule());
@@ -149,7 +150,7 @@ public abstract class BasicLightHighlightingTestCase extends LightJavaCodeInsigh
     myStrutsFileSets.add(fileSet);
     for (String fileName : strutsXmlPaths) {
       VirtualFile file;
-      if (fileName.contains("!")) {
+      if (fileName.contains(URLUtil.SCHEME_SEPARATOR)) {
         file = VirtualFileManager.getInstance().findFileByUrl(fileName);
       }
       else {
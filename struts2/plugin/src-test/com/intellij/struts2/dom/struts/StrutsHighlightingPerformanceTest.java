@@ -0,0 +1,79 @@
+/*
+ * Copyright 2021 The authors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intellij.struts2.dom.struts;
+
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.impl.PsiModificationTrackerImpl;
+import com.intellij.struts2.model.constant.StrutsConstantManager;
+import com.intellij.struts2.model.constant.contributor.StrutsCoreConstantContributor;
+import com.intellij.testFramework.PlatformTestUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+
+/**
+ * Highlighting of a generated struts.xml with thousands of actions, each resolving constants.
+ */
+public class StrutsHighlightingPerformanceTest extends StrutsLightHighlightingTestCase {
+
+  private static final int ACTION_COUNT = 3000;
+
+  @Override
+  @NotNull
+  protected String getTestDataLocation() {
+    return "strutsXml/highlighting";
+  }
+
+  public void testManyActions() {
+    final PsiFile strutsXml = myFixture.addFileToProject(STRUTS_XML, generateStrutsXml());
+    createStrutsFileSet(strutsXml.getVirtualFile().getUrl());
+    myFixture.configureFromExistingVirtualFile(strutsXml.getVirtualFile());
+
+    final StrutsConstantManager constantManager = StrutsConstantManager.getInstance(getProject());
+    PlatformTestUtil.startPerformanceTest("struts.xml with " + ACTION_COUNT + " actions", 15_000, () -> {
+      myFixture.doHighlighting();
+      // constants are looked up once per action by converters and reference providers
+      for (int i = 0; i < ACTION_COUNT; i++) {
+        assertEquals(Collections.singletonList("do"),
+                     constantManager.getConvertedValue(strutsXml, StrutsCoreConstantContributor.ACTION_EXTENSION));
+      }
+    }).setup(() -> ((PsiModificationTrackerImpl)PsiManager.getInstance(getProject()).getModificationTracker()).incCounter())
+      .assertTiming();
+  }
+
+  @NotNull
+  private static String generateStrutsXml() {
+    final StringBuilder xml = new StringBuilder();
+    xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n")
+      .append("<!DOCTYPE struts PUBLIC\n")
+      .append("        \"-//Apache Software Foundation//DTD Struts Configuration 2.0//EN\"\n")
+      .append("        \"http://struts.apache.org/dtds/struts-2.0.dtd\">\n")
+      .append("<struts>\n")
+      .append("  <constant name=\"struts.action.extension\" value=\"do\"/>\n")
+      .append("  <constant name=\"struts.devMode\" value=\"true\"/>\n")
+      .append("  <constant name=\"struts.enable.DynamicMethodInvocation\" value=\"false\"/>\n")
+      .append("  <package name=\"generated\" extends=\"struts-default\">\n");
+    for (int i = 0; i < ACTION_COUNT; i++) {
+      xml.append("    <action name=\"action").append(i).append("\">\n")
+        .append("      <result>/page").append(i % 100).append(".jsp</result>\n")
+        .append("    </action>\n");
+    }
+    xml.append("  </package>\n")
+      .append("</struts>\n");
+    return xml.toString();
+  }
+}
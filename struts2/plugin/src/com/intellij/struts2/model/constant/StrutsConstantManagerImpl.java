@@ -22,9 +22,11 @@ import com.intellij.javaee.web.model.xml.Filter;
 import com.intellij.javaee.web.model.xml.WebApp;
 import com.intellij.lang.properties.IProperty;
 import com.intellij.lang.properties.PropertiesImplUtil;
+import com.intellij.lang.properties.psi.PropertiesFile;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleUtilCore;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.util.Condition;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.JarFileSystem;
@@ -32,7 +34,14 @@ import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.FilenameIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.InheritanceUtil;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.xml.XmlFile;
 import com.intellij.struts2.StrutsConstants;
 import com.intellij.struts2.dom.struts.StrutsRoot;
@@ -50,10 +59,8 @@ import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Yann C&eacute;bron
@@ -72,6 +79,30 @@ public class StrutsConstantManagerImpl extends StrutsConstantManager {
            InheritanceUtil.isInheritor(filterClass, StrutsConstants.STRUTS_2_1_FILTER_CLASS);
   };
 
+  /**
+   * Where the effective value of a constant comes from.
+   */
+  private enum ConstantSource {
+    DEFAULT_PROPERTIES, STRUTS_XML, STRUTS_PROPERTIES, WEB_XML
+  }
+
+  private record ResolvedConstant(@Nullable String value, @NotNull ConstantSource source) {
+  }
+
+  private record ConstantsKey(@NotNull StrutsModel strutsModel, @NotNull Module module, @Nullable WebFacet webFacet) {
+  }
+
+  /**
+   * Effective constants per model, dropped on any PSI or project roots change.
+   */
+  private final CachedValue<Map<ConstantsKey, Map<String, ResolvedConstant>>> myResolvedConstants;
+
+  public StrutsConstantManagerImpl(@NotNull final Project project) {
+    myResolvedConstants = CachedValuesManager.getManager(project).createCachedValue(
+      () -> CachedValueProvider.Result.create(new ConcurrentHashMap<>(),
+                                              PsiModificationTracker.MODIFICATION_COUNT,
+                                              ProjectRootManager.getInstance(project)), false);
+  }
 
   @NotNull
   @Override
@@ -140,78 +171,119 @@ public class StrutsConstantManagerImpl extends StrutsConstantManager {
    * @return {@code null} if no value could be resolved.
    */
   @Nullable
-  private static String getStringValue(@NotNull final PsiFile context,
-                                       @NotNull final StrutsModel strutsModel,
-                                       @NotNull @NonNls final String name) {
-    final Project project = context.getProject();
+  private String getStringValue(@NotNull final PsiFile context,
+                                @NotNull final StrutsModel strutsModel,
+                                @NotNull @NonNls final String name) {
+    final ResolvedConstant constant = getResolvedConstants(context, strutsModel).get(name);
+    return constant != null ? constant.value : null;
+  }
+
+  @NotNull
+  private Map<String, ResolvedConstant> getResolvedConstants(@NotNull final PsiFile context,
+                                                             @NotNull final StrutsModel strutsModel) {
     final Module module = ModuleUtilCore.findModuleForPsiElement(context);
     assert module != null : context;
 
-    // collect all properties with matching key
-    final List<IProperty> properties = PropertiesImplUtil.findPropertiesByKey(project, name);
+    final ConstantsKey key = new ConstantsKey(strutsModel, module, WebUtil.getWebFacet(context));
+    final Map<ConstantsKey, Map<String, ResolvedConstant>> cache = myResolvedConstants.getValue();
+    final Map<String, ResolvedConstant> cached = cache.get(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    final Map<String, ResolvedConstant> constants = resolveConstants(context.getProject(), key);
+    final Map<String, ResolvedConstant> concurrent = cache.putIfAbsent(key, constants);
+    return concurrent != null ? concurrent : constants;
+  }
 
-    String value = null;
+  /**
+   * Resolves all constants, each layer overrides the values of the previous ones.
+   */
+  @NotNull
+  private static Map<String, ResolvedConstant> resolveConstants(@NotNull final Project project, @NotNull final ConstantsKey key) {
+    final Module module = key.module;
+    final Map<String, ResolvedConstant> constants = new HashMap<>();
 
     // 1. default.properties from struts2-core.jar
-    final IProperty strutsDefaultProperty = ContainerUtil.find(properties, property -> {
-      final VirtualFile virtualFile = property.getPropertiesFile().getVirtualFile();
-      return virtualFile != null &&
-             virtualFile.getFileSystem() instanceof JarFileSystem &&
-             StringUtil.endsWith(virtualFile.getPath(), STRUTS_DEFAULT_PROPERTIES) &&
-             ModuleUtilCore.moduleContainsFile(module, virtualFile, true);
-    });
-    if (strutsDefaultProperty != null) {
-      value = strutsDefaultProperty.getValue();
-    }
+    constants.putAll(collectProperties(project, "default.properties", ConstantSource.DEFAULT_PROPERTIES, virtualFile ->
+      virtualFile.getFileSystem() instanceof JarFileSystem &&
+      StringUtil.endsWith(virtualFile.getPath(), STRUTS_DEFAULT_PROPERTIES) &&
+      ModuleUtilCore.moduleContainsFile(module, virtualFile, true)));
 
     // 2. <constant> from StrutsModel
-    final Condition<Constant> constantNameCondition = constant -> Objects.equals(constant.getName().getStringValue(), name);
-
     final List<DomFileElement<StrutsRoot>> domFileElements = new ArrayList<>();
-    collectStrutsXmls(domFileElements, strutsModel, "struts-default.xml", true);
-    collectStrutsXmls(domFileElements, strutsModel, "struts-plugin.xml", true);
-    collectStrutsXmls(domFileElements, strutsModel, "struts.xml", false);
+    collectStrutsXmls(domFileElements, key.strutsModel, "struts-default.xml", true);
+    collectStrutsXmls(domFileElements, key.strutsModel, "struts-plugin.xml", true);
+    collectStrutsXmls(domFileElements, key.strutsModel, "struts.xml", false);
     for (final DomFileElement<StrutsRoot> domFileElement : domFileElements) {
-      final Constant constant = ContainerUtil.find(domFileElement.getRootElement().getConstants(),
-                                                   constantNameCondition);
-      final String strutsXmlValue = constant != null ? constant.getValue().getStringValue() : null;
-      if (strutsXmlValue != null) {
-        value = strutsXmlValue;
+      final Set<String> namesInFile = new HashSet<>();
+      for (final Constant constant : domFileElement.getRootElement().getConstants()) {
+        final String name = constant.getName().getStringValue();
+        if (name == null || !namesInFile.add(name)) {
+          continue;
+        }
+        final String strutsXmlValue = constant.getValue().getStringValue();
+        if (strutsXmlValue != null) {
+          constants.put(name, new ResolvedConstant(strutsXmlValue, ConstantSource.STRUTS_XML));
+        }
       }
     }
 
     // 3. struts.properties in current module
-    final IProperty strutsProperty = ContainerUtil.find(properties, property -> {
-      final VirtualFile virtualFile = property.getPropertiesFile().getVirtualFile();
-      return virtualFile != null &&
-             Objects.equals(virtualFile.getName(), STRUTS_PROPERTIES_FILENAME) &&
-             ModuleUtilCore.moduleContainsFile(module, virtualFile, false);
-    });
-    if (strutsProperty != null) {
-      value = strutsProperty.getValue();
-    }
+    constants.putAll(collectProperties(project, STRUTS_PROPERTIES_FILENAME, ConstantSource.STRUTS_PROPERTIES, virtualFile ->
+      ModuleUtilCore.moduleContainsFile(module, virtualFile, false)));
 
     // 4. web.xml
-    final WebFacet webFacet = WebUtil.getWebFacet(context);
+    final WebFacet webFacet = key.webFacet;
     if (webFacet == null) {
-      return value; // should not happen in real projects..
+      return Collections.unmodifiableMap(constants); // should not happen in real projects..
     }
     final WebApp webApp = webFacet.getRoot();
     if (webApp == null) {
-      return value; // no web.xml
+      return Collections.unmodifiableMap(constants); // no web.xml
     }
 
     final Filter filter = ContainerUtil.find(webApp.getFilters(), WEB_XML_STRUTS_FILTER_CONDITION);
     if (filter != null) {
-      final CommonParamValue initParam = ContainerUtil.find(filter.getInitParams(),
-                                                            (Condition<CommonParamValue>)paramValue -> Objects.equals(
-                                                        paramValue.getParamName().getStringValue(), name));
-      if (initParam != null) {
-        value = initParam.getParamValue().getStringValue();
+      final Set<String> initParamNames = new HashSet<>();
+      for (final CommonParamValue initParam : filter.getInitParams()) {
+        final String name = initParam.getParamName().getStringValue();
+        if (name != null && initParamNames.add(name)) {
+          constants.put(name, new ResolvedConstant(initParam.getParamValue().getStringValue(), ConstantSource.WEB_XML));
+        }
       }
     }
 
-    return value;
+    return Collections.unmodifiableMap(constants);
+  }
+
+  /**
+   * Collects properties from all matching files, the first property wins for each key.
+   */
+  @NotNull
+  private static Map<String, ResolvedConstant> collectProperties(@NotNull final Project project,
+                                                                 @NotNull @NonNls final String fileName,
+                                                                 @NotNull final ConstantSource source,
+                                                                 @NotNull final Condition<VirtualFile> fileCondition) {
+    final Map<String, ResolvedConstant> result = new HashMap<>();
+    final PsiManager psiManager = PsiManager.getInstance(project);
+    for (final VirtualFile virtualFile : FilenameIndex.getVirtualFilesByName(fileName, GlobalSearchScope.allScope(project))) {
+      if (!fileCondition.value(virtualFile)) {
+        continue;
+      }
+
+      final PropertiesFile propertiesFile = PropertiesImplUtil.getPropertiesFile(psiManager.findFile(virtualFile));
+      if (propertiesFile == null) {
+        continue;
+      }
+      for (final IProperty property : propertiesFile.getProperties()) {
+        final String key = property.getUnescapedKey();
+        if (key != null) {
+          result.putIfAbsent(key, new ResolvedConstant(property.getValue(), source));
+        }
+      }
+    }
+    return result;
   }
 
   /**
@@ -3,6 +3,8 @@ package com.intellij.lang.javascript.linter.tslint.execution;
 
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.intellij.lang.javascript.linter.tslint.TslintUtil;
 import com.intellij.lang.javascript.service.protocol.LocalFilePath;
 import com.intellij.openapi.diagnostic.Logger;
@@ -14,7 +16,10 @@ import com.intellij.webcore.util.JsonUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static com.intellij.lang.javascript.linter.tslint.highlight.TsLintFixInfo.createTsLintFixInfo;
@@ -109,6 +114,187 @@ public final class TsLintOutputJsonParser {
     return result;
   }
 
+  /**
+   * Reads the output of a batch request: an array with an element per linted file, either an array of failures, as accepted by
+   * the constructor, or a string with the error that prevented linting the file.
+   * Failures are read one at a time, without building a tree for the whole output.
+   *
+   * @param paths paths of the linted files, in the order of the output elements
+   * @return errors per file, in the order of {@code paths}
+   */
+  @NotNull
+  public static List<List<TsLinterError>> parseBatch(@NotNull List<String> paths,
+                                                     @NotNull Reader output,
+                                                     boolean zeroBasedRowCol,
+                                                     @NotNull Gson gson) throws IOException {
+    List<List<TsLinterError>> result = new ArrayList<>(paths.size());
+    JsonReader reader = new JsonReader(output);
+    reader.beginArray();
+    while (reader.hasNext()) {
+      String path = result.size() < paths.size() ? paths.get(result.size()) : null;
+      JsonToken token = reader.peek();
+      if (token == JsonToken.STRING) {
+        result.add(Collections.singletonList(TsLinterError.createGlobalError(reader.nextString()))); //NON-NLS
+      }
+      else if (token == JsonToken.BEGIN_ARRAY) {
+        TsLintOutputJsonParser parser = new TsLintOutputJsonParser(path, zeroBasedRowCol, gson);
+        List<TsLinterError> errors = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+          if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            logError("element under root is not object");
+            reader.skipValue();
+          }
+          else {
+            ContainerUtil.addIfNotNull(errors, parser.readError(reader));
+          }
+        }
+        reader.endArray();
+        result.add(errors);
+      }
+      else {
+        logError("root element is not array");
+        reader.skipValue();
+        result.add(ContainerUtil.emptyList());
+      }
+    }
+    reader.endArray();
+    if (result.size() != paths.size()) {
+      logError("expected results for " + paths.size() + " files, got " + result.size());
+      while (result.size() < paths.size()) {
+        result.add(ContainerUtil.emptyList());
+      }
+    }
+    return result.size() == paths.size() ? result : result.subList(0, paths.size());
+  }
+
+  private TsLintOutputJsonParser(@Nullable String path, boolean zeroBasedRowCol, @NotNull Gson gson) {
+    myPath = path;
+    myMyZeroBasedRowCol = zeroBasedRowCol;
+    myGson = gson;
+    myErrors = ContainerUtil.emptyList();
+  }
+
+  /**
+   * Streaming counterpart of {@link #processError}.
+   */
+  @Nullable
+  private TsLinterError readError(@NotNull JsonReader reader) throws IOException {
+    boolean hasName = false;
+    LocalFilePath name = null;
+    String failure = null;
+    Pair<Integer, Integer> start = null;
+    Pair<Integer, Integer> end = null;
+    boolean hasStart = false;
+    boolean hasEnd = false;
+    String ruleName = null;
+    String severityStr = null;
+    JsonElement fix = null;
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String property = reader.nextName();
+      switch (property) {
+        case "name" -> {
+          hasName = true;
+          name = myGson.getAdapter(LocalFilePath.class).read(reader);
+        }
+        case "failure" -> failure = readString(reader);
+        case "startPosition" -> {
+          hasStart = reader.peek() == JsonToken.BEGIN_OBJECT;
+          start = readLineColumn(reader);
+        }
+        case "endPosition" -> {
+          hasEnd = reader.peek() == JsonToken.BEGIN_OBJECT;
+          end = readLineColumn(reader);
+        }
+        case "ruleName" -> ruleName = readString(reader);
+        case "ruleSeverity" -> severityStr = readString(reader);
+        case FIX_PROPERTY -> fix = JsonParser.parseReader(reader);
+        default -> reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    if (!hasName) {
+      logError("no name for error object");
+      return null;
+    }
+    if (failure == null) {
+      logError("no failure for error object");
+      return null;
+    }
+    if (!hasStart) {
+      logError("no startPosition for error object");
+      return null;
+    }
+    if (!hasEnd) {
+      logError("no endPosition for error object");
+      return null;
+    }
+    if (ruleName == null) {
+      logError("no rule name for error object");
+      return null;
+    }
+    if (start == null || end == null) return null;
+
+    String filePath = LocalFilePath.getPath(name);
+    return new TsLinterError(StringUtil.isEmpty(filePath) ? myPath : filePath,
+                             start.getFirst(),
+                             start.getSecond(),
+                             end.getFirst(),
+                             end.getSecond(),
+                             failure, //NON-NLS
+                             ruleName,
+                             StringUtil.equalsIgnoreCase(severityStr, "warning"),
+                             createTsLintFixInfo(fix));
+  }
+
+  @Nullable
+  private Pair<Integer, Integer> readLineColumn(@NotNull JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+      reader.skipValue();
+      return null;
+    }
+    Integer line = null;
+    Integer character = null;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String property = reader.nextName();
+      if (("line".equals(property) || "character".equals(property)) && reader.peek() == JsonToken.NUMBER) {
+        if ("line".equals(property)) {
+          line = reader.nextInt();
+        }
+        else {
+          character = reader.nextInt();
+        }
+      }
+      else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+    if (line == null) {
+      logError("no line for position");
+      return null;
+    }
+    if (character == null) {
+      logError("no character for position");
+      return null;
+    }
+    if (myMyZeroBasedRowCol) return Pair.create(line, character);
+    return Pair.create(line + 1, character + 1);
+  }
+
+  @Nullable
+  private static String readString(@NotNull JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.STRING) {
+      reader.skipValue();
+      return null;
+    }
+    return reader.nextString();
+  }
+
   private Pair<Integer, Integer> parseLineColumn(JsonObject position) {
     final JsonElement line = position.get("line");
     if (line == null || !(line.isJsonPrimitive() && line.getAsJsonPrimitive().isNumber())) {
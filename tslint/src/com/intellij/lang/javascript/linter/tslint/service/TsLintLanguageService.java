@@ -5,6 +5,7 @@ import com.google.gson.*;
 import com.intellij.javascript.nodejs.execution.NodeTargetRun;
 import com.intellij.javascript.nodejs.library.yarn.pnp.YarnPnpNodePackage;
 import com.intellij.javascript.nodejs.util.NodePackage;
+import com.intellij.lang.javascript.buildTools.npm.PackageJsonUtil;
 import com.intellij.lang.javascript.linter.AutodetectLinterPackage;
 import com.intellij.lang.javascript.linter.ExtendedLinterState;
 import com.intellij.lang.javascript.linter.tslint.TsLintBundle;
@@ -21,29 +22,93 @@ import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.registry.Registry;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.intellij.util.ArrayUtil;
 import com.intellij.util.EmptyConsumer;
+import com.intellij.util.PathUtil;
 import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.containers.SLRUMap;
 import com.intellij.util.text.SemVer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 
 
 public final class TsLintLanguageService extends JSLanguageServiceBase {
   private final static Logger LOG = Logger.getInstance(TsLintLanguageService.class);
+  private static final int RESULT_CACHE_SIZE = 200;
+  private static final int MAX_BATCH_SIZE = 50;
 
   private final @NotNull VirtualFile myWorkingDirectory;
   private final @NotNull NodePackage myNodePackage;
+  private final @NotNull CommandExecutor myCommandExecutor;
+
+  /**
+   * Results of {@link GetErrorsCommand}s, so that highlighting passes over unchanged files with unchanged configuration
+   * don't reach the service. Guarded by itself.
+   */
+  private final SLRUMap<ResultKey, List<TsLinterError>> myResultCache = new SLRUMap<>(RESULT_CACHE_SIZE, RESULT_CACHE_SIZE);
+  private final AtomicLong myConfigModificationCount = new AtomicLong();
+  private volatile @Nullable String myLinterVersion;
+
+  private final Object myBatchLock = new Object();
+  private List<BatchItem> myPendingBatchItems = new ArrayList<>();
+  private boolean myBatchInProgress;
 
   public TsLintLanguageService(@NotNull Project project, @NotNull NodePackage nodePackage, @NotNull VirtualFile workingDirectory) {
+    this(project, nodePackage, workingDirectory, null);
+  }
+
+  @TestOnly
+  TsLintLanguageService(@NotNull Project project,
+                        @NotNull NodePackage nodePackage,
+                        @NotNull VirtualFile workingDirectory,
+                        @Nullable CommandExecutor commandExecutor) {
     super(project);
     myWorkingDirectory = workingDirectory;
     myNodePackage = nodePackage;
+    myCommandExecutor = commandExecutor != null ? commandExecutor : new QueueCommandExecutor();
+    project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull List<? extends @NotNull VFileEvent> events) {
+        for (VFileEvent event : events) {
+          // any config in the 'extends' chain may have changed, as well as the files a config is resolved from
+          if (mayAffectConfig(event)) {
+            myConfigModificationCount.incrementAndGet();
+            break;
+          }
+        }
+      }
+    });
+  }
+
+  private static boolean mayAffectConfig(@NotNull VFileEvent event) {
+    if (isConfigRelatedFileName(PathUtil.getFileName(event.getPath()))) return true;
+    return event instanceof VFilePropertyChangeEvent &&
+           ((VFilePropertyChangeEvent)event).isRename() &&
+           isConfigRelatedFileName((String)((VFilePropertyChangeEvent)event).getOldValue());
+  }
+
+  /**
+   * TSLint configs, the {@code tsconfig} files of type-checked rules and {@code package.json} files configs may be resolved from
+   */
+  private static boolean isConfigRelatedFileName(@NotNull String fileName) {
+    return ArrayUtil.contains(fileName, TslintUtil.CONFIG_FILE_NAMES) ||
+           fileName.equals(PackageJsonUtil.FILE_NAME) ||
+           fileName.startsWith("tsconfig") && fileName.endsWith(".json");
   }
 
   @NotNull
@@ -56,8 +121,52 @@ public final class TsLintLanguageService extends JSLanguageServiceBase {
                                                           @Nullable VirtualFile config,
                                                           @Nullable String content,
                                                           @NotNull TsLintState state) {
-    return createHighlightFuture(virtualFile, config, state,
-                                 (filePath, configPath) -> new GetErrorsCommand(filePath, configPath,StringUtil.notNullize(content)));
+    String text = StringUtil.notNullize(content);
+    ResultKey key = createResultKey(virtualFile, config, text);
+    List<TsLinterError> cached = getCachedResult(key);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+    CompletableFuture<List<TsLinterError>> future =
+      createHighlightFuture(virtualFile, config, state, (filePath, configPath) -> new GetErrorsCommand(filePath, configPath, text));
+    return future == null ? null : future.thenApply(result -> cacheResult(key, result));
+  }
+
+  /**
+   * Same as {@link #highlight}, but files requested concurrently (as they are by "Inspect Code") are linted together,
+   * in a single round trip to the service per up to {@link #MAX_BATCH_SIZE} files.
+   */
+  @Nullable
+  public CompletableFuture<List<TsLinterError>> highlightInBatch(@NotNull VirtualFile virtualFile,
+                                                                 @Nullable VirtualFile config,
+                                                                 @Nullable String content,
+                                                                 @NotNull TsLintState state) {
+    String configFilePath = JSLanguageServiceUtil.normalizePathDoNotFollowSymlinks(config);
+    String path = JSLanguageServiceUtil.normalizePathDoNotFollowSymlinks(virtualFile);
+    if (configFilePath == null || path == null) {
+      // reported by the single file request
+      return highlight(virtualFile, config, content, state);
+    }
+    String text = StringUtil.notNullize(content);
+    ResultKey key = createResultKey(virtualFile, config, text);
+    List<TsLinterError> cached = getCachedResult(key);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    BatchItem item = new BatchItem(new GetErrorsCommand(LocalFilePath.create(path), LocalFilePath.create(configFilePath), text), path, key);
+    List<BatchItem> batch = null;
+    synchronized (myBatchLock) {
+      myPendingBatchItems.add(item);
+      if (!myBatchInProgress) {
+        myBatchInProgress = true;
+        batch = takePendingBatchItems();
+      }
+    }
+    if (batch != null) {
+      sendBatch(batch);
+    }
+    return item.future;
   }
 
   @Nullable
@@ -84,26 +193,96 @@ public final class TsLintLanguageService extends JSLanguageServiceBase {
       return null;
     }
 
-    final JSLanguageServiceQueue process = getProcess();
-    if (process == null) {
+    //doesn't pass content (file should be saved before)
+    BaseCommand command = commandProvider.apply(LocalFilePath.create(path),
+                                                    LocalFilePath.create(configFilePath));
+    Gson gson = JSLanguageServiceUtil.getGson(this);
+    CompletableFuture<List<TsLinterError>> future = myCommandExecutor.execute(command, element -> parseResults(element, path, gson));
+    if (future == null) {
       return CompletableFuture.completedFuture(Collections.singletonList(
         TsLinterError.createGlobalError(JSLanguageServiceUtil.getLanguageServiceCreationError(this))));
     }
+    return future;
+  }
 
-    //doesn't pass content (file should be saved before)
-    BaseCommand command = commandProvider.apply(LocalFilePath.create(path),
-                                                    LocalFilePath.create(configFilePath));
-    return process.execute(command, createHighlightProcessor(path));
+  private @NotNull List<BatchItem> takePendingBatchItems() {
+    List<BatchItem> pending = myPendingBatchItems;
+    if (pending.size() <= MAX_BATCH_SIZE) {
+      myPendingBatchItems = new ArrayList<>();
+      return pending;
+    }
+    List<BatchItem> batch = new ArrayList<>(pending.subList(0, MAX_BATCH_SIZE));
+    myPendingBatchItems = new ArrayList<>(pending.subList(MAX_BATCH_SIZE, pending.size()));
+    return batch;
   }
 
-  @NotNull
-  private JSLanguageServiceCommandProcessor<List<TsLinterError>> createHighlightProcessor(@NotNull String path) {
-    return (object, answer) -> parseResults(answer, path, JSLanguageServiceUtil.getGson(this));
+  /**
+   * Sends the batch and, when it is processed, the items that were requested meanwhile, until there are none.
+   */
+  private void sendBatch(@NotNull List<BatchItem> batch) {
+    List<String> paths = ContainerUtil.map(batch, item -> item.path);
+    GetErrorsForFilesCommand command = new GetErrorsForFilesCommand(ContainerUtil.map(batch, item -> item.command));
+    Gson gson = JSLanguageServiceUtil.getGson(this);
+    CompletableFuture<List<List<TsLinterError>>> future =
+      myCommandExecutor.execute(command, element -> parseBatchResults(element, paths, gson));
+    if (future == null) {
+      List<TsLinterError> error =
+        Collections.singletonList(TsLinterError.createGlobalError(JSLanguageServiceUtil.getLanguageServiceCreationError(this)));
+      future = CompletableFuture.completedFuture(Collections.nCopies(batch.size(), error));
+    }
+    future.whenComplete((results, throwable) -> {
+      for (int i = 0; i < batch.size(); i++) {
+        BatchItem item = batch.get(i);
+        if (throwable != null) {
+          item.future.completeExceptionally(throwable);
+        }
+        else {
+          item.future.complete(results == null ? null : cacheResult(item.key, results.get(i)));
+        }
+      }
+      List<BatchItem> next;
+      synchronized (myBatchLock) {
+        if (myPendingBatchItems.isEmpty()) {
+          myBatchInProgress = false;
+          return;
+        }
+        next = takePendingBatchItems();
+      }
+      sendBatch(next);
+    });
+  }
+
+  private @NotNull ResultKey createResultKey(@NotNull VirtualFile virtualFile, @Nullable VirtualFile config, @NotNull String content) {
+    return new ResultKey(virtualFile.getPath(), content.length(), content.hashCode(),
+                         config != null ? config.getPath() : null, config != null ? config.getModificationStamp() : -1,
+                         myConfigModificationCount.get(), myLinterVersion);
+  }
+
+  private @Nullable List<TsLinterError> getCachedResult(@NotNull ResultKey key) {
+    // the version is known only after the first response
+    if (key.linterVersion() == null) return null;
+    synchronized (myResultCache) {
+      return myResultCache.get(key);
+    }
+  }
+
+  /**
+   * Caches the result unless it is an error or the key has become stale while the file was being linted.
+   */
+  private @Nullable List<TsLinterError> cacheResult(@NotNull ResultKey key, @Nullable List<TsLinterError> result) {
+    if (result == null || ContainerUtil.exists(result, TsLinterError::isGlobal)) return result;
+    String version = myLinterVersion;
+    if (version == null || key.configModificationCount() != myConfigModificationCount.get()) return result;
+    ResultKey actualKey = key.linterVersion() == null ? key.withLinterVersion(version) : key;
+    if (!version.equals(actualKey.linterVersion())) return result;
+    synchronized (myResultCache) {
+      myResultCache.put(actualKey, result);
+    }
+    return result;
   }
 
   @Nullable
-  private static List<TsLinterError> parseResults(@NotNull JSLanguageServiceAnswer answer, @NotNull String path, @NotNull Gson gson) {
-    final JsonObject element = answer.getElement();
+  private List<TsLinterError> parseResults(@NotNull JsonObject element, @NotNull String path, @NotNull Gson gson) {
     final JsonElement error = element.get("error");
     if (error != null) {
       return Collections.singletonList(TsLinterError.createGlobalError(error.getAsString())); //NON-NLS
@@ -111,12 +290,37 @@ public final class TsLintLanguageService extends JSLanguageServiceBase {
     final JsonElement body = parseBody(element);
     if (body == null) return null;
     final String version = element.get("version").getAsString();
+    myLinterVersion = version;
     final SemVer tsLintVersion = SemVer.parseFromText(version);
     final boolean isZeroBased = TsLintOutputJsonParser.isVersionZeroBased(tsLintVersion);
     final TsLintOutputJsonParser parser = new TsLintOutputJsonParser(path, body, isZeroBased, gson);
     return new ArrayList<>(parser.getErrors());
   }
 
+  @Nullable
+  private List<List<TsLinterError>> parseBatchResults(@NotNull JsonObject element, @NotNull List<String> paths, @NotNull Gson gson) {
+    final JsonElement error = element.get("error");
+    if (error != null) {
+      List<TsLinterError> globalError = Collections.singletonList(TsLinterError.createGlobalError(error.getAsString())); //NON-NLS
+      return Collections.nCopies(paths.size(), globalError);
+    }
+    final JsonElement body = element.get("body");
+    if (body == null || !body.isJsonPrimitive() || !body.getAsJsonPrimitive().isString()) {
+      LOG.info(String.format("Error body type, should be a string with json inside. Body:'%s'", body));
+      return null;
+    }
+    final String version = element.get("version").getAsString();
+    myLinterVersion = version;
+    final boolean isZeroBased = TsLintOutputJsonParser.isVersionZeroBased(SemVer.parseFromText(version));
+    try {
+      return TsLintOutputJsonParser.parseBatch(paths, new StringReader(StringUtil.unquoteString(body.getAsString())), isZeroBased, gson);
+    }
+    catch (IOException | IllegalStateException e) {
+      LOG.info("Problem parsing batch body: " + e.getMessage(), e);
+      return null;
+    }
+  }
+
   private static JsonElement parseBody(@NotNull JsonObject element) {
     final JsonElement body = element.get("body");
     if (body == null) {
@@ -151,7 +355,55 @@ public final class TsLintLanguageService extends JSLanguageServiceBase {
     return false;
   }
 
-  private static abstract class BaseCommand implements JSLanguageServiceCommand, JSLanguageServiceSimpleCommand, JSLanguageServiceObject {
+  /**
+   * Sends commands to the service process and parses the answers; replaced in tests.
+   */
+  interface CommandExecutor {
+    /**
+     * @return {@code null} if the service process can't be started
+     */
+    @Nullable
+    <T> CompletableFuture<T> execute(@NotNull JSLanguageServiceCommand command, @NotNull Function<@NotNull JsonObject, T> parser);
+  }
+
+  private final class QueueCommandExecutor implements CommandExecutor {
+    @Override
+    public <T> @Nullable CompletableFuture<T> execute(@NotNull JSLanguageServiceCommand command,
+                                                      @NotNull Function<@NotNull JsonObject, T> parser) {
+      final JSLanguageServiceQueue process = getProcess();
+      if (process == null) {
+        return null;
+      }
+      return process.execute(command, (object, answer) -> parser.apply(answer.getElement()));
+    }
+  }
+
+  private record ResultKey(@NotNull String filePath,
+                           int contentLength,
+                           int contentHash,
+                           @Nullable String configPath,
+                           long configModificationStamp,
+                           long configModificationCount,
+                           @Nullable String linterVersion) {
+    @NotNull ResultKey withLinterVersion(@NotNull String version) {
+      return new ResultKey(filePath, contentLength, contentHash, configPath, configModificationStamp, configModificationCount, version);
+    }
+  }
+
+  private static final class BatchItem {
+    final GetErrorsCommand command;
+    final String path;
+    final ResultKey key;
+    final CompletableFuture<List<TsLinterError>> future = new CompletableFuture<>();
+
+    private BatchItem(@NotNull GetErrorsCommand command, @NotNull String path, @NotNull ResultKey key) {
+      this.command = command;
+      this.path = path;
+      this.key = key;
+    }
+  }
+
+  static abstract class BaseCommand implements JSLanguageServiceCommand, JSLanguageServiceSimpleCommand, JSLanguageServiceObject {
     public LocalFilePath filePath;
     @Nullable
     public LocalFilePath configPath;
@@ -168,7 +420,7 @@ public final class TsLintLanguageService extends JSLanguageServiceBase {
     }
   }
 
-  private static final class GetErrorsCommand extends BaseCommand{
+  static final class GetErrorsCommand extends BaseCommand{
     public String content;
     private GetErrorsCommand(LocalFilePath filePath, @Nullable LocalFilePath configPath, String content) {
       super(filePath, configPath);
@@ -182,7 +434,7 @@ public final class TsLintLanguageService extends JSLanguageServiceBase {
     }
   }
 
-  private static final class FixErrorsCommand extends BaseCommand{
+  static final class FixErrorsCommand extends BaseCommand{
     private FixErrorsCommand(LocalFilePath filePath, @Nullable LocalFilePath configPath) {
       super(filePath, configPath);
     }
@@ -194,6 +446,26 @@ public final class TsLintLanguageService extends JSLanguageServiceBase {
     }
   }
 
+  static final class GetErrorsForFilesCommand implements JSLanguageServiceCommand, JSLanguageServiceSimpleCommand, JSLanguageServiceObject {
+    public final List<GetErrorsCommand> files;
+
+    private GetErrorsForFilesCommand(@NotNull List<GetErrorsCommand> files) {
+      this.files = files;
+    }
+
+    @NotNull
+    @Override
+    public JSLanguageServiceObject toSerializableObject() {
+      return this;
+    }
+
+    @NotNull
+    @Override
+    public String getCommand() {
+      return "GetErrorsForFiles";
+    }
+  }
+
   private static final class Protocol extends JSLanguageServiceNodeStdProtocolBase {
     private final NodePackage myNodePackage;
     private final VirtualFile myWorkingDirectory;
@@ -6,6 +6,7 @@ import {readFileSync} from "fs"
 namespace TsLintCommands {
     export let GetErrors: string = "GetErrors";
     export let FixErrors: string = "FixErrors";
+    export let GetErrorsForFiles: string = "GetErrorsForFiles";
 }
 
 type LinterApi = {
@@ -39,6 +40,9 @@ export class TSLintPlugin implements LanguagePlugin {
             case TsLintCommands.FixErrors: {
                 return this.fixErrors(parsedObject.arguments);
             }
+            case TsLintCommands.GetErrorsForFiles: {
+                return this.getErrorsForFiles(parsedObject.arguments);
+            }
         }
 
         return null;
@@ -71,6 +75,23 @@ export class TSLintPlugin implements LanguagePlugin {
         return this.processLinting(toProcess, this.getOptions(false));
     }
 
+    /**
+     * Output is a JSON array with an element per file: either the failures in the "json" formatter format,
+     * or a string with the error that prevented linting the file
+     */
+    private getErrorsForFiles(toProcess: GetErrorsForFilesArguments): { output: string } {
+        const options = this.getOptions(false);
+        const outputs = toProcess.files.map(file => {
+            try {
+                const output = this.processLinting(file, options).output;
+                return output && output.trim().length > 0 ? output : "[]";
+            } catch (e) {
+                return JSON.stringify(e.toString() + "\n\n" + e.stack);
+            }
+        });
+        return {output: "[" + outputs.join(",") + "]"};
+    }
+
     private fixErrors(toProcess: FixErrorsArguments): LintResult {
         //TODO. why here?
         let contents = readFileSync(toProcess.filePath, "utf8");
@@ -62,4 +62,11 @@ interface GetErrorsArguments extends CommandArguments {
 }
 
 interface FixErrorsArguments extends CommandArguments {
+}
+
+interface GetErrorsForFilesArguments {
+    /**
+     * Files to check, linted in the given order
+     */
+    readonly files: GetErrorsArguments[];
 }
\ No newline at end of file
@@ -0,0 +1,219 @@
+package com.intellij.lang.javascript.linter.tslint.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.intellij.javascript.nodejs.util.NodePackage;
+import com.intellij.lang.javascript.linter.tslint.config.TsLintState;
+import com.intellij.lang.javascript.linter.tslint.execution.TsLintOutputJsonParser;
+import com.intellij.lang.javascript.linter.tslint.execution.TsLinterError;
+import com.intellij.lang.javascript.service.JSLanguageServiceCommand;
+import com.intellij.lang.javascript.service.protocol.LocalFilePath;
+import com.intellij.openapi.application.WriteAction;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.intellij.testFramework.fixtures.TempDirTestFixture;
+import com.intellij.testFramework.fixtures.impl.TempDirTestFixtureImpl;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+public class TsLintLanguageServiceTest extends BasePlatformTestCase {
+  private final TsLintState myState = TsLintState.DEFAULT;
+  private FakeCommandExecutor myExecutor;
+  private TsLintLanguageService myService;
+  private VirtualFile myConfig;
+
+  @Override
+  protected TempDirTestFixture createTempDirTestFixture() {
+    // commands are sent with local file paths
+    return new TempDirTestFixtureImpl();
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myExecutor = new FakeCommandExecutor();
+    myConfig = myFixture.getTempDirFixture().createFile("tslint.json", "{}");
+    myService = new TsLintLanguageService(getProject(), new NodePackage("/fake/tslint"), myConfig.getParent(), myExecutor);
+    Disposer.register(getTestRootDisposable(), myService);
+  }
+
+  public void testUnchangedFileIsLintedOnce() throws Exception {
+    VirtualFile file = myFixture.getTempDirFixture().createFile("a.ts", "");
+    List<TsLinterError> errors = highlight(file, "let a = 'a';");
+    assertEquals(1, errors.size());
+    assertEquals("quotemark: let a = 'a';", errors.get(0).getDescription());
+    assertSame(errors, highlight(file, "let a = 'a';"));
+    assertEquals(1, myExecutor.getRoundTripCount());
+
+    highlight(file, "let a = 'b';");
+    assertEquals(2, myExecutor.getRoundTripCount());
+    highlight(file, "let a = 'a';");
+    assertEquals(2, myExecutor.getRoundTripCount());
+  }
+
+  public void testConfigChangeInvalidatesResults() throws Exception {
+    VirtualFile file = myFixture.getTempDirFixture().createFile("a.ts", "");
+    highlight(file, "let a = 'a';");
+    WriteAction.runAndWait(() -> VfsUtil.saveText(myConfig, "{\"rules\": {}}"));
+    highlight(file, "let a = 'a';");
+    assertEquals(2, myExecutor.getRoundTripCount());
+  }
+
+  public void testUnrelatedFileCreationKeepsResults() throws Exception {
+    VirtualFile file = myFixture.getTempDirFixture().createFile("a.ts", "");
+    highlight(file, "let a = 'a';");
+    myFixture.getTempDirFixture().createFile("b.ts", "");
+    highlight(file, "let a = 'a';");
+    assertEquals(1, myExecutor.getRoundTripCount());
+
+    myFixture.getTempDirFixture().createFile("package.json", "{}");
+    highlight(file, "let a = 'a';");
+    assertEquals(2, myExecutor.getRoundTripCount());
+  }
+
+  public void testErrorsAreNotCached() throws Exception {
+    VirtualFile file = myFixture.getTempDirFixture().createFile("a.ts", "");
+    highlight(file, "let a = 'a';");
+    myExecutor.myResponder = command -> {
+      JsonObject response = new JsonObject();
+      response.addProperty("error", "Cannot lint");
+      return response;
+    };
+    VirtualFile other = myFixture.getTempDirFixture().createFile("b.ts", "");
+    assertTrue(highlight(other, "").get(0).isGlobal());
+    assertTrue(highlight(other, "").get(0).isGlobal());
+    assertEquals(3, myExecutor.getRoundTripCount());
+  }
+
+  public void testConcurrentRequestsAreBatched() throws Exception {
+    myExecutor.myRespondImmediately = false;
+    List<VirtualFile> files = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      files.add(myFixture.getTempDirFixture().createFile("file" + i + ".ts", ""));
+    }
+    List<CompletableFuture<List<TsLinterError>>> futures = new ArrayList<>();
+    for (int i = 0; i < files.size(); i++) {
+      futures.add(myService.highlightInBatch(files.get(i), myConfig, "let a" + i + " = 'a';", myState));
+    }
+    // the first file is sent alone, the rest is waiting for it to be processed
+    assertEquals(1, myExecutor.getRoundTripCount());
+    myExecutor.respondToPending();
+    assertEquals(2, myExecutor.getRoundTripCount());
+    myExecutor.respondToPending();
+    assertEquals(2, myExecutor.getRoundTripCount());
+
+    for (int i = 0; i < files.size(); i++) {
+      List<TsLinterError> errors = futures.get(i).get();
+      assertEquals(1, errors.size());
+      assertEquals("quotemark: let a" + i + " = 'a';", errors.get(0).getDescription());
+      assertEquals(files.get(i).getPath(), errors.get(0).getAbsoluteFilePath());
+    }
+
+    myExecutor.myRespondImmediately = true;
+    assertSame(futures.get(3).get(), myService.highlightInBatch(files.get(3), myConfig, "let a3 = 'a';", myState).get());
+    assertSame(futures.get(3).get(), highlight(files.get(3), "let a3 = 'a';"));
+    assertEquals(2, myExecutor.getRoundTripCount());
+  }
+
+  public void testParseBatchOutput() throws Exception {
+    String output = "[[{\"name\":\"/src/a.ts\",\"failure\":\"Missing semicolon\",\"ruleName\":\"semicolon\",\"ruleSeverity\":\"warning\"," +
+                    "\"startPosition\":{\"line\":0,\"character\":5,\"position\":5}," +
+                    "\"endPosition\":{\"line\":0,\"character\":6,\"position\":6}," +
+                    "\"fix\":{\"innerStart\":6,\"innerLength\":0,\"innerText\":\";\"}}," +
+                    "{\"name\":\"/src/a.ts\",\"failure\":\"no position\",\"ruleName\":\"r\"}]," +
+                    "\"Cannot read configuration\",[]]";
+    List<List<TsLinterError>> results =
+      TsLintOutputJsonParser.parseBatch(List.of("/src/a.ts", "/src/b.ts", "/src/c.ts"), new StringReader(output), false, new Gson());
+    assertEquals(3, results.size());
+    assertEquals(1, results.get(0).size());
+    TsLinterError error = results.get(0).get(0);
+    assertEquals("Missing semicolon", error.getDescription());
+    assertEquals(1, error.getLine());
+    assertEquals(6, error.getColumn());
+    assertEquals(7, error.getEndColumn());
+    assertTrue(error.hasFix());
+    assertTrue(results.get(1).get(0).isGlobal());
+    assertEmpty(results.get(2));
+  }
+
+  private @NotNull List<TsLinterError> highlight(@NotNull VirtualFile file, @NotNull String content) throws Exception {
+    CompletableFuture<List<TsLinterError>> future = myService.highlight(file, myConfig, content, myState);
+    assertNotNull(future);
+    return future.get();
+  }
+
+  /**
+   * Lints files by reporting a single 'quotemark' failure with the file content as the message.
+   */
+  private static @NotNull JsonObject lint(@NotNull JSLanguageServiceCommand command) {
+    JsonObject response = new JsonObject();
+    response.addProperty("version", "5.20.1");
+    if (command instanceof TsLintLanguageService.GetErrorsForFilesCommand) {
+      List<String> outputs = ContainerUtil.map(((TsLintLanguageService.GetErrorsForFilesCommand)command).files,
+                                               file -> createFailures(file).toString());
+      response.addProperty("body", "[" + String.join(",", outputs) + "]");
+    }
+    else {
+      response.addProperty("body", createFailures((TsLintLanguageService.GetErrorsCommand)command).toString());
+    }
+    return response;
+  }
+
+  private static @NotNull JsonArray createFailures(@NotNull TsLintLanguageService.GetErrorsCommand command) {
+    JsonObject position = new JsonObject();
+    position.addProperty("line", 0);
+    position.addProperty("character", 0);
+    JsonObject failure = new JsonObject();
+    failure.addProperty("name", LocalFilePath.getPath(command.filePath));
+    failure.addProperty("failure", "quotemark: " + command.content);
+    failure.addProperty("ruleName", "quotemark");
+    failure.add("startPosition", position);
+    failure.add("endPosition", position);
+    JsonArray failures = new JsonArray();
+    failures.add(failure);
+    return failures;
+  }
+
+  private static final class FakeCommandExecutor implements TsLintLanguageService.CommandExecutor {
+    private final List<JSLanguageServiceCommand> myCommands = Collections.synchronizedList(new ArrayList<>());
+    private final List<Runnable> myPendingResponses = Collections.synchronizedList(new ArrayList<>());
+    private volatile Function<JSLanguageServiceCommand, JsonObject> myResponder = TsLintLanguageServiceTest::lint;
+    private volatile boolean myRespondImmediately = true;
+
+    @Override
+    public <T> @Nullable CompletableFuture<T> execute(@NotNull JSLanguageServiceCommand command,
+                                                      @NotNull Function<@NotNull JsonObject, T> parser) {
+      myCommands.add(command);
+      CompletableFuture<T> future = new CompletableFuture<>();
+      Runnable response = () -> future.complete(parser.apply(myResponder.apply(command)));
+      if (myRespondImmediately) {
+        response.run();
+      }
+      else {
+        myPendingResponses.add(response);
+      }
+      return future;
+    }
+
+    int getRoundTripCount() {
+      return myCommands.size();
+    }
+
+    void respondToPending() {
+      List<Runnable> responses = new ArrayList<>(myPendingResponses);
+      myPendingResponses.clear();
+      responses.forEach(Runnable::run);
+    }
+  }
+}